@@ -34,17 +34,26 @@ import java.io.File;
 public class AutoMountVirtualFileSystemRegistry extends VirtualFileSystemRegistry {
     private static final Logger LOG = LoggerFactory.getLogger(AutoMountVirtualFileSystemRegistry.class);
 
-    private final LocalFSMountStrategy mountStrategy;
-    private final EventService         eventService;
-    private final SearcherProvider     searcherProvider;
+    private final LocalFSMountStrategy  mountStrategy;
+    private final EventService          eventService;
+    private final SearcherProvider      searcherProvider;
+    private final LocalFileSystemConfig config;
 
-    @Inject
     public AutoMountVirtualFileSystemRegistry(LocalFSMountStrategy mountStrategy,
                                               EventService eventService,
                                               @Nullable SearcherProvider searcherProvider) {
+        this(mountStrategy, eventService, searcherProvider, LocalFileSystemConfig.DEFAULT);
+    }
+
+    @Inject
+    public AutoMountVirtualFileSystemRegistry(LocalFSMountStrategy mountStrategy,
+                                              EventService eventService,
+                                              @Nullable SearcherProvider searcherProvider,
+                                              LocalFileSystemConfig config) {
         this.mountStrategy = mountStrategy;
         this.eventService = eventService;
         this.searcherProvider = searcherProvider;
+        this.config = config;
     }
 
     @Override
@@ -54,6 +63,6 @@ public class AutoMountVirtualFileSystemRegistry extends VirtualFileSystemRegistr
             return null;
         }
         LOG.debug("Using {} as mount point for workspace {} ", wsPath.getAbsolutePath(), vfsId);
-        return new LocalFileSystemProvider(vfsId, mountStrategy, eventService, searcherProvider, this);
+        return new LocalFileSystemProvider(vfsId, mountStrategy, eventService, searcherProvider, this, config);
     }
 }
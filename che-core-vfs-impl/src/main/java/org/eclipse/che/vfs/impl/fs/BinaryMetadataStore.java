@@ -0,0 +1,555 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.ACL_DIR;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.ACL_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.LOCKS_DIR;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.LOCK_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.PROPERTIES_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.PROPS_DIR;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.SERVICE_DIR;
+
+/**
+ * Keeps metadata of all items of mount point in single append-only file. Each change of metadata appends record to the end
+ * of file:
+ * <pre>
+ *     byte   kind of metadata: lock, ACL or properties
+ *     int    length of path
+ *     byte[] path in UTF-8
+ *     int    length of serialized metadata or -1 if metadata is removed
+ *     byte[] serialized metadata, the same format as in side files, see {@link DataSerializer}
+ *     int    CRC32 of all previous fields of record
+ * </pre>
+ * Position of the latest record of each item is kept in memory, so read of metadata needs single read from file. Paths are
+ * kept sorted, so item and its children are found without scanning of all items. File is rewritten without outdated records
+ * when most of it is occupied by outdated records.
+ * <p/>
+ * Changes are not forced to disk one by one, writing to file is left to operating system. Only rewritten file is forced to disk
+ * before it replaces the old one. Incomplete or broken record at the end of file, e.g. after crash, is dropped when file is
+ * opened, CRC32 of record detects it. If broken record is found in the middle of file, copy of file is saved next to it with
+ * suffix '.corrupted' before all records after the broken one are dropped.
+ * <p/>
+ * Items may be removed or renamed by other programs without updating of metadata. When metadata of item is read and item
+ * does not exist any more all metadata of item is removed, so it is never applied to other item created later with the same
+ * path.
+ * <p/>
+ * When file does not exist yet metadata is migrated from side files (see {@link SideFileMetadataStore}) of all folders of
+ * mount point. Side files are not removed, so mount point may be switched back to side files, changes of metadata made after
+ * migration are not visible in side files.
+ */
+class BinaryMetadataStore implements MetadataStore {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryMetadataStore.class);
+
+    static final String STORE_FILE = SERVICE_DIR + java.io.File.separatorChar + "metadata";
+
+    private static final int MAGIC       = 0x56465344;
+    /* Records of version 1 don't have checksum. Such file is rewritten in current format when it is opened. */
+    private static final int VERSION_1   = 1;
+    private static final int VERSION     = 2;
+    private static final int HEADER_SIZE = 8;
+
+    /* Kinds of metadata. */
+    private static final byte LOCK  = 0;
+    private static final byte ACL   = 1;
+    private static final byte PROPS = 2;
+
+    private static final int REMOVED = -1;
+
+    /* File is not compacted until it is smaller than this size. */
+    private static final long COMPACT_MIN_SIZE = 1 << 20;
+
+    private final java.io.File                ioRoot;
+    private final java.io.File                storeFile;
+    private final AccessControlListSerializer aclSerializer;
+    private final FileLockSerializer          locksSerializer;
+    private final FileMetadataSerializer      metadataSerializer;
+
+    /* All fields below are guarded by this store. Index is null until store is opened. Keys are paths of items. */
+    private NavigableMap<String, Entry> index;
+    private FileChannel                 channel;
+    private long                        size;
+    private long                        liveSize;
+
+    BinaryMetadataStore(java.io.File ioRoot) {
+        this.ioRoot = ioRoot;
+        storeFile = new java.io.File(ioRoot, STORE_FILE);
+        aclSerializer = new AccessControlListSerializer();
+        locksSerializer = new FileLockSerializer();
+        metadataSerializer = new FileMetadataSerializer();
+    }
+
+    @Override
+    public FileLock getLock(Path path) throws IOException {
+        return read(path, LOCK, locksSerializer);
+    }
+
+    @Override
+    public void setLock(Path path, FileLock lock) throws IOException {
+        write(path, LOCK, lock, locksSerializer);
+    }
+
+    @Override
+    public AccessControlList getACL(Path path) throws IOException {
+        return read(path, ACL, aclSerializer);
+    }
+
+    @Override
+    public void setACL(Path path, AccessControlList acl) throws IOException {
+        write(path, ACL, acl == null || acl.isEmpty() ? null : acl, aclSerializer);
+    }
+
+    @Override
+    public Map<String, String[]> getProperties(Path path) throws IOException {
+        return read(path, PROPS, metadataSerializer);
+    }
+
+    @Override
+    public void setProperties(Path path, Map<String, String[]> properties) throws IOException {
+        write(path, PROPS, properties == null || properties.isEmpty() ? null : properties, metadataSerializer);
+    }
+
+    @Override
+    public synchronized void copy(Path source, Path destination, Collection<Path> skip) throws IOException {
+        open();
+        final String sourcePath = source.toString();
+        final String destinationPath = destination.toString();
+        // Copy list of items since index is updated while we append new records.
+        final List<Map.Entry<String, Entry>> entries = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : subtree(sourcePath).entrySet()) {
+            if (!isSkipped(e.getKey(), skip)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(e));
+            }
+        }
+        for (Map.Entry<String, Entry> e : entries) {
+            final String path = e.getKey();
+            final Entry entry = e.getValue();
+            if (path.equals(sourcePath)) {
+                // Lock and ACL of item itself are never copied.
+                copyRecord(entry, PROPS, destinationPath);
+            } else {
+                final String copyPath = (destination.isRoot() ? "" : destinationPath)
+                                        + path.substring(source.isRoot() ? 0 : sourcePath.length());
+                copyRecord(entry, ACL, copyPath);
+                copyRecord(entry, PROPS, copyPath);
+            }
+        }
+        compactIfNeeded(false);
+    }
+
+    @Override
+    public synchronized void delete(Path path) throws IOException {
+        open();
+        for (String removed : new ArrayList<>(subtree(path.toString()).keySet())) {
+            removeAll(removed);
+        }
+        compactIfNeeded(false);
+    }
+
+    @Override
+    public synchronized void reset() {
+        close();
+    }
+
+    private synchronized <T> T read(Path path, byte kind, DataSerializer<T> serializer) throws IOException {
+        open();
+        final String key = path.toString();
+        final Entry entry = index.get(key);
+        if (entry == null || entry.offsets[kind] < 0) {
+            return null;
+        }
+        if (!toIoFile(key).exists()) {
+            // Item was removed or renamed by other program. Don't apply its metadata to new item with the same path.
+            removeAll(key);
+            return null;
+        }
+        return serializer.read(new DataInputStream(new ByteArrayInputStream(readPayload(channel, entry, kind))));
+    }
+
+    private synchronized <T> void write(Path path, byte kind, T value, DataSerializer<T> serializer) throws IOException {
+        open();
+        final String key = path.toString();
+        if (value == null) {
+            final Entry entry = index.get(key);
+            if (entry == null || entry.offsets[kind] < 0) {
+                return; // Nothing to remove.
+            }
+            append(key, kind, null);
+        } else {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream dos = new DataOutputStream(bytes);
+            serializer.write(dos, value);
+            dos.flush();
+            append(key, kind, bytes.toByteArray());
+        }
+        compactIfNeeded(false);
+    }
+
+    /* Item and all its children. Paths are sorted as strings, so paths of children are between "path/" and "path0". */
+    private NavigableMap<String, Entry> subtree(String path) {
+        if ("/".equals(path)) {
+            return index;
+        }
+        final NavigableMap<String, Entry> subtree = new TreeMap<>(index.subMap(path + '/', true, path + '0', false));
+        final Entry entry = index.get(path);
+        if (entry != null) {
+            subtree.put(path, entry);
+        }
+        return subtree;
+    }
+
+    private boolean isSkipped(String path, Collection<Path> skip) {
+        for (Path skipped : skip) {
+            final String skippedPath = skipped.toString();
+            if (path.equals(skippedPath) || path.startsWith(skippedPath + '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private java.io.File toIoFile(String path) {
+        return new java.io.File(ioRoot, path.replace('/', java.io.File.separatorChar));
+    }
+
+    private void removeAll(String path) throws IOException {
+        for (byte kind = LOCK; kind <= PROPS; kind++) {
+            final Entry entry = index.get(path);
+            if (entry != null && entry.offsets[kind] >= 0) {
+                append(path, kind, null);
+            }
+        }
+    }
+
+    private void copyRecord(Entry entry, byte kind, String destination) throws IOException {
+        if (entry.offsets[kind] >= 0) {
+            append(destination, kind, readPayload(channel, entry, kind));
+        }
+    }
+
+    private byte[] readPayload(FileChannel from, Entry entry, byte kind) throws IOException {
+        final ByteBuffer buff = ByteBuffer.allocate(entry.lengths[kind]);
+        long position = entry.offsets[kind];
+        while (buff.hasRemaining()) {
+            final int r = from.read(buff, position);
+            if (r < 0) {
+                throw new EOFException(String.format("Unexpected end of file %s. ", storeFile));
+            }
+            position += r;
+        }
+        return buff.array();
+    }
+
+    /* Appends record to the end of file and updates index. Value null means that metadata is removed. */
+    private void append(String path, byte kind, byte[] payload) throws IOException {
+        final byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        final int payloadOffset = 1 + 4 + pathBytes.length + 4;
+        final int recordSize = payloadOffset + (payload == null ? 0 : payload.length) + 4;
+        final ByteBuffer record = ByteBuffer.allocate(recordSize);
+        record.put(kind).putInt(pathBytes.length).put(pathBytes).putInt(payload == null ? REMOVED : payload.length);
+        if (payload != null) {
+            record.put(payload);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int)crc.getValue());
+        record.flip();
+        long position = size;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        update(path, kind, payload == null ? -1 : size + payloadOffset, payload == null ? 0 : payload.length, recordSize);
+        size += recordSize;
+    }
+
+    private void update(String path, byte kind, long offset, int length, int recordSize) {
+        Entry entry = index.get(path);
+        if (entry == null) {
+            if (offset < 0) {
+                return;
+            }
+            index.put(path, entry = new Entry());
+        }
+        if (entry.offsets[kind] >= 0) {
+            liveSize -= entry.recordSizes[kind];
+        }
+        entry.offsets[kind] = offset;
+        entry.lengths[kind] = length;
+        entry.recordSizes[kind] = offset < 0 ? 0 : recordSize;
+        if (offset >= 0) {
+            liveSize += recordSize;
+        } else if (entry.isEmpty()) {
+            index.remove(path);
+        }
+    }
+
+    private void open() throws IOException {
+        if (index != null) {
+            return;
+        }
+        if (!storeFile.exists()) {
+            migrate();
+        }
+        channel = FileChannel.open(storeFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = new TreeMap<>();
+        size = HEADER_SIZE;
+        liveSize = HEADER_SIZE;
+        try {
+            if (load() == VERSION_1) {
+                compactIfNeeded(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /* Reads all records of file and returns version of file format. */
+    private int load() throws IOException {
+        final long fileSize = channel.size();
+        final CRC32 crc = new CRC32();
+        // Do not close stream, it closes channel.
+        final DataInputStream dis = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel.position(0))), crc));
+        if (fileSize < HEADER_SIZE || dis.readInt() != MAGIC) {
+            throw new IOException(String.format("Invalid format of metadata file %s. ", storeFile));
+        }
+        final int version = dis.readInt();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException(String.format("Unsupported version %d of metadata file %s. ", version, storeFile));
+        }
+        final int crcSize = version == VERSION_1 ? 0 : 4;
+        // End of record that is being read, -1 if it is unknown since length fields are broken, then the rest of file is saved.
+        long recordEnd = -1;
+        try {
+            while (size < fileSize) {
+                recordEnd = -1;
+                crc.reset();
+                final byte kind = dis.readByte();
+                final int pathLength = dis.readInt();
+                if (kind < LOCK || kind > PROPS || pathLength < 0 || pathLength > fileSize - size) {
+                    throw new CorruptedRecordException();
+                }
+                final byte[] pathBytes = new byte[pathLength];
+                dis.readFully(pathBytes);
+                final int length = dis.readInt();
+                if (length < REMOVED || length > fileSize - size) {
+                    throw new CorruptedRecordException();
+                }
+                final int payloadOffset = 1 + 4 + pathBytes.length + 4;
+                final int recordSize = payloadOffset + Math.max(length, 0) + crcSize;
+                recordEnd = size + recordSize;
+                if (length > 0) {
+                    dis.readFully(new byte[length]);
+                }
+                if (crcSize > 0) {
+                    final int expected = (int)crc.getValue();
+                    if (dis.readInt() != expected) {
+                        throw new CorruptedRecordException();
+                    }
+                }
+                update(new String(pathBytes, StandardCharsets.UTF_8), kind,
+                       length == REMOVED ? -1 : size + payloadOffset, Math.max(length, 0), recordSize);
+                size += recordSize;
+            }
+        } catch (EOFException e) {
+            LOG.warn("Incomplete record at the end of metadata file {}, drop {} bytes. ", storeFile, fileSize - size);
+            channel.truncate(size);
+        } catch (CorruptedRecordException e) {
+            if (recordEnd >= fileSize) {
+                LOG.warn("Broken record at the end of metadata file {}, drop {} bytes. ", storeFile, fileSize - size);
+            } else {
+                final java.io.File corrupted = new java.io.File(storeFile.getPath() + ".corrupted");
+                Files.copy(storeFile.toPath(), corrupted.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                LOG.error("Broken record in metadata file {} at position {}, drop {} bytes, copy of file is saved in {}. ",
+                          storeFile, size, fileSize - size, corrupted);
+            }
+            channel.truncate(size);
+        }
+        return version;
+    }
+
+    private void compactIfNeeded(boolean force) throws IOException {
+        if (!force && (size < COMPACT_MIN_SIZE || liveSize * 2 > size)) {
+            return;
+        }
+        final java.io.File compacted = new java.io.File(storeFile.getPath() + ".tmp");
+        final NavigableMap<String, Entry> oldIndex = index;
+        final FileChannel oldChannel = channel;
+        final long oldSize = size;
+        final long oldLiveSize = liveSize;
+        final FileChannel newChannel = createStoreFile(compacted);
+        try {
+            index = new TreeMap<>();
+            channel = newChannel;
+            size = HEADER_SIZE;
+            liveSize = HEADER_SIZE;
+            for (Map.Entry<String, Entry> e : oldIndex.entrySet()) {
+                for (byte kind = LOCK; kind <= PROPS; kind++) {
+                    if (e.getValue().offsets[kind] >= 0) {
+                        append(e.getKey(), kind, readPayload(oldChannel, e.getValue(), kind));
+                    }
+                }
+            }
+            newChannel.force(false);
+            // Opened channel remains valid after move.
+            Files.move(compacted.toPath(), storeFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(newChannel);
+            index = oldIndex;
+            channel = oldChannel;
+            size = oldSize;
+            liveSize = oldLiveSize;
+            Files.deleteIfExists(compacted.toPath());
+            throw e;
+        }
+        closeQuietly(oldChannel);
+    }
+
+    /* Creates metadata file from side files. Side files are kept. */
+    private void migrate() throws IOException {
+        final java.io.File migrated = new java.io.File(storeFile.getPath() + ".tmp");
+        final int[] folders = new int[1];
+        index = new TreeMap<>();
+        size = HEADER_SIZE;
+        liveSize = HEADER_SIZE;
+        try (FileChannel newChannel = createStoreFile(migrated)) {
+            channel = newChannel;
+            final java.nio.file.Path rootPath = ioRoot.toPath();
+            Files.walkFileTree(rootPath, new SimpleFileVisitor<java.nio.file.Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(java.nio.file.Path dir, BasicFileAttributes attrs) throws IOException {
+                    final String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+                    if (SERVICE_DIR.equals(name)) {
+                        final Path owner = Path.fromString(rootPath.relativize(dir.getParent()).toString()
+                                                                   .replace(java.io.File.separatorChar, '/'));
+                        migrateSideFiles(owner, dir.getParent().resolve(LOCKS_DIR), LOCK_FILE_SUFFIX, LOCK);
+                        migrateSideFiles(owner, dir.getParent().resolve(ACL_DIR), ACL_FILE_SUFFIX, ACL);
+                        migrateSideFiles(owner, dir.getParent().resolve(PROPS_DIR), PROPERTIES_FILE_SUFFIX, PROPS);
+                        folders[0]++;
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return ".git".equals(name) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(java.nio.file.Path file, IOException e) throws IOException {
+                    LOG.warn("Unable read {} while migrate metadata: {}", file, e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            newChannel.force(false);
+        } finally {
+            channel = null;
+            index = null;
+        }
+        Files.move(migrated.toPath(), storeFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (folders[0] > 0) {
+            LOG.info("Metadata of {} folders under {} migrated to {}", folders[0], ioRoot, storeFile);
+        }
+    }
+
+    private void migrateSideFiles(Path owner, java.nio.file.Path dir, String suffix, byte kind) throws IOException {
+        final String[] names = dir.toFile().list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (!name.endsWith(suffix)) {
+                continue;
+            }
+            final String itemName = name.substring(0, name.length() - suffix.length());
+            if (itemName.isEmpty() && !owner.isRoot()) {
+                continue;
+            }
+            // Format of records is the same as format of side files.
+            append((itemName.isEmpty() ? Path.ROOT : owner.newPath(itemName)).toString(), kind, Files.readAllBytes(dir.resolve(name)));
+        }
+    }
+
+    private FileChannel createStoreFile(java.io.File file) throws IOException {
+        Files.createDirectories(file.toPath().getParent());
+        final FileChannel newChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            newChannel.write(header);
+        }
+        return newChannel;
+    }
+
+    private void close() {
+        closeQuietly(channel);
+        channel = null;
+        index = null;
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /* Record with wrong checksum or fields. */
+    private static class CorruptedRecordException extends IOException {
+        CorruptedRecordException() {
+            super("Corrupted record. ");
+        }
+    }
+
+    /** Position of the latest record of each kind of metadata of item. */
+    private static class Entry {
+        final long[] offsets     = {-1, -1, -1};
+        final int[]  lengths     = new int[3];
+        final int[]  recordSizes = new int[3];
+
+        boolean isEmpty() {
+            return offsets[LOCK] < 0 && offsets[ACL] < 0 && offsets[PROPS] < 0;
+        }
+    }
+}
@@ -18,7 +18,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
@@ -32,13 +31,15 @@ public class CleanableSearcher extends FSIndexSearcher {
     private static final Logger LOG = LoggerFactory.getLogger(CleanableSearcher.class);
     private final CleanableSearcherProvider searcherService;
 
-    private final AtomicBoolean              initFlag;
     private final AtomicReference<Exception> initError;
 
     CleanableSearcher(CleanableSearcherProvider searcherService, java.io.File indexDir, VirtualFileFilter filter) {
         super(indexDir, filter);
         this.searcherService = searcherService;
-        initFlag = new AtomicBoolean();
+        setCodeSearch(searcherService.isCodeSearch());
+        if (searcherService.getMaxStaleness() > 0) {
+            setAsyncUpdates(searcherService.getUpdateExecutor(), searcherService.getMaxStaleness());
+        }
         initError = new AtomicReference<>();
     }
 
@@ -51,9 +52,9 @@ public class CleanableSearcher extends FSIndexSearcher {
                 @Override
                 public void run() {
                     try {
-                        CleanableSearcher.this.addTree(mountPoint.getRoot());
-                        initFlag.set(true);
-                    } catch (ServerException e) {
+                        CleanableSearcher.this.initInParallel(mountPoint, searcherService.getWalkPool(), executor,
+                                                              searcherService.getIndexThreads());
+                    } catch (ServerException | RuntimeException e) {
                         initError.set(e);
                         LOG.error(e.getMessage());
                     }
@@ -67,17 +68,13 @@ public class CleanableSearcher extends FSIndexSearcher {
         return initError.get();
     }
 
-    // for test
-    boolean initialized() {
-        return initFlag.get();
-    }
-
     @Override
     public void close() {
         searcherService.close(this);
+        doClose();
     }
 
-    void doClose() {
+    private void doClose() {
         super.close();
         final java.io.File dir = getIndexDir();
         if (!deleteRecursive(dir)) {
@@ -11,26 +11,15 @@
 package org.eclipse.che.vfs.impl.fs;
 
 import org.eclipse.che.api.core.ServerException;
-import org.eclipse.che.api.vfs.server.MountPoint;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
-import org.eclipse.che.api.vfs.server.search.LuceneSearcherProvider;
-import org.eclipse.che.api.vfs.server.search.Searcher;
-import org.eclipse.che.api.vfs.server.util.MediaTypeFilter;
-import org.eclipse.che.api.vfs.server.util.VirtualFileFilters;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.che.commons.annotation.Nullable;
 
-import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Iterator;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * NOTE: This implementation always create new index in new directory. Index is not reused after call {@link
@@ -39,76 +28,33 @@ import java.util.concurrent.Executors;
  * @author andrew00x
  */
 @Singleton
-public class CleanableSearcherProvider extends LuceneSearcherProvider {
-    private final ConcurrentMap<java.io.File, CleanableSearcher> instances;
-    private final ExecutorService                                executor;
-    private final java.io.File                                   indexRootDir;
-    private final Set<VirtualFileFilter>                         filters;
-
+public class CleanableSearcherProvider extends FSIndexSearcherProvider<CleanableSearcher> {
+    /** @see FSIndexSearcherProvider#FSIndexSearcherProvider(java.io.File, Set, Long, Boolean, String) */
     @Inject
     CleanableSearcherProvider(@Named("vfs.local.fs_index_root_dir") java.io.File indexRootDir,
-                              @Named("vfs.index_filter") Set<VirtualFileFilter> filters) {
-        this.indexRootDir = indexRootDir;
-        this.filters = filters;
-        executor = Executors.newFixedThreadPool(1 + Runtime.getRuntime().availableProcessors(),
-                                                new ThreadFactoryBuilder().setNameFormat("LocalVirtualFileSystem-CleanableSearcher-%d")
-                                                                          .setDaemon(true).build());
-        instances = new ConcurrentHashMap<>();
-    }
-
-    @Override
-    public Searcher getSearcher(final MountPoint mountPoint, boolean create) throws ServerException {
-        final java.io.File vfsIoRoot = ((VirtualFileImpl)mountPoint.getRoot()).getIoFile();
-        CleanableSearcher searcher = instances.get(vfsIoRoot);
-        if (searcher == null && create) {
-            final java.io.File myIndexDir;
-            final CleanableSearcher newSearcher;
-            try {
-                Files.createDirectories(indexRootDir.toPath());
-                myIndexDir = Files.createTempDirectory(indexRootDir.toPath(), null).toFile();
-                final VirtualFileFilter filter;
-                if (!filters.isEmpty()) {
-                    final VirtualFileFilter[] myFilters = new VirtualFileFilter[filters.size() + 1];
-                    final Iterator<VirtualFileFilter> iterator = filters.iterator();
-                    for (int i = 1; i < myFilters.length; i++) {
-                        myFilters[i] = iterator.next();
-                    }
-                    myFilters[0] = new MediaTypeFilter(getIndexedMediaTypes());
-                    filter = VirtualFileFilters.createAndFilter(myFilters);
-                } else {
-                    filter = new MediaTypeFilter(getIndexedMediaTypes());
-                }
-                newSearcher = new CleanableSearcher(this, myIndexDir, filter);
-            } catch (IOException e) {
-                throw new ServerException("Unable create searcher. " + e.getMessage(), e);
-            }
-            searcher = instances.putIfAbsent(vfsIoRoot, newSearcher);
-            if (searcher == null) {
-                searcher = newSearcher;
-                searcher.init(mountPoint);
-            } else {
-                // not need this directory
-                myIndexDir.delete();
-            }
-        }
-        return searcher;
+                              @Named("vfs.index_filter") Set<VirtualFileFilter> filters,
+                              @Nullable @Named("vfs.local.fs_index_max_staleness") Long maxStaleness,
+                              @Nullable @Named("vfs.local.fs_index_code_search") Boolean codeSearch) {
+        super(indexRootDir, filters, maxStaleness, codeSearch, "LocalVirtualFileSystem-CleanableSearcher");
     }
 
-    void close(CleanableSearcher searcher) {
-        instances.values().remove(searcher);
-        searcher.doClose();
+    CleanableSearcherProvider(java.io.File indexRootDir, Set<VirtualFileFilter> filters) {
+        this(indexRootDir, filters, 0L, false);
     }
 
-    @PreDestroy
-    private void stop() {
-        executor.shutdownNow();
-        for (CleanableSearcher searcher : instances.values()) {
-            searcher.close();
+    @Override
+    protected CleanableSearcher createSearcher(java.io.File vfsIoRoot, VirtualFileFilter filter) throws ServerException {
+        try {
+            Files.createDirectories(getIndexRootDir().toPath());
+            return new CleanableSearcher(this, Files.createTempDirectory(getIndexRootDir().toPath(), null).toFile(), filter);
+        } catch (IOException e) {
+            throw new ServerException("Unable create searcher. " + e.getMessage(), e);
         }
     }
 
-    ExecutorService getExecutor() {
-        return executor;
+    @Override
+    protected void discardSearcher(CleanableSearcher searcher) {
+        // not need this directory
+        searcher.getIndexDir().delete();
     }
 }
-
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.MountPoint;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.search.LuceneSearcherProvider;
+import org.eclipse.che.api.vfs.server.search.Searcher;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Base class for providers of {@link FSIndexSearcher}. Keeps one searcher per virtual filesystem and thread pools that are shared by
+ * all searchers.
+ *
+ * @param <T>
+ *         type of searcher
+ */
+public abstract class FSIndexSearcherProvider<T extends FSIndexSearcher> extends LuceneSearcherProvider {
+    private final ConcurrentMap<java.io.File, T> instances;
+    private final ExecutorService                executor;
+    private final ExecutorService                updateExecutor;
+    private final long                           maxStaleness;
+    private final boolean                        codeSearch;
+    private final ForkJoinPool                   walkPool;
+    private final int                            indexThreads;
+    private final java.io.File                   indexRootDir;
+    private final Set<VirtualFileFilter>         filters;
+
+    /**
+     * @param indexRootDir
+     *         directory where index of each virtual filesystem is stored
+     * @param filters
+     *         filters of files which content must be indexed
+     * @param maxStaleness
+     *         max time in milliseconds after that changes of files become visible for search. If this parameter is greater than
+     *         {@code 0} index is updated asynchronously in background and search may not see the latest changes of files. If this
+     *         parameter is {@code null} or {@code 0} index is updated synchronously when file is changed, this is default mode.
+     * @param codeSearch
+     *         if {@code true} trigrams of content of files are added in index to find quickly files that contain substring or match
+     *         regular expression. Index is much bigger in this mode. Code search mode is turned off by default.
+     * @param threadNamePrefix
+     *         prefix of names of threads of this provider
+     */
+    protected FSIndexSearcherProvider(java.io.File indexRootDir, Set<VirtualFileFilter> filters, Long maxStaleness, Boolean codeSearch,
+                                      String threadNamePrefix) {
+        this.indexRootDir = indexRootDir;
+        this.filters = filters;
+        this.maxStaleness = maxStaleness == null ? 0 : maxStaleness;
+        this.codeSearch = codeSearch != null && codeSearch;
+        indexThreads = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(1 + indexThreads, new ThreadFactoryBuilder().setNameFormat(threadNamePrefix + "-%d")
+                                                                                            .setDaemon(true).build());
+        updateExecutor = Executors.newFixedThreadPool(indexThreads, new ThreadFactoryBuilder()
+                .setNameFormat(threadNamePrefix + "-Updater-%d").setDaemon(true).build());
+        // Traverses folders when index is initialized. Threads mostly wait for indexing threads, so small pool is enough.
+        walkPool = new ForkJoinPool(Math.max(2, indexThreads / 2));
+        instances = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Searcher getSearcher(MountPoint mountPoint, boolean create) throws ServerException {
+        final java.io.File vfsIoRoot = ((VirtualFileImpl)mountPoint.getRoot()).getIoFile();
+        T searcher = instances.get(vfsIoRoot);
+        if (searcher == null && create) {
+            final T newSearcher = createSearcher(vfsIoRoot, createIndexFilter(filters));
+            searcher = instances.putIfAbsent(vfsIoRoot, newSearcher);
+            if (searcher == null) {
+                searcher = newSearcher;
+                searcher.init(mountPoint);
+            } else {
+                discardSearcher(newSearcher);
+            }
+        }
+        return searcher;
+    }
+
+    /**
+     * Creates new searcher for virtual filesystem. Searcher is not initialized yet.
+     *
+     * @param vfsIoRoot
+     *         root directory of virtual filesystem
+     * @param filter
+     *         filter of files which content must be indexed
+     */
+    protected abstract T createSearcher(java.io.File vfsIoRoot, VirtualFileFilter filter) throws ServerException;
+
+    /** Called if searcher created with {@link #createSearcher} isn't used since other thread created searcher at the same time. */
+    protected void discardSearcher(T searcher) {
+    }
+
+    /** Stops using of searcher. Searcher must be closed by caller. */
+    void close(T searcher) {
+        instances.values().remove(searcher);
+    }
+
+    @PreDestroy
+    private void stop() {
+        executor.shutdownNow();
+        updateExecutor.shutdownNow();
+        walkPool.shutdownNow();
+        for (T searcher : instances.values()) {
+            searcher.close();
+        }
+    }
+
+    java.io.File getIndexRootDir() {
+        return indexRootDir;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    ExecutorService getUpdateExecutor() {
+        return updateExecutor;
+    }
+
+    /** Max time in milliseconds after that changes of files become visible for search or {@code 0} if index is updated synchronously. */
+    long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    /** Returns {@code true} if trigrams of content of files are added in index. */
+    boolean isCodeSearch() {
+        return codeSearch;
+    }
+
+    ForkJoinPool getWalkPool() {
+        return walkPool;
+    }
+
+    /** Number of threads that add files in index when index is initialized. */
+    int getIndexThreads() {
+        return indexThreads;
+    }
+}
@@ -20,7 +20,9 @@ import org.eclipse.che.api.vfs.server.ContentStream;
 import org.eclipse.che.api.vfs.server.LazyIterator;
 import org.eclipse.che.api.vfs.server.MountPoint;
 import org.eclipse.che.api.vfs.server.Path;
+import org.eclipse.che.api.vfs.server.HierarchicalPathLockManager;
 import org.eclipse.che.api.vfs.server.PathLockFactory;
+import org.eclipse.che.api.vfs.server.PathLockManager;
 import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemUser;
@@ -34,8 +36,11 @@ import org.eclipse.che.api.vfs.server.observation.UpdateACLEvent;
 import org.eclipse.che.api.vfs.server.observation.UpdateContentEvent;
 import org.eclipse.che.api.vfs.server.observation.UpdatePropertiesEvent;
 import org.eclipse.che.api.vfs.server.search.SearcherProvider;
+import org.eclipse.che.api.vfs.server.util.ByteBufferInputStream;
 import org.eclipse.che.api.vfs.server.util.DeleteOnCloseFileInputStream;
+import org.eclipse.che.api.vfs.server.util.FileHashCache;
 import org.eclipse.che.api.vfs.server.util.NotClosableInputStream;
+import org.eclipse.che.api.vfs.server.util.NotClosableOutputStream;
 import org.eclipse.che.api.vfs.server.util.VirtualFileDefaults;
 import org.eclipse.che.api.vfs.server.util.ZipContent;
 import org.eclipse.che.api.vfs.shared.PropertyFilter;
@@ -53,28 +58,31 @@ import org.eclipse.che.commons.lang.ws.rs.ExtMediaType;
 import org.eclipse.che.dto.server.DtoFactory;
 
 import com.google.common.annotations.Beta;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Sets;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
-import com.google.common.io.ByteSource;
-import com.google.common.io.ByteStreams;
 
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -85,6 +93,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -115,14 +125,32 @@ public class FSMountPoint implements MountPoint {
     private static final int MASK                        = CACHE_PARTITIONS_NUM - 1;
     private static final int PARTITION_PROTECTED_SIZE    = CACHE_PROTECTED_SIZE / CACHE_PARTITIONS_NUM;
     private static final int PARTITION_PROBATIONARY_SIZE = CACHE_PROBATIONARY_SIZE / CACHE_PARTITIONS_NUM;
+    /* Max number of items in all cached lists of children. */
+    private static final int  CHILDREN_CACHE_MAX_ITEMS      = 100000;
+    /*
+     * Listing of folder is cached only if folder was modified earlier than this number of milliseconds ago.
+     * Some file systems keep modification time with one or two seconds precision. Without such delay we may not
+     * notice changes of folder which are made by other programs in the same second when listing is cached.
+     */
+    private static final long MODIFICATION_TIME_GRANULARITY = 2000;
     // end cache parameters
 
-    private static final int MAX_BUFFER_SIZE  = 200 * 1024; // 200k
-    private static final int COPY_BUFFER_SIZE = 8 * 1024; // 8k
+    private static final int MAX_BUFFER_SIZE = 200 * 1024; // 200k
+
+    /* Extensions of files which content is already compressed. Such files are not compressed again when folder is exported to zip. */
+    private static final Set<String> COMPRESSED_FILE_EXTENSIONS = Sets.newHashSet("zip", "jar", "war", "ear", "gz", "tgz", "bz2", "xz",
+                                                                                  "7z", "rar", "png", "jpg", "jpeg", "gif", "ico", "webp",
+                                                                                  "mp3", "mp4", "avi", "mov", "ogg", "woff", "woff2");
 
     private static final long LOCK_FILE_TIMEOUT     = 60000; // 60 seconds
     private static final int  FILE_LOCK_MAX_THREADS = 1024;
 
+    /** Name of {@link HierarchicalPathLockManager} that may be set with configuration parameter 'vfs.local.fs_path_lock_manager'. */
+    static final String HIERARCHICAL_PATH_LOCK_MANAGER = "hierarchical";
+
+    /** Name of {@link BinaryMetadataStore} that may be set with configuration parameter 'vfs.local.fs_metadata_store'. */
+    static final String BINARY_METADATA_STORE = "binary";
+
     static final String SERVICE_DIR = ".vfs";
 
     static final String ACL_DIR         = SERVICE_DIR + java.io.File.separatorChar + "acl";
@@ -134,6 +162,12 @@ public class FSMountPoint implements MountPoint {
     static final String PROPS_DIR              = SERVICE_DIR + java.io.File.separatorChar + "props";
     static final String PROPERTIES_FILE_SUFFIX = "_props";
 
+    /* Temporary files with new content of files. */
+    static final String TMP_DIR = SERVICE_DIR + java.io.File.separatorChar + "tmp";
+
+    /* File where md5 sums of files are kept between restarts. */
+    static final String MD5_SUMS_FILE = SERVICE_DIR + java.io.File.separatorChar + "md5sums";
+
 
     /** Hide .vfs directory. */
     private static final java.io.FilenameFilter SERVICE_DIR_FILTER = new java.io.FilenameFilter() {
@@ -167,6 +201,17 @@ public class FSMountPoint implements MountPoint {
 
     private static final FileLock NO_LOCK = new FileLock("no_lock", 0);
 
+    /** Sorted list of children of folder. Folder may be changed by other programs, so remember its modification time. */
+    private static class ChildrenList {
+        final long              lastModified;
+        final List<VirtualFile> children;
+
+        ChildrenList(long lastModified, List<VirtualFile> children) {
+            this.lastModified = lastModified;
+            this.children = children;
+        }
+    }
+
     private class FileLockCache extends LoadingValueSLRUCache<Path, FileLock> {
         FileLockCache() {
             super(PARTITION_PROTECTED_SIZE, PARTITION_PROBATIONARY_SIZE);
@@ -174,28 +219,13 @@ public class FSMountPoint implements MountPoint {
 
         @Override
         protected FileLock loadValue(Path key) {
-            DataInputStream dis = null;
-
             try {
-                final Path lockFilePath = getLockFilePath(key);
-                final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(lockFilePath));
-                if (lockIoFile.exists()) {
-                    final PathLockFactory.PathLock lockFilePathLock =
-                            pathLockFactory.getLock(lockFilePath, false).acquire(LOCK_FILE_TIMEOUT);
-                    try {
-                        dis = new DataInputStream(new BufferedInputStream(new FileInputStream(lockIoFile)));
-                        return locksSerializer.read(dis);
-                    } finally {
-                        lockFilePathLock.release();
-                    }
-                }
-                return NO_LOCK;
+                final FileLock lock = metadataStore.getLock(key);
+                return lock == null ? NO_LOCK : lock;
             } catch (IOException e) {
                 String msg = String.format("Unable read lock for '%s'. ", key);
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                 throw new RuntimeException(msg);
-            } finally {
-                closeQuietly(dis);
             }
         }
     }
@@ -208,27 +238,13 @@ public class FSMountPoint implements MountPoint {
 
         @Override
         protected Map<String, String[]> loadValue(Path key) {
-            DataInputStream dis = null;
             try {
-                final Path metadataFilePath = getMetadataFilePath(key);
-                java.io.File metadataIoFile = new java.io.File(ioRoot, toIoPath(metadataFilePath));
-                if (metadataIoFile.exists()) {
-                    final PathLockFactory.PathLock metadataFilePathLock =
-                            pathLockFactory.getLock(metadataFilePath, false).acquire(LOCK_FILE_TIMEOUT);
-                    try {
-                        dis = new DataInputStream(new BufferedInputStream(new FileInputStream(metadataIoFile)));
-                        return metadataSerializer.read(dis);
-                    } finally {
-                        metadataFilePathLock.release();
-                    }
-                }
-                return Collections.emptyMap();
+                final Map<String, String[]> properties = metadataStore.getProperties(key);
+                return properties == null ? Collections.<String, String[]>emptyMap() : properties;
             } catch (IOException e) {
                 String msg = String.format("Unable read properties for '%s'. ", key);
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                 throw new RuntimeException(msg);
-            } finally {
-                closeQuietly(dis);
             }
         }
     }
@@ -241,18 +257,10 @@ public class FSMountPoint implements MountPoint {
 
         @Override
         protected AccessControlList loadValue(Path key) {
-            DataInputStream dis = null;
             try {
-                final Path aclFilePath = getAclFilePath(key);
-                final java.io.File aclIoFile = new java.io.File(ioRoot, toIoPath(aclFilePath));
-                if (aclIoFile.exists()) {
-                    final PathLockFactory.PathLock aclFilePathLock = pathLockFactory.getLock(aclFilePath, false).acquire(LOCK_FILE_TIMEOUT);
-                    try {
-                        dis = new DataInputStream(new BufferedInputStream(new FileInputStream(aclIoFile)));
-                        return aclSerializer.read(dis);
-                    } finally {
-                        aclFilePathLock.release();
-                    }
+                final AccessControlList acl = metadataStore.getACL(key);
+                if (acl != null) {
+                    return acl;
                 }
 
                 // TODO : REMOVE!!! Temporary default ACL until will have client side for real manage
@@ -271,8 +279,6 @@ public class FSMountPoint implements MountPoint {
                 String msg = String.format("Unable read ACL for '%s'. ", key);
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                 throw new RuntimeException(msg);
-            } finally {
-                closeQuietly(dis);
             }
         }
     }
@@ -283,22 +289,38 @@ public class FSMountPoint implements MountPoint {
     private final SearcherProvider searcherProvider;
 
     /* NOTE -- This does not related to virtual file system locking in any kind. -- */
-    private final PathLockFactory pathLockFactory;
+    private final PathLockManager pathLockManager;
+
+    /* Memory-mapped content of hot files. May be null if mapping of files is disabled. */
+    private final MappedContentCache mappedContentCache;
+
+    /* Time when this MountPoint was created. Temporary files created earlier are left by interrupted updates of content. */
+    private final long createdTime;
+
+    /* Storage of locks, ACLs and properties. */
+    private final MetadataStore metadataStore;
+
+    /* Md5 sums of files, see countMd5Sums. */
+    private final FileHashCache md5SumsCache;
 
     private final VirtualFileImpl root;
 
     /* ----- Access control list feature. ----- */
-    private final AccessControlListSerializer      aclSerializer;
     private final Cache<Path, AccessControlList>[] aclCache;
 
     /* ----- Virtual file system lock feature. ----- */
-    private final FileLockSerializer      locksSerializer;
     private final Cache<Path, FileLock>[] lockTokensCache;
 
     /* ----- File metadata. ----- */
-    private final FileMetadataSerializer               metadataSerializer;
     private final Cache<Path, Map<String, String[]>>[] metadataCache;
 
+    /* ----- Listing of folders. ----- */
+    private final com.google.common.cache.Cache<Path, ChildrenList> childrenCache;
+    /* Changed each time when any listing is invalidated. Helps to avoid caching of listing that was read before update. */
+    private final AtomicLong                                          childrenCacheVersion;
+    private final AtomicLong                                          childrenCacheHits;
+    private final AtomicLong                                          childrenCacheMisses;
+
     private final VirtualFileSystemUserContext userContext;
 
     /**
@@ -307,24 +329,56 @@ public class FSMountPoint implements MountPoint {
      * @param ioRoot
      *         root directory for virtual file system. Any file in higher level than root are not accessible through
      *         virtual file system API.
+     * @param pathLockManager
+     *         manager of locks for files of this MountPoint
+     * @see #newPathLockManager(String)
+     */
+    FSMountPoint(String workspaceId,
+                 java.io.File ioRoot,
+                 EventService eventService,
+                 SearcherProvider searcherProvider,
+                 PathLockManager pathLockManager) {
+        this(workspaceId, ioRoot, eventService, searcherProvider, pathLockManager, null,
+             new SideFileMetadataStore(ioRoot, pathLockManager));
+    }
+
+    /**
+     * @param workspaceId
+     *         id of workspace to which this MountPoint belongs to
+     * @param ioRoot
+     *         root directory for virtual file system. Any file in higher level than root are not accessible through
+     *         virtual file system API.
+     * @param pathLockManager
+     *         manager of locks for files of this MountPoint
+     * @param mappedContentCache
+     *         cache of memory-mapped content of files, {@code null} if content of files should not be mapped into memory
+     * @param metadataStore
+     *         storage of locks, ACLs and properties of items
+     * @see #newPathLockManager(String)
+     * @see #newMetadataStore(String, java.io.File, PathLockManager)
      */
     @SuppressWarnings("unchecked")
-    FSMountPoint(String workspaceId, java.io.File ioRoot, EventService eventService, SearcherProvider searcherProvider) {
+    FSMountPoint(String workspaceId,
+                 java.io.File ioRoot,
+                 EventService eventService,
+                 SearcherProvider searcherProvider,
+                 PathLockManager pathLockManager,
+                 MappedContentCache mappedContentCache,
+                 MetadataStore metadataStore) {
         this.workspaceId = workspaceId;
         this.ioRoot = ioRoot;
         this.eventService = eventService;
         this.searcherProvider = searcherProvider;
+        this.pathLockManager = pathLockManager;
+        this.mappedContentCache = mappedContentCache;
+        this.metadataStore = metadataStore;
+        this.md5SumsCache = new FileHashCache(new java.io.File(ioRoot, MD5_SUMS_FILE));
+        createdTime = System.currentTimeMillis();
 
         root = new VirtualFileImpl(ioRoot, Path.ROOT, pathToId(Path.ROOT), this);
-        pathLockFactory = new PathLockFactory(FILE_LOCK_MAX_THREADS);
 
-        aclSerializer = new AccessControlListSerializer();
         aclCache = new Cache[CACHE_PARTITIONS_NUM];
-
-        locksSerializer = new FileLockSerializer();
         lockTokensCache = new Cache[CACHE_PARTITIONS_NUM];
-
-        metadataSerializer = new FileMetadataSerializer();
         metadataCache = new Cache[CACHE_PARTITIONS_NUM];
 
         for (int i = 0; i < CACHE_PARTITIONS_NUM; i++) {
@@ -332,6 +386,20 @@ public class FSMountPoint implements MountPoint {
             lockTokensCache[i] = new SynchronizedCache(new FileLockCache());
             metadataCache[i] = new SynchronizedCache(new FileMetadataCache());
         }
+
+        childrenCache = CacheBuilder.newBuilder()
+                                    .concurrencyLevel(CACHE_PARTITIONS_NUM)
+                                    .maximumWeight(CHILDREN_CACHE_MAX_ITEMS)
+                                    .weigher(new Weigher<Path, ChildrenList>() {
+                                        @Override
+                                        public int weigh(Path key, ChildrenList value) {
+                                            return 1 + value.children.size();
+                                        }
+                                    })
+                                    .build();
+        childrenCacheVersion = new AtomicLong();
+        childrenCacheHits = new AtomicLong();
+        childrenCacheMisses = new AtomicLong();
         userContext = VirtualFileSystemUserContext.newInstance();
     }
 
@@ -388,12 +456,57 @@ public class FSMountPoint implements MountPoint {
         clearMetadataCache();
         clearAclCache();
         clearLockTokensCache();
+        clearChildrenCache();
+        metadataStore.reset();
+        saveMd5Sums();
+    }
+
+    /** Get number of requests of folder's children that are served from cache. */
+    public long getChildrenCacheHits() {
+        return childrenCacheHits.get();
+    }
+
+    /** Get number of requests of folder's children that are not served from cache and cause reading of folder. */
+    public long getChildrenCacheMisses() {
+        return childrenCacheMisses.get();
     }
 
-    // Used in tests. Need this to check state of PathLockFactory.
+    // Used in tests. Need this to check state of PathLockManager.
     // All locks MUST be released at the end of request lifecycle.
-    PathLockFactory getPathLockFactory() {
-        return pathLockFactory;
+    PathLockManager getPathLockManager() {
+        return pathLockManager;
+    }
+
+    /**
+     * Create new PathLockManager of specified type.
+     *
+     * @param type
+     *         type of lock manager. Value {@link #HIERARCHICAL_PATH_LOCK_MANAGER} means {@link HierarchicalPathLockManager}, any other
+     *         value, including {@code null}, means {@link PathLockFactory}
+     */
+    static PathLockManager newPathLockManager(String type) {
+        if (HIERARCHICAL_PATH_LOCK_MANAGER.equals(type)) {
+            return new HierarchicalPathLockManager(FILE_LOCK_MAX_THREADS);
+        }
+        return new PathLockFactory(FILE_LOCK_MAX_THREADS);
+    }
+
+    /**
+     * Create new MetadataStore of specified type.
+     *
+     * @param type
+     *         type of metadata store. Value {@link #BINARY_METADATA_STORE} means {@link BinaryMetadataStore}, any other value,
+     *         including {@code null}, means {@link SideFileMetadataStore}
+     * @param ioRoot
+     *         root directory of MountPoint
+     * @param pathLockManager
+     *         manager of locks for files of MountPoint
+     */
+    static MetadataStore newMetadataStore(String type, java.io.File ioRoot, PathLockManager pathLockManager) {
+        if (BINARY_METADATA_STORE.equals(type)) {
+            return new BinaryMetadataStore(ioRoot);
+        }
+        return new SideFileMetadataStore(ioRoot, pathLockManager);
     }
 
    /* =================================== INTERNAL =================================== */
@@ -472,18 +585,42 @@ public class FSMountPoint implements MountPoint {
                 return LazyIterator.emptyIterator();
             }
         }
-        final List<VirtualFile> children = doGetChildren(parent, SERVICE_DIR_FILTER);
-        for (Iterator<VirtualFile> iterator = children.iterator(); iterator.hasNext(); ) {
-            VirtualFile child = iterator.next();
+        final List<VirtualFile> children = getSortedChildren(parent);
+        final List<VirtualFile> accepted = new ArrayList<>(children.size());
+        for (VirtualFile child : children) {
             // Check permission directly for current file only.
             // We know the parent is accessible for current user otherwise we should not be here.
-            if (!hasPermission((VirtualFileImpl)child, BasicPermissions.READ.value(), false) || !filter.accept(child)) {
-                iterator.remove(); // Do not show item in list if current user has not permission to see it
+            // Do not show item in list if current user has not permission to see it
+            if (hasPermission((VirtualFileImpl)child, BasicPermissions.READ.value(), false) && filter.accept(child)) {
+                accepted.add(child);
             }
         }
+        return LazyIterator.fromList(accepted);
+    }
+
+
+    /* Get all children of folder, except service directory, from cache or read them from the file system. */
+    private List<VirtualFile> getSortedChildren(VirtualFileImpl folder) throws ServerException {
+        final Path folderPath = folder.getVirtualFilePath();
+        final long lastModified = folder.getIoFile().lastModified();
+        final ChildrenList cached = childrenCache.getIfPresent(folderPath);
+        if (cached != null && cached.lastModified == lastModified) {
+            childrenCacheHits.incrementAndGet();
+            return cached.children;
+        }
+        childrenCacheMisses.incrementAndGet();
+        final long version = childrenCacheVersion.get();
+        final List<VirtualFile> children = doGetChildren(folder, SERVICE_DIR_FILTER);
         // Always sort to get the exact same order of files for each listing.
         Collections.sort(children);
-        return LazyIterator.fromList(children);
+        if (lastModified < System.currentTimeMillis() - MODIFICATION_TIME_GRANULARITY) {
+            childrenCache.put(folderPath, new ChildrenList(lastModified, Collections.unmodifiableList(children)));
+            if (version != childrenCacheVersion.get()) {
+                // Some listing was invalidated while we read folder. Our result may be already outdated.
+                childrenCache.invalidate(folderPath);
+            }
+        }
+        return children;
     }
 
 
@@ -528,6 +665,7 @@ public class FSMountPoint implements MountPoint {
             LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
             throw new ServerException(msg);
         }
+        invalidateChildren(parent.getVirtualFilePath());
 
         final VirtualFileImpl newVirtualFile = new VirtualFileImpl(newIoFile, newPath, pathToId(newPath), this);
         // Update content if any.
@@ -568,6 +706,7 @@ public class FSMountPoint implements MountPoint {
             currentPath = currentPath.newPath(element);
             java.io.File currentIoFile = new java.io.File(ioRoot, toIoPath(currentPath));
             if (currentIoFile.mkdir()) {
+                invalidateChildren(currentPath.getParent());
                 newPath = currentPath;
                 newIoFile = currentIoFile;
             }
@@ -648,6 +787,7 @@ public class FSMountPoint implements MountPoint {
             // Check recursively permissions of sources in case of folder
             // and add all item current user cannot read in skip list.
             java.io.FilenameFilter filter = null;
+            final List<Path> skipPaths = new ArrayList<>();
             if (source.isFolder()) {
                 final LinkedList<VirtualFileImpl> skipList = new LinkedList<>();
                 final LinkedList<VirtualFile> q = new LinkedList<>();
@@ -666,6 +806,9 @@ public class FSMountPoint implements MountPoint {
                         }
                     }
                 }
+                for (VirtualFileImpl skipFile : skipList) {
+                    skipPaths.add(skipFile.getVirtualFilePath());
+                }
                 if (!skipList.isEmpty()) {
                     filter = new java.io.FilenameFilter() {
                         @Override
@@ -676,7 +819,7 @@ public class FSMountPoint implements MountPoint {
                                     return false;
                                 }
                                 final java.io.File metadataFile =
-                                        new java.io.File(ioRoot, toIoPath(getMetadataFilePath(skipFile.getVirtualFilePath())));
+                                        new java.io.File(ioRoot, toIoPath(SideFileMetadataStore.getMetadataFilePath(skipFile.getVirtualFilePath())));
                                 if (metadataFile.exists() && testPath.startsWith(metadataFile.getAbsolutePath())) {
                                     return false;
                                 }
@@ -687,13 +830,13 @@ public class FSMountPoint implements MountPoint {
                 }
             }
 
-            final java.io.File sourceMetadataFile = new java.io.File(ioRoot, toIoPath(getMetadataFilePath(source.getVirtualFilePath())));
-            final java.io.File destinationMetadataFile =
-                    new java.io.File(ioRoot, toIoPath(getMetadataFilePath(destination.getVirtualFilePath())));
-            if (sourceMetadataFile.exists()) {
-                nioCopy(sourceMetadataFile, destinationMetadataFile, filter);
+            metadataStore.copy(source.getVirtualFilePath(), destination.getVirtualFilePath(), skipPaths);
+            try {
+                nioCopy(source.getIoFile(), destination.getIoFile(), filter);
+            } finally {
+                invalidateChildren(destination.getVirtualFilePath().getParent());
+                invalidateChildrenTree(destination.getVirtualFilePath());
             }
-            nioCopy(source.getIoFile(), destination.getIoFile(), filter);
 
             if (searcherProvider != null) {
                 try {
@@ -737,20 +880,12 @@ public class FSMountPoint implements MountPoint {
             // permissions is not copied with 'doCopy' method, copy them now if any
             final AccessControlList sourceAcl = getACL(virtualFile);
             if (!sourceAcl.isEmpty()) {
-                final java.io.File renamedAclFile = new java.io.File(ioRoot, toIoPath(getAclFilePath(renamed.getVirtualFilePath())));
-                DataOutputStream dos = null;
                 try {
-                    // Ignore result of 'mkdirs' here. If we are failed to create directory
-                    // We will get FileNotFoundException at the next line when try to create FileOutputStream.
-                    renamedAclFile.getParentFile().mkdirs();
-                    dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(renamedAclFile)));
-                    aclSerializer.write(dos, sourceAcl);
+                    metadataStore.setACL(renamed.getVirtualFilePath(), sourceAcl);
                 } catch (IOException e) {
                     String msg = String.format("Unable save ACL for '%s'. ", virtualFile.getPath());
                     LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                     throw new ServerException(msg);
-                } finally {
-                    closeQuietly(dos);
                 }
             }
             doDelete(virtualFile, lockToken);
@@ -854,38 +989,44 @@ public class FSMountPoint implements MountPoint {
             throw new ForbiddenException(String.format("Unable get content. Item '%s' is not a file. ", virtualFile.getPath()));
         }
 
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+        final PathLockManager.Lock lock = pathLockManager.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
         try {
-            final java.io.File ioFile = virtualFile.getIoFile();
-            FileInputStream fIn = null;
+            final java.nio.file.Path ioFile = virtualFile.getIoFile().toPath();
+            FileChannel channel = null;
             try {
-                final long fLength = ioFile.length();
+                final BasicFileAttributes attributes = Files.readAttributes(ioFile, BasicFileAttributes.class);
+                final long fLength = attributes.size();
+                final Date lastModified = new Date(attributes.lastModifiedTime().toMillis());
+                if (mappedContentCache != null && mappedContentCache.accept(fLength)) {
+                    // Hot files are read from memory-mapped region without copying to the java heap.
+                    final ByteBuffer content = mappedContentCache.getContent(virtualFile.getVirtualFilePath(), ioFile, attributes);
+                    return new ContentStream(virtualFile.getName(), new ByteBufferInputStream(content),
+                                             virtualFile.getMediaType(), fLength, lastModified);
+                }
                 if (fLength <= MAX_BUFFER_SIZE) {
                     // If file small enough save its content in memory.
-                    fIn = new FileInputStream(ioFile);
-                    final byte[] buff = new byte[(int)fLength];
-                    int offset = 0;
-                    int len = buff.length;
+                    channel = FileChannel.open(ioFile, StandardOpenOption.READ);
+                    final ByteBuffer buff = ByteBuffer.allocate((int)fLength);
                     int r;
-                    while ((r = fIn.read(buff, offset, len)) > 0) {
-                        offset += r;
-                        len -= r;
-                    }
-                    return new ContentStream(virtualFile.getName(), new ByteArrayInputStream(buff),
-                                             virtualFile.getMediaType(), buff.length, new Date(ioFile.lastModified()));
+                    do {
+                        r = channel.read(buff);
+                    } while (r > 0 && buff.hasRemaining());
+                    return new ContentStream(virtualFile.getName(), new ByteArrayInputStream(buff.array(), 0, buff.position()),
+                                             virtualFile.getMediaType(), buff.position(), lastModified);
                 }
 
-                // Otherwise copy this file to be able release the file lock before leave this method.
-                final java.io.File f = java.io.File.createTempFile("spool_file", null);
-                nioCopy(ioFile, f, null);
-                return new ContentStream(virtualFile.getName(), new DeleteOnCloseFileInputStream(f),
-                                         virtualFile.getMediaType(), fLength, new Date(ioFile.lastModified()));
+                // Otherwise give opened file to the caller. Content of file is never updated in place (see _doUpdateContent),
+                // so opened file keeps the same content after the file lock is released. Content of stream may be transferred
+                // directly to the output with FileChannel.transferTo, see ContentStream.writeTo. Caller closes the stream as it
+                // always did with spooled copy of file that was removed on close, see VirtualFile.getContent.
+                return new ContentStream(virtualFile.getName(), new FileInputStream(virtualFile.getIoFile()),
+                                         virtualFile.getMediaType(), fLength, lastModified);
             } catch (IOException e) {
                 String msg = String.format("Unable get content of '%s'. ", virtualFile.getPath());
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                 throw new ServerException(msg);
             } finally {
-                closeQuietly(fIn);
+                closeQuietly(channel);
             }
         } finally {
             lock.release();
@@ -940,7 +1081,7 @@ public class FSMountPoint implements MountPoint {
 
 
     private void doUpdateContent(VirtualFileImpl virtualFile, String mediaType, InputStream content) throws ServerException {
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
+        final PathLockManager.Lock lock = pathLockManager.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
         try {
             _doUpdateContent(virtualFile, content);
             setProperty(virtualFile, "vfs:mimeType", mediaType);
@@ -949,8 +1090,23 @@ public class FSMountPoint implements MountPoint {
         }
     }
 
+    /*
+     * Removes temporary files that are left in service folder if update of content was interrupted, e.g. JVM crashed. Files that are
+     * created after creation of this MountPoint (with respect to precision of modification time) may belong to update in progress.
+     */
+    void removeTemporaryFiles() {
+        final java.io.File[] files = new java.io.File(ioRoot, TMP_DIR).listFiles();
+        if (files != null) {
+            for (java.io.File file : files) {
+                if (file.lastModified() < createdTime - MODIFICATION_TIME_GRANULARITY && !file.delete()) {
+                    LOG.warn("Unable delete temporary file {}", file);
+                }
+            }
+        }
+    }
+
     private void doUpdateContent(VirtualFileImpl virtualFile, InputStream content) throws ServerException {
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
+        final PathLockManager.Lock lock = pathLockManager.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
         try {
             _doUpdateContent(virtualFile, content);
         } finally {
@@ -958,22 +1114,46 @@ public class FSMountPoint implements MountPoint {
         }
     }
 
-    // UNDER LOCK
+    /*
+     * UNDER LOCK
+     * New content is written to the temporary file in service folder that replaces original file with atomic move. File is
+     * never updated in place, so streams and memory-mapped regions opened before update keep the previous content. If file system
+     * doesn't support atomic move, original file is replaced with non-atomic move. Such move still creates new file instead of
+     * writing to the original one, so opened streams are not affected, but concurrent reader without lock may not find the file
+     * for a short time.
+     */
     private void _doUpdateContent(VirtualFileImpl virtualFile, InputStream content) throws ServerException {
-        FileOutputStream fOut = null;
+        final java.nio.file.Path ioFile = virtualFile.getIoFile().toPath();
+        java.nio.file.Path tmp = null;
         try {
-            fOut = new FileOutputStream(virtualFile.getIoFile());
-            final byte[] buff = new byte[COPY_BUFFER_SIZE];
-            int r;
-            while ((r = content.read(buff)) != -1) {
-                fOut.write(buff, 0, r);
+            final java.nio.file.Path tmpDir = Files.createDirectories(new java.io.File(ioRoot, TMP_DIR).toPath());
+            tmp = Files.createTempFile(tmpDir, "content", null);
+            Files.copy(content, tmp, StandardCopyOption.REPLACE_EXISTING);
+            final PosixFileAttributeView posixView = Files.getFileAttributeView(ioFile, PosixFileAttributeView.class);
+            if (posixView != null) {
+                Files.setPosixFilePermissions(tmp, posixView.readAttributes().permissions());
+            }
+            try {
+                Files.move(tmp, ioFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, ioFile, StandardCopyOption.REPLACE_EXISTING);
             }
         } catch (IOException e) {
             String msg = String.format("Unable set content of '%s'. ", virtualFile.getPath());
             LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
             throw new ServerException(msg);
         } finally {
-            closeQuietly(fOut);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    LOG.warn(e.getMessage(), e);
+                }
+            }
+            if (mappedContentCache != null) {
+                mappedContentCache.invalidate(virtualFile.getVirtualFilePath());
+            }
+            md5SumsCache.invalidate(virtualFile.getPath());
         }
     }
 
@@ -1030,30 +1210,32 @@ public class FSMountPoint implements MountPoint {
         clearAclCache();
         clearLockTokensCache();
         clearMetadataCache();
+        if (mappedContentCache != null) {
+            if (virtualFile.isFile()) {
+                mappedContentCache.invalidate(virtualFile.getVirtualFilePath());
+            } else {
+                mappedContentCache.invalidateAll();
+            }
+        }
+        md5SumsCache.invalidate(virtualFile.getPath());
 
         final String path = virtualFile.getPath();
         boolean isFile = virtualFile.isFile();
-        if (!deleteRecursive(virtualFile.getIoFile())) {
+        final boolean deleted = deleteRecursive(virtualFile.getIoFile());
+        invalidateChildren(virtualFile.getVirtualFilePath().getParent());
+        invalidateChildrenTree(virtualFile.getVirtualFilePath());
+        if (!deleted) {
             LOG.error("Unable delete file {}", virtualFile.getIoFile());
             throw new ServerException(String.format("Unable delete item '%s'. ", path));
         }
 
-        // delete ACL file
-        final java.io.File aclFile = new java.io.File(ioRoot, toIoPath(getAclFilePath(virtualFile.getVirtualFilePath())));
-        if (aclFile.delete()) {
-            if (aclFile.exists()) {
-                LOG.error("Unable delete ACL file {}", aclFile);
-                throw new ServerException(String.format("Unable delete item '%s'. ", path));
-            }
-        }
-
-        // delete metadata file
-        final java.io.File metadataFile = new java.io.File(ioRoot, toIoPath(getMetadataFilePath(virtualFile.getVirtualFilePath())));
-        if (metadataFile.delete()) {
-            if (metadataFile.exists()) {
-                LOG.error("Unable delete file metadata {}", metadataFile);
-                throw new ServerException(String.format("Unable delete item '%s'. ", path));
-            }
+        // delete ACL and metadata
+        try {
+            metadataStore.delete(virtualFile.getVirtualFilePath());
+        } catch (IOException e) {
+            String msg = String.format("Unable delete item '%s'. ", path);
+            LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
+            throw new ServerException(msg);
         }
 
         if (searcherProvider != null) {
@@ -1087,6 +1269,31 @@ public class FSMountPoint implements MountPoint {
     }
 
 
+    private void clearChildrenCache() {
+        childrenCacheVersion.incrementAndGet();
+        childrenCache.invalidateAll();
+    }
+
+
+    /* Invalidate cached listing of folder. Call it after creating or removing any child of folder. */
+    private void invalidateChildren(Path folderPath) {
+        childrenCacheVersion.incrementAndGet();
+        childrenCache.invalidate(folderPath);
+    }
+
+
+    /* Invalidate cached listings of folder and all its sub-folders. */
+    private void invalidateChildrenTree(Path folderPath) {
+        childrenCacheVersion.incrementAndGet();
+        for (Iterator<Path> iterator = childrenCache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            final Path cachedPath = iterator.next();
+            if (cachedPath.equals(folderPath) || cachedPath.isChild(folderPath)) {
+                iterator.remove();
+            }
+        }
+    }
+
+
     ContentStream zip(VirtualFileImpl virtualFile, VirtualFileFilter filter) throws ForbiddenException, ServerException {
         if (!virtualFile.isFolder()) {
             throw new ForbiddenException(String.format("Unable export to zip. Item '%s' is not a folder. ", virtualFile.getPath()));
@@ -1097,46 +1304,7 @@ public class FSMountPoint implements MountPoint {
             zipFile = java.io.File.createTempFile("export", ".zip");
             out = new FileOutputStream(zipFile);
             final ZipOutputStream zipOut = new ZipOutputStream(out);
-            final LinkedList<VirtualFile> q = new LinkedList<>();
-            q.add(virtualFile);
-            final int zipEntryNameTrim = virtualFile.getVirtualFilePath().length();
-            final byte[] buff = new byte[COPY_BUFFER_SIZE];
-            while (!q.isEmpty()) {
-                for (VirtualFile current : doGetChildren((VirtualFileImpl)q.pop(), SERVICE_GIT_DIR_FILTER)) {
-                    // (1) Check filter.
-                    // (2) Check permission directly for current file only.
-                    // We already know parent accessible for current user otherwise we should not be here.
-                    // Ignore item if don't have permission to read it.
-                    if (filter.accept(current) && hasPermission((VirtualFileImpl)current, BasicPermissions.READ.value(), false)) {
-                        final String zipEntryName = current.getVirtualFilePath().subPath(zipEntryNameTrim).toString().substring(1);
-                        if (current.isFile()) {
-                            final ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                            zipOut.putNextEntry(zipEntry);
-                            InputStream in = null;
-                            final PathLockFactory.PathLock lock =
-                                    pathLockFactory.getLock(current.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
-                            try {
-                                zipEntry.setTime(virtualFile.getLastModificationDate());
-                                in = new FileInputStream(((VirtualFileImpl)current).getIoFile());
-                                int r;
-                                while ((r = in.read(buff)) != -1) {
-                                    zipOut.write(buff, 0, r);
-                                }
-                            } finally {
-                                closeQuietly(in);
-                                lock.release();
-                            }
-                            zipOut.closeEntry();
-                        } else if (current.isFolder()) {
-                            final ZipEntry zipEntry = new ZipEntry(zipEntryName + '/');
-                            zipEntry.setTime(0);
-                            zipOut.putNextEntry(zipEntry);
-                            q.add(current);
-                            zipOut.closeEntry();
-                        }
-                    }
-                }
-            }
+            writeZip(virtualFile, filter, zipOut, false, true);
             closeQuietly(zipOut);
             final String name = virtualFile.getName() + ".zip";
             return new ContentStream(name, new DeleteOnCloseFileInputStream(zipFile), ExtMediaType.APPLICATION_ZIP, zipFile.length(), new Date());
@@ -1151,6 +1319,108 @@ public class FSMountPoint implements MountPoint {
     }
 
 
+    ContentStream streamZip(final VirtualFileImpl virtualFile, final VirtualFileFilter filter, final boolean storeCompressed)
+            throws ForbiddenException, ServerException {
+        if (!virtualFile.isFolder()) {
+            throw new ForbiddenException(String.format("Unable export to zip. Item '%s' is not a folder. ", virtualFile.getPath()));
+        }
+        final String name = virtualFile.getName() + ".zip";
+        return new ContentStream(name, new ContentStream.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                // Output stream is managed by caller and must not be closed here.
+                try (ZipOutputStream zipOut = new ZipOutputStream(new NotClosableOutputStream(out))) {
+                    writeZip(virtualFile, filter, zipOut, storeCompressed, false);
+                }
+            }
+        }, ExtMediaType.APPLICATION_ZIP, new Date());
+    }
+
+
+    /*
+     * Writes content of folder to the zip stream. Read lock is held for each file only while its content is copied to the
+     * zip stream, so export of big folder does not block other operations over this folder for a long time. If storeCompressed
+     * is true files that are already compressed are added as STORED entries, such files are read twice, first time to count CRC.
+     * If folderTime is true time of each entry is time of modification of exported folder, as zip() always did.
+     */
+    private void writeZip(VirtualFileImpl folder, VirtualFileFilter filter, ZipOutputStream zipOut, boolean storeCompressed,
+                          boolean folderTime) throws IOException {
+        final LinkedList<VirtualFile> q = new LinkedList<>();
+        q.add(folder);
+        final int zipEntryNameTrim = folder.getVirtualFilePath().length();
+        while (!q.isEmpty()) {
+            final List<VirtualFile> children;
+            try {
+                children = doGetChildren((VirtualFileImpl)q.pop(), SERVICE_GIT_DIR_FILTER);
+            } catch (ServerException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            for (VirtualFile child : children) {
+                final VirtualFileImpl current = (VirtualFileImpl)child;
+                // (1) Check filter.
+                // (2) Check permission directly for current file only.
+                // We already know parent accessible for current user otherwise we should not be here.
+                // Ignore item if don't have permission to read it.
+                if (filter.accept(current) && hasPermission(current, BasicPermissions.READ.value(), false)) {
+                    final String zipEntryName = current.getVirtualFilePath().subPath(zipEntryNameTrim).toString().substring(1);
+                    if (current.isFile()) {
+                        final ZipEntry zipEntry = new ZipEntry(zipEntryName);
+                        if (!folderTime) {
+                            zipEntry.setTime(current.getLastModificationDate());
+                        }
+                        final java.nio.file.Path ioPath = current.getIoFile().toPath();
+                        final PathLockManager.Lock lock =
+                                pathLockManager.getLock(current.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+                        try {
+                            if (storeCompressed && isCompressed(current.getName())) {
+                                final long size = Files.size(ioPath);
+                                zipEntry.setMethod(ZipEntry.STORED);
+                                zipEntry.setSize(size);
+                                zipEntry.setCompressedSize(size);
+                                zipEntry.setCrc(crc32(ioPath));
+                            }
+                            zipOut.putNextEntry(zipEntry);
+                            if (folderTime) {
+                                zipEntry.setTime(folder.getLastModificationDate());
+                            }
+                            Files.copy(ioPath, zipOut);
+                        } finally {
+                            lock.release();
+                        }
+                        zipOut.closeEntry();
+                    } else if (current.isFolder()) {
+                        final ZipEntry zipEntry = new ZipEntry(zipEntryName + '/');
+                        zipEntry.setTime(0);
+                        zipOut.putNextEntry(zipEntry);
+                        q.add(current);
+                        zipOut.closeEntry();
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static long crc32(java.nio.file.Path file) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buf = new byte[8192];
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                crc32.update(buf, 0, r);
+            }
+        }
+        return crc32.getValue();
+    }
+
+
+    /* Checks by extension of file whether file is already compressed. Compression of such files wastes CPU and gives nothing. */
+    private static boolean isCompressed(String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        return dot > 0 && COMPRESSED_FILE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+
     void unzip(VirtualFileImpl parent, InputStream zipped, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
         if (!parent.isFolder()) {
@@ -1250,6 +1520,7 @@ public class FSMountPoint implements MountPoint {
             throw new ServerException(e.getMessage(), e);
         } finally {
             closeQuietly(zip);
+            invalidateChildrenTree(parent.getVirtualFilePath());
         }
     }
 
@@ -1274,25 +1545,12 @@ public class FSMountPoint implements MountPoint {
             final String lockToken = NameGenerator.generate(null, 16);
             final long expired = timeout > 0 ? (System.currentTimeMillis() + timeout) : Long.MAX_VALUE;
             final FileLock fileLock = new FileLock(lockToken, expired);
-            DataOutputStream dos = null;
             try {
-                final Path lockFilePath = getLockFilePath(virtualFile.getVirtualFilePath());
-                final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(lockFilePath));
-                lockIoFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create
-                // directory we will get FileNotFoundException at the next line when try to create FileOutputStream.
-                final PathLockFactory.PathLock lockFilePathLock = pathLockFactory.getLock(lockFilePath, true).acquire(LOCK_FILE_TIMEOUT);
-                try {
-                    dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(lockIoFile)));
-                    locksSerializer.write(dos, fileLock);
-                } finally {
-                    lockFilePathLock.release();
-                }
+                metadataStore.setLock(virtualFile.getVirtualFilePath(), fileLock);
             } catch (IOException e) {
                 String msg = String.format("Unable lock file '%s'. ", virtualFile.getPath());
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
                 throw new ServerException(msg);
-            } finally {
-                closeQuietly(dos);
             }
 
             // Save lock token in cache if lock successful.
@@ -1325,10 +1583,7 @@ public class FSMountPoint implements MountPoint {
             if (!lock.getLockToken().equals(lockToken)) {
                 throw new ForbiddenException(String.format("Unable unlock file '%s'. Lock token does not match. ", virtualFile.getPath()));
             }
-            final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(getLockFilePath(virtualFile.getVirtualFilePath())));
-            if (!lockIoFile.delete()) {
-                throw new IOException(String.format("Unable delete lock file %s. ", lockIoFile));
-            }
+            metadataStore.setLock(virtualFile.getVirtualFilePath(), null);
             // Mark as unlocked in cache.
             lockTokensCache[index].put(virtualFile.getVirtualFilePath(), NO_LOCK);
         } catch (IOException e) {
@@ -1351,12 +1606,11 @@ public class FSMountPoint implements MountPoint {
             return NO_LOCK;
         }
         if (lock.getExpired() < System.currentTimeMillis()) {
-            final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(getLockFilePath(virtualFile.getVirtualFilePath())));
-            if (!lockIoFile.delete()) {
-                if (lockIoFile.exists()) {
-                    // just warn here
-                    LOG.warn("Unable delete lock file %s. ", lockIoFile);
-                }
+            try {
+                metadataStore.setLock(virtualFile.getVirtualFilePath(), null);
+            } catch (IOException e) {
+                // just warn here
+                LOG.warn(String.format("Unable remove expired lock of file '%s'. ", virtualFile.getPath()) + e.getMessage(), e);
             }
             lockTokensCache[index].put(virtualFile.getVirtualFilePath(), NO_LOCK);
             return NO_LOCK;
@@ -1370,13 +1624,6 @@ public class FSMountPoint implements MountPoint {
         return NO_LOCK == lock || lock.getLockToken().equals(checkLockToken);
     }
 
-
-    private Path getLockFilePath(Path virtualFilePath) {
-        return virtualFilePath.isRoot()
-               ? virtualFilePath.newPath(LOCKS_DIR, virtualFilePath.getName() + LOCK_FILE_SUFFIX)
-               : virtualFilePath.getParent().newPath(LOCKS_DIR, virtualFilePath.getName() + LOCK_FILE_SUFFIX);
-    }
-
    /* ============ ACCESS CONTROL  ============ */
 
     AccessControlList getACL(VirtualFileImpl virtualFile) {
@@ -1402,34 +1649,13 @@ public class FSMountPoint implements MountPoint {
         final AccessControlList copy = new AccessControlList(actualACL);
         // 2. update ACL copy
         copy.update(acl, override);
-        // 3. save updated ACL (write in file)
-        DataOutputStream dos = null;
+        // 3. save updated ACL
         try {
-            final Path aclFilePath = getAclFilePath(virtualFile.getVirtualFilePath());
-            final java.io.File aclFile = new java.io.File(ioRoot, toIoPath(aclFilePath));
-            if (copy.isEmpty()) {
-                if (!aclFile.delete()) {
-                    if (aclFile.exists()) {
-                        throw new IOException(String.format("Unable delete file '%s'. ", aclFile));
-                    }
-                }
-            } else {
-                aclFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create directory
-                // we will get FileNotFoundException at the next line when try to create FileOutputStream.
-                final PathLockFactory.PathLock lock = pathLockFactory.getLock(aclFilePath, true).acquire(LOCK_FILE_TIMEOUT);
-                try {
-                    dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aclFile)));
-                    aclSerializer.write(dos, copy);
-                } finally {
-                    lock.release();
-                }
-            }
+            metadataStore.setACL(virtualFile.getVirtualFilePath(), copy);
         } catch (IOException e) {
             String msg = String.format("Unable save ACL for '%s'. ", virtualFile.getPath());
             LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
             throw new ServerException(msg);
-        } finally {
-            closeQuietly(dos);
         }
 
         // 4. update cache
@@ -1482,13 +1708,6 @@ public class FSMountPoint implements MountPoint {
         return true;
     }
 
-
-    private Path getAclFilePath(Path virtualFilePath) {
-        return virtualFilePath.isRoot()
-               ? virtualFilePath.newPath(ACL_DIR, virtualFilePath.getName() + ACL_FILE_SUFFIX)
-               : virtualFilePath.getParent().newPath(ACL_DIR, virtualFilePath.getName() + ACL_FILE_SUFFIX);
-    }
-
    /* ============ METADATA  ============ */
 
     List<Property> getProperties(VirtualFileImpl virtualFile, PropertyFilter filter) {
@@ -1598,44 +1817,15 @@ public class FSMountPoint implements MountPoint {
 
 
     private void saveFileMetadata(VirtualFileImpl virtualFile, Map<String, String[]> properties) throws ServerException {
-        DataOutputStream dos = null;
-
         try {
-            final Path metadataFilePath = getMetadataFilePath(virtualFile.getVirtualFilePath());
-            final java.io.File metadataFile = new java.io.File(ioRoot, toIoPath(metadataFilePath));
-            if (properties.isEmpty()) {
-                if (!metadataFile.delete()) {
-                    if (metadataFile.exists()) {
-                        throw new IOException(String.format("Unable delete file '%s'. ", metadataFile));
-                    }
-                }
-            } else {
-                metadataFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create
-                // directory we will get FileNotFoundException at the next line when try to create FileOutputStream.
-                final PathLockFactory.PathLock lock = pathLockFactory.getLock(metadataFilePath, true).acquire(LOCK_FILE_TIMEOUT);
-                try {
-                    dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(metadataFile)));
-                    metadataSerializer.write(dos, properties);
-                } finally {
-                    lock.release();
-                }
-            }
+            metadataStore.setProperties(virtualFile.getVirtualFilePath(), properties);
         } catch (IOException e) {
             String msg = String.format("Unable save properties for '%s'. ", virtualFile.getPath());
             LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
             throw new ServerException(msg);
-        } finally {
-            closeQuietly(dos);
         }
     }
 
-
-    private Path getMetadataFilePath(Path virtualFilePath) {
-        return virtualFilePath.isRoot()
-               ? virtualFilePath.newPath(PROPS_DIR, virtualFilePath.getName() + PROPERTIES_FILE_SUFFIX)
-               : virtualFilePath.getParent().newPath(PROPS_DIR, virtualFilePath.getName() + PROPERTIES_FILE_SUFFIX);
-    }
-
    /* ============ VERSIONING ============ */
    /* versions is not supported in fact. Here implements simple contract for single version. */
 
@@ -1672,14 +1862,13 @@ public class FSMountPoint implements MountPoint {
         }
         final List<Pair<String, String>> hashes = new ArrayList<>();
         final int trimPathLength = virtualFile.getPath().length() + 1;
-        final HashFunction hashFunction = Hashing.md5();
         final ValueHolder<ServerException> errorHolder = new ValueHolder<>();
         virtualFile.accept(new VirtualFileVisitor() {
             @Override
             public void visit(final VirtualFile virtualFile) {
                 try {
                     if (virtualFile.isFile()) {
-                        hashes.add(Pair.of(countHashSum(virtualFile, hashFunction), virtualFile.getPath().substring(trimPathLength)));
+                        hashes.add(Pair.of(countHashSum((VirtualFileImpl)virtualFile), virtualFile.getPath().substring(trimPathLength)));
                     } else {
                         final LazyIterator<VirtualFile> children = virtualFile.getChildren(VirtualFileFilter.ALL);
                         while (children.hasNext()) {
@@ -1691,16 +1880,16 @@ public class FSMountPoint implements MountPoint {
                 }
             }
         });
+        saveMd5Sums();
         return LazyIterator.fromList(hashes);
     }
 
 
-    private String countHashSum(VirtualFile virtualFile, HashFunction hashFunction) throws ServerException {
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
-        try (InputStream contentStream = virtualFile.getContent().getStream()) {
-            return ByteSource.wrap(ByteStreams.toByteArray(contentStream)).hash(hashFunction).toString();
-        } catch (ForbiddenException e) {
-            throw new ServerException(e.getServiceError());
+    private String countHashSum(VirtualFileImpl virtualFile) throws ServerException {
+        final PathLockManager.Lock lock = pathLockManager.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+        try {
+            // Sum is counted only if file is changed since previous call.
+            return md5SumsCache.getMd5Sum(virtualFile.getPath(), virtualFile.getIoFile());
         } catch (IOException e) {
             throw new ServerException(e);
         } finally {
@@ -1708,6 +1897,16 @@ public class FSMountPoint implements MountPoint {
         }
     }
 
+
+    private void saveMd5Sums() {
+        try {
+            md5SumsCache.save();
+        } catch (IOException e) {
+            // Not critical, sums are counted again after restart.
+            LOG.warn(e.getMessage(), e);
+        }
+    }
+
    /* ============ HELPERS  ============ */
 
     /* Relative system path */
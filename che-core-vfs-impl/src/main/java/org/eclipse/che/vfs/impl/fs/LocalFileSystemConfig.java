@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.PathLockManager;
+import org.eclipse.che.commons.annotation.Nullable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * Optional settings of {@link FSMountPoint} created by {@link LocalFileSystemProvider}. Every setting may be omitted, in this case
+ * default implementation is used.
+ *
+ * @author andrew00x
+ * @see FSMountPoint#newPathLockManager(String)
+ * @see FSMountPoint#newMetadataStore(String, java.io.File, PathLockManager)
+ */
+@Singleton
+public class LocalFileSystemConfig {
+    /** Configuration with all settings omitted. */
+    public static final LocalFileSystemConfig DEFAULT = new LocalFileSystemConfig(null, null, null);
+
+    private final String pathLockManagerType;
+    private final long   mappedContentCacheSize;
+    private final String metadataStoreType;
+
+    /**
+     * @param pathLockManagerType
+     *         type of manager of file locks or {@code null} to use default one
+     * @param mappedContentCacheSize
+     *         max size in bytes of memory-mapped content of hot files, {@code null}, zero or negative value disables mapping of files
+     * @param metadataStoreType
+     *         type of storage of locks, ACLs and properties or {@code null} to use default one
+     */
+    @Inject
+    public LocalFileSystemConfig(@Nullable @Named("vfs.local.fs_path_lock_manager") String pathLockManagerType,
+                                 @Nullable @Named("vfs.local.fs_mapped_content_cache_size") Long mappedContentCacheSize,
+                                 @Nullable @Named("vfs.local.fs_metadata_store") String metadataStoreType) {
+        this.pathLockManagerType = pathLockManagerType;
+        this.mappedContentCacheSize = mappedContentCacheSize == null ? 0 : mappedContentCacheSize;
+        this.metadataStoreType = metadataStoreType;
+    }
+
+    public String getPathLockManagerType() {
+        return pathLockManagerType;
+    }
+
+    public long getMappedContentCacheSize() {
+        return mappedContentCacheSize;
+    }
+
+    public String getMetadataStoreType() {
+        return metadataStoreType;
+    }
+}
@@ -12,6 +12,7 @@ package org.eclipse.che.vfs.impl.fs;
 
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.vfs.server.PathLockManager;
 import org.eclipse.che.api.vfs.server.VirtualFileSystem;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemProvider;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemRegistry;
@@ -40,6 +41,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
     private final MountPointRef                mountRef;
     private final VirtualFileSystemUserContext userContext;
     private final VirtualFileSystemRegistry    vfsRegistry;
+    private final LocalFileSystemConfig        config;
 
     /**
      * @param workspaceId
@@ -55,9 +57,30 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
                                    EventService eventService,
                                    SearcherProvider searcherProvider,
                                    VirtualFileSystemRegistry vfsRegistry) {
-        this(workspaceId, mountStrategy, eventService, searcherProvider, VirtualFileSystemUserContext.newInstance(), vfsRegistry);
+        this(workspaceId, mountStrategy, eventService, searcherProvider, VirtualFileSystemUserContext.newInstance(), vfsRegistry,
+             LocalFileSystemConfig.DEFAULT);
     }
 
+    /**
+     * @param workspaceId
+     *         virtual file system identifier
+     * @param mountStrategy
+     *         LocalFSMountStrategy
+     * @param searcherProvider
+     *         SearcherProvider or {@code null}
+     * @param config
+     *         optional settings of mount point
+     * @see LocalFileSystemProvider
+     */
+    public LocalFileSystemProvider(String workspaceId,
+                                   LocalFSMountStrategy mountStrategy,
+                                   EventService eventService,
+                                   SearcherProvider searcherProvider,
+                                   VirtualFileSystemRegistry vfsRegistry,
+                                   LocalFileSystemConfig config) {
+        this(workspaceId, mountStrategy, eventService, searcherProvider, VirtualFileSystemUserContext.newInstance(), vfsRegistry,
+             config);
+    }
 
     /**
      * @param workspaceId
@@ -74,6 +97,27 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
                                       SearcherProvider searcherProvider,
                                       VirtualFileSystemUserContext userContext,
                                       VirtualFileSystemRegistry vfsRegistry) {
+        this(workspaceId, mountStrategy, eventService, searcherProvider, userContext, vfsRegistry, LocalFileSystemConfig.DEFAULT);
+    }
+
+    /**
+     * @param workspaceId
+     *         virtual file system identifier
+     * @param mountStrategy
+     *         LocalFSMountStrategy
+     * @param searcherProvider
+     *         SearcherProvider
+     * @param config
+     *         optional settings of mount point
+     * @see LocalFileSystemProvider
+     */
+    protected LocalFileSystemProvider(String workspaceId,
+                                      LocalFSMountStrategy mountStrategy,
+                                      EventService eventService,
+                                      SearcherProvider searcherProvider,
+                                      VirtualFileSystemUserContext userContext,
+                                      VirtualFileSystemRegistry vfsRegistry,
+                                      LocalFileSystemConfig config) {
         super(workspaceId);
         this.workspaceId = workspaceId;
         this.mountStrategy = mountStrategy;
@@ -82,6 +126,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
         this.userContext = userContext;
         this.mountRef = new MountPointRef();
         this.vfsRegistry = vfsRegistry;
+        this.config = config;
     }
 
     /** Get new instance of LocalFileSystem. If virtual file system is not mounted yet if mounted automatically when used first time. */
@@ -109,6 +154,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
                     LOG.error(e.getMessage(), e);
                 }
             }
+            mount.reset();
         }
         super.close();
     }
@@ -123,7 +169,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
      * @see VirtualFileSystem
      */
     public void mount(java.io.File ioFile) throws ServerException {
-        if (!mountRef.maybeSet(new FSMountPoint(getWorkspaceId(), ioFile, eventService, searcherProvider))) {
+        if (!mountRef.maybeSet(newMountPoint(ioFile))) {
             throw new ServerException(String.format("Local filesystem '%s' already mounted. ", ioFile));
         }
     }
@@ -137,7 +183,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
         FSMountPoint mount = mountRef.get();
         if (mount == null && create) {
             final java.io.File workspaceMountPoint = mountStrategy.getMountPath(workspaceId);
-            FSMountPoint newMount = new FSMountPoint(workspaceId, workspaceMountPoint, eventService, searcherProvider);
+            FSMountPoint newMount = newMountPoint(workspaceMountPoint);
             if (mountRef.maybeSet(newMount)) {
                 if (!(workspaceMountPoint.exists() || workspaceMountPoint.mkdirs())) {
                     LOG.error("Unable create directory {}", workspaceMountPoint);
@@ -150,6 +196,14 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
         return mount;
     }
 
+    private FSMountPoint newMountPoint(java.io.File ioFile) {
+        final PathLockManager pathLockManager = FSMountPoint.newPathLockManager(config.getPathLockManagerType());
+        final long mappedContentCacheSize = config.getMappedContentCacheSize();
+        return new FSMountPoint(workspaceId, ioFile, eventService, searcherProvider, pathLockManager,
+                                mappedContentCacheSize > 0 ? new MappedContentCache(mappedContentCacheSize) : null,
+                                FSMountPoint.newMetadataStore(config.getMetadataStoreType(), ioFile, pathLockManager));
+    }
+
     private static class MountPointRef {
         final AtomicReference<FSMountPoint> ref;
 
@@ -161,6 +215,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
             final boolean res = ref.compareAndSet(null, mountPoint);
             if (res) {
                 MountPointCacheCleaner.add(mountPoint);
+                mountPoint.removeTemporaryFiles();
             }
             return res;
         }
@@ -30,9 +30,11 @@ public class LocalFileSystemRegistryPlugin {
                                          LocalFSMountStrategy mountStrategy,
                                          VirtualFileSystemRegistry registry,
                                          EventService eventService,
-                                         @Nullable SearcherProvider searcherProvider) throws ServerException {
+                                         @Nullable SearcherProvider searcherProvider,
+                                         LocalFileSystemConfig config) throws ServerException {
         for (String id : ids) {
-            registry.registerProvider(id, new LocalFileSystemProvider(id, mountStrategy, eventService, searcherProvider, registry));
+            registry.registerProvider(id, new LocalFileSystemProvider(id, mountStrategy, eventService, searcherProvider, registry,
+                                                                      config));
         }
     }
 }
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.Path;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Keeps memory-mapped content of recently read files, so repeated reads of hot files do not go through the file system
+ * and do not copy content to the java heap. Total size of mapped files is limited, least recently used files are evicted
+ * first. Mapped content is checked against file key (inode), length and modification date of file on each read, so update
+ * of file through virtual file system or replacing of file by external tool is detected.
+ * <p/>
+ * Memory of evicted buffer is unmapped by garbage collector. Content of file updated in place by an external tool may be
+ * visible through mapped buffer, and truncation of such file makes mapped buffer invalid. Virtual file system never updates
+ * files in place, see {@link FSMountPoint}.
+ *
+ * @author andrew00x
+ */
+class MappedContentCache {
+    private static final int PARTITIONS_NUM = 1 << 3;
+
+    private final Cache<Path, MappedContent> cache;
+    private final long                       maxFileSize;
+
+    /**
+     * @param maxSize
+     *         max total size in bytes of mapped files
+     */
+    MappedContentCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive. ");
+        }
+        // Guava splits max weight between segments, file that does not fit in single segment is evicted immediately.
+        maxFileSize = Math.min(maxSize / PARTITIONS_NUM, Integer.MAX_VALUE);
+        cache = CacheBuilder.newBuilder()
+                            .concurrencyLevel(PARTITIONS_NUM)
+                            .maximumWeight(Math.max(maxSize >> 10, 1))
+                            .weigher(new Weigher<Path, MappedContent>() {
+                                @Override
+                                public int weigh(Path key, MappedContent value) {
+                                    // In kilobytes. Do not overflow int.
+                                    return (int)(value.length >> 10) + 1;
+                                }
+                            })
+                            .build();
+    }
+
+    /** Returns {@code true} if file with specified length may be mapped into memory. */
+    boolean accept(long length) {
+        return length <= maxFileSize;
+    }
+
+    /**
+     * Gets content of file. If file is not mapped yet or changed since it was mapped it is mapped again.
+     *
+     * @param path
+     *         path of virtual file
+     * @param ioFile
+     *         path of file on file system
+     * @param attributes
+     *         current attributes of {@code ioFile}
+     * @return read-only buffer with content of file, buffer is not shared with other callers
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    ByteBuffer getContent(Path path, java.nio.file.Path ioFile, BasicFileAttributes attributes) throws IOException {
+        MappedContent content = cache.getIfPresent(path);
+        if (content == null || !content.isValidFor(attributes)) {
+            try (FileChannel channel = FileChannel.open(ioFile, StandardOpenOption.READ)) {
+                // Mapping remains valid after channel is closed.
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, attributes.size());
+                content = new MappedContent(attributes.fileKey(), attributes.size(), attributes.lastModifiedTime().toMillis(), buffer);
+            }
+            cache.put(path, content);
+        }
+        return content.buffer.asReadOnlyBuffer();
+    }
+
+    void invalidate(Path path) {
+        cache.invalidate(path);
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static class MappedContent {
+        final Object           fileKey;
+        final long             length;
+        final long             lastModified;
+        final MappedByteBuffer buffer;
+
+        MappedContent(Object fileKey, long length, long lastModified, MappedByteBuffer buffer) {
+            this.fileKey = fileKey;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.buffer = buffer;
+        }
+
+        boolean isValidFor(BasicFileAttributes attributes) {
+            return length == attributes.size()
+                   && lastModified == attributes.lastModifiedTime().toMillis()
+                   && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+}
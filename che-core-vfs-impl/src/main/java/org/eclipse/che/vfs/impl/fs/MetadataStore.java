@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.Path;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Storage of metadata of items of {@link FSMountPoint}: locks, access control lists and properties. {@code FSMountPoint}
+ * caches metadata, so implementation is not required to cache it.
+ *
+ * @author andrew00x
+ * @see SideFileMetadataStore
+ * @see BinaryMetadataStore
+ * @see FSMountPoint#newMetadataStore(String, java.io.File, org.eclipse.che.api.vfs.server.PathLockManager)
+ */
+interface MetadataStore {
+    /** Gets lock of file or {@code null} if file is not locked. */
+    FileLock getLock(Path path) throws IOException;
+
+    /** Sets lock of file. Value {@code null} removes lock. */
+    void setLock(Path path, FileLock lock) throws IOException;
+
+    /** Gets access control list of item or {@code null} if item does not have own access control list. */
+    AccessControlList getACL(Path path) throws IOException;
+
+    /** Sets access control list of item. Value {@code null} or empty list removes access control list. */
+    void setACL(Path path, AccessControlList acl) throws IOException;
+
+    /** Gets properties of item or {@code null} if item does not have properties. */
+    Map<String, String[]> getProperties(Path path) throws IOException;
+
+    /** Sets properties of item. Value {@code null} or empty map removes properties. */
+    void setProperties(Path path, Map<String, String[]> properties) throws IOException;
+
+    /**
+     * Copies metadata of item when item is copied. Properties of item itself are copied, its lock and access control list
+     * are not. Items in {@code skip} list and their children are not copied. This method is called before content of
+     * item is copied.
+     *
+     * @param source
+     *         path of source item
+     * @param destination
+     *         path of copy
+     * @param skip
+     *         paths of items that are not copied
+     */
+    void copy(Path source, Path destination, Collection<Path> skip) throws IOException;
+
+    /** Removes all metadata of item and its children. This method is called after item is removed. */
+    void delete(Path path) throws IOException;
+
+    /** Forgets any state kept in memory, e.g. if storage is changed by other programs or mount point is closed. */
+    void reset();
+}
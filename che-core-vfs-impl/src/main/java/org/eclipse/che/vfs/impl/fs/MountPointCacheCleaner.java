@@ -47,8 +47,11 @@ public class MountPointCacheCleaner {
                     public void run() {
                         for (Entry entry : watched.values()) {
                             if (Files.exists(entry.resetFilePath)) {
+                                LOG.info("Reset cache for VFS mounted at {}, children cache hits: {}, misses: {}",
+                                         entry.mountPoint.getRoot().getIoFile(),
+                                         entry.mountPoint.getChildrenCacheHits(),
+                                         entry.mountPoint.getChildrenCacheMisses());
                                 entry.mountPoint.reset();
-                                LOG.info("Reset cache for VFS mounted at {}", entry.mountPoint.getRoot().getIoFile());
                                 try {
                                     Files.delete(entry.resetFilePath);
                                 } catch (IOException e) {
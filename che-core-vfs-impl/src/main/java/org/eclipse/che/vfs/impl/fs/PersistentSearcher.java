@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.MountPoint;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
+
+/**
+ * Filesystem based LuceneSearcher which keeps index between restarts. Modification time and length of file are stored in index
+ * together with each document. When searcher is initialized it compares stored values with the state of filesystem and adds in
+ * index only new and updated files. Documents of files that don't exist any more are removed from index.
+ * <p/>
+ * NOTE: Changes of media type of file that are made when searcher is not running are not detected.
+ *
+ * @author andrew00x
+ */
+public class PersistentSearcher extends FSIndexSearcher {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentSearcher.class);
+
+    private static final String      LAST_MODIFIED_FIELD = "lastModified";
+    private static final String      LENGTH_FIELD        = "length";
+    /* Key of commit data which shows whether index is created in code search mode. */
+    private static final String      CODE_SEARCH_KEY     = "codeSearch";
+    private static final Set<String> STATE_FIELDS        = new HashSet<>(Arrays.asList("path", LAST_MODIFIED_FIELD, LENGTH_FIELD));
+
+    private final PersistentSearcherProvider searcherService;
+    private final AtomicReference<Exception> initError;
+
+    /* Stored state of files that are not found in filesystem yet when searcher is initialized. */
+    private volatile Map<String, long[]> indexedFiles;
+
+    PersistentSearcher(PersistentSearcherProvider searcherService, java.io.File indexDir, VirtualFileFilter filter) {
+        super(indexDir, filter);
+        this.searcherService = searcherService;
+        setCodeSearch(searcherService.isCodeSearch());
+        if (searcherService.getMaxStaleness() > 0) {
+            setAsyncUpdates(searcherService.getUpdateExecutor(), searcherService.getMaxStaleness());
+        }
+        initError = new AtomicReference<>();
+    }
+
+    @Override
+    public void init(final MountPoint mountPoint) throws ServerException {
+        try {
+            doInit();
+            indexedFiles = readIndexedFiles();
+        } catch (ServerException e) {
+            // Index may be broken if server was not stopped properly or created in other mode. Drop it and index everything again.
+            LOG.warn("Unable open index in directory '{}', index is going to be recreated. {}", getIndexDir(), e.getMessage());
+            final IndexWriter writer = getIndexWriter();
+            if (writer != null) {
+                IOUtils.closeWhileHandlingException(writer, writer.getDirectory());
+            }
+            if (!deleteRecursive(getIndexDir()) || !getIndexDir().mkdirs()) {
+                throw new ServerException(String.format("Unable recreate index directory '%s'. ", getIndexDir()));
+            }
+            doInit();
+            indexedFiles = new ConcurrentHashMap<>();
+        }
+        final ExecutorService executor = searcherService.getExecutor();
+        if (!executor.isShutdown()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        PersistentSearcher.this.initInParallel(mountPoint, searcherService.getWalkPool(), executor,
+                                                               searcherService.getIndexThreads());
+                    } catch (ServerException | RuntimeException e) {
+                        initError.set(e);
+                        LOG.error(e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    private Map<String, long[]> readIndexedFiles() throws ServerException {
+        final Map<String, long[]> result = new ConcurrentHashMap<>();
+        try (DirectoryReader reader = DirectoryReader.open(getIndexWriter(), true)) {
+            final Map<String, String> commitData = getIndexWriter().getCommitData();
+            if (reader.maxDoc() > 0 && Boolean.parseBoolean(commitData.get(CODE_SEARCH_KEY)) != isCodeSearch()) {
+                // Files that are not changed are not indexed again, so index must be created from scratch when mode is changed.
+                throw new ServerException("Index is created in other code search mode. ");
+            }
+            final Bits liveDocs = MultiFields.getLiveDocs(reader);
+            for (int i = 0, maxDoc = reader.maxDoc(); i < maxDoc; i++) {
+                if (liveDocs != null && !liveDocs.get(i)) {
+                    continue;
+                }
+                final Document doc = reader.document(i, STATE_FIELDS);
+                final IndexableField lastModified = doc.getField(LAST_MODIFIED_FIELD);
+                final IndexableField length = doc.getField(LENGTH_FIELD);
+                result.put(doc.get("path"), lastModified == null || length == null
+                                            ? new long[]{-1, -1}
+                                            : new long[]{lastModified.numericValue().longValue(), length.numericValue().longValue()});
+            }
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isIndexRequired(VirtualFile virtualFile) throws ServerException {
+        final long[] state = indexedFiles.remove(virtualFile.getPath());
+        return state == null || state[0] != virtualFile.getLastModificationDate() || state[1] != virtualFile.getLength();
+    }
+
+    @Override
+    protected void initCompleted() throws ServerException {
+        // All files that are left in map don't exist any more.
+        final Map<String, long[]> removed = indexedFiles;
+        indexedFiles = new ConcurrentHashMap<>();
+        for (String path : removed.keySet()) {
+            delete(path, true);
+        }
+        try {
+            getIndexWriter().setCommitData(Collections.singletonMap(CODE_SEARCH_KEY, String.valueOf(isCodeSearch())));
+            getIndexWriter().commit();
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+        LOG.debug("Index in directory '{}' is up to date, updated {} files, removed {} files", getIndexDir(), getIndexedFilesCount(),
+                  removed.size());
+    }
+
+    @Override
+    protected Document createDocument(VirtualFile virtualFile, Reader inReader) throws ServerException {
+        final Document doc = super.createDocument(virtualFile, inReader);
+        doc.add(new StoredField(LAST_MODIFIED_FIELD, virtualFile.getLastModificationDate()));
+        doc.add(new StoredField(LENGTH_FIELD, virtualFile.getLength()));
+        return doc;
+    }
+
+    // for test
+    Exception initializationError() {
+        return initError.get();
+    }
+
+    @Override
+    public void close() {
+        searcherService.close(this);
+        doClose();
+    }
+
+    private void doClose() {
+        // Changes are committed when IndexWriter is closed.
+        super.close();
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.commons.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+/**
+ * Unlike to {@link CleanableSearcherProvider} this implementation keeps index of each workspace in the same directory after
+ * close {@link PersistentSearcher} or restart of server. Only files that are changed since last run are indexed when searcher is
+ * created. To use this implementation instead of default one bind it in Guice module:
+ * <pre>
+ *     bind(SearcherProvider.class).to(PersistentSearcherProvider.class);
+ * </pre>
+ *
+ * @author andrew00x
+ */
+@Singleton
+public class PersistentSearcherProvider extends FSIndexSearcherProvider<PersistentSearcher> {
+    /** @see FSIndexSearcherProvider#FSIndexSearcherProvider(java.io.File, Set, Long, Boolean, String) */
+    @Inject
+    PersistentSearcherProvider(@Named("vfs.local.fs_index_root_dir") java.io.File indexRootDir,
+                               @Named("vfs.index_filter") Set<VirtualFileFilter> filters,
+                               @Nullable @Named("vfs.local.fs_index_max_staleness") Long maxStaleness,
+                               @Nullable @Named("vfs.local.fs_index_code_search") Boolean codeSearch) {
+        super(indexRootDir, filters, maxStaleness, codeSearch, "LocalVirtualFileSystem-PersistentSearcher");
+    }
+
+    PersistentSearcherProvider(java.io.File indexRootDir, Set<VirtualFileFilter> filters) {
+        this(indexRootDir, filters, 0L, false);
+    }
+
+    @Override
+    protected PersistentSearcher createSearcher(java.io.File vfsIoRoot, VirtualFileFilter filter) throws ServerException {
+        final java.io.File myIndexDir = getIndexDir(vfsIoRoot);
+        try {
+            Files.createDirectories(myIndexDir.toPath());
+        } catch (IOException e) {
+            throw new ServerException("Unable create searcher. " + e.getMessage(), e);
+        }
+        return new PersistentSearcher(this, myIndexDir, filter);
+    }
+
+    /* Name of index directory depends on location of virtual filesystem, so the same directory is used after restart. */
+    java.io.File getIndexDir(java.io.File vfsIoRoot) {
+        return new java.io.File(getIndexRootDir(),
+                                Hashing.sha1().hashString(vfsIoRoot.getAbsolutePath(), StandardCharsets.UTF_8).toString());
+    }
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.Path;
+import org.eclipse.che.api.vfs.server.PathLockManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.eclipse.che.commons.lang.IoUtil.nioCopy;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.ACL_DIR;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.ACL_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.LOCKS_DIR;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.LOCK_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.PROPERTIES_FILE_SUFFIX;
+import static org.eclipse.che.vfs.impl.fs.FSMountPoint.PROPS_DIR;
+
+/**
+ * Keeps metadata of each item in separate small files. Metadata of item is stored in service directory of its parent:
+ * <pre>
+ *     parent/.vfs/acl/name_acl
+ *     parent/.vfs/locks/name_lock
+ *     parent/.vfs/props/name_props
+ * </pre>
+ * Since metadata of children is stored inside of folder it is copied and removed together with folder.
+ *
+ * @author andrew00x
+ */
+class SideFileMetadataStore implements MetadataStore {
+    private static final long LOCK_FILE_TIMEOUT = 60000; // 60 seconds
+
+    private final java.io.File                ioRoot;
+    private final PathLockManager             pathLockManager;
+    private final AccessControlListSerializer aclSerializer;
+    private final FileLockSerializer          locksSerializer;
+    private final FileMetadataSerializer      metadataSerializer;
+
+    SideFileMetadataStore(java.io.File ioRoot, PathLockManager pathLockManager) {
+        this.ioRoot = ioRoot;
+        this.pathLockManager = pathLockManager;
+        aclSerializer = new AccessControlListSerializer();
+        locksSerializer = new FileLockSerializer();
+        metadataSerializer = new FileMetadataSerializer();
+    }
+
+    @Override
+    public FileLock getLock(Path path) throws IOException {
+        return read(getLockFilePath(path), locksSerializer);
+    }
+
+    @Override
+    public void setLock(Path path, FileLock lock) throws IOException {
+        write(getLockFilePath(path), lock, locksSerializer);
+    }
+
+    @Override
+    public AccessControlList getACL(Path path) throws IOException {
+        return read(getAclFilePath(path), aclSerializer);
+    }
+
+    @Override
+    public void setACL(Path path, AccessControlList acl) throws IOException {
+        write(getAclFilePath(path), acl == null || acl.isEmpty() ? null : acl, aclSerializer);
+    }
+
+    @Override
+    public Map<String, String[]> getProperties(Path path) throws IOException {
+        return read(getMetadataFilePath(path), metadataSerializer);
+    }
+
+    @Override
+    public void setProperties(Path path, Map<String, String[]> properties) throws IOException {
+        write(getMetadataFilePath(path), properties == null || properties.isEmpty() ? null : properties, metadataSerializer);
+    }
+
+    @Override
+    public void copy(Path source, Path destination, Collection<Path> skip) throws IOException {
+        // Metadata of children is copied together with content of folder.
+        final java.io.File sourceMetadataFile = toIoFile(getMetadataFilePath(source));
+        if (sourceMetadataFile.exists()) {
+            nioCopy(sourceMetadataFile, toIoFile(getMetadataFilePath(destination)), null);
+        }
+    }
+
+    @Override
+    public void delete(Path path) throws IOException {
+        // Metadata of children is removed together with content of folder.
+        final java.io.File aclFile = toIoFile(getAclFilePath(path));
+        if (!aclFile.delete() && aclFile.exists()) {
+            throw new IOException(String.format("Unable delete ACL file '%s'. ", aclFile));
+        }
+        final java.io.File metadataFile = toIoFile(getMetadataFilePath(path));
+        if (!metadataFile.delete() && metadataFile.exists()) {
+            throw new IOException(String.format("Unable delete file metadata '%s'. ", metadataFile));
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    private <T> T read(Path metadataPath, DataSerializer<T> serializer) throws IOException {
+        final java.io.File ioFile = toIoFile(metadataPath);
+        if (!ioFile.exists()) {
+            return null;
+        }
+        final PathLockManager.Lock lock = pathLockManager.getLock(metadataPath, false).acquire(LOCK_FILE_TIMEOUT);
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(ioFile)))) {
+            return serializer.read(dis);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private <T> void write(Path metadataPath, T value, DataSerializer<T> serializer) throws IOException {
+        final java.io.File ioFile = toIoFile(metadataPath);
+        if (value == null) {
+            if (!ioFile.delete() && ioFile.exists()) {
+                throw new IOException(String.format("Unable delete file '%s'. ", ioFile));
+            }
+            return;
+        }
+        ioFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create directory
+        // we will get FileNotFoundException at the next line when try to create FileOutputStream.
+        final PathLockManager.Lock lock = pathLockManager.getLock(metadataPath, true).acquire(LOCK_FILE_TIMEOUT);
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(ioFile)))) {
+            serializer.write(dos, value);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private java.io.File toIoFile(Path path) {
+        return new java.io.File(ioRoot, path.join(java.io.File.separatorChar));
+    }
+
+    static Path getLockFilePath(Path virtualFilePath) {
+        return virtualFilePath.isRoot()
+               ? virtualFilePath.newPath(LOCKS_DIR, virtualFilePath.getName() + LOCK_FILE_SUFFIX)
+               : virtualFilePath.getParent().newPath(LOCKS_DIR, virtualFilePath.getName() + LOCK_FILE_SUFFIX);
+    }
+
+    static Path getAclFilePath(Path virtualFilePath) {
+        return virtualFilePath.isRoot()
+               ? virtualFilePath.newPath(ACL_DIR, virtualFilePath.getName() + ACL_FILE_SUFFIX)
+               : virtualFilePath.getParent().newPath(ACL_DIR, virtualFilePath.getName() + ACL_FILE_SUFFIX);
+    }
+
+    static Path getMetadataFilePath(Path virtualFilePath) {
+        return virtualFilePath.isRoot()
+               ? virtualFilePath.newPath(PROPS_DIR, virtualFilePath.getName() + PROPERTIES_FILE_SUFFIX)
+               : virtualFilePath.getParent().newPath(PROPS_DIR, virtualFilePath.getName() + PROPERTIES_FILE_SUFFIX);
+    }
+}
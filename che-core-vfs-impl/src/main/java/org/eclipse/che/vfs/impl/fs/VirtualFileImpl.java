@@ -237,6 +237,11 @@ public class VirtualFileImpl implements VirtualFile {
         return mountPoint.zip(this, filter);
     }
 
+    @Override
+    public ContentStream streamZip(VirtualFileFilter filter, boolean storeCompressed) throws ForbiddenException, ServerException {
+        return mountPoint.streamZip(this, filter, storeCompressed);
+    }
+
     @Override
     public void unzip(InputStream zipped, boolean overwrite, int stripNumber) throws ForbiddenException, ConflictException, ServerException {
         mountPoint.unzip(this, zipped, overwrite, stripNumber);
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.Path;
+import org.eclipse.che.api.vfs.shared.dto.Principal;
+import org.eclipse.che.commons.lang.IoUtil;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import com.google.common.collect.Sets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author andrew00x
+ */
+public class BinaryMetadataStoreTest {
+    private java.io.File        root;
+    private BinaryMetadataStore store;
+    private Principal           principal;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("metadata").toFile();
+        store = new BinaryMetadataStore(root);
+        principal = DtoFactory.getInstance().createDto(Principal.class).withName("john").withType(Principal.Type.USER);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.reset();
+        IoUtil.deleteRecursive(root);
+    }
+
+    @Test
+    public void keepsMetadataAfterReopen() throws Exception {
+        final Path file = createFile("/a/b/file.txt");
+        store.setLock(file, new FileLock("token", Long.MAX_VALUE));
+        store.setACL(file, newACL("read", "write"));
+        store.setProperties(file, properties("color", "red"));
+
+        store.reset();
+
+        assertEquals("token", store.getLock(file).getLockToken());
+        assertEquals(Sets.newHashSet("read", "write"), store.getACL(file).getPermissions(principal));
+        assertArrayEquals(new String[]{"red"}, store.getProperties(file).get("color"));
+    }
+
+    @Test
+    public void removesMetadata() throws Exception {
+        final Path file = createFile("/file.txt");
+        store.setLock(file, new FileLock("token", Long.MAX_VALUE));
+        store.setACL(file, newACL("read"));
+        store.setProperties(file, properties("color", "red"));
+
+        store.setLock(file, null);
+        store.setACL(file, new AccessControlList());
+        store.setProperties(file, Collections.<String, String[]>emptyMap());
+        store.reset();
+
+        assertNull(store.getLock(file));
+        assertNull(store.getACL(file));
+        assertNull(store.getProperties(file));
+    }
+
+    @Test
+    public void compactsStoreFile() throws Exception {
+        final Path file = createFile("/file.txt");
+        final char[] value = new char[1024];
+        for (int i = 0; i < 2048; i++) {
+            Arrays.fill(value, (char)('a' + i % 26));
+            store.setProperties(file, properties("text", new String(value)));
+        }
+        final java.io.File storeFile = new java.io.File(root, BinaryMetadataStore.STORE_FILE);
+        assertTrue(storeFile.length() < 2048 * 1024);
+
+        store.reset();
+        Arrays.fill(value, (char)('a' + 2047 % 26));
+        assertArrayEquals(new String[]{new String(value)}, store.getProperties(file).get("text"));
+    }
+
+    @Test
+    public void copiesTree() throws Exception {
+        final Path child = createFile("/a/b/file.txt");
+        final Path source = child.getParent().getParent();
+        final Path skipped = createFile("/a/c/file.txt").getParent();
+        store.setLock(source, new FileLock("token", Long.MAX_VALUE));
+        store.setACL(source, newACL("read"));
+        store.setProperties(source, properties("color", "red"));
+        store.setACL(child, newACL("write"));
+        store.setProperties(child, properties("color", "green"));
+        store.setProperties(skipped.newPath("file.txt"), properties("color", "blue"));
+
+        // Content of items is copied before metadata.
+        final Path destination = createFile("/x/a/b/file.txt").getParent().getParent();
+        createFile("/x/a/c/file.txt");
+        store.copy(source, destination, Collections.singletonList(skipped));
+
+        assertNull(store.getLock(destination));
+        assertNull(store.getACL(destination));
+        assertArrayEquals(new String[]{"red"}, store.getProperties(destination).get("color"));
+        final Path copiedChild = Path.fromString("/x/a/b/file.txt");
+        assertEquals(Sets.newHashSet("write"), store.getACL(copiedChild).getPermissions(principal));
+        assertArrayEquals(new String[]{"green"}, store.getProperties(copiedChild).get("color"));
+        assertNull(store.getProperties(Path.fromString("/x/a/c/file.txt")));
+    }
+
+    @Test
+    public void deletesTree() throws Exception {
+        final Path child = createFile("/a/b/file.txt");
+        final Path folder = child.getParent().getParent();
+        final Path sibling = createFile("/ab");
+        createFile("/a-b");
+        store.setProperties(Path.fromString("/a-b"), properties("color", "blue"));
+        store.setProperties(folder, properties("color", "red"));
+        store.setACL(child, newACL("read"));
+        store.setProperties(sibling, properties("color", "green"));
+
+        store.delete(folder);
+        store.reset();
+
+        assertNull(store.getProperties(folder));
+        assertNull(store.getACL(child));
+        assertNotNull(store.getProperties(sibling));
+        assertNotNull(store.getProperties(Path.fromString("/a-b")));
+    }
+
+    @Test
+    public void removesMetadataOfItemRemovedByOtherProgram() throws Exception {
+        final Path file = createFile("/file.txt");
+        store.setACL(file, newACL("read"));
+        store.setProperties(file, properties("color", "red"));
+
+        assertTrue(new java.io.File(root, "file.txt").delete());
+        assertNull(store.getACL(file));
+        // New item with the same path doesn't get metadata of removed item.
+        createFile("/file.txt");
+        assertNull(store.getACL(file));
+        assertNull(store.getProperties(file));
+    }
+
+    @Test
+    public void dropsBrokenRecordAtTheEndOfFile() throws Exception {
+        final Path file = createFile("/file.txt");
+        store.setProperties(file, properties("color", "red"));
+        store.setProperties(file, properties("color", "green"));
+        store.reset();
+
+        // Damage checksum of the last record.
+        final java.io.File storeFile = new java.io.File(root, BinaryMetadataStore.STORE_FILE);
+        final byte[] bytes = Files.readAllBytes(storeFile.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(storeFile.toPath(), bytes);
+
+        assertArrayEquals(new String[]{"red"}, store.getProperties(file).get("color"));
+        assertFalse(new java.io.File(storeFile.getPath() + ".corrupted").exists());
+    }
+
+    @Test
+    public void savesCopyOfFileWithBrokenRecordInTheMiddle() throws Exception {
+        final Path file = createFile("/file.txt");
+        store.setProperties(file, properties("color", "red"));
+        final java.io.File storeFile = new java.io.File(root, BinaryMetadataStore.STORE_FILE);
+        final long firstRecordEnd = storeFile.length();
+        store.setProperties(file, properties("color", "green"));
+        store.reset();
+
+        final byte[] bytes = Files.readAllBytes(storeFile.toPath());
+        bytes[(int)firstRecordEnd - 1] ^= 1;
+        Files.write(storeFile.toPath(), bytes);
+
+        assertNull(store.getProperties(file));
+        assertTrue(new java.io.File(storeFile.getPath() + ".corrupted").exists());
+    }
+
+    @Test
+    public void migratesSideFiles() throws Exception {
+        final Path file = createFile("/a/file.txt");
+        final Path folder = file.getParent();
+        final java.io.File ioFolder = new java.io.File(root, "a");
+        final SideFileMetadataStore sideFiles = new SideFileMetadataStore(root, FSMountPoint.newPathLockManager(null));
+        sideFiles.setACL(Path.ROOT, newACL("read"));
+        sideFiles.setProperties(folder, properties("color", "red"));
+        sideFiles.setLock(file, new FileLock("token", Long.MAX_VALUE));
+        sideFiles.setProperties(file, properties("color", "green"));
+
+        assertEquals(Sets.newHashSet("read"), store.getACL(Path.ROOT).getPermissions(principal));
+        assertArrayEquals(new String[]{"red"}, store.getProperties(folder).get("color"));
+        assertEquals("token", store.getLock(file).getLockToken());
+        assertArrayEquals(new String[]{"green"}, store.getProperties(file).get("color"));
+
+        // Side files are kept.
+        assertTrue(new java.io.File(root, FSMountPoint.PROPS_DIR).exists());
+        assertTrue(new java.io.File(ioFolder, FSMountPoint.LOCKS_DIR).exists());
+        assertTrue(new java.io.File(ioFolder, FSMountPoint.PROPS_DIR).exists());
+        assertTrue(new java.io.File(root, BinaryMetadataStore.STORE_FILE).exists());
+    }
+
+    private Path createFile(String path) throws Exception {
+        final java.io.File ioFile = new java.io.File(root, path.substring(1));
+        assertTrue(ioFile.getParentFile().exists() || ioFile.getParentFile().mkdirs());
+        assertTrue(ioFile.createNewFile());
+        return Path.fromString(path);
+    }
+
+    private AccessControlList newACL(String... permissions) {
+        final Map<Principal, Set<String>> acl = new HashMap<>(1);
+        acl.put(principal, Sets.newHashSet(permissions));
+        return new AccessControlList(acl);
+    }
+
+    private Map<String, String[]> properties(String name, String value) {
+        final Map<String, String[]> properties = new HashMap<>(1);
+        properties.put(name, new String[]{value});
+        return properties;
+    }
+}
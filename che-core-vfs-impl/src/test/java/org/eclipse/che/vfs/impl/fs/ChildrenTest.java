@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.che.vfs.impl.fs;
 
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
 import org.eclipse.che.api.vfs.shared.ItemType;
 import org.eclipse.che.api.vfs.shared.dto.Item;
 import org.eclipse.che.api.vfs.shared.dto.ItemList;
@@ -23,6 +24,7 @@ import com.google.common.collect.Sets;
 import org.everrest.core.impl.ContainerResponse;
 import org.everrest.core.tools.ByteArrayContainerResponseWriter;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -253,4 +255,36 @@ public class ChildrenTest extends LocalFileSystemTest {
             assertTrue(i.getItemType() == ItemType.FOLDER);
         }
     }
+
+    public void testGetChildrenFromCache() throws Exception {
+        // Listing of recently modified folder is not cached. Make folder look like it was modified long time ago.
+        assertTrue(getIoFile(folderPath).setLastModified(System.currentTimeMillis() - 60000));
+        VirtualFileImpl folder = mountPoint.getVirtualFile(folderPath);
+        long hits = mountPoint.getChildrenCacheHits();
+        long misses = mountPoint.getChildrenCacheMisses();
+        assertEquals(4, folder.getChildren(VirtualFileFilter.ALL).size());
+        assertEquals(4, folder.getChildren(VirtualFileFilter.ALL).size());
+        assertEquals(misses + 1, mountPoint.getChildrenCacheMisses());
+        assertEquals(hits + 1, mountPoint.getChildrenCacheHits());
+
+        // Cached listing must be invalidated after creation of new item.
+        folder.createFile("FILE03", null, new ByteArrayInputStream(DEFAULT_CONTENT_BYTES));
+        assertEquals(5, folder.getChildren(VirtualFileFilter.ALL).size());
+
+        assertTrue(getIoFile(folderPath).setLastModified(System.currentTimeMillis() - 60000));
+        assertEquals(5, folder.getChildren(VirtualFileFilter.ALL).size());
+        // Cached listing must be invalidated after removing of item.
+        folder.getChild("FILE03").delete(null);
+        assertEquals(4, folder.getChildren(VirtualFileFilter.ALL).size());
+    }
+
+    public void testGetChildrenCacheModifiedOutsideOfVfs() throws Exception {
+        assertTrue(getIoFile(folderPath).setLastModified(System.currentTimeMillis() - 60000));
+        VirtualFileImpl folder = mountPoint.getVirtualFile(folderPath);
+        assertEquals(4, folder.getChildren(VirtualFileFilter.ALL).size());
+        // Create file directly on file system. Cached listing must be ignored since folder's modification time is changed.
+        createFile(folderPath, "FILE03", DEFAULT_CONTENT_BYTES);
+        assertTrue(getIoFile(folderPath).setLastModified(System.currentTimeMillis() - 30000));
+        assertEquals(5, folder.getChildren(VirtualFileFilter.ALL).size());
+    }
 }
@@ -10,10 +10,13 @@
  *******************************************************************************/
 package org.eclipse.che.vfs.impl.fs;
 
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.vfs.server.PathLockManager;
 import org.eclipse.che.api.vfs.shared.dto.Principal;
 import org.eclipse.che.dto.server.DtoFactory;
 
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 
 import org.everrest.core.impl.ContainerResponse;
 import org.everrest.core.tools.ByteArrayContainerResponseWriter;
@@ -22,6 +25,8 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -90,6 +95,55 @@ public class ContentTest extends LocalFileSystemTest {
                      writer.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
     }
 
+    public void testGetBigContent() throws Exception {
+        // Big file is not buffered in memory, it is transferred directly from the file.
+        byte[] bigContent = new byte[1024 * 1024];
+        Arrays.fill(bigContent, (byte)'a');
+        String bigFileId = pathToId(createFile(testRootPath, "ContentTest_BigFile.txt", bigContent));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String requestPath = SERVICE_URI + "content/" + bigFileId;
+        ContainerResponse response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, null, null, writer, null);
+        assertEquals("Error: " + response.getEntity(), 200, response.getStatus());
+        assertTrue(Arrays.equals(bigContent, writer.getBody()));
+    }
+
+    public void testOpenedContentIsNotAffectedByUpdate() throws Exception {
+        byte[] bigContent = new byte[1024 * 1024];
+        Arrays.fill(bigContent, (byte)'a');
+        String bigFilePath = createFile(testRootPath, "ContentTest_BigFile.txt", bigContent);
+        VirtualFileImpl file = mountPoint.getVirtualFile(bigFilePath);
+        try (InputStream stream = file.getContent().getStream()) {
+            file.updateContent(new ByteArrayInputStream(updateContent), null);
+            assertTrue(Arrays.equals(bigContent, ByteStreams.toByteArray(stream)));
+        }
+        assertTrue(Arrays.equals(updateContent, readFile(bigFilePath)));
+    }
+
+    public void testGetMappedContent() throws Exception {
+        PathLockManager pathLockManager = FSMountPoint.newPathLockManager(null);
+        FSMountPoint mappedMountPoint = new FSMountPoint(MY_WORKSPACE_ID, testFsIoRoot, new EventService(), null, pathLockManager,
+                                                         new MappedContentCache(1024 * 1024),
+                                                         new SideFileMetadataStore(testFsIoRoot, pathLockManager));
+        VirtualFileImpl file = mappedMountPoint.getVirtualFile(filePath);
+        assertTrue(Arrays.equals(content, ByteStreams.toByteArray(file.getContent().getStream())));
+        // Read the same mapped content again.
+        assertTrue(Arrays.equals(content, ByteStreams.toByteArray(file.getContent().getStream())));
+        file.updateContent(new ByteArrayInputStream(updateContent), null);
+        assertTrue(Arrays.equals(updateContent, ByteStreams.toByteArray(file.getContent().getStream())));
+    }
+
+    public void testTemporaryFilesAreRemovedOnMount() throws Exception {
+        java.io.File tmpDir = new java.io.File(testFsIoRoot, FSMountPoint.TMP_DIR);
+        assertTrue(tmpDir.exists() || tmpDir.mkdirs());
+        java.io.File orphan = new java.io.File(tmpDir, "content123.tmp");
+        assertTrue(orphan.createNewFile());
+        assertTrue(orphan.setLastModified(System.currentTimeMillis() - 60000));
+
+        provider.close();
+        provider.mount(testFsIoRoot);
+        assertFalse(orphan.exists());
+    }
+
     public void testGetContentFolder() throws Exception {
         ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         String requestPath = SERVICE_URI + "content/" + folderId;
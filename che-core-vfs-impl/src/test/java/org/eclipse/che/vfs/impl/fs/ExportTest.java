@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.ContentStream;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.commons.lang.ws.rs.ExtMediaType;
+import org.everrest.core.impl.ContainerResponse;
+import org.everrest.core.tools.ByteArrayContainerResponseWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * @author andrew00x
+ */
+public class ExportTest extends LocalFileSystemTest {
+    private final byte[] compressedContent = new byte[4096];
+
+    private String              exportFolderId;
+    private String              exportFolderPath;
+    private Map<String, byte[]> expectedZipItems;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        exportFolderPath = createDirectory(testRootPath, "ExportTest_Folder");
+        exportFolderId = pathToId(exportFolderPath);
+        String folder1 = createDirectory(exportFolderPath, "folder1");
+        String folder12 = createDirectory(folder1, "folder12");
+        createFile(folder1, "file1.txt", DEFAULT_CONTENT_BYTES);
+        createFile(folder12, "file12.txt", DEFAULT_CONTENT_BYTES);
+        createFile(folder12, "image.png", compressedContent);
+
+        expectedZipItems = new HashMap<>();
+        expectedZipItems.put("folder1/", null);
+        expectedZipItems.put("folder1/folder12/", null);
+        expectedZipItems.put("folder1/file1.txt", DEFAULT_CONTENT_BYTES);
+        expectedZipItems.put("folder1/folder12/file12.txt", DEFAULT_CONTENT_BYTES);
+        expectedZipItems.put("folder1/folder12/image.png", compressedContent);
+    }
+
+    public void testExportFolder() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String path = SERVICE_URI + "export/" + exportFolderId;
+        ContainerResponse response = launcher.service(HttpMethod.GET, path, BASE_URI, null, null, writer, null);
+        assertEquals(200, response.getStatus());
+        assertEquals(ExtMediaType.APPLICATION_ZIP, writer.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        checkZipItems(writer.getBody());
+        mountPoint.getPathLockManager().checkClean();
+    }
+
+    public void testDownloadZip() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String path = SERVICE_URI + "downloadzip/" + exportFolderId;
+        ContainerResponse response = launcher.service(HttpMethod.GET, path, BASE_URI, null, null, writer, null);
+        assertEquals(200, response.getStatus());
+        checkZipItems(writer.getBody());
+    }
+
+    public void testStreamZipIsNotPreparedInAdvance() throws Exception {
+        VirtualFile folder = mountPoint.getVirtualFileById(exportFolderId);
+        ContentStream zip = folder.streamZip(VirtualFileFilter.ALL, true);
+        assertNull(zip.getStream());
+        assertEquals(-1, zip.getLength());
+        // Changes made before content is written must be visible in archive.
+        createFile(exportFolderPath, "file2.txt", DEFAULT_CONTENT_BYTES);
+        expectedZipItems.put("file2.txt", DEFAULT_CONTENT_BYTES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        zip.writeTo(out);
+        checkZipItems(out.toByteArray());
+    }
+
+    public void testStreamZipStoreCompressedFiles() throws Exception {
+        VirtualFile folder = mountPoint.getVirtualFileById(exportFolderId);
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        folder.streamZip(VirtualFileFilter.ALL, true).writeTo(stored);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        folder.streamZip(VirtualFileFilter.ALL, false).writeTo(compressed);
+        // Zeros are compressed very well. Archive is bigger if such file is not compressed.
+        assertTrue(stored.size() > compressed.size());
+        checkZipItems(stored.toByteArray());
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(stored.toByteArray()))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                if (zipEntry.getName().endsWith(".png")) {
+                    assertEquals(ZipEntry.STORED, zipEntry.getMethod());
+                    assertEquals(compressedContent.length, zipEntry.getSize());
+                } else if (!zipEntry.isDirectory()) {
+                    assertEquals(ZipEntry.DEFLATED, zipEntry.getMethod());
+                }
+            }
+        }
+    }
+
+    public void testExportFile() throws Exception {
+        String file = createFile(exportFolderPath, "export_test_file.txt", DEFAULT_CONTENT_BYTES);
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String path = SERVICE_URI + "export/" + pathToId(file);
+        ContainerResponse response = launcher.service(HttpMethod.GET, path, BASE_URI, null, null, writer, null);
+        assertEquals(403, response.getStatus());
+    }
+
+    private void checkZipItems(byte[] zipContent) throws Exception {
+        Map<String, byte[]> expected = new HashMap<>(expectedZipItems);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipContent))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                String name = zipEntry.getName();
+                assertTrue("Not found " + name + " entry in zip. ", expected.containsKey(name));
+                byte[] expectedContent = expected.remove(name);
+                if (expectedContent != null) {
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    byte[] buf = new byte[1024];
+                    int r;
+                    while ((r = zip.read(buf)) != -1) {
+                        content.write(buf, 0, r);
+                    }
+                    assertTrue(Arrays.equals(expectedContent, content.toByteArray()));
+                }
+                zip.closeEntry();
+            }
+        }
+        assertTrue(expected.isEmpty());
+    }
+}
@@ -172,7 +172,7 @@ public abstract class LocalFileSystemTest extends TestCase {
 
     /** @see junit.framework.TestCase#tearDown() */
     protected void tearDown() throws Exception {
-        mountPoint.getPathLockFactory().checkClean();
+        mountPoint.getPathLockManager().checkClean();
         //assertTrue("Unable unmount local filesystem. ", provider.umount(testFsIoRoot));
         virtualFileSystemRegistry.unregisterProvider(MY_WORKSPACE_ID);
         assertFalse("Unable unmount local filesystem. ", provider.isMounted());
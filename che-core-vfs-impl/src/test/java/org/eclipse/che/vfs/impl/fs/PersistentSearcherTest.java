@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.search.QueryExpression;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
+
+/**
+ * @author andrew00x
+ */
+public class PersistentSearcherTest extends LocalFileSystemTest {
+    private java.io.File indexRootDir;
+    private String       searchTestPath;
+    private String       file1;
+    private String       file2;
+    private String       file3;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        indexRootDir = new java.io.File(root.getParentFile(), "index-" + getName());
+        searchTestPath = createDirectory(testRootPath, "PersistentSearcherTest_Folder");
+        file1 = createFile(searchTestPath, "PersistentSearcherTest_File01.txt", "to be or not to be".getBytes());
+        file2 = createFile(searchTestPath, "PersistentSearcherTest_File02.txt", "to be or not to be".getBytes());
+        file3 = createFile(searchTestPath, "PersistentSearcherTest_File03.txt", "to be or not to be".getBytes());
+        for (String file : new String[]{file1, file2, file3}) {
+            writeProperties(file, Collections.singletonMap("vfs:mimeType", new String[]{MediaType.TEXT_PLAIN}));
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteRecursive(indexRootDir);
+        super.tearDown();
+    }
+
+    public void testReuseIndexAfterRestart() throws Exception {
+        PersistentSearcher searcher = startSearcher();
+        final long initialFiles = searcher.getIndexedFilesCount();
+        assertTrue(initialFiles >= 3);
+        assertEquals(searcher.getFoundFilesCount(), initialFiles);
+        searcher.close();
+
+        // Emulate changes that are made when server is stopped.
+        writeFile(file1, "maybe you should think twice".getBytes());
+        assertTrue(getIoFile(file2).delete());
+        String file4 = createFile(searchTestPath, "PersistentSearcherTest_File04.txt", "to be or not to be".getBytes());
+        writeProperties(file4, Collections.singletonMap("vfs:mimeType", new String[]{MediaType.TEXT_PLAIN}));
+
+        searcher = startSearcher();
+        // Only updated and new files are indexed again.
+        assertEquals(2, searcher.getIndexedFilesCount());
+        assertEquals(initialFiles, searcher.getFoundFilesCount());
+
+        List<String> result = searcher.search(new QueryExpression().setText("to be or not to be").setPath(searchTestPath)).getFilePaths();
+        Collections.sort(result);
+        assertEquals(Arrays.asList(file3, file4), result);
+        result = searcher.search(new QueryExpression().setText("think twice").setPath(searchTestPath)).getFilePaths();
+        assertEquals(Collections.singletonList(file1), result);
+        searcher.close();
+    }
+
+    public void testNothingChanged() throws Exception {
+        startSearcher().close();
+        PersistentSearcher searcher = startSearcher();
+        assertEquals(0, searcher.getIndexedFilesCount());
+        assertEquals(3, searcher.search(new QueryExpression().setText("to be or not to be").setPath(searchTestPath)).getTotalHits());
+        searcher.close();
+    }
+
+    private PersistentSearcher startSearcher() throws Exception {
+        PersistentSearcherProvider searcherProvider =
+                new PersistentSearcherProvider(indexRootDir, Collections.<VirtualFileFilter>emptySet());
+        PersistentSearcher searcher = (PersistentSearcher)searcherProvider.getSearcher(mountPoint, true);
+        Throwable error;
+        while ((error = searcher.initializationError()) == null && !searcher.isReady()) {
+            Thread.sleep(100);
+        }
+        if (error != null) {
+            fail(error.getMessage());
+        }
+        return searcher;
+    }
+}
@@ -11,7 +11,11 @@
 package org.eclipse.che.vfs.impl.fs;
 
 import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.search.QueryExpression;
+import org.eclipse.che.api.vfs.server.search.SearchResult;
+import org.eclipse.che.api.vfs.server.search.SearchResultEntry;
 import org.eclipse.che.api.vfs.shared.dto.Item;
 import org.eclipse.che.api.vfs.shared.dto.ItemList;
 import org.eclipse.che.commons.lang.Pair;
@@ -109,7 +113,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager = new SearcherManager(searcher.getIndexWriter(), true, new SearcherFactory());
 
         Throwable error;
-        while ((error = searcher.initializationError()) == null && !searcher.initialized()) {
+        while ((error = searcher.initializationError()) == null && !searcher.isReady()) {
             Thread.sleep(100);
         }
         if (error != null) {
@@ -143,6 +147,136 @@ public class SearcherTest extends LocalFileSystemTest {
         }
     }
 
+    public void testPagedSearch() throws Exception {
+        QueryExpression query = new QueryExpression().setText("to be or not to be").setPath(searchTestPath).setMaxItems(2);
+        SearchResult page1 = searcher.search(query);
+        assertEquals(3, page1.getTotalHits());
+        assertEquals(2, page1.getEntries().size());
+        assertTrue(page1.getEntries().get(0).getScore() >= page1.getEntries().get(1).getScore());
+        assertNotNull(page1.getNextPageQuery());
+
+        SearchResult page2 = searcher.search(page1.getNextPageQuery());
+        assertEquals(3, page2.getTotalHits());
+        assertEquals(1, page2.getEntries().size());
+        assertNull(page2.getNextPageQuery());
+        // The same page is got with skipCount.
+        assertEquals(page2.getFilePaths(), searcher.search(query.setSkipCount(2)).getFilePaths());
+
+        List<String> all = new ArrayList<>(page1.getFilePaths());
+        all.addAll(page2.getFilePaths());
+        Collections.sort(all);
+        assertEquals(Arrays.asList(file1, file2, file3), all);
+        // The same page is got with cursor.
+        assertEquals(page2.getFilePaths(), searcher.search(query.setSkipCount(0).setCursor(page1.getNextPageCursor())).getFilePaths());
+    }
+
+    public void testPagedContentSearch() throws Exception {
+        QueryExpression query = new QueryExpression().setSubstring("not to be").setPath(searchTestPath).setMaxItems(2);
+        SearchResult page1 = searcher.search(query);
+        assertEquals(Arrays.asList(file1, file2), page1.getFilePaths());
+        assertEquals(2, page1.getTotalHits());
+        assertNotNull(page1.getNextPageCursor());
+
+        SearchResult page2 = searcher.search(query.setCursor(page1.getNextPageCursor()));
+        assertEquals(Collections.singletonList(file3), page2.getFilePaths());
+        assertEquals(3, page2.getTotalHits());
+        assertNull(page2.getNextPageCursor());
+        // Cursor of content search stays valid after changes of index.
+        writeFile(file4, "not to be".getBytes());
+        searcher.update(mountPoint.getVirtualFile(file4));
+        assertEquals(Arrays.asList(file4, file3), searcher.search(query).getFilePaths());
+    }
+
+    public void testSnippets() throws Exception {
+        writeFile(file2, "maybe\nyou should think\r\ntwice".getBytes());
+        searcher.update(mountPoint.getVirtualFile(file2));
+        SearchResult result = searcher.search(new QueryExpression().setText("twice").setPath(searchTestPath).setIncludeSnippets(true));
+        assertEquals(1, result.getTotalHits());
+        SearchResultEntry entry = result.getEntries().get(0);
+        assertEquals(file2, entry.getFilePath());
+        assertEquals(1, entry.getSnippets().size());
+        SearchResultEntry.Snippet snippet = entry.getSnippets().get(0);
+        assertEquals(3, snippet.getLineNumber());
+        assertEquals("twice", snippet.getLine());
+        assertEquals(24, snippet.getStartOffset());
+        assertEquals(29, snippet.getEndOffset());
+        // Snippets are not included by default.
+        assertTrue(searcher.search(new QueryExpression().setText("twice")).getEntries().get(0).getSnippets().isEmpty());
+    }
+
+    public void testInitialIndexingProgress() throws Exception {
+        assertTrue(searcher.isReady());
+        // Four files created in setUp and may be some files created by parent test.
+        assertTrue(searcher.getFoundFilesCount() >= 4);
+        assertEquals(searcher.getFoundFilesCount(), searcher.getIndexedFilesCount());
+
+        searcherManager.maybeRefresh();
+        IndexSearcher luceneSearcher = searcherManager.acquire();
+        TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", "/")), Integer.MAX_VALUE);
+        assertEquals(searcher.getIndexedFilesCount(), topDocs.totalHits);
+        searcherManager.release(luceneSearcher);
+    }
+
+    public void testAsyncUpdates() throws Exception {
+        CleanableSearcherProvider asyncSearcherProvider =
+                new CleanableSearcherProvider(root.getParentFile(), Collections.<VirtualFileFilter>emptySet(), 100L, false);
+        CleanableSearcher asyncSearcher = (CleanableSearcher)asyncSearcherProvider.getSearcher(mountPoint, true);
+        while (asyncSearcher.initializationError() == null && !asyncSearcher.isReady()) {
+            Thread.sleep(100);
+        }
+        try {
+            VirtualFile virtualFile1 = mountPoint.getVirtualFile(file1);
+            writeFile(file1, "maybe you should think twice".getBytes());
+            // Few updates of the same file are merged.
+            asyncSearcher.update(virtualFile1);
+            asyncSearcher.update(virtualFile1);
+            asyncSearcher.update(virtualFile1);
+            asyncSearcher.delete(file2, true);
+            asyncSearcher.waitForUpdates();
+
+            List<String> result =
+                    asyncSearcher.search(new QueryExpression().setText("to be or not to be").setPath(searchTestPath)).getFilePaths();
+            assertEquals(Collections.singletonList(file3), result);
+            result = asyncSearcher.search(new QueryExpression().setText("think twice").setPath(searchTestPath)).getFilePaths();
+            assertEquals(Collections.singletonList(file1), result);
+        } finally {
+            asyncSearcher.close();
+        }
+    }
+
+    public void testCodeSearch() throws Exception {
+        writeFile(file2, "class Foo {\n    int x = this.getFooBar();\n}".getBytes());
+        CleanableSearcherProvider codeSearcherProvider =
+                new CleanableSearcherProvider(root.getParentFile(), Collections.<VirtualFileFilter>emptySet(), 0L, true);
+        CleanableSearcher codeSearcher = (CleanableSearcher)codeSearcherProvider.getSearcher(mountPoint, true);
+        while (codeSearcher.initializationError() == null && !codeSearcher.isReady()) {
+            Thread.sleep(100);
+        }
+        try {
+            SearchResult result = codeSearcher.search(new QueryExpression().setSubstring("getFoo").setIncludeSnippets(true));
+            assertEquals(Collections.singletonList(file2), result.getFilePaths());
+            SearchResultEntry.Snippet snippet = result.getEntries().get(0).getSnippets().get(0);
+            assertEquals(2, snippet.getLineNumber());
+            assertEquals("    int x = this.getFooBar();", snippet.getLine());
+            assertEquals(29, snippet.getStartOffset());
+            assertEquals(35, snippet.getEndOffset());
+            // Substring search is case sensitive.
+            assertEquals(0, codeSearcher.search(new QueryExpression().setSubstring("getfoo")).getTotalHits());
+
+            result = codeSearcher.search(new QueryExpression().setRegex("get\\w+Bar\\(\\)").setPath(searchTestPath));
+            assertEquals(Collections.singletonList(file2), result.getFilePaths());
+            result = codeSearcher.search(new QueryExpression().setRegex("^class (Foo|Bar) \\{$"));
+            assertEquals(Collections.singletonList(file2), result.getFilePaths());
+            // Items are sorted by path.
+            result = codeSearcher.search(new QueryExpression().setRegex("not|twice").setPath(searchTestPath));
+            assertEquals(Arrays.asList(file1, file3), result.getFilePaths());
+        } finally {
+            codeSearcher.close();
+        }
+        // Without code search mode all files are checked.
+        assertEquals(Collections.singletonList(file2), searcher.search(new QueryExpression().setSubstring("getFoo")).getFilePaths());
+    }
+
     public void testDeleteFile() throws Exception {
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
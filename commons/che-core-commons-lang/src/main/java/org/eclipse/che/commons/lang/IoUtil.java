@@ -426,7 +426,11 @@ public class IoUtil {
             final long size = sourceChannel.size();
             long transferred = 0L;
             while (transferred < size) {
-                transferred += targetChannel.transferFrom(sourceChannel, transferred, (size - transferred));
+                final long count = targetChannel.transferFrom(sourceChannel, transferred, (size - transferred));
+                if (count <= 0) {
+                    break; // source file truncated since we got its size
+                }
+                transferred += count;
             }
         }
     }
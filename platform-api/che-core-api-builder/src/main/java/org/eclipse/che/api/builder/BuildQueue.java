@@ -12,9 +12,11 @@ package org.eclipse.che.api.builder;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import org.eclipse.che.api.account.server.dao.AccountDao;
 import org.eclipse.che.api.builder.dto.BaseBuilderRequest;
 import org.eclipse.che.api.builder.dto.BuildOptions;
 import org.eclipse.che.api.builder.dto.BuildRequest;
+import org.eclipse.che.api.builder.dto.BuilderMetric;
 import org.eclipse.che.api.builder.dto.BuilderServerAccessCriteria;
 import org.eclipse.che.api.builder.dto.BuilderServerLocation;
 import org.eclipse.che.api.builder.dto.BuilderServerRegistration;
@@ -32,6 +34,7 @@ import org.eclipse.che.api.core.notification.EventSubscriber;
 import org.eclipse.che.api.core.rest.HttpJsonHelper;
 import org.eclipse.che.api.core.rest.ServiceContext;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.FairShareQueue;
 import org.eclipse.che.api.project.server.ProjectService;
 import org.eclipse.che.api.project.shared.dto.BuilderConfiguration;
 import org.eclipse.che.api.project.shared.dto.BuildersDescriptor;
@@ -39,6 +42,7 @@ import org.eclipse.che.api.project.shared.dto.ProjectDescriptor;
 import org.eclipse.che.api.workspace.server.WorkspaceService;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceDescriptor;
 import org.eclipse.che.commons.env.EnvironmentContext;
+import org.eclipse.che.commons.lang.Pair;
 import org.eclipse.che.commons.lang.cache.Cache;
 import org.eclipse.che.commons.lang.cache.SLRUCache;
 import org.eclipse.che.commons.lang.cache.SynchronizedCache;
@@ -61,19 +65,24 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -86,7 +95,9 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 /**
  * Accepts all build request and redirects them to the slave-builders. If there is no any available slave-builder at the moment it stores
  * build request and tries send request again. Requests don't stay in this queue forever. Max time (in minutes) for request to be in the
- * queue set up by configuration parameter {@link org.eclipse.che.api.builder.internal.Constants#WAITING_TIME}.
+ * queue set up by configuration parameter {@link org.eclipse.che.api.builder.internal.Constants#WAITING_TIME}. Number of waiting
+ * requests is limited with configuration parameters {@link org.eclipse.che.api.builder.internal.Constants#QUEUE_MAX_WAITING} and
+ * {@link org.eclipse.che.api.builder.internal.Constants#QUEUE_MAX_WAITING_PER_WS}, new requests are rejected if limit is reached.
  *
  * @author andrew00x
  * @author Eugene Voevodin
@@ -96,6 +107,8 @@ public class BuildQueue {
     private static final Logger LOG = LoggerFactory.getLogger(BuildQueue.class);
 
     private static final long CHECK_AVAILABLE_BUILDER_DELAY = 2000;
+    /** Max time for sending request to the selected builder. Builder is not considered as busy with this request after this time. */
+    private static final long RESERVATION_TIMEOUT           = 30000;
 
     private static final AtomicLong sequence = new AtomicLong(1);
 
@@ -110,15 +123,39 @@ public class BuildQueue {
     private final Cache<BaseBuilderRequest, RemoteTask>      successfulBuilds;
     private final AtomicBoolean                              started;
     private final long                                       keepResultTimeMillis;
+    private final AtomicLong                                 dispatchedNum;
+    private final AtomicLong                                 totalWaitingTime;
+    private final AtomicLong                                 maxWaitingTime;
 
     private ExecutorService          executor;
+    private ExecutorService          dispatcher;
     private ScheduledExecutorService scheduler;
+    private Thread                   slavesRegistration;
 
     /** Optional pre-configured slave builders. */
     @com.google.inject.Inject(optional = true)
     @Named(Constants.BUILDER_SLAVE_BUILDER_URLS)
     private String[] slaves = new String[0];
 
+    /** Max number of requests that wait for available builder. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_MAX_WAITING)
+    private int maxWaiting = 1000;
+
+    /** Max number of requests of one workspace that wait for available builder. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_MAX_WAITING_PER_WS)
+    private int maxWaitingPerWorkspace = 20;
+
+    /** Number of threads that send requests to selected builders. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_THREADS)
+    private int threads = 10;
+
+    /** Gets weight of account in queue. If not set all accounts have the same weight. */
+    @com.google.inject.Inject(optional = true)
+    private AccountDao accountDao;
+
     /**
      * @param waitingTime
      *         max time for request to be in queue in seconds. Configuration parameter that sets max time (in seconds) which request may be
@@ -143,6 +180,9 @@ public class BuildQueue {
         successfulBuilds = new SynchronizedCache<>(new SLRUCache<BaseBuilderRequest, RemoteTask>(200, 400));
         builderServices = new ConcurrentHashMap<>();
         started = new AtomicBoolean(false);
+        dispatchedNum = new AtomicLong();
+        totalWaitingTime = new AtomicLong();
+        maxWaitingTime = new AtomicLong();
     }
 
     /**
@@ -171,6 +211,51 @@ public class BuildQueue {
         return count;
     }
 
+    /**
+     * Get stats of waiting for available builder: number of waiting requests, number of requests in queue and max size of queue,
+     * number of requests that got builder, average and max time of waiting in milliseconds.
+     *
+     * @return stats of this queue
+     */
+    public List<BuilderMetric> getStats() {
+        checkStarted();
+        final long dispatched = dispatchedNum.get();
+        final List<BuilderMetric> stats = new LinkedList<>();
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.QUEUE_WAITING_NUM)
+                            .withValue(Integer.toString(getWaitingNum())));
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.QUEUE_SIZE)
+                            .withValue(Integer.toString(getQueueSize())));
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.MAX_QUEUE_SIZE)
+                            .withValue(Integer.toString(maxWaiting)));
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.QUEUE_DISPATCHED_NUM)
+                            .withValue(Long.toString(dispatched)));
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.QUEUE_AVERAGE_WAITING_TIME)
+                            .withValue(Long.toString(dispatched == 0 ? 0 : totalWaitingTime.get() / dispatched)));
+        stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.QUEUE_MAX_WAITING_TIME)
+                            .withValue(Long.toString(maxWaitingTime.get())));
+        return stats;
+    }
+
+    /* Number of requests that wait for builder in all lists of builders. */
+    private int getQueueSize() {
+        int queueSize = 0;
+        for (BuilderList builderList : builderListMapping.values()) {
+            queueSize += builderList.getWaitingNum();
+        }
+        return queueSize;
+    }
+
+    private void addWaitingTime(long time) {
+        dispatchedNum.incrementAndGet();
+        totalWaitingTime.addAndGet(time);
+        long max = maxWaitingTime.get();
+        while (time > max && !maxWaitingTime.compareAndSet(max, time)) {
+            max = maxWaitingTime.get();
+        }
+        LOG.debug("Request waited for builder {}ms", time);
+    }
+
     public List<RemoteBuilderServer> getRegisterBuilderServers() {
         return new ArrayList<>(builderServices.values());
     }
@@ -294,12 +379,13 @@ public class BuildQueue {
             request.setTargets(buildOptions.getTargets());
             request.setIncludeDependencies(buildOptions.isIncludeDependencies());
             request.setSkipTest(buildOptions.isSkipTest());
+            request.setNoCache(buildOptions.isNoCache());
         }
         fillRequestFromProjectDescriptor(projectDescription, request);
         if (!hasBuilder(request)) {
             throw new BuilderException(String.format("Builder '%s' is not available for workspace %s.", request.getBuilder(), wsId));
         }
-        final RemoteTask successfulTask = successfulBuilds.get(request);
+        final RemoteTask successfulTask = request.isNoCache() ? null : successfulBuilds.get(request);
         Callable<RemoteTask> callable = null;
         boolean reuse = false;
         if (successfulTask != null) {
@@ -312,10 +398,6 @@ public class BuildQueue {
                 callable = new Callable<RemoteTask>() {
                     @Override
                     public RemoteTask call() throws Exception {
-                        try {
-                            Thread.sleep(1000);
-                        } catch (InterruptedException ignored) {
-                        }
                         return successfulTask;
                     }
                 };
@@ -332,8 +414,19 @@ public class BuildQueue {
         request.setId(id);
         final BuildQueueTask task = new BuildQueueTask(id, request, waitingTimeMillis, future, eventService, serviceContext.getServiceUriBuilder());
         tasks.put(id, task);
+        // Publish event before request gets to the queue, since request may be dispatched and started right after that.
         eventService.publish(BuilderEvent.queueStartedEvent(id, wsId, project));
-        executor.execute(future);
+        if (reuse) {
+            // Result of previous build is ready, don't wait for anything.
+            executor.execute(future);
+        } else {
+            try {
+                enqueue(request, workspace, future);
+            } catch (BuilderException e) {
+                eventService.publish(BuilderEvent.terminatedEvent(id, wsId, project));
+                throw e;
+            }
+        }
         return task;
     }
 
@@ -341,7 +434,12 @@ public class BuildQueue {
         return new Callable<RemoteTask>() {
             @Override
             public RemoteTask call() throws BuilderException {
-                return getBuilder(request).perform(request);
+                final RemoteBuilder builder = getBuilder(request);
+                try {
+                    return builder.perform(request);
+                } finally {
+                    releaseBuilder(request);
+                }
             }
         };
     }
@@ -389,7 +487,7 @@ public class BuildQueue {
         request.setId(id);
         final BuildQueueTask task = new BuildQueueTask(id, request, waitingTimeMillis, future, eventService, serviceContext.getServiceUriBuilder());
         tasks.put(id, task);
-        executor.execute(future);
+        enqueue(request, workspace, future);
         return task;
     }
 
@@ -397,7 +495,12 @@ public class BuildQueue {
         return new Callable<RemoteTask>() {
             @Override
             public RemoteTask call() throws BuilderException {
-                return getBuilder(request).perform(request);
+                final RemoteBuilder builder = getBuilder(request);
+                try {
+                    return builder.perform(request);
+                } finally {
+                    releaseBuilder(request);
+                }
             }
         };
     }
@@ -510,17 +613,86 @@ public class BuildQueue {
         }
         final RemoteBuilder builder = builderList.getBuilder(request);
         if (builder == null) {
-            throw new BuilderException("There is no any builder available. ");
+            throw new BuilderException(String.format("There is no any builder available for request %d. ", request.getId()));
         }
         LOG.info("Use builder '{}' at '{}'", builder.getName(), builder.getBaseUrl());
         return builder;
     }
 
+    /**
+     * Adds request to the queue of builders that may process it. Task is executed when builder is selected for request, it doesn't
+     * occupy thread while waiting. Limit {@link #maxWaiting} is applied to requests of all lists of builders.
+     *
+     * @throws BuilderException
+     *         if queue is full or workspace has too many waiting requests
+     */
+    private void enqueue(BaseBuilderRequest request, WorkspaceDescriptor workspace, InternalBuildTask future) throws BuilderException {
+        final BuilderList builderList = getBuilderList(request.getWorkspace(), request.getProject());
+        final double weight = getQueueWeight(workspace.getAccountId());
+        try {
+            if (builderList == null) {
+                throw new BuilderException("There is no any builder to process this request. ");
+            }
+            // Requests are only removed concurrently, so queue doesn't exceed limit if requests are added one by one.
+            synchronized (builderListMapping) {
+                if (getQueueSize() >= maxWaiting) {
+                    throw new BuilderException(String.format("Queue is full, max number of waiting requests is %d. ", maxWaiting));
+                }
+                builderList.enqueue(request, workspace.getAccountId(), weight, future);
+            }
+        } catch (IllegalStateException e) {
+            tasks.remove(request.getId());
+            throw new BuilderException(e.getMessage());
+        } catch (BuilderException e) {
+            tasks.remove(request.getId());
+            throw e;
+        }
+    }
+
+    private void releaseBuilder(BaseBuilderRequest request) {
+        final BuilderList builderList = getBuilderList(request.getWorkspace(), request.getProject());
+        if (builderList != null) {
+            builderList.release(request);
+        }
+    }
+
+    private void scheduleDispatch() {
+        for (BuilderList builderList : builderListMapping.values()) {
+            if (builderList.hasWaitingRequests()) {
+                builderList.scheduleDispatch();
+            }
+        }
+    }
+
     private long getBuildTimeout(WorkspaceDescriptor workspace) throws BuilderException {
         final String timeoutAttr = workspace.getAttributes().get(Constants.BUILDER_EXECUTION_TIME);
         return timeoutAttr != null ? Integer.parseInt(timeoutAttr) : maxExecutionTimeMillis;
     }
 
+    private double getQueueWeight(String accountId) {
+        if (accountDao == null || accountId == null) {
+            return 1;
+        }
+        final String weightAttr;
+        try {
+            weightAttr = accountDao.getById(accountId).getAttributes().get(Constants.BUILDER_QUEUE_WEIGHT);
+        } catch (NotFoundException | ServerException e) {
+            LOG.warn("Unable get weight of account {} in queue, default weight is used. {}", accountId, e.getMessage());
+            return 1;
+        }
+        if (weightAttr != null) {
+            try {
+                final double weight = Double.parseDouble(weightAttr);
+                if (weight > 0) {
+                    return weight;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            LOG.warn("Invalid weight '{}' of account {} in queue, default weight is used. ", weightAttr, accountId);
+        }
+        return 1;
+    }
+
     private String getAuthenticationToken() {
         User user = EnvironmentContext.getCurrent().getUser();
         if (user != null) {
@@ -577,7 +749,8 @@ public class BuildQueue {
     @PostConstruct
     public void start() {
         if (started.compareAndSet(false, true)) {
-            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            // Tasks are executed when builder is already selected, they just send request to it.
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
                                               new ThreadFactoryBuilder().setNameFormat("BuildQueue-[%d]").setDaemon(true).build()) {
                 @Override
                 protected void afterExecute(Runnable runnable, Throwable error) {
@@ -591,12 +764,28 @@ public class BuildQueue {
                                                                         internalBuildTask.workspace,
                                                                         internalBuildTask.project,
                                                                         true));
+                        } else {
+                            // Task may be canceled after builder is selected for it, don't keep builder reserved.
+                            final BuildQueueTask task = tasks.get(internalBuildTask.id);
+                            if (task != null) {
+                                releaseBuilder(task.getRequest());
+                            }
                         }
                     }
                 }
             };
+            dispatcher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("BuildQueueDispatcher-%d")
+                                                                                     .setDaemon(true).build());
             scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("BuildQueueScheduler-%d")
                                                                                              .setDaemon(true).build());
+            // Builds are done on remote builders, usually we get events about that. Check builders periodically in case if events
+            // are not delivered.
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    scheduleDispatch();
+                }
+            }, CHECK_AVAILABLE_BUILDER_DELAY, CHECK_AVAILABLE_BUILDER_DELAY, TimeUnit.MILLISECONDS);
             scheduler.scheduleAtFixedRate(new Runnable() {
                 @Override
                 public void run() {
@@ -674,13 +863,26 @@ public class BuildQueue {
                 }
             });
 
+            eventService.subscribe(new EventSubscriber<BuilderEvent>() {
+                @Override
+                public void onEvent(BuilderEvent event) {
+                    // Worker of remote builder is free, send next request to it.
+                    if (event.getType() == BuilderEvent.EventType.DONE || event.getType() == BuilderEvent.EventType.CANCELED) {
+                        scheduleDispatch();
+                    }
+                }
+            });
+
             eventService.subscribe(new BuildStatusMessenger());
 
             //Log events for analytics
             eventService.subscribe(new AnalyticsMessenger());
 
             if (slaves.length > 0) {
-                executor.execute(ThreadLocalPropagateContext.wrap(new Runnable() {
+                // Don't occupy thread of main pool, registration may take long time if some slaves are not available.
+                final ThreadFactory registrationThreadFactory = new ThreadFactoryBuilder().setNameFormat("BuildQueueRegistration-%d")
+                                                                                          .setDaemon(true).build();
+                slavesRegistration = registrationThreadFactory.newThread(ThreadLocalPropagateContext.wrap(new Runnable() {
                     @Override
                     public void run() {
                         final LinkedList<RemoteBuilderServer> servers = new LinkedList<>();
@@ -728,6 +930,7 @@ public class BuildQueue {
                         }
                     }
                 }));
+                slavesRegistration.start();
             }
         } else {
             throw new IllegalStateException("Already started");
@@ -745,6 +948,10 @@ public class BuildQueue {
         if (started.compareAndSet(true, false)) {
             boolean interrupted = false;
             scheduler.shutdownNow();
+            dispatcher.shutdownNow();
+            if (slavesRegistration != null) {
+                slavesRegistration.interrupt();
+            }
             try {
                 if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
                     LOG.warn("Unable terminate scheduler");
@@ -779,7 +986,9 @@ public class BuildQueue {
         return eventService;
     }
 
-    private static class InternalBuildTask extends FutureTask<RemoteTask> {
+    // Switched to default for test.
+    // private
+    static class InternalBuildTask extends FutureTask<RemoteTask> {
         final Long    id;
         final String  workspace;
         final String  project;
@@ -835,13 +1044,48 @@ public class BuildQueue {
     }
 
 
-    private static class BuilderList {
-        final Collection<RemoteBuilder> builders;
-        final BuilderSelectionStrategy  builderSelector;
+    /** Request that waits for available builder. */
+    private static class WaitingRequest {
+        final BaseBuilderRequest request;
+        final long               creationTime;
+        /* Task that is executed when builder is selected. */
+        final InternalBuildTask  task;
+
+        WaitingRequest(BaseBuilderRequest request, InternalBuildTask task) {
+            this.request = request;
+            this.task = task;
+            creationTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Set of builders together with requests that wait for them. Free workers of builders are checked only when something may
+     * be changed: new request is added, new builder is registered, some build is done or periodically if waiting requests
+     * exist. State of each builder is checked once for all waiting requests. Checks are performed asynchronously by single
+     * thread, so threads that wait for builder do not block each other.
+     * <p/>
+     * Waiting requests are ordered with {@link FairShareQueue}, so accounts and workspaces share builders and one workspace
+     * may not flood the queue.
+     */
+    // Switched to default for test.
+    // private
+    class BuilderList {
+        final Collection<RemoteBuilder>            builders;
+        final BuilderSelectionStrategy             builderSelector;
+        final FairShareQueue<WaitingRequest>       waiting;
+        /* Builders that are selected for requests but requests are not sent to them yet. Request id -> (builder, time). */
+        final Map<Long, Pair<RemoteBuilder, Long>> reserved;
+        /* Builders that are selected for queued tasks. Tasks get them when start. Request id -> builder. */
+        final Map<Long, RemoteBuilder>             assigned;
+        final AtomicBoolean                        dispatchScheduled;
 
         BuilderList(BuilderSelectionStrategy builderSelector) {
             this.builderSelector = builderSelector;
             builders = new LinkedHashSet<>();
+            waiting = new FairShareQueue<>(maxWaiting, maxWaitingPerWorkspace);
+            reserved = new HashMap<>();
+            assigned = new HashMap<>();
+            dispatchScheduled = new AtomicBoolean();
         }
 
         synchronized List<RemoteBuilder> getBuilders() {
@@ -857,8 +1101,15 @@ public class BuildQueue {
             return false;
         }
 
-        synchronized boolean addBuilders(Collection<? extends RemoteBuilder> list) {
-            return builders.addAll(list);
+        boolean addBuilders(Collection<? extends RemoteBuilder> list) {
+            final boolean modified;
+            synchronized (this) {
+                modified = builders.addAll(list);
+            }
+            if (modified) {
+                scheduleDispatch();
+            }
+            return modified;
         }
 
         synchronized boolean removeBuilders(Collection<? extends RemoteBuilder> list) {
@@ -873,47 +1124,143 @@ public class BuildQueue {
             return builders.size();
         }
 
+        synchronized boolean hasWaitingRequests() {
+            return !waiting.isEmpty();
+        }
+
+        synchronized int getWaitingNum() {
+            return waiting.size();
+        }
+
+        /**
+         * Adds request to the queue. Task is executed when builder is selected for request.
+         *
+         * @throws IllegalStateException
+         *         if queue is full or workspace has too many waiting requests
+         */
+        void enqueue(BaseBuilderRequest request, String account, double weight, InternalBuildTask task) {
+            synchronized (this) {
+                waiting.add(new WaitingRequest(request, task), account, request.getWorkspace(), weight);
+            }
+            scheduleDispatch();
+        }
+
+        /**
+         * Gets builder that is selected for queued request. Task of request is executed only when builder is selected, so thread
+         * never waits for builder here.
+         *
+         * @return builder or {@code null} if builder is not selected for request, e.g. all builders that may process request are
+         * unregistered or request was not added in queue
+         */
         synchronized RemoteBuilder getBuilder(BaseBuilderRequest request) {
+            return assigned.remove(request.getId());
+        }
+
+        /** Notifies that request is sent to builder or sending failed, so builder is not reserved for request anymore. */
+        synchronized void release(BaseBuilderRequest request) {
+            reserved.remove(request.getId());
+            assigned.remove(request.getId());
+        }
+
+        void scheduleDispatch() {
+            if (dispatcher != null && dispatchScheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            dispatchScheduled.set(false);
+                            dispatch();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Queue is stopped.
+                    dispatchScheduled.set(false);
+                }
+            }
+        }
+
+        private void dispatch() {
+            final Set<String> names = new HashSet<>();
             final List<RemoteBuilder> matched = new ArrayList<>();
-            for (RemoteBuilder builder : builders) {
-                if (request.getBuilder().equals(builder.getName())) {
-                    matched.add(builder);
+            synchronized (this) {
+                for (WaitingRequest waitingRequest : waiting.toList()) {
+                    if (waitingRequest.task.isDone()) {
+                        // Canceled or removed from queue by timeout.
+                        waiting.remove(waitingRequest);
+                    } else {
+                        names.add(waitingRequest.request.getBuilder());
+                    }
+                }
+                if (names.isEmpty()) {
+                    return;
+                }
+                for (RemoteBuilder builder : builders) {
+                    if (names.contains(builder.getName())) {
+                        matched.add(builder);
+                    }
                 }
             }
-            final int size = matched.size();
-            if (size == 0) {
-                return null;
+            final Map<RemoteBuilder, Integer> freeWorkers = new HashMap<>(matched.size());
+            for (RemoteBuilder builder : matched) {
+                try {
+                    freeWorkers.put(builder, builder.getBuilderState().getFreeWorkers());
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                }
             }
-            final List<RemoteBuilder> available = new ArrayList<>(matched.size());
-            for (; ; ) {
-                for (RemoteBuilder builder : matched) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        return null; // stop immediately
+            final long now = System.currentTimeMillis();
+            final List<InternalBuildTask> ready = new ArrayList<>();
+            synchronized (this) {
+                for (Iterator<Pair<RemoteBuilder, Long>> i = reserved.values().iterator(); i.hasNext(); ) {
+                    final Pair<RemoteBuilder, Long> reservation = i.next();
+                    if ((reservation.second + RESERVATION_TIMEOUT) < now) {
+                        // Request is not released in time, seems remote builder already knows about it.
+                        i.remove();
+                    } else {
+                        final Integer free = freeWorkers.get(reservation.first);
+                        if (free != null) {
+                            freeWorkers.put(reservation.first, free - 1);
+                        }
                     }
-                    BuilderState builderState;
-                    try {
-                        builderState = builder.getBuilderState();
-                    } catch (Exception e) {
-                        LOG.error(e.getMessage(), e);
+                }
+                for (WaitingRequest waitingRequest : waiting.toList()) {
+                    final String name = waitingRequest.request.getBuilder();
+                    final List<RemoteBuilder> available = new ArrayList<>();
+                    boolean exists = false;
+                    for (RemoteBuilder builder : builders) {
+                        if (name.equals(builder.getName())) {
+                            exists = true;
+                            final Integer free = freeWorkers.get(builder);
+                            if (free != null && free > 0) {
+                                available.add(builder);
+                            }
+                        }
+                    }
+                    if (!exists) {
+                        // All builders with required name are unregistered.
+                        waiting.remove(waitingRequest);
+                        // Task fails since there is no builder for it.
+                        ready.add(waitingRequest.task);
                         continue;
                     }
-                    if (builderState.getFreeWorkers() > 0) {
-                        available.add(builder);
+                    if (available.isEmpty()) {
+                        continue;
                     }
+                    final RemoteBuilder builder = available.size() > 1 ? builderSelector.select(available) : available.get(0);
+                    freeWorkers.put(builder, freeWorkers.get(builder) - 1);
+                    waiting.take(waitingRequest);
+                    reserved.put(waitingRequest.request.getId(), Pair.of(builder, now));
+                    addWaitingTime(now - waitingRequest.creationTime);
+                    assigned.put(waitingRequest.request.getId(), builder);
+                    ready.add(waitingRequest.task);
                 }
-
-                if (available.isEmpty()) {
-                    try {
-                        wait(CHECK_AVAILABLE_BUILDER_DELAY); // wait and try again
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        return null; // expected to get here if task is canceled
-                    }
-                } else {
-                    if (available.size() > 1) {
-                        return builderSelector.select(available);
-                    }
-                    return available.get(0);
+            }
+            for (InternalBuildTask task : ready) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // Queue is stopped.
+                    return;
                 }
             }
         }
@@ -1045,9 +1392,8 @@ public class BuildQueue {
                     case MESSAGE_LOGGED:
                         final BuilderEvent.LoggedMessage message = event.getMessage();
                         if (message != null) {
-                            bm.setChannel(String.format("builder:output:%d", id));
-                            bm.setBody(String.format("{\"num\":%d, \"line\":%s}",
-                                                     message.getLineNum(), JsonUtils.getJsonString(message.getMessage())));
+                            sendOutput(id, message);
+                            return;
                         }
                         break;
                 }
@@ -1056,5 +1402,25 @@ public class BuildQueue {
                 LOG.warn(e.getMessage(), e);
             }
         }
+
+        /*
+         * Clients that subscribe to channel "builder:output-batch:{id}" get batch of lines in one message, "line" contains "count" lines
+         * separated with '\n' and "num" is number of the first of them. Clients of channel "builder:output:{id}" get one message per line
+         * as before.
+         */
+        private void sendOutput(long id, BuilderEvent.LoggedMessage message) throws Exception {
+            final ChannelBroadcastMessage batch = new ChannelBroadcastMessage();
+            batch.setChannel(String.format("builder:output-batch:%d", id));
+            batch.setBody(String.format("{\"num\":%d, \"count\":%d, \"line\":%s}", message.getLineNum(), message.getCount(),
+                                        JsonUtils.getJsonString(message.getMessage())));
+            WSConnectionContext.sendMessage(batch);
+            final String[] lines = message.getCount() > 1 ? message.getMessage().split("\n", -1) : new String[]{message.getMessage()};
+            for (int i = 0; i < lines.length; i++) {
+                final ChannelBroadcastMessage bm = new ChannelBroadcastMessage();
+                bm.setChannel(String.format("builder:output:%d", id));
+                bm.setBody(String.format("{\"num\":%d, \"line\":%s}", message.getLineNum() + i, JsonUtils.getJsonString(lines[i])));
+                WSConnectionContext.sendMessage(bm);
+            }
+        }
     }
 }
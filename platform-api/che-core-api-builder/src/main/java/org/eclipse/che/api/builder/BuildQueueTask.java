@@ -276,11 +276,17 @@ public class BuildQueueTask implements Cancellable {
     }
 
     public void readLogs(HttpOutputMessage output) throws BuilderException, IOException, NotFoundException {
+        readLogs(output, null, false, null);
+    }
+
+    /** @see RemoteTask#readLogs(HttpOutputMessage, Integer, boolean, String) */
+    public void readLogs(HttpOutputMessage output, Integer fromLine, boolean follow, String range)
+            throws BuilderException, IOException, NotFoundException {
         if (isWaiting()) {
             // Logs aren't available until build starts
             throw new BuilderException("Logs are not available. Task is not started yet.");
         }
-        getRemoteTask().readLogs(output);
+        getRemoteTask().readLogs(output, fromLine, follow, range);
     }
 
     public void readReport(HttpOutputMessage output) throws BuilderException, IOException, NotFoundException {
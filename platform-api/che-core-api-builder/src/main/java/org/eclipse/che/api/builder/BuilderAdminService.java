@@ -11,6 +11,7 @@
 package org.eclipse.che.api.builder;
 
 import org.eclipse.che.api.builder.dto.BuilderDescriptor;
+import org.eclipse.che.api.builder.dto.BuilderMetric;
 import org.eclipse.che.api.builder.dto.BuilderServer;
 import org.eclipse.che.api.builder.dto.BuilderServerLocation;
 import org.eclipse.che.api.builder.dto.BuilderServerRegistration;
@@ -92,6 +93,23 @@ public class BuilderAdminService extends Service {
         return Response.status(Response.Status.OK).build();
     }
 
+    @ApiOperation(value = "Get stats of build queue",
+                  notes = "Get number of requests that wait for available builder and time of waiting",
+                  response = BuilderMetric.class,
+                  responseContainer = "List",
+                  position = 3)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 403, message = "User not authorized to call this method"),
+            @ApiResponse(code = 500, message = "Internal Server Error")})
+    @GenerateLink(rel = Constants.LINK_REL_QUEUE_STATE)
+    @GET
+    @Path("/queue")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<BuilderMetric> getQueueStats() {
+        return buildQueue.getStats();
+    }
+
     private static final String[] SERVER_LINK_RELS = new String[]{Constants.LINK_REL_AVAILABLE_BUILDERS,
                                                                   Constants.LINK_REL_SERVER_STATE,
                                                                   Constants.LINK_REL_BUILDER_STATE};
@@ -100,7 +118,7 @@ public class BuilderAdminService extends Service {
                   notes = "Get all registered builders",
                   response = BuilderServer.class,
                   responseContainer = "List",
-                  position = 3)
+                  position = 4)
     @ApiResponses(value = {
                   @ApiResponse(code = 200, message = "OK"),
                   @ApiResponse(code = 403, message = "User not authorized to call this method"),
@@ -22,6 +22,7 @@ import org.eclipse.che.api.core.rest.annotations.Description;
 import org.eclipse.che.api.core.rest.annotations.GenerateLink;
 import org.eclipse.che.api.core.rest.annotations.Required;
 import org.eclipse.che.api.core.rest.annotations.Valid;
+import org.eclipse.che.api.core.util.LogsHelper;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.commons.lang.Pair;
 import org.eclipse.che.commons.user.User;
@@ -39,6 +40,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -204,9 +206,14 @@ public class BuilderService extends Service {
                         @PathParam("ws-id") String workspace,
                         @ApiParam(value = "Get build logs", required = true)
                         @PathParam("id") Long id,
+                        @ApiParam(value = "Number of the first line of logs to get, logs are read from the beginning by default")
+                        @QueryParam(LogsHelper.FROM_LINE_PARAM) Integer fromLine,
+                        @ApiParam(value = "Wait for new lines of logs if there are no lines starting from fromLine yet")
+                        @QueryParam(LogsHelper.FOLLOW_PARAM) boolean follow,
+                        @HeaderParam(LogsHelper.RANGE_HEADER) String range,
                         @Context HttpServletResponse httpServletResponse) throws Exception {
         // Response write directly to the servlet request stream
-        buildQueue.getTask(id).readLogs(new HttpServletProxyResponse(httpServletResponse));
+        buildQueue.getTask(id).readLogs(new HttpServletProxyResponse(httpServletResponse), fromLine, follow, range);
     }
 
 
@@ -22,6 +22,8 @@ import org.eclipse.che.api.core.UnauthorizedException;
 import org.eclipse.che.api.core.rest.HttpJsonHelper;
 import org.eclipse.che.api.core.rest.HttpOutputMessage;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.LogsHelper;
+import org.eclipse.che.commons.annotation.Nullable;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.slf4j.Logger;
@@ -29,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -143,12 +146,41 @@ public class RemoteTask {
      *         if other error occurs
      */
     public void readLogs(HttpOutputMessage output) throws IOException, BuilderException, NotFoundException {
+        readLogs(output, null, false, null);
+    }
+
+    /**
+     * Copy part of logs of build process to specified {@code output}.
+     *
+     * @param output
+     *         output for logs content
+     * @param fromLine
+     *         zero-based number of the first line of logs, if {@code null} logs are read from the beginning
+     * @param follow
+     *         if {@code true} and logs don't have line {@code fromLine} yet then wait for it
+     * @param range
+     *         value of HTTP header {@code Range}, it is passed to the slave-builder as is
+     * @throws IOException
+     *         if an i/o error occurs
+     * @throws BuilderException
+     *         if other error occurs
+     * @see LogsHelper
+     */
+    public void readLogs(HttpOutputMessage output, @Nullable Integer fromLine, boolean follow, @Nullable String range)
+            throws IOException, BuilderException, NotFoundException {
         final BuildTaskDescriptor descriptor = getBuildTaskDescriptor();
         final Link link = descriptor.getLink(Constants.LINK_REL_VIEW_LOG);
         if (link == null) {
             throw new BuilderException("Logs are not available.");
         }
-        readFromUrl(link.getHref(), output);
+        final UriBuilder uriBuilder = UriBuilder.fromUri(link.getHref());
+        if (fromLine != null) {
+            uriBuilder.queryParam(LogsHelper.FROM_LINE_PARAM, fromLine);
+        }
+        if (follow) {
+            uriBuilder.queryParam(LogsHelper.FOLLOW_PARAM, true);
+        }
+        readFromUrl(uriBuilder.build().toString(), range, output);
     }
 
     /**
@@ -168,7 +200,7 @@ public class RemoteTask {
         if (link == null) {
             throw new BuilderException("Report is not available.");
         }
-        readFromUrl(link.getHref(), output);
+        readFromUrl(link.getHref(), null, output);
     }
 
     /**
@@ -226,10 +258,10 @@ public class RemoteTask {
         if (link == null) {
             throw new BuilderException(String.format("%s archive with build result is not available.", archType));
         }
-        readFromUrl(link.getHref(), output);
+        readFromUrl(link.getHref(), null, output);
     }
 
-    private void readFromUrl(String url, final HttpOutputMessage output) throws IOException {
+    private void readFromUrl(String url, String range, final HttpOutputMessage output) throws IOException {
         final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
         conn.setConnectTimeout(60 * 1000);
         conn.setReadTimeout(60 * 1000);
@@ -238,6 +270,9 @@ public class RemoteTask {
         if (context.getUser() != null && context.getUser().getToken() != null) {
             conn.setRequestProperty(HttpHeaders.AUTHORIZATION, context.getUser().getToken());
         }
+        if (range != null) {
+            conn.setRequestProperty(LogsHelper.RANGE_HEADER, range);
+        }
         try {
             output.setStatus(conn.getResponseCode());
             final String contentType = conn.getContentType();
@@ -249,6 +284,13 @@ public class RemoteTask {
             if (contentDisposition != null) {
                 output.addHttpHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
             }
+            // for reading of part of logs
+            for (String header : new String[]{LogsHelper.NEXT_LINE_HEADER, "Content-Range", "Accept-Ranges"}) {
+                final String value = conn.getHeaderField(header);
+                if (value != null) {
+                    output.addHttpHeader(header, value);
+                }
+            }
 
             try (InputStream in = firstNonNull(conn.getErrorStream(), conn.getInputStream());
                  OutputStream out = output.getOutputStream()) {
@@ -65,4 +65,12 @@ public interface BuildOptions {
     void setIncludeDependencies(boolean includeDependencies);
 
     BuildOptions withIncludeDependencies(boolean includeDependencies);
+
+    /** Build project even if result of build of the same sources with the same parameters is available. */
+    @ApiModelProperty(value = "Don't reuse results of previous builds", allowableValues = "true,false", dataType = "boolean", position = 5)
+    boolean isNoCache();
+
+    void setNoCache(boolean noCache);
+
+    BuildOptions withNoCache(boolean noCache);
 }
@@ -24,4 +24,11 @@ public interface BuildRequest extends BaseBuilderRequest {
     void setSkipTest(boolean skip);
 
     BuildRequest withSkipTest(boolean skip);
+
+    /** If {@code true} result of build is not restored from cache of artifacts and is not reused from previous builds. */
+    boolean isNoCache();
+
+    void setNoCache(boolean noCache);
+
+    BuildRequest withNoCache(boolean noCache);
 }
@@ -36,6 +36,18 @@ public interface BuilderMetric {
 
     String MAX_QUEUE_SIZE = "maxQueueSize";
 
+    String QUEUE_WAITING_NUM = "queueWaitingNum";
+
+    String QUEUE_DISPATCHED_NUM = "queueDispatchedNum";
+
+    String QUEUE_AVERAGE_WAITING_TIME = "queueAverageWaitingTime";
+
+    String QUEUE_MAX_WAITING_TIME = "queueMaxWaitingTime";
+
+    String ARTIFACTS_CACHE_SIZE = "artifactsCacheSize";
+
+    String ARTIFACTS_CACHE_HITS = "artifactsCacheHits";
+
 
     String getName();
 
@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder.internal;
+
+import org.eclipse.che.api.builder.dto.BaseBuilderRequest;
+import org.eclipse.che.api.builder.dto.BuildRequest;
+import org.eclipse.che.commons.lang.IoUtil;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content addressed cache of build artifacts. Key of cache is md5 sum of content of sources together with name and version of
+ * builder, type of task, targets and options of build, see {@link #getKey(String, String, String, BuilderConfiguration)}. It doesn't
+ * contain name of workspace, project or user, so result of build is shared between all builds of the same sources, e.g. forked
+ * projects. Key doesn't reflect state of dependencies that are resolved by build tool, e.g. snapshot dependencies, build that
+ * depends on such state should be requested with option {@link org.eclipse.che.api.builder.dto.BuildRequest#isNoCache()}.
+ * <p/>
+ * Each artifact is stored once under name that is md5 sum of its content, even if it is produced by many builds. Cached artifacts
+ * are read-only, they are hard linked to the working directory of build if file system supports that and copied otherwise. Files
+ * are copied out of lock of cache, artifacts that are being restored are not removed even if their build is evicted. Total size
+ * of artifacts is limited, least recently used results are removed when limit is reached.
+ *
+ * @author andrew00x
+ */
+public class ArtifactsCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactsCache.class);
+
+    private final java.io.File                      directory;
+    private final long                              maxSize;
+    /* Key -> artifacts of build, in access order. */
+    private final LinkedHashMap<String, CacheEntry> entries;
+    /* Md5 sum of artifact -> number of entries and restores in progress that refer to it. */
+    private final Map<String, Integer>              references;
+
+    private long size;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param directory
+     *         directory where artifacts are stored
+     * @param maxSize
+     *         max size of all artifacts in bytes
+     */
+    public ArtifactsCache(java.io.File directory, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size of cache must be greater than 0. ");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        references = new HashMap<>();
+    }
+
+    /**
+     * Gets key of build in cache.
+     *
+     * @param sourcesHash
+     *         md5 sum of content of sources of build
+     * @param builder
+     *         name of builder
+     * @param version
+     *         version of builder, may be {@code null}
+     * @param configuration
+     *         configuration of build
+     */
+    public static String getKey(String sourcesHash, String builder, String version, BuilderConfiguration configuration) {
+        final Hasher hasher = Hashing.md5().newHasher();
+        final BaseBuilderRequest request = configuration.getRequest();
+        hasher.putString(sourcesHash, StandardCharsets.UTF_8).putChar('\n')
+              .putString(builder, StandardCharsets.UTF_8).putChar('\n');
+        if (version != null) {
+            hasher.putString(version, StandardCharsets.UTF_8);
+        }
+        hasher.putChar('\n').putString(configuration.getTaskType().name(), StandardCharsets.UTF_8).putChar('\n');
+        if (request.getProjectDescriptor() != null && request.getProjectDescriptor().getType() != null) {
+            hasher.putString(request.getProjectDescriptor().getType(), StandardCharsets.UTF_8);
+        }
+        hasher.putChar('\n');
+        for (String target : configuration.getTargets()) {
+            hasher.putString(target, StandardCharsets.UTF_8).putChar('\n');
+        }
+        hasher.putChar('\n');
+        // Order of options doesn't matter.
+        for (Map.Entry<String, String> option : new TreeMap<>(configuration.getOptions()).entrySet()) {
+            hasher.putString(option.getKey(), StandardCharsets.UTF_8).putChar('=');
+            if (option.getValue() != null) {
+                hasher.putString(option.getValue(), StandardCharsets.UTF_8);
+            }
+            hasher.putChar('\n');
+        }
+        hasher.putBoolean(request.isIncludeDependencies());
+        if (request instanceof BuildRequest) {
+            hasher.putBoolean(((BuildRequest)request).isSkipTest());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Restores cached artifacts of build in its working directory.
+     *
+     * @param key
+     *         key of build
+     * @param workDir
+     *         working directory of build
+     * @return {@code true} if artifacts are found in cache and restored, {@code false} if there is no such build in cache
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public boolean restore(String key, java.io.File workDir) throws IOException {
+        final CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return false;
+            }
+            // Files are not removed until they are restored even if entry is evicted.
+            for (String md5 : entry.artifacts.values()) {
+                references.put(md5, references.get(md5) + 1);
+            }
+        }
+        boolean restored = false;
+        try {
+            final Path workDirPath = workDir.toPath();
+            for (Map.Entry<String, String> artifact : entry.artifacts.entrySet()) {
+                final Path target = workDirPath.resolve(artifact.getKey());
+                Files.createDirectories(target.getParent());
+                link(getArtifactFile(artifact.getValue()).toPath(), target);
+            }
+            restored = true;
+        } finally {
+            synchronized (this) {
+                for (String md5 : entry.artifacts.values()) {
+                    release(md5);
+                }
+                if (restored) {
+                    hits++;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts artifacts of build in cache. Artifacts that are not inside of working directory are not cached, since path of them may
+     * not be restored for other build, in this case build is not cached at all.
+     *
+     * @param key
+     *         key of build
+     * @param workDir
+     *         working directory of build
+     * @param artifacts
+     *         artifacts of build
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public void put(String key, java.io.File workDir, List<java.io.File> artifacts) throws IOException {
+        if (artifacts.isEmpty()) {
+            return;
+        }
+        final Path workDirPath = workDir.toPath();
+        final Map<String, String> md5sums = new LinkedHashMap<>(artifacts.size());
+        final Map<String, java.io.File> files = new HashMap<>(artifacts.size());
+        long entrySize = 0;
+        for (java.io.File artifact : artifacts) {
+            final Path artifactPath = artifact.toPath();
+            if (!artifactPath.startsWith(workDirPath) || !artifact.isFile()) {
+                LOG.debug("Don't cache build {}, artifact {} is not a file inside of working directory", key, artifact);
+                return;
+            }
+            // Counting is done out of lock, artifacts may be big.
+            final String md5 = com.google.common.io.Files.hash(artifact, Hashing.md5()).toString();
+            // Replacing of "\\" is need for windows support
+            md5sums.put(workDirPath.relativize(artifactPath).toString().replace("\\", "/"), md5);
+            files.put(md5, artifact);
+            entrySize += artifact.length();
+        }
+        if (entrySize > maxSize) {
+            LOG.debug("Don't cache build {}, size of artifacts {} is greater than size of cache", key, entrySize);
+            return;
+        }
+        final Map<String, Path> copies = new HashMap<>();
+        try {
+            final List<String> missing = new ArrayList<>();
+            synchronized (this) {
+                if (entries.containsKey(key)) {
+                    return;
+                }
+                for (String md5 : files.keySet()) {
+                    if (!references.containsKey(md5)) {
+                        missing.add(md5);
+                    }
+                }
+            }
+            // Copying is done out of lock, artifacts may be big.
+            for (String md5 : missing) {
+                copies.put(md5, copyArtifact(files.get(md5), md5));
+            }
+            synchronized (this) {
+                if (entries.containsKey(key)) {
+                    return;
+                }
+                for (String md5 : files.keySet()) {
+                    if (!(references.containsKey(md5) || copies.containsKey(md5))) {
+                        LOG.debug("Don't cache build {}, artifact {} is evicted while other artifacts are copied", key, md5);
+                        return;
+                    }
+                }
+                for (String md5 : files.keySet()) {
+                    if (!references.containsKey(md5)) {
+                        final java.io.File file = getArtifactFile(md5);
+                        Files.createDirectories(file.getParentFile().toPath());
+                        Files.move(copies.remove(md5), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                   StandardCopyOption.ATOMIC_MOVE);
+                        size += file.length();
+                        references.put(md5, 0);
+                    }
+                }
+                for (String md5 : md5sums.values()) {
+                    references.put(md5, references.get(md5) + 1);
+                }
+                entries.put(key, new CacheEntry(md5sums));
+                evict();
+            }
+        } finally {
+            for (Path copy : copies.values()) {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    /** Removes all cached artifacts. */
+    public synchronized void clear() {
+        entries.clear();
+        references.clear();
+        size = 0;
+        if (directory.exists() && !IoUtil.deleteRecursive(directory)) {
+            LOG.warn("Unable delete directory {}", directory);
+        }
+    }
+
+    /** Gets total size of cached artifacts in bytes. */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** Gets number of cached builds. */
+    public synchronized int getEntriesNum() {
+        return entries.size();
+    }
+
+    /** Gets number of builds whose artifacts were restored from cache. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** Gets number of builds whose artifacts were not found in cache. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void evict() {
+        for (Iterator<CacheEntry> i = entries.values().iterator(); size > maxSize && i.hasNext(); ) {
+            final CacheEntry entry = i.next();
+            i.remove();
+            for (String md5 : entry.artifacts.values()) {
+                release(md5);
+            }
+        }
+    }
+
+    /* Removes file of artifact when the last reference to it is released. */
+    private void release(String md5) {
+        final Integer refs = references.get(md5);
+        if (refs == null) {
+            // Cache is cleared.
+            return;
+        }
+        if (refs == 1) {
+            references.remove(md5);
+            final java.io.File file = getArtifactFile(md5);
+            size -= file.length();
+            if (!file.delete()) {
+                LOG.warn("Unable delete file {}", file);
+            }
+        } else {
+            references.put(md5, refs - 1);
+        }
+    }
+
+    /* Copies artifact to temporary file in directory of cache and makes the copy read-only. */
+    private Path copyArtifact(java.io.File artifact, String md5) throws IOException {
+        Files.createDirectories(directory.toPath());
+        // Build may still write to the artifact, so don't link to it but copy it.
+        final Path tmp = Files.createTempFile(directory.toPath(), md5, ".tmp");
+        try {
+            Files.copy(artifact.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (!tmp.toFile().setReadOnly()) {
+            LOG.warn("Unable make file {} read-only", tmp);
+        }
+        return tmp;
+    }
+
+    private void link(Path artifact, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, artifact);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // Hard links are not supported or cache is on other file system.
+            Files.copy(artifact, target);
+        }
+    }
+
+    private java.io.File getArtifactFile(String md5) {
+        // Spread files between sub-directories, don't keep too many files in one directory.
+        return new java.io.File(directory, md5.substring(0, 2) + java.io.File.separatorChar + md5);
+    }
+
+    private static class CacheEntry {
+        /* Path relative to working directory -> md5 sum of artifact. */
+        final Map<String, String> artifacts;
+
+        CacheEntry(Map<String, String> artifacts) {
+            this.artifacts = Collections.unmodifiableMap(new LinkedHashMap<>(artifacts));
+        }
+    }
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.che.api.builder.internal;
 
+import org.eclipse.che.api.core.util.IndexedLogFile;
 import org.eclipse.che.api.core.util.LineConsumer;
 
 import java.io.IOException;
@@ -46,6 +47,15 @@ public interface BuildLogger extends LineConsumer {
      */
     java.io.File getFile();
 
+    /**
+     * Get log that may be read from any line or range of bytes.
+     *
+     * @return {@code IndexedLogFile} or {@code null} if BuildLogger does not support reading of part of logs
+     */
+    default IndexedLogFile getIndexedLog() {
+        return null;
+    }
+
     /** Dummy {@code BuildLogger} implementation. */
     BuildLogger DUMMY = new BuildLogger() {
         @Override
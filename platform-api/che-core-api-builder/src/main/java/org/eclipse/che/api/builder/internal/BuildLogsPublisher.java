@@ -11,37 +11,42 @@
 package org.eclipse.che.api.builder.internal;
 
 import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.util.LineBatcher;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
- * Publishes builder's outputs to the EventService.
+ * Publishes builder's outputs to the EventService. Lines are published in batches, see {@link LineBatcher}.
  *
  * @author andrew00x
  */
 class BuildLogsPublisher extends DelegateBuildLogger {
-    private final AtomicInteger lineCounter;
-    private final EventService eventService;
-    private final long         taskId;
-    private final String       workspace;
-    private final String       project;
+    private final LineBatcher batcher;
 
-    BuildLogsPublisher(BuildLogger delegate, EventService eventService, long taskId, String workspace, String project) {
+    BuildLogsPublisher(BuildLogger delegate, final EventService eventService, ScheduledExecutorService scheduler, final long taskId,
+                       final String workspace, final String project) {
         super(delegate);
-        this.eventService = eventService;
-        this.taskId = taskId;
-        this.workspace = workspace;
-        this.project = project;
-        lineCounter = new AtomicInteger(1);
+        batcher = new LineBatcher(scheduler) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                eventService.publish(BuilderEvent.messageLoggedEvent(taskId, workspace, project,
+                                                                     new BuilderEvent.LoggedMessage(lines, firstLine, lineCount)));
+            }
+        };
     }
 
     @Override
     public void writeLine(String line) throws IOException {
         if (line != null) {
-            eventService.publish(BuilderEvent.messageLoggedEvent(taskId, workspace, project,
-                                                                 new BuilderEvent.LoggedMessage(line, lineCounter.getAndIncrement())));
+            batcher.addLine(line);
         }
         super.writeLine(line);
     }
+
+    @Override
+    public void close() throws IOException {
+        batcher.close();
+        super.close();
+    }
 }
@@ -81,15 +81,38 @@ public abstract class Builder {
     private final int                                  queueSize;
     private final int                                  numberOfWorkers;
     private final AtomicBoolean                        started;
+    private final String                               sourcesMaterializationType;
+    private final int                                  artifactsCacheSize;
+    /* Work directory of build -> key of build in artifacts cache. Result of build is cached when build is done. */
+    private final ConcurrentMap<java.io.File, String>  artifactsCacheKeys;
 
     private ThreadPoolExecutor       executor;
     private ScheduledExecutorService scheduler;
+    private ScheduledExecutorService logsScheduler;
     private java.io.File             repository;
     private java.io.File             builds;
     private SourcesManagerImpl       sourcesManager;
+    private ArtifactsCache           artifactsCache;
 
     public Builder(java.io.File rootDirectory, int numberOfWorkers, int queueSize, int keepResultTime, EventService eventService) {
+        this(rootDirectory, numberOfWorkers, queueSize, keepResultTime, eventService, null, 0);
+    }
+
+    /**
+     * @param sourcesMaterializationType
+     *         how sources of project are populated to working directory of build, see {@link SourcesMaterializer}. If {@code null}
+     *         sources are copied.
+     * @param artifactsCacheSize
+     *         max size of cache of build artifacts in megabytes, see {@link ArtifactsCache}. If {@code 0} artifacts are not cached.
+     *         Cache is kept in directory of builder that is removed when builder is stopped, so cache doesn't survive restart.
+     * @see Constants#SOURCES_MATERIALIZATION
+     * @see Constants#ARTIFACTS_CACHE_SIZE
+     */
+    public Builder(java.io.File rootDirectory, int numberOfWorkers, int queueSize, int keepResultTime, EventService eventService,
+                   String sourcesMaterializationType, int artifactsCacheSize) {
         this.rootDirectory = rootDirectory;
+        this.sourcesMaterializationType = sourcesMaterializationType;
+        this.artifactsCacheSize = artifactsCacheSize;
         this.numberOfWorkers = numberOfWorkers;
         this.queueSize = queueSize;
         this.keepResultTimeMillis = TimeUnit.SECONDS.toMillis(keepResultTime);
@@ -97,6 +120,7 @@ public abstract class Builder {
 
         buildListeners = new CopyOnWriteArraySet<>();
         tasks = new ConcurrentHashMap<>();
+        artifactsCacheKeys = new ConcurrentHashMap<>();
         started = new AtomicBoolean(false);
     }
 
@@ -114,6 +138,15 @@ public abstract class Builder {
      */
     public abstract String getDescription();
 
+    /**
+     * Gets version of the builder. Results of builds that are made by other version of builder are not reused from artifacts cache.
+     * By default this method returns implementation version of package of builder, it may be {@code null} if it isn't set.
+     */
+    public String getVersion() {
+        final Package myPackage = getClass().getPackage();
+        return myPackage == null ? null : myPackage.getImplementationVersion();
+    }
+
     /**
      * Gets environments that are supported by the builder. Each environment presupposes an existing some embedded pre-configured
      * environment for build, e.g. different versions of JVM. By default this method returns empty map that means usage single environment
@@ -160,8 +193,11 @@ public abstract class Builder {
                 throw new IllegalStateException(String.format("Unable create directory %s", builds.getAbsolutePath()));
             }
             // TODO: use single instance of SourceManager
-            sourcesManager = new SourcesManagerImpl(sources);
+            sourcesManager = new SourcesManagerImpl(sources, sourcesMaterializationType);
             sourcesManager.start(); // TODO: guice must do this
+            if (artifactsCacheSize > 0) {
+                artifactsCache = new ArtifactsCache(new java.io.File(repository, "artifacts"), artifactsCacheSize * 1024L * 1024L);
+            }
             executor = new MyThreadPoolExecutor(numberOfWorkers <= 0 ? Runtime.getRuntime().availableProcessors() : numberOfWorkers,
                                                 queueSize);
             scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(
@@ -189,6 +225,9 @@ public abstract class Builder {
                     }
                 }
             }, 1, 1, TimeUnit.MINUTES);
+            // Publishes batches of build logs, see BuildLogsPublisher.
+            logsScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(
+                    getName() + "-BuilderLogsPublisher-%d").setDaemon(true).build());
         } else {
             throw new IllegalStateException("Already started");
         }
@@ -229,6 +268,17 @@ public abstract class Builder {
                 interrupted |= true;
                 executor.shutdownNow();
             }
+            // Let delayed batches of logs be published, new lines are published without batching after shutdown.
+            logsScheduler.shutdown();
+            try {
+                if (!logsScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logsScheduler.shutdownNow();
+                    LOG.warn("Unable terminate logs scheduler");
+                }
+            } catch (InterruptedException e) {
+                interrupted |= true;
+                logsScheduler.shutdownNow();
+            }
             final java.io.File[] files = repository.listFiles();
             if (files != null && files.length > 0) {
                 for (java.io.File f : files) {
@@ -244,6 +294,8 @@ public abstract class Builder {
                 }
             }
             tasks.clear();
+            artifactsCacheKeys.clear();
+            artifactsCache = null;
             buildListeners.clear();
             sourcesManager.stop(); // TODO: guice must do this
             if (interrupted) {
@@ -274,6 +326,12 @@ public abstract class Builder {
         return getSourcesManager().getDirectory();
     }
 
+    /** Gets cache of build artifacts or {@code null} if artifacts are not cached. */
+    public ArtifactsCache getArtifactsCache() {
+        checkStarted();
+        return artifactsCache;
+    }
+
     public int getNumberOfWorkers() {
         checkStarted();
         return executor.getCorePoolSize();
@@ -311,6 +369,13 @@ public abstract class Builder {
                              .withValue(Integer.toString(getInternalQueueSize())));
         global.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.MAX_QUEUE_SIZE)
                              .withValue(Integer.toString(getMaxInternalQueueSize())));
+        final ArtifactsCache cache = artifactsCache;
+        if (cache != null) {
+            global.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.ARTIFACTS_CACHE_SIZE)
+                                 .withValue(Long.toString(cache.getSize())));
+            global.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.ARTIFACTS_CACHE_HITS)
+                                 .withValue(Long.toString(cache.getHits())));
+        }
         return global;
     }
 
@@ -388,8 +453,8 @@ public abstract class Builder {
     protected BuildTask execute(BuilderConfiguration configuration, BuildLogger logger) throws BuilderException {
         final CommandLine commandLine = createCommandLine(configuration);
         final BaseBuilderRequest request = configuration.getRequest();
-        final BuildLogger myLogger =
-                new BuildLogsPublisher(logger, eventService, request.getId(), request.getWorkspace(), request.getProject());
+        final BuildLogger myLogger = new BuildLogsPublisher(logger, eventService, logsScheduler, request.getId(), request.getWorkspace(),
+                                                            request.getProject());
         final Callable<Boolean> callable = createTaskFor(commandLine, myLogger, request.getTimeout(), configuration);
         final Long internalId = buildIdSequence.getAndIncrement();
         final BuildTask.Callback callback = new BuildTask.Callback() {
@@ -430,12 +495,20 @@ public abstract class Builder {
             @Override
             public Boolean call() throws Exception {
                 BaseBuilderRequest request = configuration.getRequest();
-                getSourcesManager()
-                        .getSources(logger, request.getWorkspace(), request.getProject(), request.getSourcesUrl(), configuration.getWorkDir());
+                final String artifactsKey = getSources(logger, configuration);
                 // build effectively starts right after sources downloading is done
                 eventService.publish(BuilderEvent.buildTimeStartedEvent(request.getId(), request.getWorkspace(), request.getProject(),
                                                                         System.currentTimeMillis()));
                 eventService.publish(BuilderEvent.beginEvent(request.getId(), request.getWorkspace(), request.getProject()));
+                if (artifactsKey != null) {
+                    if (artifactsCache.restore(artifactsKey, configuration.getWorkDir())) {
+                        logger.writeLine("[INFO] Sources and parameters of build are the same as in one of previous builds, "
+                                         + "result of that build is reused.");
+                        LOG.debug("Done: {}, result is restored from cache", commandLine);
+                        return true;
+                    }
+                    artifactsCacheKeys.put(configuration.getWorkDir(), artifactsKey);
+                }
                 StreamPump output = null;
                 Watchdog watcher = null;
                 int result = -1;
@@ -484,6 +557,45 @@ public abstract class Builder {
         };
     }
 
+    /**
+     * Gets sources of build.
+     *
+     * @return key of build in artifacts cache or {@code null} if result of build is not cached
+     */
+    private String getSources(BuildLogger logger, BuilderConfiguration configuration) throws IOException {
+        final BaseBuilderRequest request = configuration.getRequest();
+        final SourcesManager mySourcesManager = getSourcesManager();
+        // Results of analysis of dependencies are not cached, they are not kept in work directory.
+        if (artifactsCache != null && configuration.getTaskType() == BuilderTaskType.DEFAULT
+            && !(request instanceof BuildRequest && ((BuildRequest)request).isNoCache())
+            && mySourcesManager instanceof SourcesManagerImpl) {
+            final String sourcesHash = ((SourcesManagerImpl)mySourcesManager).getSourcesAndCountHash(
+                    logger, request.getWorkspace(), request.getProject(), request.getSourcesUrl(), configuration.getWorkDir());
+            return sourcesHash == null ? null : ArtifactsCache.getKey(sourcesHash, getName(), getVersion(), configuration);
+        }
+        mySourcesManager
+                .getSources(logger, request.getWorkspace(), request.getProject(), request.getSourcesUrl(), configuration.getWorkDir());
+        return null;
+    }
+
+    /* Puts artifacts of successful build in cache. Invoked when build is done. */
+    private void cacheArtifacts(FutureBuildTask task) {
+        final java.io.File workDir = task.getConfiguration().getWorkDir();
+        final String key = artifactsCacheKeys.remove(workDir);
+        final ArtifactsCache cache = artifactsCache;
+        if (key == null || cache == null || task.isCancelled()) {
+            return;
+        }
+        try {
+            final BuildResult result = task.getResult();
+            if (result != null && result.isSuccessful()) {
+                cache.put(key, workDir, result.getResults());
+            }
+        } catch (BuilderException | IOException e) {
+            LOG.warn(String.format("Unable cache artifacts of build %s: %s", task, e.getMessage()));
+        }
+    }
+
     /**
      * Cleanup task. Cleanup means removing all local files which were created by build process, e.g logs, sources, build reports, etc.
      * <p/>
@@ -812,6 +924,7 @@ public abstract class Builder {
             super.afterExecute(r, t);
             if (r instanceof FutureBuildTask) {
                 final FutureBuildTask futureBuildTask = (FutureBuildTask)r; // We know it is FutureBuildTask
+                cacheArtifacts(futureBuildTask);
                 for (BuildListener buildListener : getBuildListeners()) {
                     try {
                         buildListener.end(futureBuildTask);
@@ -64,6 +64,28 @@ public class Constants {
      * this time build may be terminated.
      */
     public static final String MAX_EXECUTION_TIME         = "builder.max_execution_time";
+    /**
+     * Max number of requests that may wait for available slave-builder in master queue. New requests are rejected if queue is full.
+     */
+    public static final String QUEUE_MAX_WAITING          = "builder.queue.max_waiting";
+    /** Max number of requests of one workspace that may wait for available slave-builder in master queue. */
+    public static final String QUEUE_MAX_WAITING_PER_WS   = "builder.queue.max_waiting_per_workspace";
+    /**
+     * Number of threads that send requests to slave-builders. Requests don't occupy threads while they wait for available
+     * slave-builder, so small number of threads is enough.
+     */
+    public static final String QUEUE_THREADS              = "builder.queue.threads";
+    /**
+     * Max size in megabytes of cache of build artifacts on slave-builder. Artifacts are shared between builds of the same sources with
+     * the same parameters, see {@link ArtifactsCache}. Cache is disabled if this parameter is not set or is set to 0. Cache is kept
+     * in directory of builder and is removed when builder is stopped.
+     */
+    public static final String ARTIFACTS_CACHE_SIZE       = "builder.artifacts_cache_size";
+    /**
+     * How sources of project are populated to working directory of build: {@code copy} or {@code reflink}, see {@link
+     * SourcesMaterializer}. Sources are copied if this parameter is not set.
+     */
+    public static final String SOURCES_MATERIALIZATION    = "builder.sources_materialization";
 
     /** Build results archive type: .zip */
     public static final String RESULT_ARCHIVE_ZIP         = "zip";
@@ -85,6 +107,10 @@ public class Constants {
     // attributes of workspace which are interested for builder
     public static final String BUILDER_EXECUTION_TIME = "codenvy:builder_execution_time";
 
+    // attributes of account which are interested for builder
+    /** Weight of account in master queue, account with greater weight gets available builders more often. */
+    public static final String BUILDER_QUEUE_WEIGHT   = "codenvy:builder_queue_weight";
+
     private Constants() {
     }
 }
@@ -10,33 +10,29 @@
  *******************************************************************************/
 package org.eclipse.che.api.builder.internal;
 
+import org.eclipse.che.api.core.util.IndexedLogFile;
+
 import java.io.IOException;
 import java.io.Reader;
-import java.io.Writer;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 
 /**
- * File based implementation of BuildLogger.
+ * File based implementation of BuildLogger. Lines are written to the file in batches, see {@link IndexedLogFile}, and may be read
+ * from any line while build is in progress.
  *
  * @author andrew00x
  */
 public final class DefaultBuildLogger implements BuildLogger {
-    private final java.io.File file;
-    private final String       contentType;
-    private final Writer       writer;
-    private final boolean      autoFlush;
+    private final String         contentType;
+    private final IndexedLogFile log;
 
     public DefaultBuildLogger(java.io.File file, String contentType) throws IOException {
-        this.file = file;
         this.contentType = contentType;
-        autoFlush = true;
-        writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset());
+        log = new IndexedLogFile(file);
     }
 
     @Override
     public Reader getReader() throws IOException {
-        return Files.newBufferedReader(file.toPath(), Charset.defaultCharset());
+        return log.getReader();
     }
 
     @Override
@@ -46,29 +42,28 @@ public final class DefaultBuildLogger implements BuildLogger {
 
     @Override
     public java.io.File getFile() {
-        return file;
+        return log.getFile();
+    }
+
+    @Override
+    public IndexedLogFile getIndexedLog() {
+        return log;
     }
 
     @Override
     public void writeLine(String line) throws IOException {
-        if (line != null) {
-            writer.write(line);
-        }
-        writer.write('\n');
-        if (autoFlush) {
-            writer.flush();
-        }
+        log.writeLine(line);
     }
 
     @Override
     public void close() throws IOException {
-        writer.close();
+        log.close();
     }
 
     @Override
     public String toString() {
         return "DefaultBuildLogger{" +
-               "file=" + file +
+               "file=" + log.getFile() +
                '}';
     }
 }
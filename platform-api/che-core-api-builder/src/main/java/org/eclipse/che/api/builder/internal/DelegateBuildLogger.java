@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.api.builder.internal;
 
+import org.eclipse.che.api.core.util.IndexedLogFile;
+
 import java.io.IOException;
 import java.io.Reader;
 
@@ -45,6 +47,11 @@ public abstract class DelegateBuildLogger implements BuildLogger {
         return delegate.getFile();
     }
 
+    @Override
+    public IndexedLogFile getIndexedLog() {
+        return delegate.getIndexedLog();
+    }
+
     @Override
     public void close() throws IOException {
         delegate.close();
@@ -26,6 +26,8 @@ import org.eclipse.che.api.core.rest.annotations.GenerateLink;
 import org.eclipse.che.api.core.rest.annotations.Required;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
 import org.eclipse.che.api.core.util.ContentTypeGuesser;
+import org.eclipse.che.api.core.util.IndexedLogFile;
+import org.eclipse.che.api.core.util.LogsHelper;
 import org.eclipse.che.api.core.util.SystemInfo;
 import org.eclipse.che.api.project.shared.dto.ItemReference;
 import org.eclipse.che.api.vfs.server.util.DeleteOnCloseFileInputStream;
@@ -38,6 +40,7 @@ import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -150,8 +153,16 @@ public final class SlaveBuilderService extends Service {
 
     @GET
     @Path("logs/{builder}/{id}")
-    public Response getLogs(@PathParam("builder") String builder, @PathParam("id") Long id) throws Exception {
+    public Response getLogs(@PathParam("builder") String builder,
+                            @PathParam("id") Long id,
+                            @QueryParam(LogsHelper.FROM_LINE_PARAM) Integer fromLine,
+                            @QueryParam(LogsHelper.FOLLOW_PARAM) boolean follow,
+                            @HeaderParam(LogsHelper.RANGE_HEADER) String range) throws Exception {
         final BuildLogger logger = getBuilder(builder).getBuildTask(id).getBuildLogger();
+        final IndexedLogFile log = logger.getIndexedLog();
+        if (log != null) {
+            return LogsHelper.getLogs(log, logger.getContentType(), fromLine, range, follow);
+        }
         return Response.ok(logger.getReader(), logger.getContentType()).build();
     }
 
@@ -12,6 +12,8 @@ package org.eclipse.che.api.builder.internal;
 
 import org.eclipse.che.api.builder.dto.BaseBuilderRequest;
 import org.eclipse.che.api.core.util.ValueHolder;
+import org.eclipse.che.api.vfs.server.util.FileHashCache;
+import org.eclipse.che.api.vfs.server.util.HashTree;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.commons.json.JsonHelper;
 import org.eclipse.che.commons.json.JsonParseException;
@@ -19,8 +21,10 @@ import org.eclipse.che.commons.lang.IoUtil;
 import org.eclipse.che.commons.lang.Pair;
 import org.eclipse.che.commons.lang.ZipUtils;
 
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.Striped;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.commons.fileupload.MultipartStream;
@@ -30,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,12 +44,22 @@ import java.io.StringReader;
 import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -54,7 +69,8 @@ import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
@@ -70,20 +86,41 @@ import javax.ws.rs.core.MediaType;
 public class SourcesManagerImpl implements SourcesManager {
     private static final Logger LOG = LoggerFactory.getLogger(SourcesManagerImpl.class);
 
-    private final java.io.File                        directory;
-    private final ConcurrentMap<String, Future<Void>> tasks;
-    private final AtomicReference<String>             projectKeyHolder;
-    private final Set<SourceManagerListener>          listeners;
-    private final ScheduledExecutorService            executor;
+    private final java.io.File                         directory;
+    private final ConcurrentMap<String, Future<Void>>  tasks;
+    private final Striped<ReadWriteLock>               projectLocks;
+    private final Set<SourceManagerListener>           listeners;
+    private final ScheduledExecutorService             executor;
+    private final SourcesMaterializer                  materializer;
+    /* Remote servers that do not support sync with tree of md5sums -> time when to try it again. */
+    private final ConcurrentMap<String, Long>          hashTreeUnsupported;
 
     private static final long KEEP_PROJECT_TIME = TimeUnit.MINUTES.toMillis(30);
     private static final int  CONNECT_TIMEOUT   = (int)TimeUnit.MINUTES.toMillis(4);//This time is chosen empirically and
     private static final int  READ_TIMEOUT      = (int)TimeUnit.MINUTES.toMillis(4);//necessary for some large projects. See IDEX-1957.
+    /* HttpURLConnection does not have constant for this status. */
+    private static final int  HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+    /* Remote server may be updated, so try sync with tree of md5sums again after this time. */
+    private static final long HASH_TREE_RETRY_TIME        = TimeUnit.MINUTES.toMillis(30);
 
     public SourcesManagerImpl(java.io.File directory) {
+        this(directory, null);
+    }
+
+    /**
+     * @param directory
+     *         directory where sources are kept between builds
+     * @param materializationType
+     *         how sources are populated to working directory of build, see {@link SourcesMaterializer}. If {@code null} sources
+     *         are copied.
+     */
+    public SourcesManagerImpl(java.io.File directory, String materializationType) {
         this.directory = directory;
+        materializer = new SourcesMaterializer(materializationType);
         tasks = new ConcurrentHashMap<>();
-        projectKeyHolder = new AtomicReference<>();
+        // Locks are created on demand and garbage collected when not used, so locks of removed projects are not kept.
+        projectLocks = Striped.lazyWeakReadWriteLock(1000);
+        hashTreeUnsupported = new ConcurrentHashMap<>();
         executor = Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder().setNameFormat(getClass().getSimpleName() + "-FileCleaner-%d").setDaemon(true).build());
         listeners = new CopyOnWriteArraySet<>();
@@ -104,23 +141,33 @@ public class SourcesManagerImpl implements SourcesManager {
     }
 
     @Override
-    public void getSources(BuildLogger logger, String workspace, String project, final String sourcesUrl, java.io.File workDir)
+    public void getSources(BuildLogger logger, String workspace, String project, String sourcesUrl, java.io.File workDir)
+            throws IOException {
+        getSources(logger, workspace, project, sourcesUrl, workDir, false);
+    }
+
+    /**
+     * Gets build sources in the same way as method {@link #getSources(BuildLogger, String, String, String, java.io.File)} does and
+     * counts hash of their content. Hash is counted under the same lock as sources are populated to work directory, so it matches
+     * sources of build even if sources are updated by other build at the same time.
+     *
+     * @return md5 sum of paths and md5 sums of all files of sources
+     */
+    public String getSourcesAndCountHash(BuildLogger logger, String workspace, String project, String sourcesUrl, java.io.File workDir)
             throws IOException {
+        return getSources(logger, workspace, project, sourcesUrl, workDir, true);
+    }
+
+    private String getSources(BuildLogger logger, String workspace, String project, final String sourcesUrl, java.io.File workDir,
+                              boolean countHash) throws IOException {
         // Directory for sources. Keep sources to avoid download whole project before build.
         // This directory is not permanent and may be removed at any time.
         final java.io.File srcDir = new java.io.File(directory, workspace + java.io.File.separatorChar + project);
         // Temporary directory where we copy sources before build.
         final String key = workspace + project;
-        try {
-            synchronized (this) {
-                while (key.equals(projectKeyHolder.get())) {
-                    wait();
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error(e.getMessage(), e);
-            Thread.currentThread().interrupt();
-        }
+        // Sources are updated under write lock and are populated to working directory under read lock, so builds of the same
+        // project do not wait for each other if sources are not changed.
+        final ReadWriteLock projectLock = getProjectLock(key);
         // Avoid multiple threads download source of the same project.
         Future<Void> future = tasks.get(key);
         final ValueHolder<IOException> errorHolder = new ValueHolder<>();
@@ -128,11 +175,14 @@ public class SourcesManagerImpl implements SourcesManager {
             final FutureTask<Void> newFuture = new FutureTask<>(new Runnable() {
                 @Override
                 public void run() {
+                    projectLock.writeLock().lock();
                     try {
                         download(sourcesUrl, srcDir);
                     } catch (IOException e) {
                         LOG.error(e.getMessage(), e);
                         errorHolder.set(e);
+                    } finally {
+                        projectLock.writeLock().unlock();
                     }
                 }
             }, null);
@@ -158,15 +208,26 @@ public class SourcesManagerImpl implements SourcesManager {
             if (ioError != null) {
                 throw ioError;
             }
-            IoUtil.copy(srcDir, workDir, IoUtil.ANY_FILTER);
+            String hash = null;
+            projectLock.readLock().lock();
+            try {
+                materializer.materialize(srcDir, workDir);
+                if (countHash) {
+                    hash = countContentHash(srcDir);
+                }
+            } finally {
+                projectLock.readLock().unlock();
+            }
             for (SourceManagerListener listener : listeners) {
                 listener.afterDownload(new SourceManagerEvent(workspace, project, sourcesUrl, workDir));
             }
             if (!srcDir.setLastModified(System.currentTimeMillis())) {
                 LOG.error("Unable update modification date of {} ", srcDir);
             }
+            return hash;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            return null;
         } catch (ExecutionException e) {
             // Runnable does not throw checked exceptions.
             final Throwable cause = e.getCause();
@@ -180,6 +241,42 @@ public class SourcesManagerImpl implements SourcesManager {
         }
     }
 
+    /**
+     * Counts md5 sum of paths and md5 sums of all files of sources. Sums of files are taken from cache that is updated when sources
+     * are downloaded, so usually files are not read. Cache is not saved here, it is updated only under write lock.
+     */
+    private String countContentHash(java.io.File srcDir) throws IOException {
+        final FileHashCache md5SumsCache = new FileHashCache(getMd5SumsFile(srcDir));
+        final java.nio.file.Path srcPath = srcDir.toPath();
+        final Map<String, java.io.File> files = new TreeMap<>();
+        final LinkedList<java.io.File> q = new LinkedList<>();
+        q.add(srcDir);
+        while (!q.isEmpty()) {
+            java.io.File[] list = q.pop().listFiles();
+            if (list != null) {
+                for (java.io.File f : list) {
+                    if (f.isDirectory()) {
+                        q.push(f);
+                    } else {
+                        //Replacing of "\\" is need for windows support
+                        files.put(srcPath.relativize(f.toPath()).toString().replace("\\", "/"), f);
+                    }
+                }
+            }
+        }
+        // Files are sorted by path, so hash doesn't depend on order of listing of directories.
+        final Hasher hasher = Hashing.md5().newHasher();
+        for (Map.Entry<String, java.io.File> e : files.entrySet()) {
+            hasher.putString(e.getKey(), StandardCharsets.UTF_8).putChar(' ')
+                  .putString(md5SumsCache.getMd5Sum(e.getKey(), e.getValue()), StandardCharsets.UTF_8).putChar('\n');
+        }
+        return hasher.hash().toString();
+    }
+
+    private ReadWriteLock getProjectLock(String key) {
+        return projectLocks.get(key);
+    }
+
     static final OutputStream DEV_NULL = new OutputStream() {
         public void write(byte[] b, int off, int len) {
         }
@@ -192,38 +289,52 @@ public class SourcesManagerImpl implements SourcesManager {
     };
 
     private void download(String downloadUrl, java.io.File downloadTo) throws IOException {
-        HttpURLConnection conn = null;
-        try {
-            final LinkedList<java.io.File> q = new LinkedList<>();
-            q.add(downloadTo);
-            final long start = System.currentTimeMillis();
-            final List<Pair<String, String>> md5sums = new LinkedList<>();
-            while (!q.isEmpty()) {
-                java.io.File current = q.pop();
-                java.io.File[] list = current.listFiles();
-                if (list != null) {
-                    for (java.io.File f : list) {
-                        if (f.isDirectory()) {
-                            q.push(f);
-                        } else {
-                            md5sums.add(Pair.of(com.google.common.io.Files.hash(f, Hashing.md5()).toString(),
-                                                downloadTo.toPath().relativize(f.toPath()).toString()
-                                                          .replace("\\", "/"))); //Replacing of "\" is need for windows support
-                        }
+        final LinkedList<java.io.File> q = new LinkedList<>();
+        q.add(downloadTo);
+        final long start = System.currentTimeMillis();
+        final List<Pair<String, String>> md5sums = new LinkedList<>();
+        // Sums of files that are not changed since previous build are not counted again.
+        final FileHashCache md5SumsCache = new FileHashCache(getMd5SumsFile(downloadTo));
+        final Set<String> paths = new HashSet<>();
+        while (!q.isEmpty()) {
+            java.io.File current = q.pop();
+            java.io.File[] list = current.listFiles();
+            if (list != null) {
+                for (java.io.File f : list) {
+                    if (f.isDirectory()) {
+                        q.push(f);
+                    } else {
+                        //Replacing of "\\" is need for windows support
+                        final String path = downloadTo.toPath().relativize(f.toPath()).toString().replace("\\", "/");
+                        md5sums.add(Pair.of(md5SumsCache.getMd5Sum(path, f), path));
+                        paths.add(path);
                     }
                 }
             }
-            final long end = System.currentTimeMillis();
-            if (md5sums.size() > 0) {
-                LOG.debug("count md5sums of {} files, time: {}ms", md5sums.size(), (end - start));
-            }
-            conn = (HttpURLConnection)new URL(downloadUrl).openConnection();
-            conn.setConnectTimeout(CONNECT_TIMEOUT);
-            conn.setReadTimeout(READ_TIMEOUT);
-            final EnvironmentContext context = EnvironmentContext.getCurrent();
-            if (context.getUser() != null && context.getUser().getToken() != null) {
-                conn.setRequestProperty(HttpHeaders.AUTHORIZATION, context.getUser().getToken());
+        }
+        md5SumsCache.retainAll(paths);
+        try {
+            md5SumsCache.save();
+        } catch (IOException e) {
+            // Not critical, sums are counted again next time.
+            LOG.warn(e.getMessage(), e);
+        }
+        final long end = System.currentTimeMillis();
+        if (md5sums.size() > 0) {
+            LOG.debug("count md5sums of {} files, time: {}ms", md5sums.size(), (end - start));
+        }
+        final String server = getServer(downloadUrl);
+        if (!md5sums.isEmpty() && isHashTreeSupported(server)) {
+            if (downloadHashTreeDiff(downloadUrl, downloadTo, HashTree.fromMd5Sums(md5sums.iterator()))) {
+                return;
             }
+            // Remote server does not support sync with tree of md5sums, do not try it again for a while.
+            LOG.warn("Remote server {} does not support sync with tree of md5sums, send md5sums of all files. ", server);
+            hashTreeUnsupported.put(server, System.currentTimeMillis() + HASH_TREE_RETRY_TIME);
+        }
+        HttpURLConnection conn = null;
+        try {
+            conn = openConnection(downloadUrl);
             if (!md5sums.isEmpty()) {
                 conn.setRequestMethod(HttpMethod.POST);
                 conn.setRequestProperty("Content-type", MediaType.TEXT_PLAIN);
@@ -239,78 +350,189 @@ public class SourcesManagerImpl implements SourcesManager {
                     }
                 }
             }
-            final int responseCode = conn.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
+            readUpdates(conn, downloadTo);
+        } catch (ParseException | JsonParseException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Gets updates with tree of md5sums of folders, see {@link HashTree}. Unchanged folders are not compared on remote server, and
+     * md5sums of files are sent only for changed folders.
+     *
+     * @return {@code false} if remote server does not support sync with tree of md5sums
+     */
+    private boolean downloadHashTreeDiff(String downloadUrl, java.io.File downloadTo, HashTree tree) throws IOException {
+        List<String> listFiles = Collections.emptyList();
+        while (true) {
+            final HttpURLConnection conn = openConnection(downloadUrl);
+            try {
+                conn.setRequestMethod(HttpMethod.POST);
+                conn.setRequestProperty("Content-type", HashTree.MEDIA_TYPE);
+                conn.setRequestProperty(HttpHeaders.ACCEPT, MediaType.MULTIPART_FORM_DATA + ", " + MediaType.APPLICATION_JSON);
+                conn.setDoOutput(true);
+                try (Writer writer = new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8)) {
+                    tree.write(writer, listFiles);
+                }
+                final int responseCode = conn.getResponseCode();
+                if (responseCode == HTTP_UNSUPPORTED_MEDIA_TYPE) {
+                    return false;
+                }
                 final String contentType = conn.getHeaderField("content-type");
-                if (contentType.startsWith(MediaType.MULTIPART_FORM_DATA)) {
-                    final HeaderParameterParser headerParameterParser = new HeaderParameterParser();
-                    final String boundary = headerParameterParser.parse(contentType).get("boundary");
+                if (responseCode == HttpURLConnection.HTTP_OK && contentType != null && contentType.startsWith(MediaType.APPLICATION_JSON)) {
+                    if (!listFiles.isEmpty()) {
+                        throw new IOException("Remote server requests md5sums of files that are already sent. ");
+                    }
+                    // Remote server needs md5sums of files of changed folders.
                     try (InputStream in = conn.getInputStream()) {
-                        MultipartStream multipart = new MultipartStream(in, boundary.getBytes());
-                        boolean hasMore = multipart.skipPreamble();
-                        while (hasMore) {
-                            final Map<String, List<String>> headers =
-                                    parseChunkHeader(CharStreams.readLines(new StringReader(multipart.readHeaders())));
-                            final List<String> contentDisposition = headers.get("content-disposition");
-                            final String name = headerParameterParser.parse(contentDisposition.get(0)).get("name");
-                            if ("updates".equals(name)) {
-                                int length = -1;
-                                List<String> contentLengthHeader = headers.get("content-length");
-                                if (contentLengthHeader != null && !contentLengthHeader.isEmpty()) {
-                                    length = Integer.parseInt(contentLengthHeader.get(0));
-                                }
-                                if (length < 0 || length > 204800) {
-                                    java.io.File tmp = java.io.File.createTempFile("tmp", ".zip", directory);
-                                    try {
-                                        try (FileOutputStream fOut = new FileOutputStream(tmp)) {
-                                            multipart.readBodyData(fOut);
-                                        }
-                                        ZipUtils.unzip(tmp, downloadTo);
-                                    } finally {
-                                        if (tmp.exists()) {
-                                            tmp.delete();
-                                        }
+                        listFiles = Arrays.asList(JsonHelper.fromJson(in, String[].class, null));
+                    }
+                    continue;
+                }
+                readUpdates(conn, downloadTo);
+                return true;
+            } catch (ParseException | JsonParseException e) {
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                conn.disconnect();
+            }
+        }
+    }
+
+    private boolean isHashTreeSupported(String server) {
+        final Long retryTime = hashTreeUnsupported.get(server);
+        if (retryTime == null) {
+            return true;
+        }
+        if (retryTime < System.currentTimeMillis()) {
+            hashTreeUnsupported.remove(server, retryTime);
+            return true;
+        }
+        return false;
+    }
+
+    /* Gets protocol, host and port of url. Builder may get sources from different servers. */
+    private static String getServer(String url) throws IOException {
+        final URL parsed = new URL(url);
+        return parsed.getProtocol() + "://" + parsed.getAuthority();
+    }
+
+    private HttpURLConnection openConnection(String url) throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT);
+        conn.setReadTimeout(READ_TIMEOUT);
+        final EnvironmentContext context = EnvironmentContext.getCurrent();
+        if (context.getUser() != null && context.getUser().getToken() != null) {
+            conn.setRequestProperty(HttpHeaders.AUTHORIZATION, context.getUser().getToken());
+        }
+        return conn;
+    }
+
+    private void readUpdates(HttpURLConnection conn, java.io.File downloadTo) throws IOException, ParseException, JsonParseException {
+        final int responseCode = conn.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            final String contentType = conn.getHeaderField("content-type");
+            if (contentType.startsWith(MediaType.MULTIPART_FORM_DATA)) {
+                final HeaderParameterParser headerParameterParser = new HeaderParameterParser();
+                final String boundary = headerParameterParser.parse(contentType).get("boundary");
+                try (InputStream in = conn.getInputStream()) {
+                    MultipartStream multipart = new MultipartStream(in, boundary.getBytes());
+                    boolean hasMore = multipart.skipPreamble();
+                    while (hasMore) {
+                        final Map<String, List<String>> headers =
+                                parseChunkHeader(CharStreams.readLines(new StringReader(multipart.readHeaders())));
+                        final List<String> contentDisposition = headers.get("content-disposition");
+                        final String name = headerParameterParser.parse(contentDisposition.get(0)).get("name");
+                        if ("updates".equals(name)) {
+                            int length = -1;
+                            List<String> contentLengthHeader = headers.get("content-length");
+                            if (contentLengthHeader != null && !contentLengthHeader.isEmpty()) {
+                                length = Integer.parseInt(contentLengthHeader.get(0));
+                            }
+                            if (length < 0 || length > 204800) {
+                                java.io.File tmp = java.io.File.createTempFile("tmp", ".zip", directory);
+                                try {
+                                    try (FileOutputStream fOut = new FileOutputStream(tmp)) {
+                                        multipart.readBodyData(fOut);
                                     }
-                                } else {
-                                    final ByteArrayOutputStream bOut = new ByteArrayOutputStream(length);
-                                    multipart.readBodyData(bOut);
-                                    ZipUtils.unzip(new ByteArrayInputStream(bOut.toByteArray()), downloadTo);
-                                }
-                            } else if ("removed-paths".equals(name)) {
-                                final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
-                                multipart.readBodyData(bOut);
-                                final String[] removed =
-                                        JsonHelper.fromJson(new ByteArrayInputStream(bOut.toByteArray()), String[].class, null);
-                                for (String path : removed) {
-                                    java.io.File f = new java.io.File(downloadTo, path);
-                                    if (!f.delete()) {
-                                        throw new IOException(String.format("Unable delete %s", path));
+                                    try (InputStream zip = new FileInputStream(tmp)) {
+                                        unzip(zip, downloadTo);
+                                    }
+                                } finally {
+                                    if (tmp.exists()) {
+                                        tmp.delete();
                                     }
                                 }
                             } else {
-                                // To /dev/null :)
-                                multipart.readBodyData(DEV_NULL);
+                                final ByteArrayOutputStream bOut = new ByteArrayOutputStream(length);
+                                multipart.readBodyData(bOut);
+                                unzip(new ByteArrayInputStream(bOut.toByteArray()), downloadTo);
+                            }
+                        } else if ("removed-paths".equals(name)) {
+                            final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+                            multipart.readBodyData(bOut);
+                            final String[] removed =
+                                    JsonHelper.fromJson(new ByteArrayInputStream(bOut.toByteArray()), String[].class, null);
+                            for (String path : removed) {
+                                java.io.File f = new java.io.File(downloadTo, path);
+                                // Folders are removed with sync with tree of md5sums.
+                                if (!IoUtil.deleteRecursive(f)) {
+                                    throw new IOException(String.format("Unable delete %s", path));
+                                }
                             }
-                            hasMore = multipart.readBoundary();
+                        } else {
+                            // To /dev/null :)
+                            multipart.readBodyData(DEV_NULL);
                         }
-                    }
-                } else {
-                    try (InputStream in = conn.getInputStream()) {
-                        ZipUtils.unzip(in, downloadTo);
+                        hasMore = multipart.readBoundary();
                     }
                 }
-            } else if (responseCode != HttpURLConnection.HTTP_NO_CONTENT) {
-                throw new IOException(String.format("Invalid response status %d from remote server. ", responseCode));
+            } else {
+                try (InputStream in = conn.getInputStream()) {
+                    unzip(in, downloadTo);
+                }
             }
-        } catch (ParseException | JsonParseException e) {
-            throw new IOException(e.getMessage(), e);
+        } else if (responseCode != HttpURLConnection.HTTP_NO_CONTENT) {
+            throw new IOException(String.format("Invalid response status %d from remote server. ", responseCode));
+        }
+    }
+
+    /** Unpacks updates. Existing files are not overwritten but replaced with new ones. */
+    private void unzip(InputStream in, java.io.File downloadTo) throws IOException {
+        // Must be on the same file system with sources, files are moved from it.
+        final java.nio.file.Path targetPath = downloadTo.toPath();
+        Files.createDirectories(targetPath.getParent());
+        final java.nio.file.Path tmpPath = Files.createTempDirectory(targetPath.getParent(), ".updates");
+        final java.io.File tmpDir = tmpPath.toFile();
+        try {
+            ZipUtils.unzip(in, tmpDir);
+            Files.walkFileTree(tmpPath, new SimpleFileVisitor<java.nio.file.Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(java.nio.file.Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(targetPath.resolve(tmpPath.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(java.nio.file.Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.move(file, targetPath.resolve(tmpPath.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
         } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
+            IoUtil.deleteRecursive(tmpDir);
         }
     }
 
+    /* Md5 sums of sources are kept next to the directory of sources, not inside it, since sources are copied to work directory. */
+    private static java.io.File getMd5SumsFile(java.io.File srcDir) {
+        return new java.io.File(srcDir.getParentFile(), '.' + srcDir.getName() + ".md5sums");
+    }
+
     private Map<String, List<String>> parseChunkHeader(List<String> rawHeaders) throws IOException {
         final Map<String, List<String>> headers = new HashMap<>();
         for (String field : rawHeaders) {
@@ -367,21 +589,23 @@ public class SourcesManagerImpl implements SourcesManager {
                     //get list of workspace projects
                     java.io.File[] projects = workspace.listFiles();
                     for (java.io.File project : projects) {
+                        if (!project.isDirectory() || project.getName().startsWith(".")) {
+                            // md5 sums of project, removed together with project, or temporary directory with updates
+                            continue;
+                        }
                         String key = workspace.getName() + project.getName();
-                        //if project is not downloading
-                        if (tasks.get(key) == null) {
-                            projectKeyHolder.set(key);
+                        final Lock lock = getProjectLock(key).writeLock();
+                        //if project is not downloading and is not used by build
+                        if (tasks.get(key) == null && lock.tryLock()) {
                             try {
                                 final long lastModifiedMillis = project.lastModified();
                                 if ((System.currentTimeMillis() - lastModifiedMillis) >= KEEP_PROJECT_TIME) {
                                     IoUtil.deleteRecursive(project);
+                                    IoUtil.deleteRecursive(getMd5SumsFile(project));
                                     LOG.debug("Remove project {} that is unused since {}", project, lastModifiedMillis);
                                 }
                             } finally {
-                                projectKeyHolder.set(null);
-                                synchronized (SourcesManagerImpl.this) {
-                                    SourcesManagerImpl.this.notify();
-                                }
+                                lock.unlock();
                             }
                         }
                     }
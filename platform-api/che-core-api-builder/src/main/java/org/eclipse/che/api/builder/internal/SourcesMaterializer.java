@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder.internal;
+
+import org.eclipse.che.commons.lang.IoUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Populates working directory of build with sources that {@link SourcesManagerImpl} keeps locally. Supported types:
+ * <ul>
+ * <li>{@link #COPY} - full copy of sources, this is default</li>
+ * <li>{@link #REFLINK} - copy-on-write clone of sources with command {@code cp --reflink=auto} on Linux or {@code cp -c} on Mac OS.
+ * Clone shares data blocks with local sources until build modifies file. If file system does not support such clones {@code cp}
+ * copies files. On other systems or if command fails files are copied with java.</li>
+ * </ul>
+ * Hard links are not supported since build may write in files of working directory and such changes would be visible in local
+ * sources and working directories of other builds.
+ * <p/>
+ * Copies keep modification time of source files. If clones fail, e.g. if sources and working directory are on different file
+ * systems, sources are copied for {@link #RETRY_TIME} milliseconds and then materializer tries clones again.
+ *
+ * @author andrew00x
+ */
+public class SourcesMaterializer {
+    private static final Logger LOG = LoggerFactory.getLogger(SourcesMaterializer.class);
+
+    public static final String COPY    = "copy";
+    public static final String REFLINK = "reflink";
+
+    static final long RETRY_TIME = TimeUnit.MINUTES.toMillis(10);
+
+    private final String   type;
+    private final String[] cloneCommand;
+
+    /* Time until that sources are copied after failure of clones. */
+    private volatile long copyUntil;
+
+    /**
+     * @param type
+     *         type of materialization, {@link #COPY} is used if {@code null}
+     * @throws IllegalArgumentException
+     *         if type is unknown
+     */
+    public SourcesMaterializer(String type) {
+        if (type == null) {
+            type = COPY;
+        }
+        if (!(COPY.equals(type) || REFLINK.equals(type))) {
+            throw new IllegalArgumentException(String.format("Unknown type of sources materialization '%s'. ", type));
+        }
+        this.type = type;
+        cloneCommand = getCloneCommand();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Populates working directory with sources.
+     *
+     * @param sources
+     *         local sources
+     * @param workDir
+     *         working directory of build
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public void materialize(java.io.File sources, java.io.File workDir) throws IOException {
+        if (COPY.equals(type)) {
+            IoUtil.copy(sources, workDir, IoUtil.ANY_FILTER);
+            return;
+        }
+        if (System.currentTimeMillis() >= copyUntil) {
+            if (cloneCommand != null && clone(sources, workDir)) {
+                return;
+            }
+            LOG.warn("Unable clone sources, copy them. ");
+            copyUntil = System.currentTimeMillis() + RETRY_TIME;
+        }
+        copy(sources.toPath(), workDir.toPath());
+    }
+
+    private void copy(final Path sources, final Path workDir) throws IOException {
+        Files.walkFileTree(sources, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(workDir.resolve(sources.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, workDir.resolve(sources.relativize(file)), StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean clone(java.io.File sources, java.io.File workDir) throws IOException {
+        if (!(workDir.exists() || workDir.mkdirs())) {
+            throw new IOException(String.format("Unable create directory %s", workDir));
+        }
+        final List<String> command = new ArrayList<>(Arrays.asList(cloneCommand));
+        command.add(sources.getAbsolutePath() + "/.");
+        command.add(workDir.getAbsolutePath());
+        final Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            // cp is not available
+            LOG.warn(e.getMessage());
+            return false;
+        }
+        try {
+            final String output = IoUtil.readAndCloseQuietly(process.getInputStream());
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                LOG.warn("{} exited with code {}: {}", command, exitCode, output);
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted while cloning sources. ");
+        }
+    }
+
+    /* Options of cp differ on Linux (GNU coreutils) and Mac OS (BSD). Option -p keeps modification time of files on both. */
+    private static String[] getCloneCommand() {
+        final String os = System.getProperty("os.name", "").toLowerCase();
+        if (os.startsWith("linux")) {
+            return new String[]{"cp", "-R", "-p", "--reflink=auto"};
+        }
+        if (os.startsWith("mac")) {
+            return new String[]{"cp", "-R", "-p", "-c"};
+        }
+        return null;
+    }
+}
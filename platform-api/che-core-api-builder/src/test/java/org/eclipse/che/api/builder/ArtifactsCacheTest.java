@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder;
+
+import org.eclipse.che.api.builder.dto.BuildRequest;
+import org.eclipse.che.api.builder.internal.ArtifactsCache;
+import org.eclipse.che.api.builder.internal.BuilderConfiguration;
+import org.eclipse.che.api.builder.internal.BuilderTaskType;
+import org.eclipse.che.commons.lang.IoUtil;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** @author andrew00x */
+public class ArtifactsCacheTest {
+    private File           root;
+    private ArtifactsCache cache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("artifacts").toFile();
+        cache = new ArtifactsCache(new File(root, "cache"), 100);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        IoUtil.deleteRecursive(root);
+    }
+
+    @Test
+    public void testKeyDoesNotDependOnWorkspaceAndOrderOfOptions() throws Exception {
+        Map<String, String> options1 = new LinkedHashMap<>();
+        options1.put("a", "1");
+        options1.put("b", "2");
+        Map<String, String> options2 = new LinkedHashMap<>();
+        options2.put("b", "2");
+        options2.put("a", "1");
+        BuildRequest request1 = newRequest().withWorkspace("workspace1").withOptions(options1);
+        BuildRequest request2 = newRequest().withWorkspace("workspace2").withOptions(options2);
+        Assert.assertEquals(ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request1)),
+                            ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request2)));
+        Assert.assertNotEquals(ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request1)),
+                               ArtifactsCache.getKey("other hash", "maven", "1.0", newConfiguration(request1)));
+        BuildRequest request3 = newRequest().withOptions(options1).withTargets(Arrays.asList("install"));
+        Assert.assertNotEquals(ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request1)),
+                               ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request3)));
+        Assert.assertNotEquals(ArtifactsCache.getKey("hash", "maven", "1.0", newConfiguration(request2)),
+                               ArtifactsCache.getKey("hash", "maven", "1.1", newConfiguration(request2)));
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        File workDir1 = new File(root, "build1");
+        File artifact = createFile(new File(workDir1, "target/app.jar"), "jar");
+        cache.put("key", workDir1, Collections.singletonList(artifact));
+        File workDir2 = new File(root, "build2");
+        Assert.assertTrue(cache.restore("key", workDir2));
+        Assert.assertEquals(readFile(new File(workDir2, "target/app.jar")), "jar");
+        Assert.assertFalse(cache.restore("other key", workDir2));
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 1);
+    }
+
+    @Test
+    public void testSameArtifactIsStoredOnce() throws Exception {
+        File workDir1 = new File(root, "build1");
+        File workDir2 = new File(root, "build2");
+        cache.put("key1", workDir1, Collections.singletonList(createFile(new File(workDir1, "target/app.jar"), "0123456789")));
+        cache.put("key2", workDir2, Collections.singletonList(createFile(new File(workDir2, "target/app.jar"), "0123456789")));
+        Assert.assertEquals(cache.getEntriesNum(), 2);
+        Assert.assertEquals(cache.getSize(), 10);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBuildIsEvicted() throws Exception {
+        File workDir = new File(root, "build");
+        cache.put("key1", workDir, Collections.singletonList(createFile(new File(workDir, "a.jar"), new String(new char[40]))));
+        cache.put("key2", workDir, Collections.singletonList(createFile(new File(workDir, "b.jar"), new String(new char[41]))));
+        Assert.assertTrue(cache.restore("key1", new File(root, "restore")));
+        cache.put("key3", workDir, Collections.singletonList(createFile(new File(workDir, "c.jar"), new String(new char[42]))));
+        Assert.assertTrue(cache.getSize() <= 100);
+        Assert.assertTrue(cache.restore("key1", new File(root, "restore")));
+        Assert.assertFalse(cache.restore("key2", new File(root, "restore")));
+        Assert.assertTrue(cache.restore("key3", new File(root, "restore")));
+    }
+
+    @Test
+    public void testArtifactOutsideOfWorkDirIsNotCached() throws Exception {
+        File workDir = new File(root, "build");
+        cache.put("key", workDir, Collections.singletonList(createFile(new File(root, "app.jar"), "jar")));
+        Assert.assertEquals(cache.getEntriesNum(), 0);
+    }
+
+    private BuildRequest newRequest() {
+        return DtoFactory.getInstance().createDto(BuildRequest.class).withBuilder("maven").withProject("/project");
+    }
+
+    private BuilderConfiguration newConfiguration(BuildRequest request) {
+        return new BuilderConfiguration(new File(root, "build"), new File(root, "build/project"), BuilderTaskType.DEFAULT, request);
+    }
+
+    private File createFile(File file, String content) throws IOException {
+        Assert.assertTrue(file.getParentFile().exists() || file.getParentFile().mkdirs());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes());
+        }
+        return file;
+    }
+
+    private String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()));
+    }
+}
@@ -10,8 +10,181 @@
  *******************************************************************************/
 package org.eclipse.che.api.builder;
 
+import org.eclipse.che.api.builder.dto.BaseBuilderRequest;
+import org.eclipse.che.api.builder.dto.BuildRequest;
+import org.eclipse.che.api.builder.dto.BuilderDescriptor;
+import org.eclipse.che.api.builder.dto.BuilderMetric;
+import org.eclipse.che.api.builder.dto.BuilderState;
+import org.eclipse.che.api.builder.internal.BuilderEvent;
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author andrew00x
  */
 public class BuildQueueTest {
+    private EventService    eventService;
+    private BuildQueue      buildQueue;
+    private MyRemoteBuilder builder;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        eventService = new EventService();
+        buildQueue = new BuildQueue(600, 600, 600, new LastInUseBuilderSelectionStrategy(), eventService);
+        buildQueue.start();
+        builder = new MyRemoteBuilder();
+        buildQueue.doRegisterBuilderServer(new RemoteBuilderServer("http://localhost:8080/api/internal/builder") {
+            @Override
+            public List<RemoteBuilder> getRemoteBuilders() {
+                return Collections.<RemoteBuilder>singletonList(builder);
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        buildQueue.stop();
+    }
+
+    @Test
+    public void testGetBuilderWhenWorkerIsFree() throws Exception {
+        builder.freeWorkers.set(1);
+        Assert.assertSame(getBuilder(newRequest(1)).get(1, TimeUnit.SECONDS), builder);
+        Assert.assertEquals(getMetric(BuilderMetric.QUEUE_DISPATCHED_NUM), "1");
+    }
+
+    @Test
+    public void testGetBuilderWhenBuildIsDone() throws Exception {
+        Future<RemoteBuilder> future = getBuilder(newRequest(1));
+        assertWaiting(future);
+        builder.freeWorkers.set(1);
+        // Do not wait for periodical check of builders.
+        eventService.publish(BuilderEvent.doneEvent(100, "workspace", "/project"));
+        Assert.assertSame(future.get(1, TimeUnit.SECONDS), builder);
+    }
+
+    @Test
+    public void testWorkerIsReservedUntilRequestIsSent() throws Exception {
+        builder.freeWorkers.set(1);
+        BaseBuilderRequest first = newRequest(1);
+        BaseBuilderRequest second = newRequest(2);
+        Future<RemoteBuilder> firstFuture = getBuilder(first);
+        Assert.assertSame(firstFuture.get(1, TimeUnit.SECONDS), builder);
+        // Request is not sent to builder yet, its worker is reserved.
+        Future<RemoteBuilder> secondFuture = getBuilder(second);
+        assertWaiting(secondFuture);
+        // Request is sent, builder is busy.
+        builder.freeWorkers.set(0);
+        getBuilderList().release(first);
+        assertWaiting(secondFuture);
+        builder.freeWorkers.set(1);
+        eventService.publish(BuilderEvent.doneEvent(1, "workspace", "/project"));
+        Assert.assertSame(secondFuture.get(1, TimeUnit.SECONDS), builder);
+    }
+
+    @Test
+    public void testBuilderStateIsCheckedOnceForAllWaitingRequests() throws Exception {
+        for (int i = 1; i <= 10; i++) {
+            getBuilder(newRequest(i));
+        }
+        Thread.sleep(200);
+        int checks = builder.stateChecks.get();
+        Assert.assertTrue(checks <= 10, "Too many checks of builder state: " + checks);
+        builder.stateChecks.set(0);
+        eventService.publish(BuilderEvent.doneEvent(100, "workspace", "/project"));
+        Thread.sleep(200);
+        Assert.assertEquals(builder.stateChecks.get(), 1);
+    }
+
+    @Test
+    public void testWorkspacesShareBuilder() throws Exception {
+        BaseBuilderRequest first = newRequest(1);
+        Future<RemoteBuilder> firstFuture = getBuilder(first);
+        assertWaiting(firstFuture);
+        Future<RemoteBuilder> secondFuture = getBuilder(newRequest(2));
+        Future<RemoteBuilder> otherWorkspaceFuture = getBuilder(newRequest(3).withWorkspace("workspace2"));
+        assertWaiting(otherWorkspaceFuture);
+        builder.freeWorkers.set(1);
+        eventService.publish(BuilderEvent.doneEvent(100, "workspace", "/project"));
+        Assert.assertSame(firstFuture.get(1, TimeUnit.SECONDS), builder);
+        getBuilderList().release(first);
+        eventService.publish(BuilderEvent.doneEvent(1, "workspace", "/project"));
+        // Request of other workspace goes before next request of the first workspace.
+        Assert.assertSame(otherWorkspaceFuture.get(1, TimeUnit.SECONDS), builder);
+        assertWaiting(secondFuture);
+        Assert.assertEquals(getMetric(BuilderMetric.QUEUE_SIZE), "1");
+    }
+
+    /* Adds request in queue, returned future gets builder when task of request is started. */
+    private Future<RemoteBuilder> getBuilder(final BaseBuilderRequest request) {
+        final SettableFuture<RemoteBuilder> future = SettableFuture.create();
+        final BuildQueue.InternalBuildTask task = new BuildQueue.InternalBuildTask(new Callable<RemoteTask>() {
+            @Override
+            public RemoteTask call() throws Exception {
+                future.set(buildQueue.getBuilder(request));
+                return null;
+            }
+        }, request.getId(), request.getWorkspace(), request.getProject(), false);
+        getBuilderList().enqueue(request, "account", 1, task);
+        return future;
+    }
+
+    private void assertWaiting(Future<RemoteBuilder> future) throws Exception {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            Assert.fail("Builder must not be available");
+        } catch (TimeoutException ignored) {
+        }
+    }
+
+    private BaseBuilderRequest newRequest(long id) {
+        return DtoFactory.getInstance().createDto(BuildRequest.class).withId(id).withBuilder("my").withWorkspace("workspace")
+                         .withProject("/project");
+    }
+
+    private BuildQueue.BuilderList getBuilderList() {
+        return buildQueue.getBuilderList("workspace", "/project");
+    }
+
+    private String getMetric(String name) {
+        for (BuilderMetric metric : buildQueue.getStats()) {
+            if (name.equals(metric.getName())) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static class MyRemoteBuilder extends RemoteBuilder {
+        final AtomicInteger freeWorkers = new AtomicInteger();
+        final AtomicInteger stateChecks = new AtomicInteger();
+
+        MyRemoteBuilder() {
+            super("http://localhost:8080/api/internal/builder",
+                  DtoFactory.getInstance().createDto(BuilderDescriptor.class).withName("my"),
+                  Collections.<Link>emptyList());
+        }
+
+        @Override
+        public BuilderState getBuilderState() {
+            stateChecks.incrementAndGet();
+            return DtoFactory.getInstance().createDto(BuilderState.class).withName("my").withFreeWorkers(freeWorkers.get());
+        }
+    }
 }
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder;
+
+import org.eclipse.che.api.builder.dto.BuildTaskDescriptor;
+import org.eclipse.che.api.builder.dto.BuilderMetric;
+import org.eclipse.che.api.builder.dto.BuilderState;
+import org.eclipse.che.api.builder.dto.ServerState;
+import org.eclipse.che.api.builder.internal.Constants;
+import org.eclipse.che.api.core.rest.shared.ParameterType;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.rest.shared.dto.LinkParameter;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.server.JsonSerializable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON and compact binary format of DTOs that master and slave builders send to each other: {@link BuildTaskDescriptor}
+ * with its links and {@link BuilderState} with metrics of builder. Serialization writes DTO to the reused byte buffer, deserialization
+ * reads DTO from bytes prepared in the same format.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.builder.DtoBinaryBenchmark
+ * </pre>
+ * Sizes of DTOs in both formats are printed before benchmark. Add {@code -prof gc} to JMH options for comparing of allocation rate.
+ *
+ * @author andrew00x
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DtoBinaryBenchmark {
+    @Param({"build", "state"})
+    public String dto;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private DtoFactory            dtoFactory;
+    private Object                origin;
+    private Class<?>              dtoInterface;
+    private byte[]                serialized;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dtoFactory = DtoFactory.getInstance();
+        if ("state".equals(dto)) {
+            origin = newBuilderState();
+            dtoInterface = BuilderState.class;
+        } else {
+            origin = newBuildTaskDescriptor();
+            dtoInterface = BuildTaskDescriptor.class;
+        }
+        buffer = new ByteArrayOutputStream(8192);
+        serialize();
+        serialized = buffer.toByteArray();
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        if ("binary".equals(format)) {
+            dtoFactory.toBinary(origin, buffer);
+        } else {
+            final Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+            ((JsonSerializable)origin).toJson(writer);
+            writer.flush();
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        if ("binary".equals(format)) {
+            return dtoFactory.createDtoFromBinary(new ByteArrayInputStream(serialized), dtoInterface);
+        }
+        return dtoFactory.createDtoFromJson(new ByteArrayInputStream(serialized), dtoInterface);
+    }
+
+    private BuildTaskDescriptor newBuildTaskDescriptor() {
+        final List<BuilderMetric> stats = new ArrayList<>();
+        stats.add(newMetric(BuilderMetric.WAITING_TIME_LIMIT, "1437000600000", "Waiting for start limit"));
+        stats.add(newMetric(BuilderMetric.TERMINATION_TIME, "1437000000000", "Time when build will be terminated"));
+        final List<Link> links = new ArrayList<>();
+        for (String rel : new String[]{Constants.LINK_REL_GET_STATUS, Constants.LINK_REL_VIEW_LOG, Constants.LINK_REL_CANCEL,
+                                       Constants.LINK_REL_DOWNLOAD_RESULT}) {
+            final LinkParameter parameter = dtoFactory.createDto(LinkParameter.class)
+                                                      .withName("lines")
+                                                      .withType(ParameterType.Number)
+                                                      .withDefaultValue("100")
+                                                      .withRequired(false);
+            links.add(dtoFactory.createDto(Link.class)
+                                .withRel(rel)
+                                .withHref("http://localhost:8080/api/builder/workspace123/" + rel.replace(' ', '_') + "/1")
+                                .withMethod("GET")
+                                .withProduces("application/json")
+                                .withParameters(Collections.singletonList(parameter)));
+        }
+        return dtoFactory.createDto(BuildTaskDescriptor.class)
+                         .withTaskId(1)
+                         .withWorkspace("workspace123")
+                         .withProject("/sample")
+                         .withStatus(BuildStatus.IN_PROGRESS)
+                         .withCreationTime(1437000000000L)
+                         .withStartTime(1437000010000L)
+                         .withCommandLine("mvn clean install")
+                         .withBuildStats(stats)
+                         .withLinks(links);
+    }
+
+    private BuilderState newBuilderState() {
+        final List<BuilderMetric> stats = new ArrayList<>();
+        stats.add(newMetric(BuilderMetric.NUMBER_OF_WORKERS, "4", "Number of workers"));
+        stats.add(newMetric(BuilderMetric.NUMBER_OF_ACTIVE_WORKERS, "3", "Number of active workers"));
+        stats.add(newMetric(BuilderMetric.QUEUE_SIZE, "2", "Number of tasks in queue"));
+        stats.add(newMetric(BuilderMetric.MAX_QUEUE_SIZE, "100", "Max size of queue"));
+        return dtoFactory.createDto(BuilderState.class)
+                         .withName("maven")
+                         .withFreeWorkers(1)
+                         .withStats(stats)
+                         .withServerState(dtoFactory.createDto(ServerState.class)
+                                                    .withCpuPercentUsage(37)
+                                                    .withTotalMemory(8L * 1024 * 1024 * 1024)
+                                                    .withFreeMemory(3L * 1024 * 1024 * 1024));
+    }
+
+    private BuilderMetric newMetric(String name, String value, String description) {
+        return dtoFactory.createDto(BuilderMetric.class).withName(name).withValue(value).withDescription(description);
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        final DtoBinaryBenchmark benchmark = new DtoBinaryBenchmark();
+        for (String dto : new String[]{"build", "state"}) {
+            benchmark.dto = dto;
+            for (String format : new String[]{"json", "binary"}) {
+                benchmark.format = format;
+                benchmark.setUp();
+                System.out.printf("%s, %s: %d bytes%n", dto, format, benchmark.serialized.length);
+            }
+        }
+        new Runner(new OptionsBuilder().include(DtoBinaryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder;
+
+import org.eclipse.che.api.builder.dto.BuildTaskDescriptor;
+import org.eclipse.che.api.builder.dto.BuilderMetric;
+import org.eclipse.che.api.builder.internal.Constants;
+import org.eclipse.che.api.core.rest.shared.ParameterType;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.rest.shared.dto.LinkParameter;
+import org.eclipse.che.api.project.shared.dto.ProjectDescriptor;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DtoFactory#clone(Object)}, that uses generated copy constructors, with copying of DTO through JSON ("json"), i.e.
+ * serialization to string and parsing it back. DTOs are typical {@link Link}, {@link ProjectDescriptor} and
+ * {@link BuildTaskDescriptor} with their links.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.builder.DtoCloneBenchmark
+ * </pre>
+ * Add {@code -prof gc} to JMH options for comparing of allocation rate.
+ *
+ * @author andrew00x
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DtoCloneBenchmark {
+    @Param({"link", "project", "build"})
+    public String dto;
+
+    @Param({"clone", "json"})
+    public String copy;
+
+    private DtoFactory dtoFactory;
+    private Object     origin;
+    private Class<?>   dtoInterface;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dtoFactory = DtoFactory.getInstance();
+        switch (dto) {
+            case "project":
+                final Map<String, List<String>> attributes = new HashMap<>();
+                attributes.put("maven.groupId", Collections.singletonList("org.eclipse.che"));
+                attributes.put("maven.artifactId", Collections.singletonList("sample"));
+                attributes.put("language", Collections.singletonList("java"));
+                origin = dtoFactory.createDto(ProjectDescriptor.class)
+                                   .withName("sample")
+                                   .withPath("/sample")
+                                   .withType("maven")
+                                   .withTypeName("Maven Project")
+                                   .withWorkspaceId("workspace123")
+                                   .withWorkspaceName("workspace")
+                                   .withAttributes(attributes)
+                                   .withVisibility("private")
+                                   .withDescription("Sample project")
+                                   .withCreationDate(System.currentTimeMillis())
+                                   .withModificationDate(System.currentTimeMillis())
+                                   .withPermissions(Arrays.asList("read", "write", "build", "run"))
+                                   .withBaseUrl("http://localhost:8080/api/project/workspace123/sample")
+                                   .withIdeUrl("http://localhost:8080/ws/workspace/sample")
+                                   .withLinks(newLinks(5));
+                dtoInterface = ProjectDescriptor.class;
+                break;
+            case "build":
+                final List<BuilderMetric> stats = new ArrayList<>();
+                stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.WAITING_TIME_LIMIT).withValue("1437000600000"));
+                stats.add(dtoFactory.createDto(BuilderMetric.class).withName(BuilderMetric.TERMINATION_TIME).withValue("1437000000000"));
+                origin = dtoFactory.createDto(BuildTaskDescriptor.class)
+                                   .withTaskId(1)
+                                   .withWorkspace("workspace123")
+                                   .withProject("/sample")
+                                   .withStatus(BuildStatus.IN_PROGRESS)
+                                   .withCreationTime(System.currentTimeMillis())
+                                   .withStartTime(System.currentTimeMillis())
+                                   .withCommandLine("mvn clean install")
+                                   .withBuildStats(stats)
+                                   .withLinks(newLinks(4));
+                dtoInterface = BuildTaskDescriptor.class;
+                break;
+            default:
+                origin = newLinks(1).get(0);
+                dtoInterface = Link.class;
+                break;
+        }
+    }
+
+    @Benchmark
+    public Object copy() {
+        if ("json".equals(copy)) {
+            return dtoFactory.createDtoFromJson(dtoFactory.toJson(origin), dtoInterface);
+        }
+        return dtoFactory.clone(origin);
+    }
+
+    private List<Link> newLinks(int num) {
+        final List<Link> links = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            final LinkParameter parameter = dtoFactory.createDto(LinkParameter.class)
+                                                      .withName("lines")
+                                                      .withType(ParameterType.Number)
+                                                      .withDefaultValue("100")
+                                                      .withRequired(false);
+            links.add(dtoFactory.createDto(Link.class)
+                                .withRel(Constants.LINK_REL_VIEW_LOG)
+                                .withHref("http://localhost:8080/api/builder/workspace123/logs/" + i)
+                                .withMethod("GET")
+                                .withProduces("text/plain")
+                                .withParameters(Collections.singletonList(parameter)));
+        }
+        return links;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DtoCloneBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.builder;
+
+import org.eclipse.che.api.builder.internal.SourcesMaterializer;
+import org.eclipse.che.commons.lang.IoUtil;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/** @author andrew00x */
+public class SourcesMaterializerTest {
+    private File root;
+    private File sources;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("materializer").toFile();
+        sources = new File(root, "sources");
+        file = new File(sources, "src/main/a.txt");
+        Assert.assertTrue(file.getParentFile().mkdirs());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("hello".getBytes());
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        IoUtil.deleteRecursive(root);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File workDir = new File(root, "work");
+        new SourcesMaterializer(SourcesMaterializer.COPY).materialize(sources, workDir);
+        File copy = new File(workDir, "src/main/a.txt");
+        Assert.assertEquals(readFile(copy), "hello");
+        Assert.assertFalse(Files.isSameFile(copy.toPath(), file.toPath()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHardLinkIsNotSupported() {
+        new SourcesMaterializer("link");
+    }
+
+    @Test
+    public void testReflinkKeepsModificationTime() throws Exception {
+        Assert.assertTrue(file.setLastModified(file.lastModified() - 3600000));
+        File workDir = new File(root, "work");
+        new SourcesMaterializer(SourcesMaterializer.REFLINK).materialize(sources, workDir);
+        File clone = new File(workDir, "src/main/a.txt");
+        Assert.assertEquals(readFile(clone), "hello");
+        Assert.assertFalse(Files.isSameFile(clone.toPath(), file.toPath()));
+        Assert.assertEquals(clone.lastModified() / 1000, file.lastModified() / 1000);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownType() {
+        new SourcesMaterializer("unknown");
+    }
+
+    private String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()));
+    }
+}
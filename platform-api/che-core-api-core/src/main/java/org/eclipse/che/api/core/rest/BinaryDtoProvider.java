@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import org.eclipse.che.dto.server.BinarySerializable;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.shared.DTO;
+
+import javax.inject.Singleton;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Implementation of {@link MessageBodyReader} and {@link MessageBodyWriter} for DTOs and lists of DTOs in compact binary format. DTOs
+ * are written in this format only if client asks for it, see {@link org.eclipse.che.everrest.BinaryDtoResponseFilter}.
+ *
+ * @author andrew00x
+ * @see Constants#BINARY_DTO
+ * @see org.eclipse.che.dto.server.BinaryDtoOutput
+ */
+@Singleton
+@Provider
+@Produces({Constants.BINARY_DTO})
+@Consumes({Constants.BINARY_DTO})
+public class BinaryDtoProvider<T> implements MessageBodyReader<T>, MessageBodyWriter<T> {
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // Items of list are checked by BinaryDtoResponseFilter.
+        return BinarySerializable.class.isAssignableFrom(type) || List.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(T t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(T t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "public, no-cache, no-store, no-transform");
+        if (t instanceof List) {
+            DtoFactory.getInstance().listToBinary((List<?>)t, entityStream);
+        } else {
+            DtoFactory.getInstance().toBinary(t, entityStream);
+        }
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type.isAnnotationPresent(DTO.class) || getListItemType(type, genericType) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T readFrom(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                      MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
+        if (type.isAnnotationPresent(DTO.class)) {
+            return DtoFactory.getInstance().createDtoFromBinary(entityStream, type);
+        }
+        return (T)DtoFactory.getInstance().createListDtoFromBinary(entityStream, getListItemType(type, genericType));
+    }
+
+    /* Gets type of items of list of DTOs or null if type isn't list of DTOs. */
+    private Class<?> getListItemType(Class<?> type, Type genericType) {
+        if (type.isAssignableFrom(List.class) && genericType instanceof ParameterizedType) {
+            final Type itemType = ((ParameterizedType)genericType).getActualTypeArguments()[0];
+            if (itemType instanceof Class && ((Class<?>)itemType).isAnnotationPresent(DTO.class)) {
+                return (Class<?>)itemType;
+            }
+        }
+        return null;
+    }
+}
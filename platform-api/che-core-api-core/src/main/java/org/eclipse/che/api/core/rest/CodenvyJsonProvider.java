@@ -16,6 +16,8 @@ import org.eclipse.che.dto.server.JsonSerializable;
 import org.eclipse.che.dto.shared.DTO;
 import org.everrest.core.impl.provider.JsonEntityProvider;
 
+import com.google.gson.stream.JsonWriter;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -28,6 +30,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -80,14 +83,44 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
         // Add Cache-Control before start write body.
         httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "public, no-cache, no-store, no-transform");
         if (t instanceof JsonSerializable) {
-            try (Writer w = new OutputStreamWriter(entityStream, Charset.forName("UTF-8"))) {
-                w.write(((JsonSerializable)t).toJson());
+            // Write JSON directly to the stream, don't keep whole JSON in memory.
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(entityStream, Charset.forName("UTF-8")))) {
+                ((JsonSerializable)t).toJson(w);
+            }
+        } else if (t instanceof List && isListOfDto((List<?>)t)) {
+            // Write elements one by one, don't keep JSON of whole list in memory.
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(entityStream, Charset.forName("UTF-8")))) {
+                final JsonWriter out = new JsonWriter(w);
+                out.setLenient(true);
+                out.setSerializeNulls(false);
+                out.beginArray();
+                for (Object element : (List<?>)t) {
+                    if (element == null) {
+                        out.nullValue();
+                    } else {
+                        ((JsonSerializable)element).writeJson(out);
+                    }
+                }
+                out.endArray();
+                out.flush();
             }
         } else {
             delegate.writeTo(t, type, genericType, annotations, mediaType, httpHeaders, entityStream);
         }
     }
 
+    private static boolean isListOfDto(List<?> list) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (Object element : list) {
+            if (element != null && !(element instanceof JsonSerializable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
@@ -14,6 +14,14 @@ package org.eclipse.che.api.core.rest;
 public final class Constants {
     public static final String API_VERSION = "1.0";
 
+    /**
+     * Media type of DTOs in compact binary format. Server sends DTOs in this format only if client asks for it and has the same schema
+     * of format, see {@link org.eclipse.che.dto.server.BinarySerializable#getBinarySchema()}. Browsers always get JSON.
+     */
+    public static final String BINARY_DTO        = "application/x-codenvy-dto";
+    /** Name of parameter of {@link #BINARY_DTO} media type that contains schema of binary format. */
+    public static final String BINARY_DTO_SCHEMA = "schema";
+
     private Constants() {
     }
 }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.rest;
 
+import org.eclipse.che.everrest.BinaryDtoResponseFilter;
+
 import com.google.inject.AbstractModule;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
@@ -21,6 +23,8 @@ public class CoreRestModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(CodenvyJsonProvider.class);
+        bind(BinaryDtoProvider.class);
+        bind(BinaryDtoResponseFilter.class);
         bind(ApiExceptionMapper.class);
         Multibinder.newSetBinder(binder(), Class.class, Names.named("codenvy.json.ignored_classes"));
     }
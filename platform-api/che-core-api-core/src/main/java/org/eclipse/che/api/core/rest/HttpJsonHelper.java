@@ -19,6 +19,7 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.UnauthorizedException;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
 import org.eclipse.che.api.core.rest.shared.dto.ServiceError;
+import org.eclipse.che.commons.annotation.Nullable;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.commons.lang.Pair;
 import org.eclipse.che.commons.user.User;
@@ -37,6 +38,7 @@ import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -335,7 +337,8 @@ public class HttpJsonHelper {
     }
 
     /**
-     * Execute all request from HttpJsonHelper throw single method  requestString.
+     * Execute all request from HttpJsonHelper. Requests for DTOs ask server for compact binary format, server sends JSON if it can't
+     * send DTO in binary format, see {@link Constants#BINARY_DTO}.
      */
     public static class HttpJsonHelperImpl {
 
@@ -355,11 +358,19 @@ public class HttpJsonHelper {
                                  Object body,
                                  Pair<String, ?>... parameters)
                 throws IOException, ServerException, UnauthorizedException, ForbiddenException, NotFoundException, ConflictException {
-            final String str = requestString(timeout, url, method, body, parameters);
-            if (dtoInterface != null) {
-                return DtoFactory.getInstance().createDtoFromJson(str, dtoInterface);
+            final String binarySchema = dtoInterface == null ? null : DtoFactory.getInstance().getBinarySchema(dtoInterface);
+            final HttpURLConnection conn = connect(timeout, url, method, body, binarySchema, parameters);
+            try (InputStream in = conn.getInputStream()) {
+                if (dtoInterface == null) {
+                    return null;
+                }
+                if (isBinary(conn.getContentType())) {
+                    return DtoFactory.getInstance().createDtoFromBinary(in, dtoInterface);
+                }
+                return DtoFactory.getInstance().createDtoFromJson(in, dtoInterface);
+            } finally {
+                conn.disconnect();
             }
-            return null;
         }
 
         public <DTO> List<DTO> requestArray(Class<DTO> dtoInterface,
@@ -378,11 +389,19 @@ public class HttpJsonHelper {
                                             Object body,
                                             Pair<String, ?>... parameters)
                 throws IOException, ServerException, UnauthorizedException, ForbiddenException, NotFoundException, ConflictException {
-            final String str = requestString(timeout, url, method, body, parameters);
-            if (dtoInterface != null) {
-                return DtoFactory.getInstance().createListDtoFromJson(str, dtoInterface);
+            final String binarySchema = dtoInterface == null ? null : DtoFactory.getInstance().getBinarySchema(dtoInterface);
+            final HttpURLConnection conn = connect(timeout, url, method, body, binarySchema, parameters);
+            try (InputStream in = conn.getInputStream()) {
+                if (dtoInterface == null) {
+                    return null;
+                }
+                if (isBinary(conn.getContentType())) {
+                    return DtoFactory.getInstance().createListDtoFromBinary(in, dtoInterface);
+                }
+                return DtoFactory.getInstance().createListDtoFromJson(in, dtoInterface);
+            } finally {
+                conn.disconnect();
             }
-            return null;
         }
 
         private String getAuthenticationToken() {
@@ -407,6 +426,28 @@ public class HttpJsonHelper {
                                     Object body,
                                     Pair<String, ?>... parameters)
                 throws IOException, ServerException, ForbiddenException, NotFoundException, UnauthorizedException, ConflictException {
+            final HttpURLConnection conn = connect(timeout, url, method, body, null, parameters);
+            try (Reader reader = new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8)) {
+                return CharStreams.toString(reader);
+            } finally {
+                conn.disconnect();
+            }
+        }
+
+        /**
+         * Sends request and checks response. Connection is returned ready for reading of response body, caller must disconnect it.
+         *
+         * @param binarySchema
+         *         schema of binary format of expected DTO, if it isn't {@code null} then server may send DTO in binary format if
+         *         it has the same schema, otherwise server sends JSON
+         */
+        private HttpURLConnection connect(int timeout,
+                                          String url,
+                                          String method,
+                                          Object body,
+                                          @Nullable String binarySchema,
+                                          Pair<String, ?>... parameters)
+                throws IOException, ServerException, ForbiddenException, NotFoundException, UnauthorizedException, ConflictException {
             final String authToken = getAuthenticationToken();
             if ((parameters != null && parameters.length > 0) || authToken != null) {
                 final UriBuilder ub = UriBuilder.fromUri(url);
@@ -426,10 +467,17 @@ public class HttpJsonHelper {
             final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
             conn.setConnectTimeout(timeout > 0 ? timeout : 60000);
             conn.setReadTimeout(timeout > 0 ? timeout : 60000);
+            boolean connected = false;
             try {
                 conn.setRequestMethod(method);
-                //drop a hint for server side that we want to receive application/json
-                conn.addRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+                if (binarySchema != null) {
+                    // JSON is still acceptable if server has other version of DTO or doesn't support binary format at all.
+                    conn.addRequestProperty(HttpHeaders.ACCEPT, Constants.BINARY_DTO + ';' + Constants.BINARY_DTO_SCHEMA + '=' +
+                                                                binarySchema + ", " + MediaType.APPLICATION_JSON + ";q=0.9");
+                } else {
+                    //drop a hint for server side that we want to receive application/json
+                    conn.addRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+                }
                 if (authToken != null) {
                     conn.setRequestProperty(HttpHeaders.AUTHORIZATION, authToken);
                 }
@@ -480,17 +528,23 @@ public class HttpJsonHelper {
                                                         UriBuilder.fromUri(url).replaceQuery("token").build(), method, responseCode, str));
                 }
                 final String contentType = conn.getContentType();
-                if (!(contentType == null || contentType.startsWith(MediaType.APPLICATION_JSON))) {
+                if (!(contentType == null
+                      || contentType.startsWith(MediaType.APPLICATION_JSON)
+                      || (binarySchema != null && isBinary(contentType)))) {
                     throw new IOException("We received an error response from the Codenvy server." +
                                           " Retry the request. If this issue continues, contact. support.");
                 }
-
-                try (Reader reader = new InputStreamReader(conn.getInputStream())) {
-                    return CharStreams.toString(reader);
-                }
+                connected = true;
+                return conn;
             } finally {
-                conn.disconnect();
+                if (!connected) {
+                    conn.disconnect();
+                }
             }
         }
+
+        private boolean isBinary(String contentType) {
+            return contentType != null && contentType.startsWith(Constants.BINARY_DTO);
+        }
     }
 }
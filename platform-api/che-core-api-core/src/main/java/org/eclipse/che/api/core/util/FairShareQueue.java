@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded queue that shares processing between accounts and workspaces. Elements are ordered with start-time fair queuing: each
+ * workspace is a flow, element gets start tag that is the greater of virtual time of the queue and finish tag of the previous
+ * element of the same workspace. Cost of element is {@code k / weight}, where {@code k} is number of workspaces of the same
+ * account that have elements in the queue. So accounts share processing in proportion to their weights and workspaces of the
+ * same account share processing of account equally. Account that floods the queue doesn't delay requests of other accounts more
+ * than by one element per account.
+ * <p/>
+ * Elements don't have to be processed strictly in order, e.g. element may wait for some resource while next element may be
+ * processed. Use {@link #take(Object)} to remove element that is going to be processed, virtual time of the queue is moved to
+ * the start tag of such element. Use {@link #remove(Object)} to remove element that is dropped without processing, e.g. canceled.
+ * <p/>
+ * Size of queue and number of elements of one workspace are limited, method {@link #add(Object, String, String, double)} throws
+ * {@code IllegalStateException} if limit is reached. Caller is expected to report it as error to the client.
+ * <p/>
+ * Implementation is not threadsafe and required external synchronization if it's used in multi-thread environment. Elements are
+ * compared by identity.
+ *
+ * @author andrew00x
+ */
+public class FairShareQueue<E> {
+    private final int                  maxSize;
+    private final int                  maxSizePerWorkspace;
+    private final TreeSet<Entry<E>>    entries;
+    private final Map<E, Entry<E>>     index;
+    /* Finish tag of the last element of workspace. Removed when workspace doesn't have elements in queue. */
+    private final Map<String, Double>  finishTags;
+    private final Map<String, Integer> workspaceSizes;
+    /* Account -> number of workspaces of account that have elements in queue. */
+    private final Map<String, Integer> activeWorkspaces;
+
+    private double virtualTime;
+    private long   sequence;
+
+    /**
+     * @param maxSize
+     *         max number of elements in the queue
+     * @param maxSizePerWorkspace
+     *         max number of elements of one workspace in the queue
+     */
+    public FairShareQueue(int maxSize, int maxSizePerWorkspace) {
+        if (maxSize < 1 || maxSizePerWorkspace < 1) {
+            throw new IllegalArgumentException("Max size of queue must be greater than 0. ");
+        }
+        this.maxSize = maxSize;
+        this.maxSizePerWorkspace = maxSizePerWorkspace;
+        entries = new TreeSet<>();
+        index = new IdentityHashMap<>();
+        finishTags = new HashMap<>();
+        workspaceSizes = new HashMap<>();
+        activeWorkspaces = new HashMap<>();
+    }
+
+    /**
+     * Adds element to the queue.
+     *
+     * @param element
+     *         element
+     * @param account
+     *         id of account, may be {@code null}, in this case all such workspaces considered as belong to the same account
+     * @param workspace
+     *         id of workspace, may be {@code null}, in this case all such elements considered as belong to the same workspace
+     * @param weight
+     *         weight of account, must be greater than 0
+     * @throws IllegalStateException
+     *         if size of queue or number of elements of workspace reaches its limit
+     * @throws IllegalArgumentException
+     *         if weight is less than or equals to 0 or element is already in the queue
+     */
+    public void add(E element, String account, String workspace, double weight) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException(String.format("Invalid weight %s. ", weight));
+        }
+        if (index.containsKey(element)) {
+            throw new IllegalArgumentException("Element is already in queue. ");
+        }
+        if (entries.size() >= maxSize) {
+            throw new IllegalStateException(String.format("Queue is full, max number of waiting requests is %d. ", maxSize));
+        }
+        final Integer workspaceSize = workspaceSizes.get(workspace);
+        if (workspaceSize != null && workspaceSize >= maxSizePerWorkspace) {
+            throw new IllegalStateException(
+                    String.format("Too many waiting requests from workspace, max number of waiting requests is %d. ", maxSizePerWorkspace));
+        }
+        if (workspaceSize == null) {
+            final Integer workspaces = activeWorkspaces.get(account);
+            activeWorkspaces.put(account, workspaces == null ? 1 : workspaces + 1);
+        }
+        workspaceSizes.put(workspace, workspaceSize == null ? 1 : workspaceSize + 1);
+        final Double lastFinishTag = finishTags.get(workspace);
+        final double startTag = lastFinishTag == null ? virtualTime : Math.max(virtualTime, lastFinishTag);
+        finishTags.put(workspace, startTag + activeWorkspaces.get(account) / weight);
+        final Entry<E> entry = new Entry<>(element, account, workspace, startTag, sequence++);
+        entries.add(entry);
+        index.put(element, entry);
+    }
+
+    /**
+     * Removes element that is going to be processed.
+     *
+     * @return {@code true} if element was in the queue
+     */
+    public boolean take(E element) {
+        final Entry<E> entry = removeEntry(element);
+        if (entry == null) {
+            return false;
+        }
+        virtualTime = Math.max(virtualTime, entry.startTag);
+        return true;
+    }
+
+    /**
+     * Removes element that is dropped without processing.
+     *
+     * @return {@code true} if element was in the queue
+     */
+    public boolean remove(E element) {
+        return removeEntry(element) != null;
+    }
+
+    /**
+     * Removes first element of the queue, in the same manner as method {@link #take(Object)} does.
+     *
+     * @return first element or {@code null} if queue is empty
+     */
+    public E poll() {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        final E element = entries.first().element;
+        take(element);
+        return element;
+    }
+
+    /** Gets all elements of this queue in the order they should be processed. */
+    public List<E> toList() {
+        final List<E> list = new ArrayList<>(entries.size());
+        for (Entry<E> entry : entries) {
+            list.add(entry.element);
+        }
+        return list;
+    }
+
+    public boolean contains(E element) {
+        return index.containsKey(element);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Gets number of elements of workspace in the queue. */
+    public int size(String workspace) {
+        final Integer size = workspaceSizes.get(workspace);
+        return size == null ? 0 : size;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxSizePerWorkspace() {
+        return maxSizePerWorkspace;
+    }
+
+    private Entry<E> removeEntry(E element) {
+        final Entry<E> entry = index.remove(element);
+        if (entry == null) {
+            return null;
+        }
+        entries.remove(entry);
+        final int workspaceSize = workspaceSizes.get(entry.workspace) - 1;
+        if (workspaceSize == 0) {
+            workspaceSizes.remove(entry.workspace);
+            finishTags.remove(entry.workspace);
+            final int workspaces = activeWorkspaces.get(entry.account) - 1;
+            if (workspaces == 0) {
+                activeWorkspaces.remove(entry.account);
+            } else {
+                activeWorkspaces.put(entry.account, workspaces);
+            }
+        } else {
+            workspaceSizes.put(entry.workspace, workspaceSize);
+        }
+        return entry;
+    }
+
+    private static class Entry<E> implements Comparable<Entry<E>> {
+        final E      element;
+        final String account;
+        final String workspace;
+        final double startTag;
+        final long   sequence;
+
+        Entry(E element, String account, String workspace, double startTag, long sequence) {
+            this.element = element;
+            this.account = account;
+            this.workspace = workspace;
+            this.startTag = startTag;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry<E> o) {
+            final int c = Double.compare(startTag, o.startTag);
+            // Elements with the same start tag are processed in order they are added.
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
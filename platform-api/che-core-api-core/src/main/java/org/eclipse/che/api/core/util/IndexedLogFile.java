@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only log file that may be read from any line or byte offset while it is written. Lines are written in UTF-8. Offset of each
+ * {@link #INDEX_INTERVAL}th line is kept in memory, offset of other lines is found by reading of file from the nearest indexed
+ * line, so index is small even for huge logs.
+ * <p/>
+ * Lines are buffered and written to the file when buffer is full or when time since the last flush exceeds flush period, but not
+ * after each line. Readers always get all written lines, data that is still in buffer is flushed before reading. Part of file that
+ * is already flushed isn't changed anymore, so it is read without locking of writer.
+ *
+ * @author andrew00x
+ */
+public class IndexedLogFile implements LineConsumer {
+    /** Offset of each line with number that is multiple of this value is kept in memory. */
+    public static final int  INDEX_INTERVAL       = 64;
+    public static final long DEFAULT_FLUSH_PERIOD = 500;
+    public static final int  DEFAULT_BUFFER_SIZE  = 8192;
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final java.io.File file;
+    private final long         flushPeriod;
+    private final OutputStream out;
+    private final byte[]       buffer;
+
+    private int     buffered;
+    private long[]  index;
+    private int     lines;
+    private long    size;
+    private long    flushedSize;
+    private long    lastFlush;
+    private int     followers;
+    private boolean closed;
+
+    public IndexedLogFile(java.io.File file) throws IOException {
+        this(file, DEFAULT_FLUSH_PERIOD, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param file
+     *         file of log
+     * @param flushPeriod
+     *         max time in milliseconds that written lines may stay in buffer
+     * @param bufferSize
+     *         size of buffer in bytes
+     */
+    public IndexedLogFile(java.io.File file, long flushPeriod, int bufferSize) throws IOException {
+        this.file = file;
+        this.flushPeriod = flushPeriod;
+        out = new FileOutputStream(file);
+        buffer = new byte[bufferSize];
+        index = new long[16];
+        lastFlush = System.currentTimeMillis();
+    }
+
+    public java.io.File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void writeLine(String line) throws IOException {
+        if (closed) {
+            throw new IOException("Log is closed");
+        }
+        if (lines % INDEX_INTERVAL == 0) {
+            final int i = lines / INDEX_INTERVAL;
+            if (i == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[i] = size;
+        }
+        if (line != null) {
+            write(line.getBytes(StandardCharsets.UTF_8));
+        }
+        write(NEW_LINE);
+        lines++;
+        final long now = System.currentTimeMillis();
+        if (now - lastFlush >= flushPeriod) {
+            flush();
+        }
+        if (followers > 0) {
+            notifyAll();
+        }
+    }
+
+    /** Writes buffered lines to the file. */
+    public synchronized void flush() throws IOException {
+        if (buffered > 0) {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+        out.flush();
+        flushedSize = size;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /** Gets number of written lines. */
+    public synchronized int getLinesNum() {
+        return lines;
+    }
+
+    /** Gets size of log in bytes. */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets byte offset of line.
+     *
+     * @param line
+     *         zero-based number of line
+     * @return offset of line or size of log if log has less lines
+     */
+    public long getOffset(int line) throws IOException {
+        if (line < 0) {
+            throw new IllegalArgumentException("Negative line number");
+        }
+        final long from;
+        final long to;
+        synchronized (this) {
+            if (line >= lines) {
+                return size;
+            }
+            if (flushedSize < size) {
+                flush();
+            }
+            from = index[line / INDEX_INTERVAL];
+            to = flushedSize;
+        }
+        int skip = line % INDEX_INTERVAL;
+        if (skip == 0) {
+            return from;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buf = ByteBuffer.allocate(8192);
+            long position = from;
+            while (position < to) {
+                buf.clear();
+                final int n = channel.read(buf, position);
+                if (n < 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (buf.get(i) == '\n' && --skip == 0) {
+                        return position + i + 1;
+                    }
+                }
+                position += n;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Copies bytes of log from {@code from} (inclusive) to {@code to} (exclusive) offsets to the output. Offset {@code to} is
+     * limited with size of log.
+     *
+     * @return number of copied bytes
+     */
+    public long read(long from, long to, OutputStream output) throws IOException {
+        final long end;
+        synchronized (this) {
+            end = Math.min(to, size);
+            if (end > flushedSize) {
+                flush();
+            }
+        }
+        if (from >= end) {
+            return 0;
+        }
+        long position = from;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buf = ByteBuffer.allocate(8192);
+            while (position < end) {
+                buf.clear();
+                buf.limit((int)Math.min(buf.capacity(), end - position));
+                final int n = channel.read(buf, position);
+                if (n < 0) {
+                    break;
+                }
+                output.write(buf.array(), 0, n);
+                position += n;
+            }
+        }
+        return position - from;
+    }
+
+    /**
+     * Copies all lines starting from {@code fromLine} to the output.
+     *
+     * @param fromLine
+     *         zero-based number of the first line
+     * @return number of lines in log at the moment of reading, i.e. number of line to read next time
+     */
+    public int readLines(int fromLine, OutputStream output) throws IOException {
+        final int toLine;
+        final long to;
+        synchronized (this) {
+            toLine = lines;
+            to = size;
+        }
+        if (fromLine < toLine) {
+            read(getOffset(fromLine), to, output);
+        }
+        return toLine;
+    }
+
+    /**
+     * Waits until log has more lines than {@code fromLine} or is closed.
+     *
+     * @param fromLine
+     *         zero-based number of line
+     * @param timeout
+     *         max time of waiting in milliseconds
+     * @return {@code true} if log has line {@code fromLine}
+     */
+    public synchronized boolean waitForLines(int fromLine, long timeout) throws InterruptedException {
+        final long end = System.currentTimeMillis() + timeout;
+        followers++;
+        try {
+            long remaining = timeout;
+            while (lines <= fromLine && !closed && remaining > 0) {
+                wait(remaining);
+                remaining = end - System.currentTimeMillis();
+            }
+        } finally {
+            followers--;
+        }
+        return lines > fromLine;
+    }
+
+    /** Gets reader of the whole log. */
+    public Reader getReader() throws IOException {
+        synchronized (this) {
+            if (flushedSize < size) {
+                flush();
+            }
+        }
+        return Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            out.close();
+        } finally {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - buffered) {
+            flush();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                size += bytes.length;
+                flushedSize = size;
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, buffered, bytes.length);
+        buffered += bytes.length;
+        size += bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedLogFile{" +
+               "file=" + file +
+               '}';
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects lines in batches and publishes each batch with one call of {@link #publish(int, int, String)} instead of publishing each line
+ * separately. Batch is published when {@link #maxDelay} milliseconds are over since the first line of batch was added or when size of
+ * batch exceeds {@link #maxSize} characters, whichever comes first. Lines of batch are separated with '\n'. Lines are numbered from 1.
+ * <p/>
+ * Batches are published in order of lines. Batches that are published by timer are published in the thread of scheduler that is passed
+ * to constructor, the owner of batcher is responsible for shutting down the scheduler. If scheduler isn't set or doesn't accept tasks
+ * anymore, e.g. it is shut down, each line is published immediately.
+ *
+ * @author andrew00x
+ */
+public abstract class LineBatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(LineBatcher.class);
+
+    public static final long DEFAULT_MAX_DELAY = 50;
+    public static final int  DEFAULT_MAX_SIZE  = 64 * 1024;
+
+    private final ScheduledExecutorService scheduler;
+    private final long                     maxDelay;
+    private final int                      maxSize;
+    private final Object                   publishLock;
+    private final StringBuilder            batch;
+
+    private int                lineCounter;
+    private int                firstLine;
+    private int                batchLines;
+    private ScheduledFuture<?> scheduled;
+    private boolean            closed;
+
+    /**
+     * @param scheduler
+     *         scheduler that publishes batches when {@link #DEFAULT_MAX_DELAY} milliseconds are over, may be {@code null}
+     */
+    protected LineBatcher(ScheduledExecutorService scheduler) {
+        this(scheduler, DEFAULT_MAX_DELAY, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param scheduler
+     *         scheduler that publishes batches when {@code maxDelay} milliseconds are over, may be {@code null}
+     * @param maxDelay
+     *         max time in milliseconds that line may wait in batch
+     * @param maxSize
+     *         max size of batch in characters
+     */
+    protected LineBatcher(ScheduledExecutorService scheduler, long maxDelay, int maxSize) {
+        this.scheduler = scheduler;
+        this.maxDelay = maxDelay;
+        this.maxSize = maxSize;
+        publishLock = new Object();
+        batch = new StringBuilder();
+        lineCounter = 1;
+    }
+
+    /** Adds line to the current batch. Lines that are added after closing are ignored. */
+    public void addLine(String line) {
+        boolean full = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (batchLines == 0) {
+                firstLine = lineCounter;
+                scheduled = schedule();
+                full = scheduled == null;
+            } else {
+                batch.append('\n');
+            }
+            batch.append(line);
+            batchLines++;
+            lineCounter++;
+            if (batch.length() >= maxSize) {
+                full = true;
+            }
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    private ScheduledFuture<?> schedule() {
+        if (scheduler == null) {
+            return null;
+        }
+        try {
+            return scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, maxDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /** Publishes current batch if it isn't empty. */
+    public void flush() {
+        synchronized (publishLock) {
+            final int first;
+            final int count;
+            final String lines;
+            synchronized (this) {
+                if (batchLines == 0) {
+                    return;
+                }
+                first = firstLine;
+                count = batchLines;
+                lines = batch.toString();
+                batch.setLength(0);
+                batchLines = 0;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                    scheduled = null;
+                }
+            }
+            try {
+                publish(first, count, lines);
+            } catch (RuntimeException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Publishes current batch and stops accepting of new lines. */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    /**
+     * Publishes batch of lines.
+     *
+     * @param firstLine
+     *         number of the first line in batch
+     * @param lineCount
+     *         number of lines in batch
+     * @param lines
+     *         lines separated with '\n'
+     */
+    protected abstract void publish(int firstLine, int lineCount, String lines);
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.eclipse.che.commons.annotation.Nullable;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helps to serve {@link IndexedLogFile} over HTTP. Client may get whole log, part of log starting from some line with query parameter
+ * {@link #FROM_LINE_PARAM} or range of bytes with HTTP header {@code Range}. Number of line to start next reading from is sent in
+ * response header {@link #NEXT_LINE_HEADER}. If query parameter {@link #FOLLOW_PARAM} is {@code true} and log doesn't have new lines
+ * yet, request waits (long-poll) until new lines are written, log is closed or {@link #FOLLOW_TIMEOUT} is over.
+ *
+ * @author andrew00x
+ */
+public class LogsHelper {
+    public static final String FROM_LINE_PARAM  = "fromLine";
+    public static final String FOLLOW_PARAM     = "follow";
+    public static final String NEXT_LINE_HEADER = "X-Next-Line";
+    public static final String RANGE_HEADER     = "Range";
+
+    /** Max time in milliseconds of waiting for new lines in "follow" mode. */
+    public static final long FOLLOW_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Creates response with log.
+     *
+     * @param log
+     *         log
+     * @param contentType
+     *         content type of log
+     * @param fromLine
+     *         zero-based number of the first line of log to send
+     * @param range
+     *         value of HTTP header {@code Range}, only single range of bytes is supported, e.g. {@code bytes=100-199}, {@code
+     *         bytes=100-} or {@code bytes=-100}, whole log is sent for other ranges
+     * @param follow
+     *         wait for new lines if log doesn't have line {@code fromLine} yet
+     */
+    public static Response getLogs(final IndexedLogFile log, String contentType, @Nullable Integer fromLine, @Nullable String range,
+                                   boolean follow) throws IOException {
+        if (fromLine != null && fromLine < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Invalid line number " + fromLine).type("text/plain").build();
+        }
+        if (range != null && fromLine == null) {
+            final long[] bytes = parseRange(range, log.getSize());
+            if (bytes != null) {
+                final long size = log.getSize();
+                if (bytes[0] >= size || bytes[0] > bytes[1]) {
+                    return Response.status(416).header("Content-Range", "bytes */" + size).build();
+                }
+                final long to = Math.min(bytes[1], size - 1);
+                return Response.status(206)
+                               .header("Content-Range", String.format("bytes %d-%d/%d", bytes[0], to, size))
+                               .header(HttpHeaders.CONTENT_LENGTH, to - bytes[0] + 1)
+                               .entity(newOutput(log, bytes[0], to + 1))
+                               .type(contentType)
+                               .build();
+            }
+        }
+        final int from = fromLine == null ? 0 : fromLine;
+        if (follow && from >= log.getLinesNum()) {
+            try {
+                log.waitForLines(from, FOLLOW_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Offset of the next line is end of the last line even if new lines are written concurrently.
+        final int nextLine = log.getLinesNum();
+        final long end = log.getOffset(nextLine);
+        final long start = from < nextLine ? log.getOffset(from) : end;
+        return Response.ok(newOutput(log, start, end), contentType)
+                       .header(NEXT_LINE_HEADER, Math.max(from, nextLine))
+                       .header("Accept-Ranges", "bytes")
+                       .build();
+    }
+
+    /** Returns first and last byte of range or {@code null} if range isn't supported. */
+    static long[] parseRange(String range, long size) {
+        final String value = range.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        final int dash = value.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            final String first = value.substring(6, dash).trim();
+            final String last = value.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                // Suffix range: last N bytes.
+                final long suffix = Long.parseLong(last);
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            return new long[]{Long.parseLong(first), last.isEmpty() ? Long.MAX_VALUE - 1 : Long.parseLong(last)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static StreamingOutput newOutput(final IndexedLogFile log, final long from, final long to) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException, WebApplicationException {
+                log.read(from, to, output);
+            }
+        };
+    }
+
+    private LogsHelper() {
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.everrest;
+
+import org.eclipse.che.api.core.rest.Constants;
+import org.eclipse.che.dto.server.BinarySerializable;
+import org.everrest.core.ApplicationContext;
+import org.everrest.core.Filter;
+import org.everrest.core.GenericContainerResponse;
+import org.everrest.core.ResponseFilter;
+import org.everrest.core.impl.ApplicationContextImpl;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Switches response with DTO or list of DTOs from JSON to compact binary format if client asks for binary format with the same schema
+ * of DTO as server has, e.g. master and slave builders or runners built from the same sources. Resource methods still produce JSON,
+ * client that doesn't send {@link Constants#BINARY_DTO} media type in {@code Accept} header, e.g. browser, always gets JSON.
+ * <p/>
+ * Client asks for binary format with header:
+ * <pre>
+ * Accept: application/x-codenvy-dto;schema=&lt;schema of DTO&gt;, application/json;q=0.9
+ * </pre>
+ *
+ * @author andrew00x
+ * @see org.eclipse.che.api.core.rest.BinaryDtoProvider
+ * @see BinarySerializable#getBinarySchema()
+ */
+@Filter
+public class BinaryDtoResponseFilter implements ResponseFilter {
+    private static final MediaType BINARY_DTO_TYPE = MediaType.valueOf(Constants.BINARY_DTO);
+
+    @Override
+    public void doFilter(GenericContainerResponse containerResponse) {
+        final Object entity = containerResponse.getEntity();
+        if (entity == null || !MediaType.APPLICATION_JSON_TYPE.isCompatible(containerResponse.getContentType())) {
+            return;
+        }
+        final String schema = getBinarySchema(entity);
+        if (schema == null) {
+            return;
+        }
+        final ApplicationContext applicationContext = ApplicationContextImpl.getCurrent();
+        for (MediaType accept : applicationContext.getHttpHeaders().getAcceptableMediaTypes()) {
+            if (BINARY_DTO_TYPE.isCompatible(accept) && !accept.isWildcardType()
+                && schema.equals(accept.getParameters().get(Constants.BINARY_DTO_SCHEMA))) {
+                final MediaType binaryType = new MediaType(BINARY_DTO_TYPE.getType(), BINARY_DTO_TYPE.getSubtype(),
+                                                           Collections.singletonMap(Constants.BINARY_DTO_SCHEMA, schema));
+                containerResponse.setResponse(Response.fromResponse(containerResponse.getResponse()).type(binaryType).build());
+                return;
+            }
+        }
+    }
+
+    /* Gets schema of DTO or list of DTOs of the same type. Returns null if entity can't be written in binary format. */
+    private String getBinarySchema(Object entity) {
+        if (entity instanceof BinarySerializable) {
+            return ((BinarySerializable)entity).getBinarySchema();
+        }
+        if (entity instanceof List && !((List<?>)entity).isEmpty()) {
+            String schema = null;
+            for (Object item : (List<?>)entity) {
+                if (!(item instanceof BinarySerializable)) {
+                    return null;
+                }
+                final String itemSchema = ((BinarySerializable)item).getBinarySchema();
+                if (schema == null) {
+                    schema = itemSchema;
+                } else if (!schema.equals(itemSchema)) {
+                    return null;
+                }
+            }
+            return schema;
+        }
+        return null;
+    }
+}
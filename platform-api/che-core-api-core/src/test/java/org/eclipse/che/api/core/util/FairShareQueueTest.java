@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author andrew00x
+ */
+public class FairShareQueueTest {
+    @Test
+    public void testWorkspacesShareQueue() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 100);
+        queue.add("a1", "account1", "ws1", 1);
+        queue.add("a2", "account1", "ws1", 1);
+        queue.add("a3", "account1", "ws1", 1);
+        queue.add("b1", "account2", "ws2", 1);
+        queue.add("b2", "account2", "ws2", 1);
+        Assert.assertEquals(queue.toList(), Arrays.asList("a1", "b1", "a2", "b2", "a3"));
+    }
+
+    @Test
+    public void testAccountWeight() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 100);
+        for (int i = 1; i <= 4; i++) {
+            queue.add("a" + i, "account1", "ws1", 2);
+        }
+        for (int i = 1; i <= 4; i++) {
+            queue.add("b" + i, "account2", "ws2", 1);
+        }
+        Assert.assertEquals(pollAll(queue), Arrays.asList("a1", "b1", "a2", "a3", "b2", "a4", "b3", "b4"));
+    }
+
+    @Test
+    public void testWorkspacesOfAccountShareItsWeight() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 100);
+        // Account with two busy workspaces doesn't get more than account with one.
+        for (int i = 1; i <= 4; i++) {
+            queue.add("c" + i, "account2", "ws3", 1);
+            queue.add("a" + i, "account1", "ws1", 1);
+            queue.add("b" + i, "account1", "ws2", 1);
+        }
+        final List<String> first = pollAll(queue).subList(0, 9);
+        int account2 = 0;
+        for (String element : first) {
+            if (element.startsWith("c")) {
+                account2++;
+            }
+        }
+        Assert.assertEquals(account2, 4, "Unexpected order: " + first);
+    }
+
+    @Test
+    public void testIdleWorkspaceDoesNotAccumulateCredit() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 100);
+        for (int i = 1; i <= 3; i++) {
+            queue.add("a" + i, "account1", "ws1", 1);
+        }
+        Assert.assertEquals(queue.poll(), "a1");
+        Assert.assertEquals(queue.poll(), "a2");
+        // Workspace that was idle doesn't get credit for the time it was idle.
+        queue.add("b1", "account2", "ws2", 1);
+        queue.add("b2", "account2", "ws2", 1);
+        Assert.assertEquals(pollAll(queue), Arrays.asList("b1", "a3", "b2"));
+    }
+
+    @Test
+    public void testTakeNotFirstElement() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 100);
+        queue.add("a1", "account1", "ws1", 1);
+        queue.add("b1", "account2", "ws2", 1);
+        Assert.assertTrue(queue.take("b1"));
+        Assert.assertFalse(queue.contains("b1"));
+        Assert.assertEquals(queue.toList(), Arrays.asList("a1"));
+        Assert.assertEquals(queue.size("ws2"), 0);
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(100, 1);
+        queue.add("a1", "account1", "ws1", 1);
+        Assert.assertTrue(queue.remove("a1"));
+        Assert.assertFalse(queue.remove("a1"));
+        Assert.assertTrue(queue.isEmpty());
+        // Limit of workspace is released.
+        queue.add("a2", "account1", "ws1", 1);
+        Assert.assertEquals(queue.size("ws1"), 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMaxSize() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(2, 2);
+        queue.add("a1", "account1", "ws1", 1);
+        queue.add("b1", "account2", "ws2", 1);
+        queue.add("c1", "account3", "ws3", 1);
+    }
+
+    @Test
+    public void testMaxSizePerWorkspace() throws Exception {
+        FairShareQueue<String> queue = new FairShareQueue<>(10, 2);
+        queue.add("a1", "account1", "ws1", 1);
+        queue.add("a2", "account1", "ws1", 1);
+        try {
+            queue.add("a3", "account1", "ws1", 1);
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException ignored) {
+        }
+        // Other workspaces are not affected.
+        queue.add("b1", "account1", "ws2", 1);
+        Assert.assertEquals(queue.size(), 3);
+    }
+
+    private List<String> pollAll(FairShareQueue<String> queue) {
+        final List<String> list = new ArrayList<>();
+        String element;
+        while ((element = queue.poll()) != null) {
+            list.add(element);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author andrew00x
+ */
+public class IndexedLogFileTest {
+    private File           file;
+    private IndexedLogFile log;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = File.createTempFile("log-", ".txt");
+        // Long flush period, data must be flushed by readers.
+        log = new IndexedLogFile(file, 60000, 1024);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        log.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    public void testReadFromLine() throws Exception {
+        final int linesNum = IndexedLogFile.INDEX_INTERVAL * 3 + 5;
+        for (int i = 0; i < linesNum; i++) {
+            log.writeLine("line " + i);
+        }
+        Assert.assertEquals(log.getLinesNum(), linesNum);
+        for (int line : new int[]{0, 1, IndexedLogFile.INDEX_INTERVAL - 1, IndexedLogFile.INDEX_INTERVAL, 150, linesNum - 1}) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final int next = log.readLines(line, output);
+            Assert.assertEquals(next, linesNum);
+            final String[] lines = output.toString("UTF-8").split("\n");
+            Assert.assertEquals(lines.length, linesNum - line);
+            Assert.assertEquals(lines[0], "line " + line);
+        }
+        Assert.assertEquals(log.getOffset(linesNum), log.getSize());
+    }
+
+    @Test
+    public void testReadRange() throws Exception {
+        log.writeLine("hello");
+        log.writeLine("\u043f\u0440\u0438\u0432\u0456\u0442");
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assert.assertEquals(log.read(6, log.getSize(), output), 13);
+        Assert.assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8), "\u043f\u0440\u0438\u0432\u0456\u0442\n");
+        Assert.assertEquals(log.getSize(), file.length());
+    }
+
+    @Test
+    public void testWaitForLines() throws Exception {
+        log.writeLine("line 0");
+        Assert.assertTrue(log.waitForLines(0, 10));
+        Assert.assertFalse(log.waitForLines(1, 10));
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    log.writeLine("line 1");
+                } catch (Exception ignored) {
+                }
+            }
+        };
+        writer.start();
+        Assert.assertTrue(log.waitForLines(1, 10000));
+        writer.join();
+    }
+
+    @Test
+    public void testWaitIsStoppedWhenLogIsClosed() throws Exception {
+        log.close();
+        Assert.assertFalse(log.waitForLines(0, 10000));
+    }
+
+    @Test
+    public void testParseRange() {
+        Assert.assertEquals(LogsHelper.parseRange("bytes=10-19", 100), new long[]{10, 19});
+        Assert.assertEquals(LogsHelper.parseRange("bytes=-30", 100), new long[]{70, 99});
+        Assert.assertEquals(LogsHelper.parseRange("bytes=90-", 100)[0], 90);
+        Assert.assertNull(LogsHelper.parseRange("bytes=1-2,5-6", 100));
+        Assert.assertNull(LogsHelper.parseRange("lines=1-2", 100));
+    }
+}
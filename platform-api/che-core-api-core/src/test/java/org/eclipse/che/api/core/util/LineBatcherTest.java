@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author andrew00x
+ */
+public class LineBatcherTest {
+    private ScheduledExecutorService scheduler;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBatchIsPublishedWhenSizeIsExceeded() throws Exception {
+        final List<String> batches = new ArrayList<>();
+        final List<Integer> firstLines = new ArrayList<>();
+        final List<Integer> lineCounts = new ArrayList<>();
+        final LineBatcher batcher = new LineBatcher(scheduler, 60000, 10) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                firstLines.add(firstLine);
+                lineCounts.add(lineCount);
+                batches.add(lines);
+            }
+        };
+        batcher.addLine("aaaa");
+        batcher.addLine("bbbb");
+        Assert.assertTrue(batches.isEmpty());
+        batcher.addLine("cccc");
+        batcher.addLine("dddd");
+        batcher.close();
+        Assert.assertEquals(batches, Arrays.asList("aaaa\nbbbb\ncccc", "dddd"));
+        Assert.assertEquals(firstLines, Arrays.asList(1, 4));
+        Assert.assertEquals(lineCounts, Arrays.asList(3, 1));
+    }
+
+    @Test
+    public void testBatchIsPublishedWhenDelayIsOver() throws Exception {
+        final CountDownLatch published = new CountDownLatch(1);
+        final List<String> batches = new ArrayList<>();
+        final LineBatcher batcher = new LineBatcher(scheduler, 50, 1024) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                batches.add(lines);
+                published.countDown();
+            }
+        };
+        batcher.addLine("line 1");
+        batcher.addLine("line 2");
+        Assert.assertTrue(published.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(batches, Arrays.asList("line 1\nline 2"));
+    }
+
+    @Test
+    public void testLinesAreIgnoredAfterClose() throws Exception {
+        final List<String> batches = new ArrayList<>();
+        final LineBatcher batcher = new LineBatcher(scheduler, 60000, 1024) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                batches.add(lines);
+            }
+        };
+        batcher.addLine("line 1");
+        batcher.close();
+        batcher.addLine("line 2");
+        batcher.flush();
+        Assert.assertEquals(batches, Arrays.asList("line 1"));
+    }
+
+    @Test
+    public void testLinesArePublishedImmediatelyWithoutScheduler() throws Exception {
+        final List<String> batches = new ArrayList<>();
+        final LineBatcher batcher = new LineBatcher(null, 60000, 1024) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                batches.add(lines);
+            }
+        };
+        batcher.addLine("line 1");
+        batcher.addLine("line 2");
+        Assert.assertEquals(batches, Arrays.asList("line 1", "line 2"));
+    }
+
+    @Test
+    public void testLinesArePublishedImmediatelyWhenSchedulerIsShutdown() throws Exception {
+        final List<String> batches = new ArrayList<>();
+        final LineBatcher batcher = new LineBatcher(scheduler, 60000, 1024) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                batches.add(lines);
+            }
+        };
+        scheduler.shutdownNow();
+        batcher.addLine("line 1");
+        Assert.assertEquals(batches, Arrays.asList("line 1"));
+    }
+}
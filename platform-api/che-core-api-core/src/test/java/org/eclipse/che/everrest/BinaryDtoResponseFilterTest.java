@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.everrest;
+
+import org.eclipse.che.api.core.rest.ApiExceptionMapper;
+import org.eclipse.che.api.core.rest.BinaryDtoProvider;
+import org.eclipse.che.api.core.rest.CodenvyJsonProvider;
+import org.eclipse.che.api.core.rest.Constants;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.everrest.core.impl.ApplicationContextImpl;
+import org.everrest.core.impl.ApplicationProviderBinder;
+import org.everrest.core.impl.ContainerRequest;
+import org.everrest.core.impl.ContainerResponse;
+import org.everrest.core.impl.EverrestConfiguration;
+import org.everrest.core.impl.EverrestProcessor;
+import org.everrest.core.impl.ResourceBinderImpl;
+import org.everrest.core.tools.ByteArrayContainerResponseWriter;
+import org.everrest.core.tools.DependencySupplierImpl;
+import org.everrest.core.tools.ResourceLauncher;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.OK;
+
+/** @author andrew00x */
+public class BinaryDtoResponseFilterTest {
+    private static final String BASE_URI     = "http://localhost/service";
+    private static final String SERVICE_PATH = BASE_URI + "/links";
+
+    @Path("/links")
+    public static class MyJaxRSService {
+        @GET
+        @Path("/single")
+        @Produces(APPLICATION_JSON)
+        public Link getLink() {
+            return newLink("a");
+        }
+
+        @GET
+        @Path("/list")
+        @Produces(APPLICATION_JSON)
+        public List<Link> getLinks() {
+            return Arrays.asList(newLink("a"), newLink("b"));
+        }
+    }
+
+    private ResourceLauncher resourceLauncher;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final ResourceBinderImpl resources = new ResourceBinderImpl();
+        resources.addResource(MyJaxRSService.class, null);
+        final DependencySupplierImpl dependencies = new DependencySupplierImpl();
+        final ApplicationProviderBinder binder = new ApplicationProviderBinder();
+        binder.addExceptionMapper(ApiExceptionMapper.class);
+        binder.addMessageBodyWriter(new CodenvyJsonProvider<>(null));
+        binder.addMessageBodyWriter(new BinaryDtoProvider<>());
+        binder.addResponseFilter(BinaryDtoResponseFilter.class);
+        final URI uri = new URI(BASE_URI);
+        final ContainerRequest req = new ContainerRequest(null, uri, uri, null, null, null);
+        final ApplicationContextImpl contextImpl = new ApplicationContextImpl(req, null, binder);
+        contextImpl.setDependencySupplier(dependencies);
+        ApplicationContextImpl.setCurrent(contextImpl);
+        final EverrestProcessor processor = new EverrestProcessor(resources, binder, dependencies, new EverrestConfiguration(), null);
+        resourceLauncher = new ResourceLauncher(processor);
+    }
+
+    @Test
+    public void testBinaryFormatIsSentIfClientHasTheSameSchema() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        ContainerResponse response = resourceLauncher.service(HttpMethod.GET, SERVICE_PATH + "/single", BASE_URI,
+                                                              accept(DtoFactory.getInstance().getBinarySchema(Link.class)), null,
+                                                              writer, null);
+        Assert.assertEquals(response.getStatus(), OK.getStatusCode());
+        Assert.assertTrue(response.getContentType().toString().startsWith(Constants.BINARY_DTO));
+        Link link = DtoFactory.getInstance().createDtoFromBinary(new ByteArrayInputStream(writer.getBody()), Link.class);
+        Assert.assertEquals(link, newLink("a"));
+    }
+
+    @Test
+    public void testBinaryFormatIsSentForListOfDtos() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        ContainerResponse response = resourceLauncher.service(HttpMethod.GET, SERVICE_PATH + "/list", BASE_URI,
+                                                              accept(DtoFactory.getInstance().getBinarySchema(Link.class)), null,
+                                                              writer, null);
+        Assert.assertEquals(response.getStatus(), OK.getStatusCode());
+        Assert.assertTrue(response.getContentType().toString().startsWith(Constants.BINARY_DTO));
+        List<Link> links = DtoFactory.getInstance().createListDtoFromBinary(new ByteArrayInputStream(writer.getBody()), Link.class);
+        Assert.assertEquals(links, Arrays.asList(newLink("a"), newLink("b")));
+    }
+
+    @Test
+    public void testJsonIsSentIfClientHasOtherSchema() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        ContainerResponse response = resourceLauncher.service(HttpMethod.GET, SERVICE_PATH + "/single", BASE_URI,
+                                                              accept("0000000000000000"), null, writer, null);
+        Assert.assertEquals(response.getStatus(), OK.getStatusCode());
+        Assert.assertEquals(response.getContentType().toString(), APPLICATION_JSON);
+        Link link = DtoFactory.getInstance().createDtoFromJson(new ByteArrayInputStream(writer.getBody()), Link.class);
+        Assert.assertEquals(link, newLink("a"));
+    }
+
+    @Test
+    public void testJsonIsSentIfClientDoesNotAskForBinaryFormat() throws Exception {
+        ContainerResponse response = resourceLauncher.service(HttpMethod.GET, SERVICE_PATH + "/single", BASE_URI, null, null, null);
+        Assert.assertEquals(response.getStatus(), OK.getStatusCode());
+        Assert.assertEquals(response.getContentType().toString(), APPLICATION_JSON);
+    }
+
+    @Test
+    public void testListOfDtosIsSentAsJson() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        ContainerResponse response = resourceLauncher.service(HttpMethod.GET, SERVICE_PATH + "/list", BASE_URI, null, null, writer, null);
+        Assert.assertEquals(response.getStatus(), OK.getStatusCode());
+        Assert.assertEquals(response.getContentType().toString(), APPLICATION_JSON);
+        List<Link> links = DtoFactory.getInstance().createListDtoFromJson(new ByteArrayInputStream(writer.getBody()), Link.class);
+        Assert.assertEquals(links, Arrays.asList(newLink("a"), newLink("b")));
+    }
+
+    private static Map<String, List<String>> accept(String schema) {
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put(HttpHeaders.ACCEPT, Collections.singletonList(
+                Constants.BINARY_DTO + ';' + Constants.BINARY_DTO_SCHEMA + '=' + schema + ", " + APPLICATION_JSON + ";q=0.9"));
+        return headers;
+    }
+
+    private static Link newLink(String rel) {
+        return DtoFactory.getInstance().createDto(Link.class).withRel(rel).withHref("http://localhost/" + rel).withMethod(HttpMethod.GET);
+    }
+}
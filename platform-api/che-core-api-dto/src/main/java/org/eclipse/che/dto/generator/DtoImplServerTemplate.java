@@ -11,9 +11,12 @@
 
 package org.eclipse.che.dto.generator;
 
+import org.eclipse.che.dto.server.BinaryDtoOutput;
 import org.eclipse.che.dto.server.JsonArrayImpl;
+import org.eclipse.che.dto.server.JsonElements;
 import org.eclipse.che.dto.server.JsonSerializable;
 import org.eclipse.che.dto.server.JsonStringMapImpl;
+import org.eclipse.che.dto.shared.CompactJsonDto;
 import org.eclipse.che.dto.shared.DelegateRule;
 import org.eclipse.che.dto.shared.DTOImpl;
 import org.eclipse.che.dto.shared.DelegateTo;
@@ -21,23 +24,28 @@ import org.eclipse.che.dto.shared.JsonArray;
 import org.eclipse.che.dto.shared.JsonStringMap;
 import org.eclipse.che.dto.shared.SerializationIndex;
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
 import com.google.common.primitives.Primitives;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 
 /** Generates the source code for a generated Server DTO impl. */
 public class DtoImplServerTemplate extends DtoImpl {
     private static final String JSON_ARRAY_IMPL   = JsonArrayImpl.class.getCanonicalName();
+    private static final String JSON_ELEMENTS     = JsonElements.class.getCanonicalName();
     private static final String JSON_MAP_IMPL     = JsonStringMapImpl.class.getCanonicalName();
     private static final String SERVER_DTO_MARKER = "  @" + DTOImpl.class.getCanonicalName() + "(\"server\")\n";
 
@@ -55,23 +63,16 @@ public class DtoImplServerTemplate extends DtoImpl {
         // Enumerate the getters and emit field names and getters + setters.
         emitFields(getters, builder);
         emitGettersAndSetters(getters, builder);
-        List<Method> inheritedGetters = getInheritedDtoGetters(dtoInterface);
-        List<Method> methods = new ArrayList<>();
-        methods.addAll(getters);
-        Set<String> getterNames = new HashSet<>();
-        for (Method getter : getters) {
-            getterNames.add(getter.getName());
-        }
-        for (Method getter : inheritedGetters) {
-            if (getterNames.add(getter.getName())) {
-                methods.add(getter);
-            }
-        }
+        List<Method> methods = getSerializedGetters(dtoInterface);
         // equals, hashCode, serialization and copy constructor
         emitEqualsAndHashCode(methods, builder);
         emitSerializer(methods, builder);
+        emitStreamingSerializer(methods, builder);
         emitDeserializer(methods, builder);
         emitDeserializerShortcut(builder);
+        emitStreamingDeserializer(methods, builder);
+        emitBinarySerializer(methods, builder);
+        emitBinaryDeserializer(methods, builder);
         emitCopyConstructor(methods, builder);
         // Delegation DTO methods.
         emitDelegateMethods(builder);
@@ -93,7 +94,7 @@ public class DtoImplServerTemplate extends DtoImpl {
         //     // Override method to return type B instead of A.
         //     B withProperty();
         // }
-        getterNames.clear();
+        Set<String> getterNames = new HashSet<>();
         for (Method getter : getters) {
             getterNames.add(getter.getName());
         }
@@ -113,6 +114,23 @@ public class DtoImplServerTemplate extends DtoImpl {
         return builder.toString();
     }
 
+    /** Gets getters of DTO together with getters inherited from super DTO interfaces. */
+    private List<Method> getSerializedGetters(Class<?> dto) {
+        List<Method> getters = getDtoGetters(dto);
+        List<Method> methods = new ArrayList<>();
+        methods.addAll(getters);
+        Set<String> getterNames = new HashSet<>();
+        for (Method getter : getters) {
+            getterNames.add(getter.getName());
+        }
+        for (Method getter : getInheritedDtoGetters(dto)) {
+            if (getterNames.add(getter.getName())) {
+                methods.add(getter);
+            }
+        }
+        return methods;
+    }
+
     private void emitEqualsAndHashCode(List<Method> getters, StringBuilder builder) {
         builder.append("    @Override\n");
         builder.append("    public boolean equals(Object o) {\n");
@@ -300,8 +318,15 @@ public class DtoImplServerTemplate extends DtoImpl {
         builder.append("\n");
         builder.append("    @Override\n");
         builder.append("    public String toJson() {\n");
-        // The default toJson() creates its own JSON for internal printing, thus keeping JSONs values is safe
-        builder.append("      return gson.toJson(toJsonElementInt(false));\n");
+        // Write JSON directly without building of JsonElement tree
+        builder.append("      java.io.StringWriter w = new java.io.StringWriter();\n");
+        builder.append("      try {\n");
+        builder.append("        toJson(w);\n");
+        builder.append("      } catch (java.io.IOException e) {\n");
+        builder.append("        // Should never happen with StringWriter.\n");
+        builder.append("        throw new IllegalStateException(e.getMessage(), e);\n");
+        builder.append("      }\n");
+        builder.append("      return w.toString();\n");
         builder.append("    }\n");
         builder.append("\n");
         builder.append("    @Override\n");
@@ -419,8 +444,7 @@ public class DtoImplServerTemplate extends DtoImpl {
             builder.append(i).append("JsonElement ").append(outVar).append(" = ").append(depth == 0 ? " this." + inVar : inVar).append(
                     " == null ? JsonNull.INSTANCE : new JsonPrimitive(").append(depth == 0 ? "this." + inVar : inVar).append(");\n");
         } else if (isAny(rawClass)) {
-            // TODO JsonElement.deepCopy() is package-protected, JSONs are serialized to strings then parsed for copying them
-            // outVar = inVar == null ? JsonNull.INSTNACE : (copyJsons ? new JsonParser().parse(inVar) : inVar);
+            // outVar = inVar == null ? JsonNull.INSTNACE : (copyJsons ? JsonElements.deepCopy(inVar) : inVar);
             builder.append(i).append("JsonElement ").append(outVar).append(" = ").append(depth == 0 ? " this." + inVar : inVar)
                     .append(" == null || !(").append(inVar).append(" instanceof JsonElement) ? JsonNull.INSTANCE : (");
             appendCopyJsonExpression(inVar, builder).append(");\n");
@@ -450,6 +474,628 @@ public class DtoImplServerTemplate extends DtoImpl {
         }
     }
 
+    /**
+     * Generates methods that write JSON directly to the stream without building of JsonElement tree. Output is the same as output of
+     * {@code gson.toJson(toJsonElement())}: fields with {@code null} values are omitted. Compact DTOs are still written through
+     * JsonElement tree.
+     */
+    private void emitStreamingSerializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    @Override\n");
+        builder.append("    public void toJson(java.io.Writer w) throws java.io.IOException {\n");
+        builder.append("      JsonWriter out = new JsonWriter(w);\n");
+        builder.append("      out.setLenient(true);\n");
+        builder.append("      out.setSerializeNulls(false);\n");
+        builder.append("      writeJson(out);\n");
+        builder.append("      out.flush();\n");
+        builder.append("    }\n\n");
+        builder.append("    @Override\n");
+        builder.append("    public void writeJson(JsonWriter out) throws java.io.IOException {\n");
+        if (isCompactJson()) {
+            builder.append("      gson.toJson(toJsonElementInt(false), out);\n");
+        } else {
+            builder.append("      out.beginObject();\n");
+            for (Method getter : getters) {
+                builder.append("      out.name(").append(quoteStringLiteral(getJsonFieldName(getter))).append(");\n");
+                String fieldName = getJavaFieldName(getter.getName());
+                emitWriterImpl(expandType(getter.getGenericReturnType()), 0, builder, fieldName, fieldName + "Value", "      ");
+            }
+            builder.append("      out.endObject();\n");
+        }
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to write the value of the given variable to JsonWriter {@code out}.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param inVar
+     *         the java variable that will be the input for serialization, at depth 0 it is name of field
+     * @param valueVar
+     *         name of variable that may be used for the value
+     * @param i
+     *         indentation string
+     */
+    private void emitWriterImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String inVar, String valueVar, String i) {
+        Type type = expandedTypes.get(depth);
+        Class<?> rawClass = getRawClass(type);
+        String in = depth == 0 ? "this." + inVar : inVar;
+        if (isList(rawClass) || isMap(rawClass)) {
+            String childInTypeName = getImplName(expandedTypes.get(depth + 1), false);
+            String childVar = valueVar + "_";
+            if (depth == 0) {
+                builder.append(i).append("this.").append(getEnsureName(inVar)).append("();\n");
+            }
+            builder.append(i).append("if (").append(in).append(" == null) {\n");
+            builder.append(i).append("  out.nullValue();\n");
+            builder.append(i).append("} else {\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("  out.beginArray();\n");
+                builder.append(i).append("  for (").append(childInTypeName).append(" ").append(childVar).append(" : ").append(in)
+                       .append(") {\n");
+                emitWriterImpl(expandedTypes, depth + 1, builder, childVar, childVar, i + "    ");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  out.endArray();\n");
+            } else {
+                String entryVar = "entry" + depth;
+                builder.append(i).append("  out.beginObject();\n");
+                builder.append(i).append("  for (java.util.Map.Entry<String, ").append(childInTypeName).append("> ").append(entryVar)
+                       .append(" : ").append(in).append(".entrySet()) {\n");
+                builder.append(i).append("    out.name(").append(entryVar).append(".getKey());\n");
+                builder.append(i).append("    ").append(childInTypeName).append(" ").append(childVar).append(" = ").append(entryVar)
+                       .append(".getValue();\n");
+                emitWriterImpl(expandedTypes, depth + 1, builder, childVar, childVar, i + "    ");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  out.endObject();\n");
+            }
+            builder.append(i).append("}\n");
+        } else if (rawClass.isEnum()) {
+            builder.append(i).append("if (").append(in).append(" == null) {\n");
+            builder.append(i).append("  out.nullValue();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  out.value(").append(in).append(".name());\n");
+            builder.append(i).append("}\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass) || getEnclosingTemplate().getDtoImplementation(rawClass) != null) {
+            String implName = getEnclosingTemplate().isDtoInterface(rawClass)
+                              ? getImplNameForDto(rawClass) : getEnclosingTemplate().getDtoImplementation(rawClass).getCanonicalName();
+            builder.append(i).append("if (").append(in).append(" == null) {\n");
+            builder.append(i).append("  out.nullValue();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  ((").append(implName).append(")").append(in).append(").writeJson(out);\n");
+            builder.append(i).append("}\n");
+        } else if (rawClass.equals(String.class)) {
+            builder.append(i).append("out.value(").append(in).append(");\n");
+        } else if (rawClass == float.class) {
+            // Float is written in the same way as JsonPrimitive does it, out.value(double) changes its text representation.
+            builder.append(i).append("out.value((Number)Float.valueOf(").append(in).append("));\n");
+        } else if (rawClass == boolean.class
+                   || rawClass == int.class
+                   || rawClass == long.class
+                   || rawClass == double.class
+                   || rawClass == short.class
+                   || rawClass == byte.class) {
+            builder.append(i).append("out.value(").append(in).append(");\n");
+        } else if (rawClass == Boolean.class) {
+            builder.append(i).append("if (").append(in).append(" == null) {\n");
+            builder.append(i).append("  out.nullValue();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  out.value(").append(in).append(".booleanValue());\n");
+            builder.append(i).append("}\n");
+        } else if (rawClass == Integer.class
+                   || rawClass == Long.class
+                   || rawClass == Double.class
+                   || rawClass == Float.class
+                   || rawClass == Short.class
+                   || rawClass == Byte.class) {
+            builder.append(i).append("out.value((Number)").append(in).append(");\n");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append("if (").append(in).append(" instanceof JsonElement) {\n");
+            builder.append(i).append("  gson.toJson((JsonElement)").append(in).append(", out);\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  out.nullValue();\n");
+            builder.append(i).append("}\n");
+        } else {
+            throw new IllegalArgumentException("Unable to generate server implementation for DTO interface " +
+                                               getDtoInterface().getCanonicalName() + ". Type " + rawClass +
+                                               " is not allowed to use in DTO interface.");
+        }
+    }
+
+    /**
+     * Generates a static factory method that creates a new instance and reads its fields directly from the JsonReader without
+     * building of JsonElement tree. Unknown fields are skipped.
+     */
+    private void emitStreamingDeserializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    public static ").append(getImplClassName())
+               .append(" fromJsonReader(JsonReader in) throws java.io.IOException {\n");
+        builder.append("      if (in.peek() == JsonToken.NULL) {\n");
+        builder.append("        in.nextNull();\n");
+        builder.append("        return null;\n");
+        builder.append("      }\n\n");
+        builder.append("      ").append(getImplClassName()).append(" dto = new ").append(getImplClassName()).append("();\n");
+        if (isCompactJson()) {
+            builder.append("      in.beginArray();\n");
+            builder.append("      int index = 0;\n");
+            builder.append("      while (in.hasNext()) {\n");
+            builder.append("        switch (index++) {\n");
+            for (Method method : getters) {
+                SerializationIndex serializationIndex = Preconditions.checkNotNull(method.getAnnotation(SerializationIndex.class));
+                builder.append("          case ").append(serializationIndex.value() - 1).append(": {\n");
+                emitReadFieldForMethod(method, builder);
+                builder.append("            break;\n");
+                builder.append("          }\n");
+            }
+            builder.append("          default:\n");
+            builder.append("            in.skipValue();\n");
+            builder.append("        }\n");
+            builder.append("      }\n");
+            builder.append("      in.endArray();\n");
+        } else {
+            builder.append("      in.beginObject();\n");
+            builder.append("      while (in.hasNext()) {\n");
+            builder.append("        switch (in.nextName()) {\n");
+            Set<String> jsonFieldNames = new HashSet<>();
+            for (Method method : getters) {
+                String jsonFieldName = getJsonFieldName(method);
+                if (!jsonFieldNames.add(jsonFieldName)) {
+                    continue;
+                }
+                builder.append("          case ").append(quoteStringLiteral(jsonFieldName)).append(": {\n");
+                emitReadFieldForMethod(method, builder);
+                builder.append("            break;\n");
+                builder.append("          }\n");
+            }
+            builder.append("          default:\n");
+            builder.append("            in.skipValue();\n");
+            builder.append("        }\n");
+            builder.append("      }\n");
+            builder.append("      in.endObject();\n");
+        }
+        builder.append("      return dto;\n");
+        builder.append("    }\n\n");
+    }
+
+    private void emitReadFieldForMethod(Method method, StringBuilder builder) {
+        String fieldName = getFieldNameFromGetterName(method.getName());
+        String fieldNameOut = fieldName + "Out";
+        emitReaderImpl(expandType(method.getGenericReturnType()), 0, builder, fieldNameOut, "            ");
+        builder.append("            dto.").append(getSetterName(fieldName)).append("(").append(fieldNameOut).append(");\n");
+    }
+
+    /**
+     * Produces code to read value of the given type from JsonReader {@code in}.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param outVar
+     *         the java variable that will be the output of deserialization
+     * @param i
+     *         indentation string
+     */
+    private void emitReaderImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String outVar, String i) {
+        Type type = expandedTypes.get(depth);
+        String childOutVar = outVar + "_";
+        Class<?> rawClass = getRawClass(type);
+        if (isList(rawClass) || isMap(rawClass)) {
+            builder.append(i).append(getImplName(type, false)).append(" ").append(outVar).append(" = null;\n");
+            builder.append(i).append("if (in.peek() == JsonToken.NULL) {\n");
+            builder.append(i).append("  in.nextNull();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  ").append(outVar).append(" = new ").append(getImplName(type, true)).append("();\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("  in.beginArray();\n");
+                builder.append(i).append("  while (in.hasNext()) {\n");
+                emitReaderImpl(expandedTypes, depth + 1, builder, childOutVar, i + "    ");
+                builder.append(i).append("    ").append(outVar).append(".add(").append(childOutVar).append(");\n");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  in.endArray();\n");
+            } else {
+                String keyVar = "key" + depth;
+                builder.append(i).append("  in.beginObject();\n");
+                builder.append(i).append("  while (in.hasNext()) {\n");
+                builder.append(i).append("    String ").append(keyVar).append(" = in.nextName();\n");
+                emitReaderImpl(expandedTypes, depth + 1, builder, childOutVar, i + "    ");
+                builder.append(i).append("    ").append(outVar).append(".put(").append(keyVar).append(", ").append(childOutVar)
+                       .append(");\n");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  in.endObject();\n");
+            }
+            builder.append(i).append("}\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            builder.append(i).append(getImplName(rawClass, false)).append(" ").append(outVar).append(" = ")
+                   .append(getImplNameForDto(rawClass)).append(".fromJsonReader(in);\n");
+        } else if (rawClass == boolean.class) {
+            // The same as JsonPrimitive.getAsBoolean() does, string value is parsed.
+            builder.append(i).append("boolean ").append(outVar)
+                   .append(" = in.peek() == JsonToken.BOOLEAN ? in.nextBoolean() : Boolean.parseBoolean(in.nextString());\n");
+        } else if (rawClass == int.class || rawClass == short.class || rawClass == byte.class) {
+            String primitiveName = rawClass.getSimpleName();
+            builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = (").append(primitiveName)
+                   .append(")in.nextInt();\n");
+        } else if (rawClass == long.class) {
+            builder.append(i).append("long ").append(outVar).append(" = in.nextLong();\n");
+        } else if (rawClass == double.class || rawClass == float.class) {
+            String primitiveName = rawClass.getSimpleName();
+            builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = (").append(primitiveName)
+                   .append(")in.nextDouble();\n");
+        } else if (rawClass.isPrimitive()) {
+            throw new IllegalArgumentException("Unable to generate server implementation for DTO interface " +
+                                               getDtoInterface().getCanonicalName() + ". Type " + rawClass +
+                                               " is not allowed to use in DTO interface.");
+        } else if (isAny(rawClass)) {
+            // Value is parsed from stream, no need to copy it.
+            builder.append(i).append("JsonElement ").append(outVar).append(" = new JsonParser().parse(in);\n");
+        } else {
+            final Class<?> dtoImplementation = getEnclosingTemplate().getDtoImplementation(rawClass);
+            if (dtoImplementation != null) {
+                builder.append(i).append(getImplName(rawClass, false)).append(" ").append(outVar).append(" = ")
+                       .append(dtoImplementation.getCanonicalName()).append(".fromJsonReader(in);\n");
+            } else {
+                // Use gson to handle all other types.
+                String rawClassName = rawClass.getName().replace('$', '.');
+                builder.append(i).append(rawClassName).append(" ").append(outVar).append(" = gson.getAdapter(").append(rawClassName)
+                       .append(".class).read(in);\n");
+            }
+        }
+    }
+
+    /**
+     * Gets indexes of fields in binary format. Compact DTOs use {@link SerializationIndex}, other DTOs use position of JSON name of field
+     * in sorted list of names, starting from 1. Fields with the same JSON name are written once.
+     */
+    private Map<Method, Integer> getBinaryIndexes(Class<?> dto, List<Method> getters) {
+        Map<Method, Integer> indexes = new LinkedHashMap<>();
+        if (DtoTemplate.implementsInterface(dto, CompactJsonDto.class)) {
+            for (Method method : getters) {
+                indexes.put(method, Preconditions.checkNotNull(method.getAnnotation(SerializationIndex.class)).value());
+            }
+        } else {
+            Map<String, Method> byJsonName = new TreeMap<>();
+            for (Method method : getters) {
+                String jsonFieldName = getJsonFieldName(method);
+                if (!byJsonName.containsKey(jsonFieldName)) {
+                    byJsonName.put(jsonFieldName, method);
+                }
+            }
+            int index = 1;
+            for (Method method : byJsonName.values()) {
+                indexes.put(method, index++);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Gets schema of binary format of DTO. Schema is hash of indexes, names and types of fields of DTO and all its nested DTOs, so it
+     * changes when binary format of DTO changes. Schema of DTOs from other modules is taken from their implementations.
+     */
+    private String getBinarySchema() {
+        StringBuilder description = new StringBuilder();
+        describeBinaryFormat(getDtoInterface(), new HashSet<Class<?>>(), description);
+        return Hashing.md5().hashString(description, StandardCharsets.UTF_8).toString().substring(0, 16);
+    }
+
+    private void describeBinaryFormat(Class<?> dto, Set<Class<?>> visited, StringBuilder description) {
+        description.append(dto.getName());
+        if (!visited.add(dto)) {
+            return;
+        }
+        description.append('{');
+        for (Map.Entry<Method, Integer> entry : getBinaryIndexes(dto, getSerializedGetters(dto)).entrySet()) {
+            description.append(entry.getValue()).append(':').append(getJsonFieldName(entry.getKey())).append(':');
+            for (Type type : expandType(entry.getKey().getGenericReturnType())) {
+                Class<?> rawClass = getRawClass(type);
+                if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+                    describeBinaryFormat(rawClass, visited, description);
+                } else if (getEnclosingTemplate().getDtoImplementation(rawClass) != null) {
+                    description.append(getBinarySchema(getEnclosingTemplate().getDtoImplementation(rawClass)));
+                } else {
+                    description.append(rawClass.getName());
+                }
+                description.append(' ');
+            }
+            description.append(';');
+        }
+        description.append('}');
+    }
+
+    /* Gets schema of DTO implementation that is generated in other module. */
+    private static String getBinarySchema(Class<?> dtoImplementation) {
+        try {
+            return (String)dtoImplementation.getField("BINARY_SCHEMA").get(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return dtoImplementation.getName();
+        }
+    }
+
+    /** Gets type of value in binary format, see {@link BinaryDtoOutput}. */
+    private String getBinaryType(Class<?> rawClass) {
+        String type;
+        if (isList(rawClass)) {
+            type = "ARRAY";
+        } else if (isMap(rawClass)) {
+            type = "MAP";
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass) || getEnclosingTemplate().getDtoImplementation(rawClass) != null) {
+            type = "OBJECT";
+        } else if (rawClass == double.class || rawClass == Double.class) {
+            type = "FIXED64";
+        } else if (rawClass == float.class || rawClass == Float.class) {
+            type = "FIXED32";
+        } else if (rawClass == boolean.class || rawClass == Boolean.class || isNumber(rawClass)) {
+            type = "VARINT";
+        } else {
+            // Strings, enums, 'any' and all other types that are serialized with gson.
+            type = "BYTES";
+        }
+        return "BinaryDtoOutput." + type;
+    }
+
+    /**
+     * Generates method that writes DTO in binary format and its schema. Fields with {@code null} values, empty collections and
+     * primitive integral fields with default values are not written.
+     */
+    private void emitBinarySerializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    public static final String BINARY_SCHEMA = ").append(quoteStringLiteral(getBinarySchema())).append(";\n\n");
+        builder.append("    @Override\n");
+        builder.append("    public String getBinarySchema() {\n");
+        builder.append("      return BINARY_SCHEMA;\n");
+        builder.append("    }\n\n");
+        builder.append("    @Override\n");
+        builder.append("    public void writeBinary(BinaryDtoOutput out) throws java.io.IOException {\n");
+        for (Map.Entry<Method, Integer> entry : getBinaryIndexes(getDtoInterface(), getters).entrySet()) {
+            String fieldName = getJavaFieldName(entry.getKey().getName());
+            emitBinaryWriterImpl(expandType(entry.getKey().getGenericReturnType()), 0, entry.getValue(), builder, fieldName,
+                                 fieldName + "Value", "      ");
+        }
+        builder.append("      out.writeEnd();\n");
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to write the value of the given variable to BinaryDtoOutput {@code out}. At depth 0 value is written with tag of
+     * field and isn't written at all if it is {@code null}, items of collections are written with their types.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param index
+     *         index of field
+     * @param inVar
+     *         the java variable that will be the input for serialization, at depth 0 it is name of field
+     * @param valueVar
+     *         name of variable that may be used for the value
+     * @param i
+     *         indentation string
+     */
+    private void emitBinaryWriterImpl(List<Type> expandedTypes, int depth, int index, StringBuilder builder, String inVar,
+                                      String valueVar, String i) {
+        Type type = expandedTypes.get(depth);
+        Class<?> rawClass = getRawClass(type);
+        String in = depth == 0 ? "this." + inVar : inVar;
+        String binaryType = getBinaryType(rawClass);
+        if (isList(rawClass) || isMap(rawClass)) {
+            String childInTypeName = getImplName(expandedTypes.get(depth + 1), false);
+            String childVar = valueVar + "_";
+            if (depth == 0) {
+                builder.append(i).append("this.").append(getEnsureName(inVar)).append("();\n");
+            }
+            String ii = emitBinaryValueStart(depth == 0 ? "!" + in + ".isEmpty()" : in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeVarint(").append(in).append(".size());\n");
+            if (isList(rawClass)) {
+                builder.append(ii).append("for (").append(childInTypeName).append(" ").append(childVar).append(" : ").append(in)
+                       .append(") {\n");
+            } else {
+                String entryVar = "entry" + depth;
+                builder.append(ii).append("for (java.util.Map.Entry<String, ").append(childInTypeName).append("> ").append(entryVar)
+                       .append(" : ").append(in).append(".entrySet()) {\n");
+                builder.append(ii).append("  out.writeString(").append(entryVar).append(".getKey());\n");
+                builder.append(ii).append("  ").append(childInTypeName).append(" ").append(childVar).append(" = ").append(entryVar)
+                       .append(".getValue();\n");
+            }
+            emitBinaryWriterImpl(expandedTypes, depth + 1, index, builder, childVar, childVar, ii + "  ");
+            builder.append(ii).append("}\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass.isEnum()) {
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeString(").append(in).append(".name());\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass) || getEnclosingTemplate().getDtoImplementation(rawClass) != null) {
+            String implName = getEnclosingTemplate().isDtoInterface(rawClass)
+                              ? getImplNameForDto(rawClass) : getEnclosingTemplate().getDtoImplementation(rawClass).getCanonicalName();
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("((").append(implName).append(")").append(in).append(").writeBinary(out);\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass.equals(String.class)) {
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeString(").append(in).append(");\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass == double.class || rawClass == float.class) {
+            // Default value of floating point number is written since -0.0 is not equal to 0.0.
+            builder.append(i).append("out.writeTag(").append(index).append(", ").append(binaryType).append(");\n");
+            builder.append(i).append("out.write").append(rawClass == double.class ? "Double" : "Float").append("(").append(in)
+                   .append(");\n");
+        } else if (rawClass == boolean.class) {
+            String ii = emitBinaryValueStart(in, binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeBoolean(true);\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass.isPrimitive() && isNumber(rawClass)) {
+            String ii = emitBinaryValueStart(in + " != 0", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeSignedVarint(").append(in).append(");\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass == Boolean.class) {
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeBoolean(").append(in).append(");\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass == Double.class || rawClass == Float.class) {
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.write").append(rawClass.getSimpleName()).append("(").append(in).append(");\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (isNumber(rawClass)) {
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeSignedVarint(").append(in).append(".longValue());\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else if (rawClass.isPrimitive()) {
+            throw new IllegalArgumentException("Unable to generate server implementation for DTO interface " +
+                                               getDtoInterface().getCanonicalName() + ". Type " + rawClass +
+                                               " is not allowed to use in DTO interface.");
+        } else if (isAny(rawClass)) {
+            // Only JSON values are serialized, the same as for JSON format.
+            String ii = emitBinaryValueStart(in + " instanceof JsonElement", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeString(gson.toJson((JsonElement)").append(in).append("));\n");
+            emitBinaryValueEnd(depth, builder, i);
+        } else {
+            // Use gson to handle all other types.
+            String ii = emitBinaryValueStart(in + " != null", binaryType, depth, index, builder, i);
+            builder.append(ii).append("out.writeString(gson.toJson(").append(in).append("));\n");
+            emitBinaryValueEnd(depth, builder, i);
+        }
+    }
+
+    /**
+     * Emits start of block that writes value if the given condition is {@code true}: tag of field at depth 0 or type of value for items
+     * of collections.
+     *
+     * @return indentation for code that writes value
+     */
+    private static String emitBinaryValueStart(String condition, String binaryType, int depth, int index, StringBuilder builder,
+                                               String i) {
+        builder.append(i).append("if (").append(condition).append(") {\n");
+        if (depth == 0) {
+            builder.append(i).append("  out.writeTag(").append(index).append(", ").append(binaryType).append(");\n");
+        } else {
+            builder.append(i).append("  out.writeType(").append(binaryType).append(");\n");
+        }
+        return i + "  ";
+    }
+
+    /** Emits end of block started with {@link #emitBinaryValueStart}. Missed items of collections are written as nulls. */
+    private static void emitBinaryValueEnd(int depth, StringBuilder builder, String i) {
+        if (depth > 0) {
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  out.writeType(BinaryDtoOutput.NULL);\n");
+        }
+        builder.append(i).append("}\n");
+    }
+
+    /**
+     * Generates a static factory method that creates a new instance and reads its fields from BinaryDtoInput. Unknown fields and fields
+     * with unexpected type of value are skipped.
+     */
+    private void emitBinaryDeserializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    public static ").append(getImplClassName())
+               .append(" readBinary(BinaryDtoInput in) throws java.io.IOException {\n");
+        builder.append("      ").append(getImplClassName()).append(" dto = new ").append(getImplClassName()).append("();\n");
+        builder.append("      for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {\n");
+        builder.append("        int type = BinaryDtoInput.getType(tag);\n");
+        builder.append("        switch (BinaryDtoInput.getIndex(tag)) {\n");
+        for (Map.Entry<Method, Integer> entry : getBinaryIndexes(getDtoInterface(), getters).entrySet()) {
+            Method method = entry.getKey();
+            List<Type> expandedTypes = expandType(method.getGenericReturnType());
+            String fieldName = getFieldNameFromGetterName(method.getName());
+            String fieldNameOut = fieldName + "Out";
+            builder.append("          case ").append(entry.getValue()).append(": {\n");
+            builder.append("            if (type != ").append(getBinaryType(getRawClass(expandedTypes.get(0)))).append(") {\n");
+            builder.append("              in.skip(type);\n");
+            builder.append("              break;\n");
+            builder.append("            }\n");
+            builder.append("            ").append(getImplName(expandedTypes.get(0), false)).append(" ").append(fieldNameOut).append(";\n");
+            emitBinaryReaderImpl(expandedTypes, 0, builder, fieldNameOut, "            ");
+            builder.append("            dto.").append(getSetterName(fieldName)).append("(").append(fieldNameOut).append(");\n");
+            builder.append("            break;\n");
+            builder.append("          }\n");
+        }
+        builder.append("          default:\n");
+        builder.append("            in.skip(type);\n");
+        builder.append("        }\n");
+        builder.append("      }\n");
+        builder.append("      return dto;\n");
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to read value of the given type from BinaryDtoInput {@code in} and assign it to the given variable. Type of value
+     * must be already checked.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param outVar
+     *         the declared java variable that will be the output of deserialization
+     * @param i
+     *         indentation string
+     */
+    private void emitBinaryReaderImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String outVar, String i) {
+        Type type = expandedTypes.get(depth);
+        Class<?> rawClass = getRawClass(type);
+        if (isList(rawClass) || isMap(rawClass)) {
+            Type childType = expandedTypes.get(depth + 1);
+            String childOutVar = outVar + "_";
+            String sizeVar = "size" + depth;
+            String indexVar = "i" + depth;
+            String typeVar = "type" + depth;
+            builder.append(i).append("int ").append(sizeVar).append(" = in.readSize();\n");
+            builder.append(i).append(outVar).append(" = new ").append(getImplName(type, true)).append("(").append(sizeVar).append(");\n");
+            builder.append(i).append("for (int ").append(indexVar).append(" = 0; ").append(indexVar).append(" < ").append(sizeVar)
+                   .append("; ").append(indexVar).append("++) {\n");
+            if (isMap(rawClass)) {
+                builder.append(i).append("  String key").append(depth).append(" = in.readString();\n");
+            }
+            builder.append(i).append("  ").append(getImplName(childType, false)).append(" ").append(childOutVar).append(";\n");
+            builder.append(i).append("  int ").append(typeVar).append(" = in.readType();\n");
+            builder.append(i).append("  if (").append(typeVar).append(" == ").append(getBinaryType(getRawClass(childType))).append(") {\n");
+            emitBinaryReaderImpl(expandedTypes, depth + 1, builder, childOutVar, i + "    ");
+            builder.append(i).append("  } else {\n");
+            builder.append(i).append("    in.skip(").append(typeVar).append(");\n");
+            builder.append(i).append("    ").append(childOutVar).append(" = null;\n");
+            builder.append(i).append("  }\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("  ").append(outVar).append(".add(").append(childOutVar).append(");\n");
+            } else {
+                builder.append(i).append("  ").append(outVar).append(".put(key").append(depth).append(", ").append(childOutVar)
+                       .append(");\n");
+            }
+            builder.append(i).append("}\n");
+        } else if (rawClass.isEnum()) {
+            builder.append(i).append(outVar).append(" = in.readEnum(").append(rawClass.getCanonicalName()).append(".class);\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            builder.append(i).append(outVar).append(" = ").append(getImplNameForDto(rawClass)).append(".readBinary(in);\n");
+        } else if (rawClass.equals(String.class)) {
+            builder.append(i).append(outVar).append(" = in.readString();\n");
+        } else if (rawClass == boolean.class || rawClass == Boolean.class) {
+            builder.append(i).append(outVar).append(" = in.readBoolean();\n");
+        } else if (rawClass == double.class || rawClass == Double.class) {
+            builder.append(i).append(outVar).append(" = in.readDouble();\n");
+        } else if (rawClass == float.class || rawClass == Float.class) {
+            builder.append(i).append(outVar).append(" = in.readFloat();\n");
+        } else if (rawClass == long.class || rawClass == Long.class) {
+            builder.append(i).append(outVar).append(" = in.readSignedVarint();\n");
+        } else if (isNumber(rawClass)) {
+            String primitiveName = Primitives.unwrap(rawClass).getSimpleName();
+            builder.append(i).append(outVar).append(" = (").append(primitiveName).append(")in.readSignedVarint();\n");
+        } else if (rawClass.isPrimitive()) {
+            throw new IllegalArgumentException("Unable to generate server implementation for DTO interface " +
+                                               getDtoInterface().getCanonicalName() + ". Type " + rawClass +
+                                               " is not allowed to use in DTO interface.");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append(outVar).append(" = new JsonParser().parse(in.readString());\n");
+        } else {
+            final Class<?> dtoImplementation = getEnclosingTemplate().getDtoImplementation(rawClass);
+            if (dtoImplementation != null) {
+                builder.append(i).append(outVar).append(" = ").append(dtoImplementation.getCanonicalName()).append(".readBinary(in);\n");
+            } else {
+                // Use gson to handle all other types.
+                String rawClassName = rawClass.getName().replace('$', '.');
+                builder.append(i).append(outVar).append(" = gson.fromJson(in.readString(), ").append(rawClassName).append(".class);\n");
+            }
+        }
+    }
+
     /** Generates a static factory method that creates a new instance based on a JsonElement. */
     private void emitDeserializer(List<Method> getters, StringBuilder builder) {
         // The default fromJsonElement(json) works in unsafe mode and clones the JSON's for 'any' properties
@@ -585,8 +1231,7 @@ public class DtoImplServerTemplate extends DtoImpl {
             builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = ").append(inVar).append(
                     ".getAs").append(primitiveNameCap).append("();\n");
         } else if (isAny(rawClass)) {
-            // TODO JsonElement.deepCopy() is package-protected, JSONs are serialized to strings then parsed for copying them
-            // outVar = copyJsons ? new JsonParser().parse(inVar) : inVar;
+            // outVar = copyJsons ? JsonElements.deepCopy(inVar) : inVar;
             builder.append(i).append("JsonElement ").append(outVar).append(" = ");
             appendCopyJsonExpression(inVar, builder).append(";\n");
         } else {
@@ -611,15 +1256,20 @@ public class DtoImplServerTemplate extends DtoImpl {
      */
     private static StringBuilder appendCopyJsonExpression(String inVar, StringBuilder builder) {
         builder.append(COPY_JSONS_PARAM).append(" ? ");
-        appendNaiveCopyJsonExpression(inVar, builder).append(" : (JsonElement)(").append(inVar).append(")");
+        appendDeepCopyJsonExpression(inVar, builder).append(" : (JsonElement)(").append(inVar).append(")");
+        return builder;
+    }
+
+    /** Append the expression that copies the given variable, value of variable must be {@code null} or JsonElement. */
+    private static StringBuilder appendDeepCopyJsonExpression(String inValue, StringBuilder builder) {
+        builder.append(JSON_ELEMENTS).append(".deepCopy((JsonElement)(").append(inValue).append("))");
         return builder;
     }
-    private static StringBuilder appendNaiveCopyJsonExpression(String inValue, StringBuilder builder) {
-        builder.append("((");
-        builder.append(inValue);
-        builder.append(") != null ? new JsonParser().parse((");
-        builder.append(inValue);
-        builder.append(").toString()) : null)");
+
+    /** Append the expression that copies value of 'any' property if it is JsonElement, other values are not copied. */
+    private static StringBuilder appendCopyAnyExpression(String inValue, StringBuilder builder) {
+        builder.append(inValue).append(" instanceof JsonElement ? ");
+        appendDeepCopyJsonExpression(inValue, builder).append(" : ").append(inValue);
         return builder;
     }
 
@@ -642,7 +1292,7 @@ public class DtoImplServerTemplate extends DtoImpl {
         }
         builder.append(" implements ");
         builder.append(dtoInterface.getCanonicalName());
-        builder.append(", JsonSerializable ");
+        builder.append(", JsonSerializable, BinarySerializable ");
         builder.append(" {\n\n");
         emitFactoryMethod(builder);
         emitDefaultConstructor(builder);
@@ -790,14 +1440,17 @@ public class DtoImplServerTemplate extends DtoImpl {
                    .append(getterName).append("();\n");
             builder.append(i).append("if (").append(fieldNameIn).append(" != null) {\n");
             builder.append(i).append("  ").append(rawTypeName).append(" ").append(fieldNameOut)
-                   .append(" = new ").append(getImplName(type, true)).append("();\n");
+                   .append(" = new ").append(getImplName(type, true)).append("(").append(fieldNameIn).append(".size());\n");
             emitDeepCopyCollections(expandedTypes, depth, builder, fieldNameIn, fieldNameOut, i);
             builder.append(i).append("  ").append("this.").append(fieldName).append(" = ").append(fieldNameOut).append(";\n");
             builder.append(i).append("}\n");
         } else if (isAny(rawClass)) {
+            // Copy JSON tree directly, without serialization to string and parsing.
+            builder.append(i).append(rawTypeName).append(" ").append(fieldNameIn).append(" = ").append(origin).append(".")
+                   .append(getterName).append("();\n");
             builder.append(i).append("this.").append(fieldName).append(" = ");
-            appendNaiveCopyJsonExpression(origin + "." + getterName + "()", builder).append(";\n");
-        } else if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            appendCopyAnyExpression(fieldNameIn, builder).append(";\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass) || getEnclosingTemplate().getDtoImplementation(rawClass) != null) {
             builder.append(i).append(rawTypeName).append(" ").append(fieldNameIn).append(" = ").append(origin).append(".")
                    .append(getterName).append("();\n");
             builder.append(i).append("this.").append(fieldName).append(" = ");
@@ -830,7 +1483,8 @@ public class DtoImplServerTemplate extends DtoImpl {
         if (isList(childRawType) || isMap(childRawType)) {
             builder.append(i).append("    if (").append(childVarIn).append(" != null) {\n");
             builder.append(i).append("      ").append(childTypeName).append(" ").append(childVarOut)
-                   .append(" = new ").append(getImplName(expandedTypes.get(depth + 1), true)).append("();\n");
+                   .append(" = new ").append(getImplName(expandedTypes.get(depth + 1), true)).append("(").append(childVarIn)
+                   .append(".size());\n");
             emitDeepCopyCollections(expandedTypes, depth + 1, builder, childVarIn, childVarOut, i + "    ");
             builder.append(i).append("      ").append(varOut);
             if (isList(rawClass)) {
@@ -848,8 +1502,10 @@ public class DtoImplServerTemplate extends DtoImpl {
             } else {
                 builder.append(".put(").append(entryVar).append(".getKey(), ");
             }
-            if (getEnclosingTemplate().isDtoInterface(childRawType)) {
+            if (getEnclosingTemplate().isDtoInterface(childRawType) || getEnclosingTemplate().getDtoImplementation(childRawType) != null) {
                 emitCheckNullAndCopyDto(childRawType, childVarIn, builder);
+            } else if (isAny(childRawType)) {
+                appendCopyAnyExpression(childVarIn, builder);
             } else {
                 builder.append(childVarIn);
             }
@@ -859,7 +1515,9 @@ public class DtoImplServerTemplate extends DtoImpl {
     }
 
     private void emitCheckNullAndCopyDto(Class<?> dto, String fieldName, StringBuilder builder) {
-        String implName = dto.getSimpleName() + "Impl";
+        // DTO from other module has own copy constructor, don't share instances of it between origin and copy.
+        String implName = getEnclosingTemplate().isDtoInterface(dto)
+                          ? dto.getSimpleName() + "Impl" : getEnclosingTemplate().getDtoImplementation(dto).getCanonicalName();
         builder.append(fieldName).append(" == null ? null : ").append("new ").append(implName).append("(").append(fieldName).append(")");
     }
 
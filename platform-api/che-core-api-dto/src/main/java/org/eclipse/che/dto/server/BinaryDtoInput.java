@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.eclipse.che.dto.server.BinaryDtoOutput.ARRAY;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.BYTES;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.FIXED32;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.FIXED64;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.MAP;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.NULL;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.OBJECT;
+import static org.eclipse.che.dto.server.BinaryDtoOutput.VARINT;
+
+/**
+ * Reads DTOs in compact binary format, see {@link BinaryDtoOutput} for details about format. Instance of this class isn't
+ * thread-safe.
+ *
+ * @author andrew00x
+ * @see BinaryDtoOutput
+ */
+public final class BinaryDtoInput {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[]      buffer;
+
+    private int pos;
+    private int limit;
+
+    public BinaryDtoInput(InputStream in) {
+        this.in = in;
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    /** Gets index of field from its tag. */
+    public static int getIndex(int tag) {
+        return tag >>> 3;
+    }
+
+    /** Gets type of value of field from its tag. */
+    public static int getType(int tag) {
+        return tag & 7;
+    }
+
+    /** Reads tag of next field. Returns {@code 0} if there is no more fields in DTO. */
+    public int readTag() throws IOException {
+        final long tag = readVarint();
+        if (tag < 0 || tag > Integer.MAX_VALUE) {
+            throw new IOException("Malformed tag " + tag);
+        }
+        return (int)tag;
+    }
+
+    /** Reads type of item of list or map. */
+    public int readType() throws IOException {
+        return readByte();
+    }
+
+    public long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /** Reads number of items of list or map. */
+    public int readSize() throws IOException {
+        final long size = readVarint();
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("Malformed size " + size);
+        }
+        return (int)size;
+    }
+
+    public long readSignedVarint() throws IOException {
+        final long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readVarint() != 0;
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readFixed(8));
+    }
+
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat((int)readFixed(4));
+    }
+
+    public String readString() throws IOException {
+        final int length = readSize();
+        if (length <= buffer.length) {
+            require(length);
+            final String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+        // Too long for buffer, read whole string at once.
+        final byte[] bytes = new byte[length];
+        int read = Math.min(limit - pos, length);
+        System.arraycopy(buffer, pos, bytes, 0, read);
+        pos += read;
+        while (read < length) {
+            final int n = in.read(bytes, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Reads name of enum constant and returns constant or {@code null} if there is no such constant, the same as Gson does. */
+    public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        final String name = readString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Checks is there any data to read. */
+    public boolean hasMore() throws IOException {
+        return pos < limit || fill(0) > 0;
+    }
+
+    /** Skips value of the specified type, e.g. value of unknown field. */
+    public void skip(int type) throws IOException {
+        switch (type) {
+            case VARINT:
+                readVarint();
+                break;
+            case FIXED64:
+                skipBytes(8);
+                break;
+            case FIXED32:
+                skipBytes(4);
+                break;
+            case BYTES:
+                skipBytes(readSize());
+                break;
+            case OBJECT:
+                for (int tag = readTag(); tag != 0; tag = readTag()) {
+                    skip(getType(tag));
+                }
+                break;
+            case ARRAY:
+                for (int i = 0, size = readSize(); i < size; i++) {
+                    skip(readType());
+                }
+                break;
+            case MAP:
+                for (int i = 0, size = readSize(); i < size; i++) {
+                    skipBytes(readSize());
+                    skip(readType());
+                }
+                break;
+            case NULL:
+                break;
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+    }
+
+    private long readFixed(int bytes) throws IOException {
+        require(bytes);
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= (long)(buffer[pos++] & 0xFF) << (i << 3);
+        }
+        return value;
+    }
+
+    private void skipBytes(int bytes) throws IOException {
+        while (bytes > 0) {
+            if (pos == limit && fill(0) <= 0) {
+                throw new EOFException();
+            }
+            final int n = Math.min(limit - pos, bytes);
+            pos += n;
+            bytes -= n;
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit && fill(0) <= 0) {
+            throw new EOFException();
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    /* Makes sure buffer contains at least specified number of bytes, number may not be greater than size of buffer. */
+    private void require(int bytes) throws IOException {
+        while (limit - pos < bytes) {
+            if (fill(bytes) <= 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /* Moves unread bytes to the beginning of buffer if there is not enough space for required bytes and reads more bytes. */
+    private int fill(int required) throws IOException {
+        if (pos == limit) {
+            pos = limit = 0;
+        } else if (buffer.length - pos < required) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        final int n = in.read(buffer, limit, buffer.length - limit);
+        if (n > 0) {
+            limit += n;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes DTOs in compact binary format. Format is intended for communication between servers that use the same DTO interfaces, e.g.
+ * master and slave builders or runners, browsers always get JSON.
+ * <p/>
+ * Each field of DTO is written as tag followed by value of field. Tag is varint that contains index of field and type of value:
+ * {@code index << 3 | type}. Fields with {@code null} values, empty lists and maps, {@code false} and {@code 0} values of
+ * primitive integral fields are not written at all. DTO ends with tag {@code 0}. Values are encoded in the following way:
+ * <ul>
+ * <li>{@link #VARINT} - integral numbers in zig-zag varint encoding and booleans</li>
+ * <li>{@link #FIXED64} - doubles, 8 bytes</li>
+ * <li>{@link #FIXED32} - floats, 4 bytes</li>
+ * <li>{@link #BYTES} - strings, names of enum constants and JSON values of 'any' fields: varint length followed by UTF-8 bytes</li>
+ * <li>{@link #OBJECT} - nested DTO, its fields followed by tag {@code 0}</li>
+ * <li>{@link #ARRAY} - list: varint number of items, then each item as type of value followed by value</li>
+ * <li>{@link #MAP} - map: varint number of entries, then key of each entry as {@link #BYTES} value followed by type of value and
+ * value</li>
+ * <li>{@link #NULL} - {@code null} item of list or map, there is no value</li>
+ * </ul>
+ * Unknown fields may be skipped by reader since type of value is always known.
+ * <p/>
+ * Instance of this class isn't thread-safe. It buffers output, {@link #flush()} must be called after writing.
+ *
+ * @author andrew00x
+ * @see BinaryDtoInput
+ * @see BinarySerializable
+ */
+public final class BinaryDtoOutput implements Flushable {
+    public static final int VARINT  = 0;
+    public static final int FIXED64 = 1;
+    public static final int BYTES   = 2;
+    public static final int OBJECT  = 3;
+    public static final int ARRAY   = 4;
+    public static final int MAP     = 5;
+    public static final int NULL    = 6;
+    public static final int FIXED32 = 7;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[]       buffer;
+
+    private int pos;
+
+    public BinaryDtoOutput(OutputStream out) {
+        this.out = out;
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    /** Writes tag of field with specified index and type of value. */
+    public void writeTag(int index, int type) throws IOException {
+        writeVarint(((long)index << 3) | type);
+    }
+
+    /** Writes type of item of list or map. */
+    public void writeType(int type) throws IOException {
+        writeByte(type);
+    }
+
+    /** Writes end of DTO. */
+    public void writeEnd() throws IOException {
+        writeByte(0);
+    }
+
+    public void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int)value);
+    }
+
+    /** Writes signed number in zig-zag encoding, so numbers with small absolute value take few bytes whatever sign is. */
+    public void writeSignedVarint(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        writeFixed(Double.doubleToLongBits(value), 8);
+    }
+
+    public void writeFloat(float value) throws IOException {
+        writeFixed(Float.floatToIntBits(value), 4);
+    }
+
+    /** Writes length of string in UTF-8 and then encodes string directly to the buffer. */
+    public void writeString(String value) throws IOException {
+        final int length = value.length();
+        writeVarint(utf8Length(value));
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xF0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, the same as String.getBytes() does.
+                writeByte('?');
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private static int utf8Length(String value) {
+        final int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // Pair of chars is encoded with 4 bytes.
+                    utf8Length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    utf8Length += 2;
+                }
+            } else if (c >= 0x80) {
+                utf8Length++;
+            }
+        }
+        return utf8Length;
+    }
+
+    private void writeFixed(long value, int bytes) throws IOException {
+        for (int i = 0; i < bytes; i++) {
+            writeByte((int)(value >>> (i << 3)));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (pos == buffer.length) {
+            flushBuffer();
+        }
+        buffer[pos++] = (byte)b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import java.io.IOException;
+
+/**
+ * An entity that may serialize itself to compact binary format.
+ *
+ * @author andrew00x
+ * @see BinaryDtoOutput
+ */
+public interface BinarySerializable {
+    /**
+     * Writes fields of DTO to the specified output. Output isn't flushed after writing.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    void writeBinary(BinaryDtoOutput out) throws IOException;
+
+    /**
+     * Gets schema of binary format of DTO. Schema is hash of indexes, names and types of all fields of DTO and its nested DTOs.
+     * Binary format may be used only if both sides have the same schema, otherwise JSON must be used.
+     */
+    String getBinarySchema();
+}
@@ -21,14 +21,19 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -175,14 +180,18 @@ public final class DtoFactory {
      *         if an i/o error occurs
      */
     public <T> T createDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
-        DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        StringBuilder sb = new StringBuilder();
-        BufferedReader br = new BufferedReader(json);
-        String line;
-        while ((line = br.readLine()) != null) {
-            sb.append(line);
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        final JsonReader reader = newJsonReader(json);
+        try {
+            if (isEmpty(reader)) {
+                return null;
+            }
+            final T result = dtoProvider.fromJson(reader);
+            checkEndOfDocument(reader);
+            return result;
+        } catch (MalformedJsonException | EOFException | NumberFormatException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
         }
-        return dtoProvider.fromJson(sb.toString());
     }
 
     /**
@@ -199,7 +208,24 @@ public final class DtoFactory {
      *         if an i/o error occurs
      */
     public <T> T createDtoFromJson(InputStream json, Class<T> dtoInterface) throws IOException {
-        return createDtoFromJson(new InputStreamReader(json), dtoInterface);
+        return createDtoFromJson(new InputStreamReader(json, StandardCharsets.UTF_8), dtoInterface);
+    }
+
+    /**
+     * Creates new instance of class which implements specified DTO interface and reads its fields directly from the specified JSON
+     * stream without building of intermediate JSON tree.
+     *
+     * @param json
+     *         JSON stream
+     * @param dtoInterface
+     *         DTO interface
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public <T> T createDtoFromJson(JsonReader json, Class<T> dtoInterface) throws IOException {
+        return getDtoProvider(dtoInterface).fromJson(json);
     }
 
     //
@@ -238,22 +264,17 @@ public final class DtoFactory {
      *         if can't provide any implementation for specified interface
      */
     public <T> JsonArray<T> createListDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
-        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final List<JsonElement> list;
+        final JsonReader reader = newJsonReader(json);
         try {
-            list = gson.fromJson(json, listTypeCache.get(JsonElement.class));
-        } catch (JsonSyntaxException e) {
-            final Throwable cause = e.getCause();
-            if (cause instanceof IOException) {
-                throw (IOException)cause;
+            if (isEmpty(reader)) {
+                return new JsonArrayImpl<>(new ArrayList<T>());
             }
-            throw e;
-        }
-        final List<T> result = new ArrayList<>(list.size());
-        for (JsonElement e : list) {
-            result.add(dtoProvider.fromJson(e));
+            final JsonArray<T> result = createListDtoFromJson(reader, dtoInterface);
+            checkEndOfDocument(reader);
+            return result;
+        } catch (MalformedJsonException | EOFException | NumberFormatException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
         }
-        return new JsonArrayImpl<>(result);
     }
 
     /**
@@ -270,7 +291,35 @@ public final class DtoFactory {
      *         if an i/o error occurs
      */
     public <T> JsonArray<T> createListDtoFromJson(InputStream json, Class<T> dtoInterface) throws IOException {
-        return createListDtoFromJson(new InputStreamReader(json), dtoInterface);
+        return createListDtoFromJson(new InputStreamReader(json, StandardCharsets.UTF_8), dtoInterface);
+    }
+
+    /**
+     * Reads list of objects of the specified type directly from the specified JSON stream without building of intermediate JSON tree.
+     *
+     * @param json
+     *         JSON stream
+     * @param dtoInterface
+     *         DTO interface
+     * @return list of DTO
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public <T> JsonArray<T> createListDtoFromJson(JsonReader json, Class<T> dtoInterface) throws IOException {
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        final List<T> result = new ArrayList<>();
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return new JsonArrayImpl<>(result);
+        }
+        json.beginArray();
+        while (json.hasNext()) {
+            result.add(dtoProvider.fromJson(json));
+        }
+        json.endArray();
+        return new JsonArrayImpl<>(result);
     }
 
     //
@@ -310,24 +359,18 @@ public final class DtoFactory {
      * @throws IOException
      *         if an i/o error occurs
      */
-    @SuppressWarnings("unchecked")
     public <T> JsonStringMap<T> createMapDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
-        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final Map<String, JsonElement> map;
+        final JsonReader reader = newJsonReader(json);
         try {
-            map = gson.fromJson(json, mapTypeCache.get(JsonElement.class));
-        } catch (JsonSyntaxException e) {
-            final Throwable cause = e.getCause();
-            if (cause instanceof IOException) {
-                throw (IOException)cause;
+            if (isEmpty(reader)) {
+                return new JsonStringMapImpl<>(new LinkedHashMap<String, T>());
             }
-            throw e;
+            final JsonStringMap<T> result = createMapDtoFromJson(reader, dtoInterface);
+            checkEndOfDocument(reader);
+            return result;
+        } catch (MalformedJsonException | EOFException | NumberFormatException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
         }
-        final Map<String, T> result = new LinkedHashMap<>(map.size());
-        for (Map.Entry<String, JsonElement> e : map.entrySet()) {
-            result.put(e.getKey(), dtoProvider.fromJson(e.getValue()));
-        }
-        return new JsonStringMapImpl<>(result);
     }
 
     /**
@@ -344,7 +387,192 @@ public final class DtoFactory {
      *         if an i/o error occurs
      */
     public <T> JsonStringMap<T> createMapDtoFromJson(InputStream json, Class<T> dtoInterface) throws IOException {
-        return createMapDtoFromJson(new InputStreamReader(json), dtoInterface);
+        return createMapDtoFromJson(new InputStreamReader(json, StandardCharsets.UTF_8), dtoInterface);
+    }
+
+    /**
+     * Reads map of objects of the specified type directly from the specified JSON stream without building of intermediate JSON tree.
+     *
+     * @param json
+     *         JSON stream
+     * @param dtoInterface
+     *         DTO interface
+     * @return map of DTO
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public <T> JsonStringMap<T> createMapDtoFromJson(JsonReader json, Class<T> dtoInterface) throws IOException {
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        final Map<String, T> result = new LinkedHashMap<>();
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return new JsonStringMapImpl<>(result);
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+            final String key = json.nextName();
+            result.put(key, dtoProvider.fromJson(json));
+        }
+        json.endObject();
+        return new JsonStringMapImpl<>(result);
+    }
+
+    //
+
+    /**
+     * Writes DTO in binary format to the specified stream. Stream is flushed but isn't closed after writing.
+     *
+     * @param dto
+     *         DTO
+     * @param out
+     *         output stream
+     * @throws IllegalArgumentException
+     *         if specified object doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs
+     * @see BinaryDtoOutput
+     */
+    public void toBinary(Object dto, OutputStream out) throws IOException {
+        if (!(dto instanceof BinarySerializable)) {
+            throw new IllegalArgumentException("BinarySerializable instance required. ");
+        }
+        final BinaryDtoOutput output = new BinaryDtoOutput(out);
+        ((BinarySerializable)dto).writeBinary(output);
+        output.flush();
+    }
+
+    /**
+     * Writes list of DTOs in binary format to the specified stream. Stream is flushed but isn't closed after writing.
+     *
+     * @param list
+     *         list of DTOs
+     * @param out
+     *         output stream
+     * @throws IllegalArgumentException
+     *         if any item of list doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs
+     * @see BinaryDtoOutput
+     */
+    public void listToBinary(List<?> list, OutputStream out) throws IOException {
+        final BinaryDtoOutput output = new BinaryDtoOutput(out);
+        output.writeVarint(list.size());
+        for (Object dto : list) {
+            if (dto == null) {
+                output.writeType(BinaryDtoOutput.NULL);
+            } else if (dto instanceof BinarySerializable) {
+                output.writeType(BinaryDtoOutput.OBJECT);
+                ((BinarySerializable)dto).writeBinary(output);
+            } else {
+                throw new IllegalArgumentException("BinarySerializable instance required. ");
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Creates new instance of class which implements specified DTO interface and reads its fields from the specified stream in binary
+     * format. Empty stream is read as {@code null}.
+     *
+     * @param in
+     *         binary data
+     * @param dtoInterface
+     *         DTO interface
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @throws UnsupportedOperationException
+     *         if DTO doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs or data is malformed
+     * @see BinaryDtoInput
+     */
+    public <T> T createDtoFromBinary(InputStream in, Class<T> dtoInterface) throws IOException {
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        final BinaryDtoInput input = new BinaryDtoInput(in);
+        if (!input.hasMore()) {
+            return null;
+        }
+        return dtoProvider.fromBinary(input);
+    }
+
+    /**
+     * Reads list of objects of the specified type from the specified stream in binary format. Empty stream is read as empty list.
+     *
+     * @param in
+     *         binary data
+     * @param dtoInterface
+     *         DTO interface
+     * @return list of DTO
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @throws UnsupportedOperationException
+     *         if DTO doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs or data is malformed
+     * @see BinaryDtoInput
+     */
+    public <T> JsonArray<T> createListDtoFromBinary(InputStream in, Class<T> dtoInterface) throws IOException {
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        final BinaryDtoInput input = new BinaryDtoInput(in);
+        if (!input.hasMore()) {
+            return new JsonArrayImpl<>(new ArrayList<T>());
+        }
+        final int size = input.readSize();
+        final List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int type = input.readType();
+            if (type == BinaryDtoOutput.NULL) {
+                result.add(null);
+            } else if (type == BinaryDtoOutput.OBJECT) {
+                result.add(dtoProvider.fromBinary(input));
+            } else {
+                throw new IOException("Unexpected type of item of list " + type);
+            }
+        }
+        return new JsonArrayImpl<>(result);
+    }
+
+    /**
+     * Gets schema of binary format of the specified DTO interface.
+     *
+     * @param dtoInterface
+     *         DTO interface
+     * @return schema of binary format or {@code null} if DTO doesn't support binary format
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface
+     * @see BinarySerializable#getBinarySchema()
+     */
+    public String getBinarySchema(Class<?> dtoInterface) {
+        return getDtoProvider(dtoInterface).getBinarySchema();
+    }
+
+    /*
+     * JSON is parsed directly from the stream, that requires small constant buffer in addition to the parsed DTOs whatever size of
+     * JSON is. Be lenient the same as JsonParser is while parsing strings.
+     */
+    private static JsonReader newJsonReader(Reader json) {
+        final JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /* Empty content is parsed as null, the same as JsonParser does. */
+    private static boolean isEmpty(JsonReader reader) throws IOException {
+        try {
+            reader.peek();
+            return false;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+    /* Data after parsed value is not allowed, the same as JsonParser does. */
+    private static void checkEndOfDocument(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        }
     }
 
     //
@@ -11,6 +11,10 @@
 package org.eclipse.che.dto.server;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 
 /**
  * Provides implementation of DTO interface.
@@ -24,6 +28,35 @@ public interface DtoProvider<DTO> {
 
     DTO fromJson(JsonElement json);
 
+    /**
+     * Reads DTO from the stream. Generated providers read fields of DTO directly from the stream, this implementation parses
+     * JsonElement tree from the stream first.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    default DTO fromJson(JsonReader json) throws IOException {
+        return fromJson(new JsonParser().parse(json));
+    }
+
+    /**
+     * Reads DTO in binary format from the specified input.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     * @throws UnsupportedOperationException
+     *         if DTO doesn't support binary format
+     * @see BinaryDtoOutput
+     */
+    default DTO fromBinary(BinaryDtoInput in) throws IOException {
+        throw new UnsupportedOperationException("Binary format isn't supported by " + getImplClass());
+    }
+
+    /** Gets schema of binary format of DTO or {@code null} if DTO doesn't support binary format. */
+    default String getBinarySchema() {
+        return null;
+    }
+
     DTO newInstance();
 
     DTO clone(DTO origin);
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+
+/**
+ * Helpers for JSON values of DTO properties of type {@code Object}, generated DTO implementations use it.
+ *
+ * @author andrew00x
+ */
+public final class JsonElements {
+    /**
+     * Creates deep copy of JSON element. {@code JsonElement.deepCopy()} isn't accessible, copying by serialization to string and
+     * parsing it back is too expensive, so copy tree of JSON element directly. Primitives and nulls are immutable and not copied.
+     *
+     * @param element
+     *         JSON element, may be {@code null}
+     * @return copy of JSON element or {@code null} if {@code element} is {@code null}
+     */
+    public static JsonElement deepCopy(JsonElement element) {
+        if (element == null || element.isJsonNull() || element.isJsonPrimitive()) {
+            return element;
+        }
+        if (element.isJsonArray()) {
+            final JsonArray copy = new JsonArray();
+            for (JsonElement e : element.getAsJsonArray()) {
+                copy.add(deepCopy(e));
+            }
+            return copy;
+        }
+        final JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> e : element.getAsJsonObject().entrySet()) {
+            copy.add(e.getKey(), deepCopy(e.getValue()));
+        }
+        return copy;
+    }
+
+    private JsonElements() {
+    }
+}
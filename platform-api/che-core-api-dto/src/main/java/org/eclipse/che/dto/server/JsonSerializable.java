@@ -13,11 +13,39 @@
 // limitations under the License.
 package org.eclipse.che.dto.server;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.Writer;
 
 /** An entity that may serialize itself to JSON. */
 public interface JsonSerializable extends Serializable {
 
     /** Serializes DTO to JSON format. */
     String toJson();
+
+    /**
+     * Serializes DTO to JSON format and writes result to the specified writer. Implementations should write JSON directly to the
+     * writer without creating intermediate string. Writer is not closed after writing.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    default void toJson(Writer writer) throws IOException {
+        writer.write(toJson());
+    }
+
+    /**
+     * Writes DTO to the JSON writer, e.g. as element of JSON array. Implementations should write JSON directly to the writer without
+     * creating intermediate string. Writer is not closed after writing.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    default void writeJson(JsonWriter out) throws IOException {
+        new Gson().toJson(new JsonParser().parse(toJson()), out);
+    }
 }
\ No newline at end of file
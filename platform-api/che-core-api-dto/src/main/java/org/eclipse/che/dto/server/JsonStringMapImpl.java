@@ -100,6 +100,19 @@ public class JsonStringMapImpl<T> implements JsonStringMap<T> {
         return gson.toJson(this);
     }
 
+    @Override
+    public void toJson(java.io.Writer writer) throws java.io.IOException {
+        try {
+            gson.toJson(this, writer);
+        } catch (com.google.gson.JsonIOException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof java.io.IOException) {
+                throw (java.io.IOException)cause;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public String toString() {
         return delegate.toString();
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto;
+
+import org.eclipse.che.dto.definitions.ComplicatedDto;
+import org.eclipse.che.dto.definitions.SimpleDto;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serialization and deserialization of DTO through JsonElement tree ("tree" path), that was the only way before, with
+ * direct writing to JsonWriter and reading from JsonReader ("stream" path). DTO contains {@link #size} nested DTOs in list and in
+ * map. Serialized JSON is written to writer that drops everything, like HTTP response that doesn't keep content in memory.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.dto.DtoJsonBenchmark
+ * </pre>
+ * Add {@code -prof gc} to JMH options for comparing of allocation rate.
+ *
+ * @author andrew00x
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DtoJsonBenchmark {
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    @Param({"10", "1000"})
+    public int size;
+
+    @Param({"tree", "stream"})
+    public String path;
+
+    private DtoServerImpls.ComplicatedDtoImpl dto;
+    private String                            json;
+    private Writer                            out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        final List<SimpleDto> simpleDtos = new ArrayList<>(size);
+        final Map<String, SimpleDto> map = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            final SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withId(i).withName("name " + i).withDefault("default");
+            simpleDtos.add(simpleDto);
+            map.put("key " + i, simpleDto);
+        }
+        dto = (DtoServerImpls.ComplicatedDtoImpl)dtoFactory.createDto(ComplicatedDto.class)
+                                                           .withStrings(Arrays.asList("a", "b", "c"))
+                                                           .withSimpleEnum(ComplicatedDto.SimpleEnum.TWO)
+                                                           .withSimpleDtos(simpleDtos)
+                                                           .withMap(map);
+        json = dto.toJson();
+        out = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        if ("tree".equals(path)) {
+            gson.toJson(dto.toJsonElement(), out);
+        } else {
+            dto.toJson(out);
+        }
+    }
+
+    @Benchmark
+    public ComplicatedDto deserialize() throws IOException {
+        if ("tree".equals(path)) {
+            return DtoServerImpls.ComplicatedDtoImpl.fromJsonElement(new JsonParser().parse(new StringReader(json)), false);
+        }
+        return DtoServerImpls.ComplicatedDtoImpl.fromJsonReader(new JsonReader(new StringReader(json)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DtoJsonBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -10,11 +10,13 @@
  *******************************************************************************/
 package org.eclipse.che.dto;
 
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
 
 import org.eclipse.che.dto.definitions.ComplicatedDto;
 import org.eclipse.che.dto.definitions.DTOHierarchy;
@@ -25,10 +27,18 @@ import org.eclipse.che.dto.definitions.SimpleDto;
 import org.eclipse.che.dto.definitions.model.Model;
 import org.eclipse.che.dto.definitions.model.ModelComponentDto;
 import org.eclipse.che.dto.definitions.model.ModelDto;
+import org.eclipse.che.dto.server.BinaryDtoOutput;
+import org.eclipse.che.dto.server.BinarySerializable;
 import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.server.JsonSerializable;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -166,6 +176,61 @@ public class ServerDtoTest {
         assertEquals(expJson, json);
     }
 
+    @Test
+    public void testStreamingSerializerWithAny() throws Exception {
+        DtoWithAny dto = dtoFactory.createDto(DtoWithAny.class).withStuff(createTestValueForAny())
+                                   .withObjects(createListTestValueForAny());
+        StringWriter w = new StringWriter();
+        ((JsonSerializable)dto).toJson(w);
+
+        DtoWithAny copy = dtoFactory.createDtoFromJson(new JsonReader(new StringReader(w.toString())), DtoWithAny.class);
+        assertEquals(copy, dto);
+        assertEquals(copy.getStuff(), createTestValueForAny());
+        assertEquals(copy.getObjects(), createListTestValueForAny());
+    }
+
+    @Test
+    public void testStreamingDeserializerSkipsUnknownFields() throws Exception {
+        JsonObject json = new JsonObject();
+        json.add(DtoWithFieldNames.THENAME_FIELD, new JsonPrimitive("name"));
+        json.add("unknown", new JsonParser().parse("{a:[1,2,{b:null}]}"));
+        json.add(DtoWithFieldNames.THEDEFAULT_FIELD, new JsonPrimitive("default"));
+
+        DtoWithFieldNames dto = dtoFactory.createDtoFromJson(new JsonReader(new StringReader(json.toString())), DtoWithFieldNames.class);
+        assertEquals(dto.getTheName(), "name");
+        assertEquals(dto.getTheDefault(), "default");
+    }
+
+    @Test
+    public void testCloneCopiesAnyWithoutSharing() throws Exception {
+        DtoWithAny dto1 = dtoFactory.createDto(DtoWithAny.class).withStuff(createTestValueForAny())
+                                    .withObjects(createListTestValueForAny());
+        DtoWithAny dto2 = dtoFactory.clone(dto1);
+        assertEquals(dto2, dto1);
+
+        ((JsonObject)dto1.getStuff()).getAsJsonObject("b").addProperty("c", "changed");
+        ((JsonObject)dto1.getObjects().get(0)).addProperty("x", 2);
+        assertEquals(dto2.getStuff(), createTestValueForAny());
+        assertEquals(dto2.getObjects(), createListTestValueForAny());
+    }
+
+    @Test
+    public void testCloneCopiesNestedDtos() throws Exception {
+        SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withName("name").withId(1).withDefault("default");
+        Map<String, SimpleDto> map = new HashMap<>(1);
+        map.put("a", simpleDto);
+        ComplicatedDto dto1 = dtoFactory.createDto(ComplicatedDto.class).withSimpleDtos(new ArrayList<>(asList(simpleDto)))
+                                        .withMap(map);
+        ComplicatedDto dto2 = dtoFactory.clone(dto1);
+        assertEquals(dto2, dto1);
+
+        simpleDto.setDefault("changed");
+        dto1.getSimpleDtos().add(simpleDto);
+        assertEquals(dto2.getSimpleDtos().size(), 1);
+        assertEquals(dto2.getSimpleDtos().get(0).getDefault(), "default");
+        assertEquals(dto2.getMap().get("a").getDefault(), "default");
+    }
+
     /** Intentionally call several times to ensure non-reference equality */
     private static JsonElement createTestValueForAny() {
         return new JsonParser().parse("{a:100,b:{c:'blah'}}");
@@ -331,6 +396,192 @@ public class ServerDtoTest {
         assertEquals(dto.getDefault(), expectedDefault);
     }
 
+    @Test
+    public void testComplicatedDtoStreamingSerializer() throws Exception {
+        SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withName("name").withId(1).withDefault("default");
+        Map<String, SimpleDto> mapDtos = new HashMap<>(2);
+        mapDtos.put("a", simpleDto);
+        mapDtos.put("b", null);
+        List<ComplicatedDto.SimpleEnum> listOfEnum = asList(ComplicatedDto.SimpleEnum.ONE, null, ComplicatedDto.SimpleEnum.THREE);
+        ComplicatedDto dto = dtoFactory.createDto(ComplicatedDto.class)
+                                       .withStrings(asList("a", null, "\"quoted\" <html>"))
+                                       .withSimpleEnum(ComplicatedDto.SimpleEnum.TWO)
+                                       .withMap(mapDtos)
+                                       .withSimpleDtos(asList(simpleDto, null))
+                                       .withArrayOfArrayOfEnum(asList(listOfEnum, listOfEnum));
+
+        StringWriter w = new StringWriter();
+        ((JsonSerializable)dto).toJson(w);
+        // Same result as serialization of JsonElement tree.
+        String treeJson = new GsonBuilder().disableHtmlEscaping().create()
+                                           .toJson(((DtoServerImpls.ComplicatedDtoImpl)dto).toJsonElement());
+        assertEquals(w.toString(), treeJson);
+
+        ComplicatedDto copy = dtoFactory.createDtoFromJson(new JsonReader(new StringReader(w.toString())), ComplicatedDto.class);
+        assertEquals(copy.getStrings(), dto.getStrings());
+        assertEquals(copy.getSimpleEnum(), dto.getSimpleEnum());
+        assertEquals(copy.getMap().get("a"), simpleDto);
+        assertEquals(copy.getSimpleDtos(), dto.getSimpleDtos());
+        assertEquals(copy.getArrayOfArrayOfEnum(), dto.getArrayOfArrayOfEnum());
+        // Same result as parsing of JsonElement tree.
+        assertEquals(copy, dtoFactory.createDtoFromJson(w.toString(), ComplicatedDto.class));
+    }
+
+    @Test
+    public void testListSimpleDtoStreamingDeserializer() throws Exception {
+        String json = "[{\"name\":\"a\",\"id\":1},null,{\"name\":\"b\",\"id\":2,\"default\":\"c\"}]";
+        org.eclipse.che.dto.shared.JsonArray<SimpleDto> list =
+                dtoFactory.createListDtoFromJson(new JsonReader(new StringReader(json)), SimpleDto.class);
+        assertEquals(list.size(), 3);
+        checkSimpleDto(list.get(0), "a", 1, null);
+        Assert.assertNull(list.get(1));
+        checkSimpleDto(list.get(2), "b", 2, "c");
+    }
+
+    @Test
+    public void testDeserializerFromReaderKeepsLineBreaks() throws Exception {
+        // Line comment must end at the line break, lenient parser accepts comments.
+        String json = "{\"name\":\"a\", // comment\n\"id\":1,\n\"default\":\"b\"}";
+        SimpleDto dto = dtoFactory.createDtoFromJson(new StringReader(json), SimpleDto.class);
+        checkSimpleDto(dto, "a", 1, "b");
+    }
+
+    @Test
+    public void testDeserializerFromStreamUsesUtf8() throws Exception {
+        final String name = "\u0438\u043c\u044f \u540d\u524d \ud83d\ude00";
+        byte[] json = ("{\"name\":\"" + name + "\",\"id\":1}").getBytes(StandardCharsets.UTF_8);
+        SimpleDto dto = dtoFactory.createDtoFromJson(new ByteArrayInputStream(json), SimpleDto.class);
+        checkSimpleDto(dto, name, 1, null);
+
+        json = ("{\"x\":{\"name\":\"" + name + "\",\"id\":2}}").getBytes(StandardCharsets.UTF_8);
+        org.eclipse.che.dto.shared.JsonStringMap<SimpleDto> map =
+                dtoFactory.createMapDtoFromJson(new ByteArrayInputStream(json), SimpleDto.class);
+        checkSimpleDto(map.get("x"), name, 2, null);
+    }
+
+    @Test
+    public void testDeserializerFromEmptyStream() throws Exception {
+        Assert.assertNull(dtoFactory.createDtoFromJson(new ByteArrayInputStream(new byte[0]), SimpleDto.class));
+        assertEquals(dtoFactory.createListDtoFromJson(new ByteArrayInputStream(new byte[0]), SimpleDto.class).size(), 0);
+    }
+
+    @Test(expectedExceptions = com.google.gson.JsonSyntaxException.class)
+    public void testDeserializerFromReaderFailsOnMalformedJson() throws Exception {
+        dtoFactory.createDtoFromJson(new StringReader("{\"name\":\"a\",,}"), SimpleDto.class);
+    }
+
+    @Test(expectedExceptions = com.google.gson.JsonSyntaxException.class)
+    public void testDeserializerFromReaderFailsOnTruncatedJson() throws Exception {
+        dtoFactory.createDtoFromJson(new StringReader("{\"name\":\"a\",\"id\":1"), SimpleDto.class);
+    }
+
+    @Test(expectedExceptions = com.google.gson.JsonSyntaxException.class)
+    public void testDeserializerFromReaderFailsOnDataAfterJson() throws Exception {
+        dtoFactory.createDtoFromJson(new StringReader("{\"name\":\"a\",\"id\":1} {}"), SimpleDto.class);
+    }
+
+    @Test
+    public void testBinarySerializer() throws Exception {
+        SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withName("name").withId(-1).withDefault("default");
+        Map<String, SimpleDto> map = new HashMap<>(2);
+        map.put("a", simpleDto);
+        map.put("b", null);
+        List<List<ComplicatedDto.SimpleEnum>> arrayOfArrayOfEnum = new ArrayList<>();
+        arrayOfArrayOfEnum.add(asList(ComplicatedDto.SimpleEnum.ONE, null));
+        arrayOfArrayOfEnum.add(new ArrayList<ComplicatedDto.SimpleEnum>());
+        ComplicatedDto dto = dtoFactory.createDto(ComplicatedDto.class).withStrings(asList("a", null, ""))
+                                       .withSimpleEnum(ComplicatedDto.SimpleEnum.TWO)
+                                       .withMap(map)
+                                       .withSimpleDtos(asList(simpleDto, dtoFactory.createDto(SimpleDto.class)))
+                                       .withArrayOfArrayOfEnum(arrayOfArrayOfEnum);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dtoFactory.toBinary(dto, out);
+        ComplicatedDto copy = dtoFactory.createDtoFromBinary(new ByteArrayInputStream(out.toByteArray()), ComplicatedDto.class);
+        assertEquals(copy, dto);
+        assertTrue(out.size() < dtoFactory.toJson(dto).length());
+    }
+
+    @Test
+    public void testBinarySerializerWithAny() throws Exception {
+        DtoWithAny dto = dtoFactory.createDto(DtoWithAny.class).withStuff(createTestValueForAny())
+                                   .withObjects(createListTestValueForAny());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dtoFactory.toBinary(dto, out);
+        DtoWithAny copy = dtoFactory.createDtoFromBinary(new ByteArrayInputStream(out.toByteArray()), DtoWithAny.class);
+        assertEquals(copy, dto);
+        assertEquals(copy.getStuff(), createTestValueForAny());
+    }
+
+    @Test
+    public void testBinarySerializerUsesUtf8() throws Exception {
+        final String name = "\u0438\u043c\u044f \u540d\u524d \ud83d\ude00 " + new String(new char[10000]).replace('\0', 'x');
+        SimpleDto dto = dtoFactory.createDto(SimpleDto.class).withName(name).withId(Integer.MIN_VALUE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dtoFactory.toBinary(dto, out);
+        SimpleDto copy = dtoFactory.createDtoFromBinary(new ByteArrayInputStream(out.toByteArray()), SimpleDto.class);
+        checkSimpleDto(copy, name, Integer.MIN_VALUE, null);
+    }
+
+    @Test
+    public void testBinaryListSerializer() throws Exception {
+        List<SimpleDto> list = asList(dtoFactory.createDto(SimpleDto.class).withName("a").withId(1),
+                                      null,
+                                      dtoFactory.createDto(SimpleDto.class).withName("b").withId(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dtoFactory.listToBinary(list, out);
+        List<SimpleDto> copy = dtoFactory.createListDtoFromBinary(new ByteArrayInputStream(out.toByteArray()), SimpleDto.class);
+        assertEquals(copy, list);
+    }
+
+    @Test
+    public void testBinaryDeserializerFromEmptyStream() throws Exception {
+        Assert.assertNull(dtoFactory.createDtoFromBinary(new ByteArrayInputStream(new byte[0]), SimpleDto.class));
+        assertEquals(dtoFactory.createListDtoFromBinary(new ByteArrayInputStream(new byte[0]), SimpleDto.class).size(), 0);
+    }
+
+    @Test
+    public void testBinaryDeserializerSkipsUnknownFields() throws Exception {
+        // Fields of SimpleDto are indexed in order of their names: default - 1, id - 2, name - 3.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryDtoOutput out = new BinaryDtoOutput(bytes);
+        out.writeTag(100, BinaryDtoOutput.OBJECT);
+        out.writeTag(1, BinaryDtoOutput.ARRAY);
+        out.writeVarint(2);
+        out.writeType(BinaryDtoOutput.FIXED64);
+        out.writeDouble(1.0);
+        out.writeType(BinaryDtoOutput.NULL);
+        out.writeEnd();
+        out.writeTag(3, BinaryDtoOutput.BYTES);
+        out.writeString("name");
+        // Value of unexpected type is skipped.
+        out.writeTag(2, BinaryDtoOutput.BYTES);
+        out.writeString("1");
+        out.writeTag(101, BinaryDtoOutput.MAP);
+        out.writeVarint(1);
+        out.writeString("key");
+        out.writeType(BinaryDtoOutput.FIXED32);
+        out.writeFloat(1.0f);
+        out.writeTag(1, BinaryDtoOutput.BYTES);
+        out.writeString("default");
+        out.writeEnd();
+        out.flush();
+
+        SimpleDto dto = dtoFactory.createDtoFromBinary(new ByteArrayInputStream(bytes.toByteArray()), SimpleDto.class);
+        checkSimpleDto(dto, "name", 0, "default");
+    }
+
+    @Test
+    public void testBinarySchema() throws Exception {
+        String schema = dtoFactory.getBinarySchema(SimpleDto.class);
+        Assert.assertNotNull(schema);
+        assertEquals(((BinarySerializable)dtoFactory.createDto(SimpleDto.class)).getBinarySchema(), schema);
+        Assert.assertNotEquals(dtoFactory.getBinarySchema(ComplicatedDto.class), schema);
+    }
+
     @Test
     public void testDelegate() {
         assertEquals(DtoFactory.getInstance().createDto(DtoWithDelegate.class).withName("TEST").nameWithPrefix("### "), "### TEST");
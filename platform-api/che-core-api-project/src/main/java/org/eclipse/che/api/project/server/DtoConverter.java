@@ -33,9 +33,11 @@ import org.eclipse.che.api.project.shared.dto.ProjectTypeDefinition;
 import org.eclipse.che.api.project.shared.dto.ProjectUpdate;
 import org.eclipse.che.api.project.shared.dto.RunnerConfiguration;
 import org.eclipse.che.api.project.shared.dto.RunnersDescriptor;
+import org.eclipse.che.api.project.shared.dto.SearchSnippet;
 import org.eclipse.che.api.project.server.type.Attribute;
 import org.eclipse.che.api.project.server.type.BaseProjectType;
 import org.eclipse.che.api.project.server.type.ProjectTypeRegistry;
+import org.eclipse.che.api.vfs.server.search.SearchResultEntry;
 import org.eclipse.che.api.vfs.shared.dto.AccessControlEntry;
 import org.eclipse.che.api.vfs.shared.dto.Principal;
 import org.eclipse.che.api.workspace.server.WorkspaceService;
@@ -331,6 +333,14 @@ public class DtoConverter {
                          .withLinks(generateFolderLinks(folder, uriBuilder));
     }
 
+    public static SearchSnippet toSearchSnippetDto(SearchResultEntry.Snippet snippet) {
+        return DtoFactory.getInstance().createDto(SearchSnippet.class)
+                         .withLineNumber(snippet.getLineNumber())
+                         .withLine(snippet.getLine())
+                         .withStartOffset(snippet.getStartOffset())
+                         .withEndOffset(snippet.getEndOffset());
+    }
+
     public static ProjectDescriptor toDescriptorDto2(Project project,
                                                      UriBuilder serviceUriBuilder,
                                                      UriBuilder baseUriBuilder,
@@ -55,6 +55,7 @@ import org.eclipse.che.api.project.shared.dto.RunnerEnvironmentLeaf;
 import org.eclipse.che.api.project.shared.dto.RunnerEnvironmentTree;
 import org.eclipse.che.api.project.shared.dto.RunnerSource;
 import org.eclipse.che.api.project.shared.dto.RunnersDescriptor;
+import org.eclipse.che.api.project.shared.dto.SearchSnippet;
 import org.eclipse.che.api.project.shared.dto.Source;
 import org.eclipse.che.api.project.shared.dto.SourceEstimation;
 import org.eclipse.che.api.project.shared.dto.TreeElement;
@@ -62,7 +63,10 @@ import org.eclipse.che.api.vfs.server.ContentStream;
 import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemImpl;
 import org.eclipse.che.api.vfs.server.search.QueryExpression;
+import org.eclipse.che.api.vfs.server.search.SearchResult;
+import org.eclipse.che.api.vfs.server.search.SearchResultEntry;
 import org.eclipse.che.api.vfs.server.search.SearcherProvider;
+import org.eclipse.che.api.vfs.server.util.HashTree;
 import org.eclipse.che.api.vfs.shared.dto.AccessControlEntry;
 import org.eclipse.che.api.vfs.shared.dto.Principal;
 import org.eclipse.che.commons.env.EnvironmentContext;
@@ -87,6 +91,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
@@ -118,8 +123,10 @@ import static java.util.stream.Collectors.toMap;
 @Path("/project/{ws-id}")
 @Singleton // important to have singleton
 public class ProjectService extends Service {
-    private static final Logger  LOG                   = LoggerFactory.getLogger(ProjectService.class);
-    private static final Pattern RUNNER_NAME_VALIDATOR = Pattern.compile("[\\w-]+((:/)?[^/\\\\]+)?");
+    private static final Logger  LOG                     = LoggerFactory.getLogger(ProjectService.class);
+    private static final Pattern RUNNER_NAME_VALIDATOR   = Pattern.compile("[\\w-]+((:/)?[^/\\\\]+)?");
+    /** Name of response header with cursor for the next page of search result. */
+    public static final  String  NEXT_PAGE_CURSOR_HEADER = "X-Next-Page-Cursor";
 
     @Inject
     private ProjectManager              projectManager;
@@ -1159,6 +1166,16 @@ public class ProjectService extends Service {
         return VirtualFileSystemImpl.exportZipMultipart(folder.getVirtualFile(), in);
     }
 
+    @POST
+    @Path("/export/{path:.*}")
+    @Consumes(HashTree.MEDIA_TYPE)
+    @Produces({MediaType.MULTIPART_FORM_DATA, MediaType.APPLICATION_JSON})
+    public Response exportDiffZipHashTree(@PathParam("ws-id") String workspace, @PathParam("path") String path, InputStream in)
+            throws NotFoundException, ForbiddenException, BadRequestException, ServerException {
+        final FolderEntry folder = asFolder(workspace, path);
+        return VirtualFileSystemImpl.exportZipHashTree(folder.getVirtualFile(), in);
+    }
+
     @GET
     @Path("/export/file/{path:.*}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -1288,7 +1305,8 @@ public class ProjectService extends Service {
     }
 
     @ApiOperation(value = "Search for resources",
-                  notes = "Search for resources applying a number of search filters as query parameters",
+                  notes = "Search for resources applying a number of search filters as query parameters. If there are more items " +
+                          "cursor for the next page is returned in X-Next-Page-Cursor header",
                   response = ItemReference.class,
                   responseContainer = "List")
     @ApiResponses(value = {
@@ -1300,20 +1318,28 @@ public class ProjectService extends Service {
     @GET
     @Path("/search/{path:.*}")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<ItemReference> search(@ApiParam(value = "Workspace ID", required = true)
-                                      @PathParam("ws-id") String workspace,
-                                      @ApiParam(value = "Path to resource, i.e. where to search?", required = true)
-                                      @PathParam("path") String path,
-                                      @ApiParam(value = "Resource name")
-                                      @QueryParam("name") String name,
-                                      @ApiParam(value = "Media type")
-                                      @QueryParam("mediatype") String mediatype,
-                                      @ApiParam(value = "Search keywords")
-                                      @QueryParam("text") String text,
-                                      @ApiParam(value = "Maximum items to display. If this parameter is dropped, there are no limits")
-                                      @QueryParam("maxItems") @DefaultValue("-1") int maxItems,
-                                      @ApiParam(value = "Skip count")
-                                      @QueryParam("skipCount") int skipCount)
+    public Response search(@ApiParam(value = "Workspace ID", required = true)
+                           @PathParam("ws-id") String workspace,
+                           @ApiParam(value = "Path to resource, i.e. where to search?", required = true)
+                           @PathParam("path") String path,
+                           @ApiParam(value = "Resource name")
+                           @QueryParam("name") String name,
+                           @ApiParam(value = "Media type")
+                           @QueryParam("mediatype") String mediatype,
+                           @ApiParam(value = "Search keywords")
+                           @QueryParam("text") String text,
+                           @ApiParam(value = "String that content of file must contain")
+                           @QueryParam("substring") String substring,
+                           @ApiParam(value = "Regular expression that content of file must match")
+                           @QueryParam("regex") String regex,
+                           @ApiParam(value = "Maximum items to display. If this parameter is dropped, there are no limits")
+                           @QueryParam("maxItems") @DefaultValue("-1") int maxItems,
+                           @ApiParam(value = "Skip count")
+                           @QueryParam("skipCount") int skipCount,
+                           @ApiParam(value = "Cursor of the next page returned with previous page, skip count is ignored if set")
+                           @QueryParam("cursor") String cursor,
+                           @ApiParam(value = "Include lines of files that match query")
+                           @QueryParam("includeSnippets") boolean includeSnippets)
             throws NotFoundException, ForbiddenException, ConflictException, ServerException {
 
         // to search from workspace root path should end with "/" i.e /{ws}/search/?<query>
@@ -1327,34 +1353,55 @@ public class ProjectService extends Service {
                     .setPath(path.startsWith("/") ? path : ('/' + path))
                     .setName(name)
                     .setMediaType(mediatype)
-                    .setText(text);
-
-            final String[] result = searcherProvider.getSearcher(folder.getVirtualFile().getMountPoint(), true).search(expr);
-            if (skipCount > 0) {
-                if (skipCount > result.length) {
+                    .setText(text)
+                    .setSubstring(substring)
+                    .setRegex(regex)
+                    .setSkipCount(skipCount)
+                    .setMaxItems(maxItems)
+                    .setCursor(cursor)
+                    .setIncludeSnippets(includeSnippets);
+
+            final SearchResult result = searcherProvider.getSearcher(folder.getVirtualFile().getMountPoint(), true).search(expr);
+            // Total number of items found by content of files is known only on the last page.
+            if (skipCount > 0 && cursor == null && result.getNextPageQuery() == null) {
+                if (skipCount > result.getTotalHits()) {
                     throw new ConflictException(
                             String.format("'skipCount' parameter: %d is greater then total number of items in result: %d.",
-                                          skipCount, result.length));
+                                          skipCount, result.getTotalHits()));
                 }
             }
-            final int length = maxItems > 0 ? Math.min(result.length, maxItems) : result.length;
-            final List<ItemReference> items = new ArrayList<>(length);
+            final List<SearchResultEntry> entries = result.getEntries();
+            final List<ItemReference> items = new ArrayList<>(entries.size());
             final FolderEntry root = projectManager.getProjectsRoot(workspace);
             final UriBuilder uriBuilder = getServiceContext().getServiceUriBuilder();
-            for (int i = skipCount; i < length; i++) {
+            for (SearchResultEntry entry : entries) {
                 VirtualFileEntry child = null;
                 try {
-                    child = root.getChild(result[i]);
+                    child = root.getChild(entry.getFilePath());
                 } catch (ForbiddenException ignored) {
                     // Ignore item that user can't access
                 }
                 if (child != null && child.isFile()) {
-                    items.add(DtoConverter.toItemReferenceDto((FileEntry)child, uriBuilder.clone()));
+                    final ItemReference item = DtoConverter.toItemReferenceDto((FileEntry)child, uriBuilder.clone());
+                    if (includeSnippets) {
+                        final List<SearchSnippet> snippets = new ArrayList<>(entry.getSnippets().size());
+                        for (SearchResultEntry.Snippet snippet : entry.getSnippets()) {
+                            snippets.add(DtoConverter.toSearchSnippetDto(snippet));
+                        }
+                        item.setSnippets(snippets);
+                    }
+                    items.add(item);
                 }
             }
-            return items;
+            final Response.ResponseBuilder response = Response.ok(new GenericEntity<List<ItemReference>>(items) {
+            });
+            if (result.getNextPageCursor() != null) {
+                response.header(NEXT_PAGE_CURSOR_HEADER, result.getNextPageCursor());
+            }
+            return response.build();
         }
-        return Collections.emptyList();
+        return Response.ok(new GenericEntity<List<ItemReference>>(Collections.<ItemReference>emptyList()) {
+        }).build();
     }
 
     @ApiOperation(value = "Get user permissions in a project",
@@ -89,4 +89,12 @@ public interface ItemReference extends Hyperlinks {
 
     ItemReference withContentLength(long length);
 
+
+    /** lines of file that match search query, set only for items of search result if they were requested */
+    List<SearchSnippet> getSnippets();
+
+    void setSnippets(List<SearchSnippet> snippets);
+
+    ItemReference withSnippets(List<SearchSnippet> snippets);
+
 }
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.shared.dto;
+
+import org.eclipse.che.dto.shared.DTO;
+
+/** Line of file that matches search query. */
+@DTO
+public interface SearchSnippet {
+    /** Get number of line, lines are numbered from 1. */
+    int getLineNumber();
+
+    void setLineNumber(int lineNumber);
+
+    SearchSnippet withLineNumber(int lineNumber);
+
+    /** Get content of line. */
+    String getLine();
+
+    void setLine(String line);
+
+    SearchSnippet withLine(String line);
+
+    /** Get offset of the first matched character from the beginning of file. */
+    int getStartOffset();
+
+    void setStartOffset(int startOffset);
+
+    SearchSnippet withStartOffset(int startOffset);
+
+    /** Get offset after the last matched character from the beginning of file. */
+    int getEndOffset();
+
+    void setEndOffset(int endOffset);
+
+    SearchSnippet withEndOffset(int endOffset);
+}
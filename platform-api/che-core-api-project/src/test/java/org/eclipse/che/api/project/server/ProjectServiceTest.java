@@ -2599,6 +2599,59 @@ public class ProjectServiceTest {
         Assert.assertTrue(paths.contains("/my_project/c/_test"));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSearchWithSnippets() throws Exception {
+        Project myProject = pm.getProject(workspace, "my_project");
+        myProject.getBaseFolder().createFolder("x/y").createFile("__test.txt", "searchhit".getBytes(), MediaType.TEXT_PLAIN);
+        myProject.getBaseFolder().createFolder("c").createFile("_test", "searchhit\nsearchhit".getBytes(), MediaType.TEXT_PLAIN);
+
+        ContainerResponse response = launcher.service(HttpMethod.GET,
+                                                      String.format("http://localhost:8080/api/project/%s/search/my_project" +
+                                                                    "?substring=searchhit&includeSnippets=true", workspace),
+                                                      "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        List<ItemReference> result = (List<ItemReference>)response.getEntity();
+        assertEquals(result.size(), 2);
+        assertEquals(result.get(0).getPath(), "/my_project/c/_test");
+        assertEquals(result.get(0).getSnippets().size(), 2);
+        assertEquals(result.get(0).getSnippets().get(1).getLineNumber(), 2);
+        assertEquals(result.get(1).getPath(), "/my_project/x/y/__test.txt");
+        assertEquals(result.get(1).getSnippets().size(), 1);
+        Assert.assertNull(response.getHttpHeaders().getFirst(ProjectService.NEXT_PAGE_CURSOR_HEADER));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testPagedSearchWithCursor() throws Exception {
+        Project myProject = pm.getProject(workspace, "my_project");
+        myProject.getBaseFolder().createFolder("x/y").createFile("__test.txt", "searchhit".getBytes(), MediaType.TEXT_PLAIN);
+        myProject.getBaseFolder().createFolder("c").createFile("_test", "searchhit\nsearchhit".getBytes(), MediaType.TEXT_PLAIN);
+
+        ContainerResponse response = launcher.service(HttpMethod.GET,
+                                                      String.format("http://localhost:8080/api/project/%s/search/my_project" +
+                                                                    "?substring=searchhit&maxItems=1&includeSnippets=true", workspace),
+                                                      "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        List<ItemReference> result = (List<ItemReference>)response.getEntity();
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getPath(), "/my_project/c/_test");
+        assertEquals(result.get(0).getSnippets().size(), 2);
+        assertEquals(result.get(0).getSnippets().get(1).getLineNumber(), 2);
+        String cursor = (String)response.getHttpHeaders().getFirst(ProjectService.NEXT_PAGE_CURSOR_HEADER);
+        Assert.assertNotNull(cursor);
+
+        response = launcher.service(HttpMethod.GET,
+                                    String.format("http://localhost:8080/api/project/%s/search/my_project" +
+                                                  "?substring=searchhit&maxItems=1&cursor=%s", workspace, cursor),
+                                    "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        result = (List<ItemReference>)response.getEntity();
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getPath(), "/my_project/x/y/__test.txt");
+        Assert.assertTrue(result.get(0).getSnippets().isEmpty());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testSearchByMediaType() throws Exception {
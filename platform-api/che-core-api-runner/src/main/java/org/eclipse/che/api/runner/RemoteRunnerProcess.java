@@ -21,14 +21,17 @@ import org.eclipse.che.api.core.rest.HttpJsonHelper;
 import org.eclipse.che.api.core.rest.HttpOutputMessage;
 import org.eclipse.che.api.core.rest.OutputProvider;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.LogsHelper;
 import org.eclipse.che.api.runner.dto.ApplicationProcessDescriptor;
 import org.eclipse.che.api.runner.internal.Constants;
+import org.eclipse.che.commons.annotation.Nullable;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -120,23 +123,51 @@ public class RemoteRunnerProcess {
     }
 
     public void readLogs(OutputProvider output) throws IOException, RunnerException, NotFoundException {
+        readLogs(output, null, false, null);
+    }
+
+    /**
+     * Copy part of application logs to specified {@code output}.
+     *
+     * @param output
+     *         output for logs content
+     * @param fromLine
+     *         zero-based number of the first line of logs, if {@code null} logs are read from the beginning
+     * @param follow
+     *         if {@code true} and logs don't have line {@code fromLine} yet then wait for it
+     * @param range
+     *         value of HTTP header {@code Range}, it is passed to the slave-runner as is
+     * @see LogsHelper
+     */
+    public void readLogs(OutputProvider output, @Nullable Integer fromLine, boolean follow, @Nullable String range)
+            throws IOException, RunnerException, NotFoundException {
         final ApplicationProcessDescriptor descriptor = getApplicationProcessDescriptor();
         final Link link = descriptor.getLink(Constants.LINK_REL_VIEW_LOG);
         if (link == null) {
             throw new RunnerException("Logs are not available.");
         }
-        doRequest(link.getHref(), link.getMethod(), output);
+        final UriBuilder uriBuilder = UriBuilder.fromUri(link.getHref());
+        if (fromLine != null) {
+            uriBuilder.queryParam(LogsHelper.FROM_LINE_PARAM, fromLine);
+        }
+        if (follow) {
+            uriBuilder.queryParam(LogsHelper.FOLLOW_PARAM, true);
+        }
+        doRequest(uriBuilder.build().toString(), link.getMethod(), range, output);
     }
 
     public void readRecipeFile(OutputProvider output) throws IOException, RunnerException {
-        doRequest(String.format("%s/recipe/%s/%d", baseUrl, runner, processId), HttpMethod.GET, output);
+        doRequest(String.format("%s/recipe/%s/%d", baseUrl, runner, processId), HttpMethod.GET, null, output);
     }
 
-    private void doRequest(String url, String method, final OutputProvider output) throws IOException {
+    private void doRequest(String url, String method, String range, final OutputProvider output) throws IOException {
         final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
         conn.setConnectTimeout(60 * 1000);
         conn.setReadTimeout(60 * 1000);
         conn.setRequestMethod(method);
+        if (range != null) {
+            conn.setRequestProperty(LogsHelper.RANGE_HEADER, range);
+        }
         try {
             if (output instanceof HttpOutputMessage) {
                 HttpOutputMessage httpOutput = (HttpOutputMessage)output;
@@ -150,6 +181,13 @@ public class RemoteRunnerProcess {
                 if (contentDisposition != null) {
                     httpOutput.addHttpHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
                 }
+                // for reading of part of logs
+                for (String header : new String[]{LogsHelper.NEXT_LINE_HEADER, "Content-Range", "Accept-Ranges"}) {
+                    final String value = conn.getHeaderField(header);
+                    if (value != null) {
+                        httpOutput.addHttpHeader(header, value);
+                    }
+                }
             }
 
             try (InputStream in = conn.getInputStream();
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+import org.eclipse.che.api.runner.dto.RunRequest;
+import org.eclipse.che.api.runner.internal.Constants;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.List;
+
+/**
+ * Implementation of RunnerSelectionStrategy that selects runner by memory that is left on it after placement of request. With
+ * "best_fit" policy (default) runner with the least free memory that is enough for request is selected, so big free blocks of memory
+ * are kept for big applications. With "worst_fit" policy runner with the most free memory is selected, so load is spread between
+ * runners. Policy is set with configuration parameter {@link Constants#QUEUE_PLACEMENT_POLICY}.
+ * <p/>
+ * Runners that already have applications of the same workspace are selected only if there is no other choice (anti-affinity), so
+ * failure of one runner doesn't stop all applications of workspace. If memory that is left is the same, runner with more free disk
+ * space is selected.
+ *
+ * @author andrew00x
+ */
+@Singleton
+public class ResourceAwareRunnerSelectionStrategy implements RunnerSelectionStrategy {
+    public static final String BEST_FIT  = "best_fit";
+    public static final String WORST_FIT = "worst_fit";
+
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_PLACEMENT_POLICY)
+    private String policy = BEST_FIT;
+
+    public ResourceAwareRunnerSelectionStrategy() {
+    }
+
+    public ResourceAwareRunnerSelectionStrategy(String policy) {
+        this.policy = policy;
+    }
+
+    /** Without information about resources of runners selects the first one. */
+    @Override
+    public RemoteRunner select(List<RemoteRunner> remoteRunners) {
+        if (remoteRunners == null || remoteRunners.isEmpty()) {
+            throw new IllegalArgumentException("empty or null list");
+        }
+        return remoteRunners.get(0);
+    }
+
+    @Override
+    public RemoteRunner select(List<RemoteRunner> remoteRunners, RunRequest request, RunnerResources resources) {
+        if (remoteRunners == null || remoteRunners.isEmpty()) {
+            throw new IllegalArgumentException("empty or null list");
+        }
+        final boolean worstFit = WORST_FIT.equals(policy);
+        RemoteRunner selected = null;
+        int selectedApps = 0;
+        long selectedLeft = 0;
+        long selectedDisk = 0;
+        for (RemoteRunner runner : remoteRunners) {
+            final int apps = resources.getApplicationsNum(runner, request.getWorkspace());
+            final long free = resources.getFreeMemory(runner);
+            // Runner with unknown free memory is the worst choice for any policy.
+            final long left = free < 0 ? (worstFit ? -1 : Long.MAX_VALUE) : free - request.getMemorySize();
+            final long disk = resources.getFreeDiskSpace(runner);
+            if (selected == null || apps < selectedApps) {
+                selected = runner;
+                selectedApps = apps;
+                selectedLeft = left;
+                selectedDisk = disk;
+            } else if (apps == selectedApps) {
+                final boolean better = left == selectedLeft ? disk > selectedDisk : worstFit == (left > selectedLeft);
+                if (better) {
+                    selected = runner;
+                    selectedLeft = left;
+                    selectedDisk = disk;
+                }
+            }
+        }
+        return selected;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+}
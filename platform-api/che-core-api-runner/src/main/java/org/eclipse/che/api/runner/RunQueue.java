@@ -14,10 +14,12 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import org.eclipse.che.api.account.server.dao.AccountDao;
 import org.eclipse.che.api.builder.BuildStatus;
 import org.eclipse.che.api.builder.BuilderService;
 import org.eclipse.che.api.builder.dto.BuildOptions;
 import org.eclipse.che.api.builder.dto.BuildTaskDescriptor;
+import org.eclipse.che.api.builder.internal.BuilderEvent;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.NotFoundException;
@@ -29,6 +31,7 @@ import org.eclipse.che.api.core.rest.HttpJsonHelper;
 import org.eclipse.che.api.core.rest.RemoteServiceDescriptor;
 import org.eclipse.che.api.core.rest.ServiceContext;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.FairShareQueue;
 import org.eclipse.che.api.core.util.ValueHolder;
 import org.eclipse.che.api.project.server.ProjectService;
 import org.eclipse.che.api.project.shared.EnvironmentId;
@@ -52,7 +55,9 @@ import org.eclipse.che.api.workspace.server.WorkspaceService;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceDescriptor;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.commons.lang.Pair;
-import org.eclipse.che.commons.lang.Size;
+import org.eclipse.che.commons.lang.cache.Cache;
+import org.eclipse.che.commons.lang.cache.SLRUCache;
+import org.eclipse.che.commons.lang.cache.SynchronizedCache;
 import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
 import org.eclipse.che.commons.user.User;
 import org.eclipse.che.dto.server.DtoFactory;
@@ -92,8 +97,10 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -102,6 +109,12 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Accepts all run requests and redirects them to the slave-runners. Request waits in this queue while application is built and
+ * until some slave-runner has enough resources to run it. Number of waiting requests is limited with configuration parameters
+ * {@link org.eclipse.che.api.runner.internal.Constants#QUEUE_MAX_WAITING} and
+ * {@link org.eclipse.che.api.runner.internal.Constants#QUEUE_MAX_WAITING_PER_WS}, new requests are rejected if limit is reached.
+ * Waiting requests are ordered with {@link FairShareQueue}, so accounts and workspaces share runners.
+ *
  * @author andrew00x
  * @author Eugene Voevodin
  */
@@ -109,9 +122,14 @@ import java.util.concurrent.locks.ReentrantLock;
 public class RunQueue {
     private static final Logger LOG = LoggerFactory.getLogger(RunQueue.class);
 
-    /** Pause in milliseconds for checking the result of build process. */
-    private static final long CHECK_BUILD_RESULT_PERIOD     = 2000;
+    /**
+     * Pause in milliseconds for checking the result of build process. Requests get notification about end of build with {@link
+     * BuilderEvent}, periodical check is needed only if notification is lost, e.g. builder service is restarted.
+     */
+    private static final long CHECK_BUILD_RESULT_PERIOD     = 30000;
     private static final long CHECK_AVAILABLE_RUNNER_PERIOD = 2000;
+    /** Time in milliseconds of caching of state of remote runner. */
+    private static final long RUNNER_STATE_TIME_TO_LIVE     = 1000;
 
     private static final long PROCESS_CLEANER_PERIOD = TimeUnit.MINUTES.toMillis(1);
 
@@ -135,9 +153,29 @@ public class RunQueue {
     // Helps to reduce lock contentions when check available resources.
     private final Lock[]                                          resourceCheckerLocks;
     private final int                                             resourceCheckerMask;
-
-    private ExecutorService          executor;
-    private ScheduledExecutorService cleanScheduler;
+    private final AtomicLong                                      dispatchedNum;
+    private final AtomicLong                                      totalWaitingTime;
+    private final AtomicLong                                      maxWaitingTime;
+    private final AtomicLong                                      buildToRunNum;
+    private final AtomicLong                                      totalBuildToRunTime;
+    /* Ids of builds that are done but aren't bound to waiting requests yet, build may be done before request gets its id. */
+    private final Cache<Long, Boolean>                            finishedBuilds;
+    /* Requests that are removed from queue but are not executed yet. Request id -> request with selected runner or error. */
+    private final ConcurrentMap<Long, WaitingRun>                 dispatched;
+    private final AtomicBoolean                                   dispatchScheduled;
+    /* Runners with low disk space -> level of alert. Need remember them to avoid sending multiple emails about the same runner. */
+    private final ConcurrentMap<Pair<String, String>, DiskSpaceAlert> diskSpaceAlerts;
+
+    private ExecutorService            executor;
+    private ScheduledExecutorService   cleanScheduler;
+    /* Checks available runners for all waiting requests. */
+    private ScheduledExecutorService   dispatcher;
+    /* Checks status of builds of waiting requests. Requests to builders may be slow, so they don't delay dispatching. */
+    private ScheduledExecutorService   buildChecker;
+    private FairShareQueue<WaitingRun> waiting;
+    /* States of runners that are shared between all waiting requests. */
+    private RunnerStateCache           runnerStates;
+    private List<Thread>               slavesRegistration;
 
     /** Optional pre-configured slave runners. */
     @com.google.inject.Inject(optional = true)
@@ -158,6 +196,27 @@ public class RunQueue {
     @Named(Constants.RUNNER_WS_MAX_MEMORY_SIZE)
     private int defMaxMemorySize = DEFAULT_MAX_MEMORY_SIZE;
 
+    /** Max number of requests that wait for build or available runner. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_MAX_WAITING)
+    private int maxWaiting = 1000;
+
+    /** Max number of requests of one workspace that wait for build or available runner. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_MAX_WAITING_PER_WS)
+    // Switched to default for test.
+    // private
+    int maxWaitingPerWorkspace = 20;
+
+    /** Number of threads that send requests to selected runners. */
+    @com.google.inject.Inject(optional = true)
+    @Named(Constants.QUEUE_THREADS)
+    private int threads = 10;
+
+    /** Gets weight of account in queue. If not set all accounts have the same weight. */
+    @com.google.inject.Inject(optional = true)
+    private AccountDao accountDao;
+
     // Switched to default for test.
     // private
     long cleanerPeriod              = PROCESS_CLEANER_PERIOD;
@@ -167,6 +226,9 @@ public class RunQueue {
     // Switched to default for test.
     // private
     long checkBuildResultPeriod     = CHECK_BUILD_RESULT_PERIOD;
+    // Switched to default for test.
+    // private
+    long runnerStateTimeToLive      = RUNNER_STATE_TIME_TO_LIVE;
 
     /**
      * @param defMemSize
@@ -201,6 +263,15 @@ public class RunQueue {
         for (int i = 0; i < partitions; i++) {
             resourceCheckerLocks[i] = new ReentrantLock();
         }
+        dispatchedNum = new AtomicLong();
+        totalWaitingTime = new AtomicLong();
+        maxWaitingTime = new AtomicLong();
+        buildToRunNum = new AtomicLong();
+        totalBuildToRunTime = new AtomicLong();
+        finishedBuilds = new SynchronizedCache<>(new SLRUCache<Long, Boolean>(50, 100));
+        dispatched = new ConcurrentHashMap<>();
+        dispatchScheduled = new AtomicBoolean();
+        diskSpaceAlerts = new ConcurrentHashMap<>();
     }
 
     public RunQueueTask getTask(Long id) throws NotFoundException {
@@ -216,10 +287,55 @@ public class RunQueue {
         return new ArrayList<>(tasks.values());
     }
 
+    /**
+     * Get stats of this queue: number of requests that wait for build or available runner, max size of queue, number of requests
+     * that got runner, average and max time of waiting in milliseconds, average time in milliseconds between end of build and the
+     * moment when request is ready to be sent to runner.
+     *
+     * @return stats of this queue
+     */
+    public List<RunnerMetric> getStats() {
+        checkStarted();
+        final int queueSize;
+        synchronized (waiting) {
+            queueSize = waiting.size();
+        }
+        final long num = dispatchedNum.get();
+        final List<RunnerMetric> stats = new LinkedList<>();
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.QUEUE_SIZE)
+                            .withValue(Integer.toString(queueSize)));
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.MAX_QUEUE_SIZE)
+                            .withValue(Integer.toString(maxWaiting)));
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.QUEUE_DISPATCHED_NUM)
+                            .withValue(Long.toString(num)));
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.QUEUE_AVERAGE_WAITING_TIME)
+                            .withValue(Long.toString(num == 0 ? 0 : totalWaitingTime.get() / num)));
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.QUEUE_MAX_WAITING_TIME)
+                            .withValue(Long.toString(maxWaitingTime.get())));
+        final long builtNum = buildToRunNum.get();
+        stats.add(dtoFactory.createDto(RunnerMetric.class).withName(RunnerMetric.QUEUE_AVERAGE_BUILD_TO_RUN_TIME)
+                            .withValue(Long.toString(builtNum == 0 ? 0 : totalBuildToRunTime.get() / builtNum)));
+        return stats;
+    }
+
+    private void addWaitingTime(long time) {
+        dispatchedNum.incrementAndGet();
+        totalWaitingTime.addAndGet(time);
+        long max = maxWaitingTime.get();
+        while (time > max && !maxWaitingTime.compareAndSet(max, time)) {
+            max = maxWaitingTime.get();
+        }
+        LOG.debug("Request waited for runner {}ms", time);
+    }
+
     @PostConstruct
     public void start() {
         if (started.compareAndSet(false, true)) {
-            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            waiting = new FairShareQueue<>(maxWaiting, maxWaitingPerWorkspace);
+            runnerStates = new RunnerStateCache(runnerStateTimeToLive);
+            // Tasks are executed when runner is already selected, they just send request to it.
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
                                               new ThreadFactoryBuilder().setNameFormat("RunQueue-[%d]").setDaemon(true).build()) {
                 @Override
                 protected void afterExecute(Runnable runnable, Throwable error) {
@@ -228,6 +344,11 @@ public class RunQueue {
                         super.afterExecute(runnable, error);
                         if (runnable instanceof InternalRunTask) {
                             final InternalRunTask internalRunTask = (InternalRunTask)runnable;
+                            // Task may be canceled after runner is selected for it.
+                            final WaitingRun notStarted = dispatched.remove(internalRunTask.id);
+                            if (notStarted != null && notStarted.runner != null) {
+                                runnerStates.release(notStarted.runner, notStarted.request.getMemorySize());
+                            }
                             if (error == null) {
                                 try {
                                     internalRunTask.get();
@@ -329,6 +450,56 @@ public class RunQueue {
                 }
             }, cleanerPeriod, cleanerPeriod, TimeUnit.MILLISECONDS);
 
+            dispatcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("RunQueueDispatcher-%d")
+                                                                                              .setDaemon(true).build());
+            buildChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("RunQueueBuildChecker-%d")
+                                                                                                .setDaemon(true).build());
+            buildChecker.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        checkBuilds();
+                    } catch (RuntimeException e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+            }, checkBuildResultPeriod, checkBuildResultPeriod, TimeUnit.MILLISECONDS);
+            // Runners don't notify about all changes of available resources, check them periodically.
+            dispatcher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        dispatch();
+                    } catch (RuntimeException e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+            }, checkAvailableRunnerPeriod, checkAvailableRunnerPeriod, TimeUnit.MILLISECONDS);
+            eventService.subscribe(new EventSubscriber<RunnerEvent>() {
+                @Override
+                public void onEvent(RunnerEvent event) {
+                    // Memory of remote runner is released, send next request to it.
+                    if (event.getType() == RunnerEvent.EventType.STOPPED || event.getType() == RunnerEvent.EventType.ERROR) {
+                        runnerStates.removed(event.getProcessId());
+                        runnerStates.invalidate();
+                        scheduleDispatch();
+                    }
+                }
+            });
+            eventService.subscribe(new EventSubscriber<BuilderEvent>() {
+                @Override
+                public void onEvent(BuilderEvent event) {
+                    // Build is over, don't wait for periodical check and send request to runner as soon as possible.
+                    final BuilderEvent.EventType type = event.getType();
+                    if (type == BuilderEvent.EventType.DONE
+                        || type == BuilderEvent.EventType.CANCELED
+                        || type == BuilderEvent.EventType.BUILD_TASK_QUEUE_TIME_EXCEEDED) {
+                        finishedBuilds.put(event.getTaskId(), Boolean.TRUE);
+                        scheduleBuildCheck(event.getTaskId());
+                    }
+                }
+            });
+
             // sending message by websocket connection for notice about used memory size changing
             eventService.subscribe(new ResourcesChangesMessenger());
             eventService.subscribe(new ProcessStartedMessenger());
@@ -336,14 +507,24 @@ public class RunQueue {
             //Log events for analytics
             eventService.subscribe(new AnalyticsMessenger());
 
+            // Don't occupy threads of main pool, registration may take long time if some slaves are not available.
+            final ThreadFactory registrationThreadFactory = new ThreadFactoryBuilder().setNameFormat("RunQueueRegistration-%d")
+                                                                                      .setDaemon(true).build();
+            slavesRegistration = new LinkedList<>();
             if (slaves.length > 0) {
-                executor.execute(ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slaves, null)));
+                slavesRegistration.add(registrationThreadFactory.newThread(
+                        ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slaves, null))));
             }
             if (slavesPaid.length > 0) {
-                executor.execute(ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slavesPaid, "paid")));
+                slavesRegistration.add(registrationThreadFactory.newThread(
+                        ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slavesPaid, "paid"))));
             }
             if (slavesAlwaysOn.length > 0) {
-                executor.execute(ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slavesAlwaysOn, "always_on")));
+                slavesRegistration.add(registrationThreadFactory.newThread(
+                        ThreadLocalPropagateContext.wrap(new RegisterSlaveRunnerTask(slavesAlwaysOn, "always_on"))));
+            }
+            for (Thread thread : slavesRegistration) {
+                thread.start();
             }
         } else {
             throw new IllegalStateException("Already started");
@@ -361,6 +542,11 @@ public class RunQueue {
         if (started.compareAndSet(true, false)) {
             boolean interrupted = false;
             cleanScheduler.shutdownNow();
+            dispatcher.shutdownNow();
+            buildChecker.shutdownNow();
+            for (Thread thread : slavesRegistration) {
+                thread.interrupt();
+            }
             try {
                 if (!cleanScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
                     LOG.warn("Unable terminate cleanScheduler");
@@ -382,6 +568,8 @@ public class RunQueue {
             }
             tasks.clear();
             runnerListMapping.clear();
+            dispatched.clear();
+            runnerStates.clear();
             if (interrupted) {
                 Thread.currentThread().interrupt();
             }
@@ -511,24 +699,14 @@ public class RunQueue {
         final boolean skipBuild = runOptions.getSkipBuild();
         BuildOptions buildOptions = runOptions.getBuildOptions();
         BuildersDescriptor builders;
-        if (!skipBuild
-            && ((buildOptions != null && buildOptions.getBuilderName() != null)
-                || ((builders = projectDescriptor.getBuilders()) != null) && builders.getDefault() != null)) {
-            LOG.debug("Need build project '{}' from workspace '{}'", project, workspace);
-            if (buildOptions == null) {
-                buildOptions = dtoFactory.createDto(BuildOptions.class);
-            }
-            // We want bundle of application with all dependencies (libraries) that application needs.
-            buildOptions.setIncludeDependencies(true);
-            buildOptions.setSkipTest(true);
-            final RemoteServiceDescriptor builderService = getBuilderServiceDescriptor(workspace, serviceContext);
-            // schedule build
-            buildTaskHolder.set(startBuild(builderService, project, buildOptions));
-        }
-        final Callable<RemoteRunnerProcess> callable = createTaskFor(matchedRunners, request, buildTaskHolder);
+        final boolean build = !skipBuild
+                              && ((buildOptions != null && buildOptions.getBuilderName() != null)
+                                  || ((builders = projectDescriptor.getBuilders()) != null) && builders.getDefault() != null);
+        final Callable<RemoteRunnerProcess> callable = createTaskFor(matchedRunners, request);
         final Long id = sequence.getAndIncrement();
         final InternalRunTask future = new InternalRunTask(ThreadLocalPropagateContext.wrap(callable), id, workspace, project);
         request.setId(id); // for getting callback events from remote runner
+        final WaitingRun waitingRun = new WaitingRun(request, matchedRunners, buildTaskHolder, future, !build);
         final RunQueueTask task = new RunQueueTask(id,
                                                    request,
                                                    maxWaitingTimeMillis,
@@ -537,12 +715,329 @@ public class RunQueue {
                                                    eventService,
                                                    notParsedEnvironmentId,
                                                    serviceContext.getServiceUriBuilder());
+        // Register task and publish event first, request may be dispatched as soon as it gets to the queue.
         tasks.put(id, task);
         eventService.publish(RunnerEvent.queueStartedEvent(id, workspace, project));
-        executor.execute(future);
+        try {
+            // Take place in queue before start build.
+            enqueue(waitingRun, workspaceDescriptor);
+        } catch (RunnerException | RuntimeException e) {
+            tasks.remove(id);
+            eventService.publish(RunnerEvent.errorEvent(id, workspace, project, e.getMessage()));
+            throw e;
+        }
+        if (build) {
+            LOG.debug("Need build project '{}' from workspace '{}'", project, workspace);
+            if (buildOptions == null) {
+                buildOptions = dtoFactory.createDto(BuildOptions.class);
+            }
+            // We want bundle of application with all dependencies (libraries) that application needs.
+            buildOptions.setIncludeDependencies(true);
+            buildOptions.setSkipTest(true);
+            try {
+                final RemoteServiceDescriptor builderService = getBuilderServiceDescriptor(workspace, serviceContext);
+                // schedule build
+                final BuildTaskDescriptor buildDescriptor = startBuild(builderService, project, buildOptions);
+                buildTaskHolder.set(buildDescriptor);
+                if (finishedBuilds.get(buildDescriptor.getTaskId()) != null) {
+                    // Notification about end of build came before we got id of build.
+                    scheduleBuildCheck(buildDescriptor.getTaskId());
+                }
+            } catch (RunnerException | RuntimeException e) {
+                if (removeFromQueue(waitingRun)) {
+                    tasks.remove(id);
+                    eventService.publish(RunnerEvent.errorEvent(id, workspace, project, e.getMessage()));
+                }
+                throw e;
+            }
+        }
         return task;
     }
 
+    /**
+     * Adds request to the queue. Request is sent to runner when build of application is done and some runner has enough resources,
+     * it doesn't occupy thread while waiting.
+     *
+     * @throws RunnerException
+     *         if queue is full or workspace has too many waiting requests
+     */
+    private void enqueue(WaitingRun run, WorkspaceDescriptor workspace) throws RunnerException {
+        final double weight = getQueueWeight(workspace.getAccountId());
+        synchronized (waiting) {
+            try {
+                waiting.add(run, workspace.getAccountId(), workspace.getId(), weight);
+            } catch (IllegalStateException e) {
+                throw new RunnerException(e.getMessage());
+            }
+        }
+        if (run.buildDone) {
+            scheduleDispatch();
+        }
+    }
+
+    private boolean removeFromQueue(WaitingRun run) {
+        synchronized (waiting) {
+            return waiting.remove(run);
+        }
+    }
+
+    private double getQueueWeight(String accountId) {
+        if (accountDao == null || accountId == null) {
+            return 1;
+        }
+        final String weightAttr;
+        try {
+            weightAttr = accountDao.getById(accountId).getAttributes().get(Constants.RUNNER_QUEUE_WEIGHT);
+        } catch (NotFoundException | ServerException e) {
+            LOG.warn("Unable get weight of account {} in queue, default weight is used. {}", accountId, e.getMessage());
+            return 1;
+        }
+        if (weightAttr != null) {
+            try {
+                final double weight = Double.parseDouble(weightAttr);
+                if (weight > 0) {
+                    return weight;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            LOG.warn("Invalid weight '{}' of account {} in queue, default weight is used. ", weightAttr, accountId);
+        }
+        return 1;
+    }
+
+    /** Checks status of builds of waiting requests. Requests with successful builds are sent to runners. */
+    private void checkBuilds() {
+        final List<WaitingRun> building = new ArrayList<>();
+        synchronized (waiting) {
+            for (WaitingRun run : waiting.toList()) {
+                // Build may be not started yet.
+                if (!run.buildDone && run.buildTaskHolder.get() != null) {
+                    building.add(run);
+                }
+            }
+        }
+        boolean ready = false;
+        for (WaitingRun run : building) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (run.task.isDone()) {
+                // Expected to get here if task is canceled. Try to cancel related build process.
+                if (removeFromQueue(run)) {
+                    tryCancelBuild(run.buildTaskHolder.get());
+                }
+                continue;
+            }
+            try {
+                ready |= checkBuild(run);
+            } catch (Exception e) {
+                fail(run, e);
+            }
+        }
+        if (ready) {
+            scheduleDispatch();
+        }
+    }
+
+    /** Returns {@code true} if build is successful and request may be sent to runner. */
+    private boolean checkBuild(WaitingRun run) throws Exception {
+        final Link buildStatusLink = run.buildTaskHolder.get().getLink(org.eclipse.che.api.builder.internal.Constants.LINK_REL_GET_STATUS);
+        if (buildStatusLink == null) {
+            throw new RunnerException("Invalid response from builder service. Unable get URL for checking build status");
+        }
+        final BuildTaskDescriptor buildDescriptor = HttpJsonHelper.request(BuildTaskDescriptor.class, buildStatusLink);
+        // to be able show current state of build process with RunQueueTask.
+        run.buildTaskHolder.set(buildDescriptor);
+        final BuildStatus buildStatus = buildDescriptor.getStatus();
+        if (buildStatus == BuildStatus.SUCCESSFUL) {
+            run.request.withBuildTaskDescriptor(buildDescriptor);
+            run.buildDone = true;
+            if (buildDescriptor.getEndTime() > 0) {
+                addBuildToRunTime(Math.max(0, System.currentTimeMillis() - buildDescriptor.getEndTime()));
+            }
+            return true;
+        } else if (buildStatus == BuildStatus.CANCELLED || buildStatus == BuildStatus.FAILED) {
+            String msg = "Unable start application. Build of application is failed or cancelled.";
+            final Link logLink = buildDescriptor.getLink(org.eclipse.che.api.builder.internal.Constants.LINK_REL_VIEW_LOG);
+            if (logLink != null) {
+                msg += (" Build logs: " + logLink.getHref());
+            }
+            throw new RunnerException(msg);
+        }
+        LOG.debug("Build in of project '{}' from workspace '{}' is progress", run.request.getProject(), run.request.getWorkspace());
+        return false;
+    }
+
+    /** Checks status of build with specified id out of turn, typically after notification about end of this build. */
+    private void scheduleBuildCheck(final long buildTaskId) {
+        try {
+            buildChecker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        checkBuild(buildTaskId);
+                    } catch (RuntimeException e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue is stopped. Periodical check gets result of build if queue is started again.
+        }
+    }
+
+    private void checkBuild(long buildTaskId) {
+        WaitingRun found = null;
+        synchronized (waiting) {
+            for (WaitingRun run : waiting.toList()) {
+                final BuildTaskDescriptor buildDescriptor = run.buildTaskHolder.get();
+                if (!run.buildDone && buildDescriptor != null && buildDescriptor.getTaskId() == buildTaskId) {
+                    found = run;
+                    break;
+                }
+            }
+        }
+        if (found == null) {
+            // Already checked by periodical task or request is not bound to the build yet.
+            return;
+        }
+        finishedBuilds.remove(buildTaskId);
+        if (found.task.isDone()) {
+            if (removeFromQueue(found)) {
+                tryCancelBuild(found.buildTaskHolder.get());
+            }
+            return;
+        }
+        boolean ready = false;
+        try {
+            ready = checkBuild(found);
+        } catch (Exception e) {
+            fail(found, e);
+        }
+        if (ready) {
+            scheduleDispatch();
+        }
+    }
+
+    private void addBuildToRunTime(long time) {
+        buildToRunNum.incrementAndGet();
+        totalBuildToRunTime.addAndGet(time);
+        LOG.debug("Request got result of build in {}ms after end of build", time);
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatchScheduled.set(false);
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Queue is stopped.
+                dispatchScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends requests that don't wait for build to runners that have enough memory and disk space. State of each runner is checked
+     * once for all waiting requests and is cached with {@link RunnerStateCache} for next dispatching. Requests are processed in order
+     * that is defined by {@link FairShareQueue}, but request that needs more memory doesn't block next requests.
+     */
+    private void dispatch() {
+        final List<WaitingRun> ready = new ArrayList<>();
+        synchronized (waiting) {
+            for (WaitingRun run : waiting.toList()) {
+                if (run.buildDone) {
+                    if (run.task.isDone()) {
+                        // Canceled or removed from queue by timeout.
+                        waiting.remove(run);
+                    } else {
+                        ready.add(run);
+                    }
+                }
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+        final Set<RemoteRunner> checked = new HashSet<>();
+        final Set<RemoteRunner> usable = new HashSet<>();
+        for (WaitingRun run : ready) {
+            for (RemoteRunner runner : run.matchedRunners) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (checked.add(runner)) {
+                    try {
+                        final RunnerState runnerState = runnerStates.getState(runner);
+                        if (runnerState.getServerState() != null
+                            && hasEnoughSpaceOnDisk(runner.getName(), runner.getBaseUrl(), runnerState)) {
+                            usable.add(runner);
+                        }
+                    } catch (Exception e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        final long now = System.currentTimeMillis();
+        for (WaitingRun run : ready) {
+            // List of runners that have enough resources for launch application.
+            final List<RemoteRunner> available = new LinkedList<>();
+            for (RemoteRunner runner : run.matchedRunners) {
+                if (usable.contains(runner) && runnerStates.getFreeMemory(runner) >= run.request.getMemorySize()) {
+                    available.add(runner);
+                }
+            }
+            if (available.isEmpty()) {
+                continue;
+            }
+            final RemoteRunner runner = available.size() > 1
+                                        ? runnerSelector.select(available, run.request, runnerStates) : available.get(0);
+            // Remote runner doesn't know about this request yet, don't send too many requests to it.
+            if (!runnerStates.reserve(runner, run.request.getMemorySize())) {
+                // Memory is reserved concurrently, try again with next dispatching.
+                continue;
+            }
+            synchronized (waiting) {
+                if (!waiting.take(run)) {
+                    // Removed from queue concurrently.
+                    runnerStates.release(runner, run.request.getMemorySize());
+                    continue;
+                }
+            }
+            runnerStates.placed(runner, run.request.getId(), run.request.getWorkspace());
+            addWaitingTime(now - run.creationTime);
+            run.runner = runner;
+            execute(run);
+        }
+    }
+
+    /** Removes request from queue, task fails with specified error. */
+    private void fail(WaitingRun run, Exception error) {
+        if (removeFromQueue(run)) {
+            run.error = error;
+            execute(run);
+        }
+    }
+
+    private void execute(WaitingRun run) {
+        dispatched.put(run.request.getId(), run);
+        try {
+            executor.execute(run.task);
+        } catch (RejectedExecutionException e) {
+            // Queue is stopped.
+            dispatched.remove(run.request.getId());
+            if (run.runner != null) {
+                runnerStates.release(run.runner, run.request.getMemorySize());
+            }
+        }
+    }
+
     private void resolveProjectRunnerEnvironments(String infra, RunRequest request, ProjectDescriptor projectDescriptor,
                                                   String envName, List<RemoteRunner> matchedRunners) throws RunnerException {
         final List<String> recipesUrls = new LinkedList<>();
@@ -768,10 +1263,37 @@ public class RunQueue {
         return buildDescriptor;
     }
 
-    protected Callable<RemoteRunnerProcess> createTaskFor(final List<RemoteRunner> matched,
-                                                          final RunRequest request,
-                                                          final ValueHolder<BuildTaskDescriptor> buildTaskHolder) {
-        return new RemoteRunnerProcessCallable(buildTaskHolder, request, matched);
+    private boolean hasEnoughSpaceOnDisk(String name, String baseUrl, RunnerState runnerState) {
+        final long diskSpace = RunnerStateCache.getTotalDiskSpace(runnerState);
+        if (diskSpace > 0) {
+            final long usedDiskSpace = RunnerStateCache.getUsedDiskSpace(runnerState);
+            if (usedDiskSpace > 0) {
+                final long freePercent = (long)((((double)diskSpace - usedDiskSpace) / diskSpace) * 100);
+                final Pair<String, String> runner = Pair.of(name, baseUrl);
+                if (freePercent < 5) {
+                    // In production error messages cause sending email with SMTPAppender, send it when state of runner gets worse.
+                    if (diskSpaceAlerts.put(runner, DiskSpaceAlert.CRITICAL) != DiskSpaceAlert.CRITICAL) {
+                        LOG.error("Skip runner '{}' at '{}' because of low disk space, {}% left", name, baseUrl, freePercent);
+                    }
+                    return false;
+                } else if (freePercent < 10) {
+                    if (diskSpaceAlerts.putIfAbsent(runner, DiskSpaceAlert.LOW) == null) {
+                        LOG.error("Runner '{}' at '{}' is running out of disk space, {}% left.", name, baseUrl, freePercent);
+                    } else {
+                        // Runner may be used again, but alert about it is not sent again until disk space is recovered.
+                        diskSpaceAlerts.put(runner, DiskSpaceAlert.LOW);
+                    }
+                } else if (diskSpaceAlerts.remove(runner) != null) {
+                    LOG.info("Runner '{}' at '{}' has enough disk space again, {}% left.", name, baseUrl, freePercent);
+                }
+            }
+        }
+        // If don't have information about disk status let application run.
+        return true;
+    }
+
+    protected Callable<RemoteRunnerProcess> createTaskFor(final List<RemoteRunner> matched, final RunRequest request) {
+        return new RemoteRunnerProcessCallable(request);
     }
 
     // Switched to default for test.
@@ -900,6 +1422,12 @@ public class RunQueue {
             return false;
         }
         final RemoteRunnerServer runnerService = runnerServers.remove(url);
+        runnerStates.remove(url);
+        for (Iterator<Pair<String, String>> i = diskSpaceAlerts.keySet().iterator(); i.hasNext(); ) {
+            if (url.equals(i.next().second)) {
+                i.remove();
+            }
+        }
         return runnerService != null && doUnregisterRunners(url);
     }
 
@@ -993,150 +1521,60 @@ public class RunQueue {
     }
 
 
+    /** Sends request to the runner that is selected by dispatcher. Task is executed only when runner is selected. */
     private class RemoteRunnerProcessCallable implements Callable<RemoteRunnerProcess> {
-        private final ValueHolder<BuildTaskDescriptor> buildTaskHolder;
-        private final RunRequest                       request;
-        private final List<RemoteRunner>               matchedRunners;
-        private final Set<Pair<String, String>>        lowDiskSpaceRunners;
-        private final Set<Pair<String, String>>        criticalDiskSpaceRunners;
-
-        public RemoteRunnerProcessCallable(ValueHolder<BuildTaskDescriptor> buildTaskHolder, RunRequest request,
-                                           List<RemoteRunner> matchedRunners) {
-            this.buildTaskHolder = buildTaskHolder;
+        private final RunRequest request;
+
+        RemoteRunnerProcessCallable(RunRequest request) {
             this.request = request;
-            this.matchedRunners = matchedRunners;
-            lowDiskSpaceRunners = new HashSet<>();
-            criticalDiskSpaceRunners = new HashSet<>();
         }
 
         @Override
         public RemoteRunnerProcess call() throws Exception {
-            BuildTaskDescriptor buildDescriptor = buildTaskHolder.get();
-            if (buildDescriptor != null) {
-                final Link buildStatusLink = buildDescriptor.getLink(org.eclipse.che.api.builder.internal.Constants.LINK_REL_GET_STATUS);
-                if (buildStatusLink == null) {
-                    throw new RunnerException("Invalid response from builder service. Unable get URL for checking build status");
-                }
-                for (; ; ) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        // Expected to get here if task is canceled. Try to cancel related runner process.
-                        tryCancelBuild(buildDescriptor);
-                        return null;
-                    }
-                    synchronized (this) {
-                        try {
-                            wait(checkBuildResultPeriod);
-                        } catch (InterruptedException e) {
-                            // Expected to get here if task is canceled. Try to cancel related build process.
-                            tryCancelBuild(buildDescriptor);
-                            return null;
-                        }
-                    }
-                    buildDescriptor = HttpJsonHelper.request(BuildTaskDescriptor.class, DtoFactory.getInstance().clone(buildStatusLink));
-                    // to be able show current state of build process with RunQueueTask.
-                    buildTaskHolder.set(buildDescriptor);
-                    final BuildStatus buildStatus = buildDescriptor.getStatus();
-                    if (buildStatus == BuildStatus.SUCCESSFUL) {
-                        request.withBuildTaskDescriptor(buildDescriptor);
-                        break; // get out from loop
-                    } else if (buildStatus == BuildStatus.CANCELLED || buildStatus == BuildStatus.FAILED) {
-                        String msg = "Unable start application. Build of application is failed or cancelled.";
-                        final Link logLink = buildDescriptor.getLink(org.eclipse.che.api.builder.internal.Constants.LINK_REL_VIEW_LOG);
-                        if (logLink != null) {
-                            msg += (" Build logs: " + logLink.getHref());
-                        }
-                        throw new RunnerException(msg);
-                    } else if (buildStatus == BuildStatus.IN_PROGRESS || buildStatus == BuildStatus.IN_QUEUE) {
-                        // wait
-                        LOG.debug("Build in of project '{}' from workspace '{}' is progress", request.getProject(), request.getWorkspace());
-                    }
-                }
+            final WaitingRun run = dispatched.remove(request.getId());
+            if (run == null) {
+                // Not expected, typically should never happen.
+                throw new RunnerException("There is no any runner available. ");
             }
-
-            // List of runners that have enough resources for launch application.
-            final List<RemoteRunner> available = new LinkedList<>();
-            for (; ; ) {
-                for (RemoteRunner runner : matchedRunners) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        // Expected to get here if task is canceled. Stop immediately.
-                        return null;
-                    }
-                    RunnerState runnerState;
-                    try {
-                        runnerState = runner.getRemoteRunnerState();
-                    } catch (Exception e) {
-                        LOG.error(e.getMessage(), e);
-                        continue;
-                    }
-                    if (runnerState.getServerState().getFreeMemory() >= request.getMemorySize()
-                        && hasEnoughSpaceOnDisk(runner.getName(), runner.getBaseUrl(), runnerState)) {
-
-                        available.add(runner);
-                    }
-                }
-                if (available.isEmpty()) {
-                    synchronized (this) {
-                        try {
-                            // Wait and try again.
-                            wait(checkAvailableRunnerPeriod);
-                        } catch (InterruptedException e) {
-                            // Expected to get here if task is canceled.
-                            Thread.currentThread().interrupt();
-                            return null;
-                        }
-                    }
-                } else {
-                    final RemoteRunner runner = available.size() > 1 ? runnerSelector.select(available) : available.get(0);
-                    LOG.info("Use runner '{}' at '{}'", runner.getName(), runner.getBaseUrl());
-                    return runner.run(request);
-                }
+            if (run.error != null) {
+                throw run.error;
             }
-        }
-
-        private boolean hasEnoughSpaceOnDisk(String name, String baseUrl, RunnerState runnerState) {
-            final long diskSpace = getTotalDiskSpace(runnerState);
-            if (diskSpace > 0) {
-                final long usedDiskSpace = getUsedDiskSpace(runnerState);
-                if (usedDiskSpace > 0) {
-                    final long freePercent = (long)((((double)diskSpace - usedDiskSpace) / diskSpace) * 100);
-                    if (freePercent < 5) {
-                        if (criticalDiskSpaceRunners.add(Pair.of(name, baseUrl))) {
-                            // In production error messages cause sending email with SMTPAppender.
-                            // Need remember runners with low disk space to avoid sending multiple emails.
-                            LOG.error("Skip runner '{}' at '{}' because of low disk space, {}% left", name, baseUrl, freePercent);
-                        }
-                        return false;
-                    } else if (freePercent < 10) {
-                        if (lowDiskSpaceRunners.add(Pair.of(name, baseUrl))) {
-                            // In production error messages cause sending email with SMTPAppender.
-                            // Need remember runners with low disk space to avoid sending multiple emails.
-                            LOG.error("Runner '{}' at '{}' is running out of disk space, {}% left.", name, baseUrl, freePercent);
-                        }
-                    }
-                }
+            LOG.info("Use runner '{}' at '{}'", run.runner.getName(), run.runner.getBaseUrl());
+            try {
+                return run.runner.run(request);
+            } finally {
+                // Runner has got request, its state should be updated.
+                runnerStates.release(run.runner, request.getMemorySize());
             }
-            // If don't have information about disk status let application run.
-            return true;
         }
+    }
 
-        /** Gets total disk space available for running application in bytes or {@code -1} if this operation is not supported. */
-        private long getTotalDiskSpace(RunnerState runnerState) {
-            for (RunnerMetric metric : runnerState.getStats()) {
-                if (RunnerMetric.DISK_SPACE_TOTAL.equals(metric.getName())) {
-                    return Size.parseSize(metric.getValue());
-                }
-            }
-            return -1;
-        }
+    /** Level of the latest alert about low disk space on runner. */
+    private enum DiskSpaceAlert {
+        LOW,
+        CRITICAL
+    }
 
-        /** Gets disk space used for running application in bytes or {@code -1} if this operation is not supported. */
-        private long getUsedDiskSpace(RunnerState runnerState) {
-            for (RunnerMetric metric : runnerState.getStats()) {
-                if (RunnerMetric.DISK_SPACE_USED.equals(metric.getName())) {
-                    return Size.parseSize(metric.getValue());
-                }
-            }
-            return -1;
+    /** Request that waits for build of application and for runner that has enough resources to run application. */
+    private static class WaitingRun {
+        final RunRequest                       request;
+        final List<RemoteRunner>               matchedRunners;
+        final ValueHolder<BuildTaskDescriptor> buildTaskHolder;
+        final InternalRunTask                  task;
+        final long                             creationTime;
+
+        volatile boolean      buildDone;
+        volatile RemoteRunner runner;
+        volatile Exception    error;
+
+        WaitingRun(RunRequest request, List<RemoteRunner> matchedRunners, ValueHolder<BuildTaskDescriptor> buildTaskHolder,
+                   InternalRunTask task, boolean buildDone) {
+            this.request = request;
+            this.matchedRunners = matchedRunners;
+            this.buildTaskHolder = buildTaskHolder;
+            this.task = task;
+            this.buildDone = buildDone;
+            creationTime = System.currentTimeMillis();
         }
     }
 
@@ -1366,9 +1804,8 @@ public class RunQueue {
                     case MESSAGE_LOGGED:
                         final RunnerEvent.LoggedMessage message = event.getMessage();
                         if (message != null) {
-                            bm.setChannel(String.format("runner:output:%d", id));
-                            bm.setBody(String.format("{\"num\":%d, \"line\":%s}",
-                                                     message.getLineNum(), JsonUtils.getJsonString(message.getMessage())));
+                            sendOutput(id, message);
+                            return;
                         }
                         break;
                 }
@@ -1377,6 +1814,26 @@ public class RunQueue {
                 LOG.error(e.getMessage(), e);
             }
         }
+
+        /*
+         * Clients that subscribe to channel "runner:output-batch:{id}" get batch of lines in one message, "line" contains "count" lines
+         * separated with '\n' and "num" is number of the first of them. Clients of channel "runner:output:{id}" get one message per line
+         * as before.
+         */
+        private void sendOutput(long id, RunnerEvent.LoggedMessage message) throws Exception {
+            final ChannelBroadcastMessage batch = new ChannelBroadcastMessage();
+            batch.setChannel(String.format("runner:output-batch:%d", id));
+            batch.setBody(String.format("{\"num\":%d, \"count\":%d, \"line\":%s}", message.getLineNum(), message.getCount(),
+                                        JsonUtils.getJsonString(message.getMessage())));
+            WSConnectionContext.sendMessage(batch);
+            final String[] lines = message.getCount() > 1 ? message.getMessage().split("\n", -1) : new String[]{message.getMessage()};
+            for (int i = 0; i < lines.length; i++) {
+                final ChannelBroadcastMessage bm = new ChannelBroadcastMessage();
+                bm.setChannel(String.format("runner:output:%d", id));
+                bm.setBody(String.format("{\"num\":%d, \"line\":%s}", message.getLineNum() + i, JsonUtils.getJsonString(lines[i])));
+                WSConnectionContext.sendMessage(bm);
+            }
+        }
     }
 
     private class AnalyticsMessenger implements EventSubscriber<RunnerEvent> {
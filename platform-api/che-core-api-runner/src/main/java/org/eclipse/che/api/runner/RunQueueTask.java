@@ -243,11 +243,17 @@ public class RunQueueTask implements Cancellable {
     }
 
     public void readLogs(OutputProvider output) throws IOException, RunnerException, NotFoundException {
+        readLogs(output, null, false, null);
+    }
+
+    /** @see RemoteRunnerProcess#readLogs(OutputProvider, Integer, boolean, String) */
+    public void readLogs(OutputProvider output, Integer fromLine, boolean follow, String range)
+            throws IOException, RunnerException, NotFoundException {
         final RemoteRunnerProcess remoteProcess = getRemoteProcess();
         if (remoteProcess == null) {
             throw new RunnerException("Application isn't started yet, logs aren't available");
         }
-        remoteProcess.readLogs(output);
+        remoteProcess.readLogs(output, fromLine, follow, range);
     }
 
     public void readRecipeFile(OutputProvider output) throws RunnerException, IOException, NotFoundException {
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+/**
+ * Resources of slave-runners as they are known to RunQueue. Memory comes from {@link
+ * org.eclipse.che.api.runner.internal.ResourceAllocators} of slave-runners, memory that is reserved for requests that are sent to
+ * runner but aren't started yet is counted as used.
+ *
+ * @author andrew00x
+ * @see RunnerSelectionStrategy#select(java.util.List, org.eclipse.che.api.runner.dto.RunRequest, RunnerResources)
+ */
+public interface RunnerResources {
+    /** Gets amount of memory (in megabytes) available for launching applications on runner or {@code -1} if it is unknown. */
+    long getFreeMemory(RemoteRunner runner);
+
+    /** Gets total amount of memory (in megabytes) allocated to launching applications on runner or {@code -1} if it is unknown. */
+    long getTotalMemory(RemoteRunner runner);
+
+    /** Gets free disk space (in bytes) available for running applications on runner or {@code -1} if it is unknown. */
+    long getFreeDiskSpace(RemoteRunner runner);
+
+    /** Gets number of applications of workspace that are running or are being started on runner. */
+    int getApplicationsNum(RemoteRunner runner, String workspace);
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.api.runner;
 
+import org.eclipse.che.api.runner.dto.RunRequest;
+
 import java.util.List;
 
 /**
@@ -22,4 +24,20 @@ import java.util.List;
  */
 public interface RunnerSelectionStrategy {
     RemoteRunner select(List<RemoteRunner> remoteRunners);
+
+    /**
+     * Selects the 'best' RemoteRunner for the request. All runners in the list have enough resources for the request. Implementations
+     * that take care about resources that are left on runner after placement of request should override this method, by default it
+     * delegates to {@link #select(List)}.
+     *
+     * @param remoteRunners
+     *         runners that have enough resources for the request
+     * @param request
+     *         request for running application
+     * @param resources
+     *         resources of runners
+     */
+    default RemoteRunner select(List<RemoteRunner> remoteRunners, RunRequest request, RunnerResources resources) {
+        return select(remoteRunners);
+    }
 }
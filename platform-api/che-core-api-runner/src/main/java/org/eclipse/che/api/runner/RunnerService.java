@@ -28,6 +28,7 @@ import org.eclipse.che.api.core.rest.annotations.Description;
 import org.eclipse.che.api.core.rest.annotations.GenerateLink;
 import org.eclipse.che.api.core.rest.annotations.Required;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.LogsHelper;
 import org.eclipse.che.api.project.shared.EnvironmentId;
 import org.eclipse.che.api.project.shared.dto.RunnerEnvironment;
 import org.eclipse.che.api.project.shared.dto.RunnerEnvironmentLeaf;
@@ -50,6 +51,7 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -274,9 +276,15 @@ public class RunnerService extends Service {
     public void getLogs(@ApiParam(value = "Workspace ID", required = true)
                         @PathParam("ws-id") String workspace,
                         @ApiParam(value = "Run ID", required = true)
-                        @PathParam("id") Long id, @Context HttpServletResponse httpServletResponse) throws Exception {
+                        @PathParam("id") Long id,
+                        @ApiParam(value = "Number of the first line of logs to get, logs are read from the beginning by default")
+                        @QueryParam(LogsHelper.FROM_LINE_PARAM) Integer fromLine,
+                        @ApiParam(value = "Wait for new lines of logs if there are no lines starting from fromLine yet")
+                        @QueryParam(LogsHelper.FOLLOW_PARAM) boolean follow,
+                        @HeaderParam(LogsHelper.RANGE_HEADER) String range,
+                        @Context HttpServletResponse httpServletResponse) throws Exception {
         // Response is written directly to the servlet request stream
-        runQueue.getTask(id).readLogs(new HttpServletProxyResponse(httpServletResponse));
+        runQueue.getTask(id).readLogs(new HttpServletProxyResponse(httpServletResponse), fromLine, follow, range);
     }
 
     @ApiOperation(value = "Get available RAM resources",
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+import org.eclipse.che.api.runner.dto.RunnerMetric;
+import org.eclipse.che.api.runner.dto.RunnerState;
+import org.eclipse.che.commons.lang.Pair;
+import org.eclipse.che.commons.lang.Size;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared view of states of remote runners. State of runner is requested over HTTP only if cached state is older than configured time
+ * to live or is invalidated, e.g. after application is started or stopped. Memory of runner may be reserved for request that is sent
+ * to this runner but isn't started yet, reserved memory is subtracted from free memory that runner reported. Reservation is done
+ * with compare-and-set, so two requests may not get the same last free memory of runner. Cache also remembers on which runner each
+ * request is placed until application is stopped.
+ *
+ * @author andrew00x
+ */
+class RunnerStateCache implements RunnerResources {
+    private final long                                              timeToLive;
+    private final ConcurrentMap<RemoteRunner, Entry>                entries;
+    /* Id of request -> runner and workspace of request. */
+    private final ConcurrentMap<Long, Pair<RemoteRunner, String>> placements;
+
+    /**
+     * @param timeToLive
+     *         time in milliseconds after that cached state of runner is requested again
+     */
+    RunnerStateCache(long timeToLive) {
+        this.timeToLive = timeToLive;
+        entries = new ConcurrentHashMap<>();
+        placements = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets state of runner, from cache if it isn't expired or from remote runner otherwise.
+     *
+     * @throws RunnerException
+     *         if state of runner isn't cached and an error occurs while getting it from remote runner
+     */
+    RunnerState getState(RemoteRunner runner) throws RunnerException {
+        final Entry entry = getEntry(runner);
+        RunnerState state = entry.state;
+        if (state == null || entry.time + timeToLive < System.currentTimeMillis()) {
+            // Don't lock while sending request to runner. Concurrent requests are possible but don't break anything.
+            state = runner.getRemoteRunnerState();
+            entry.state = state;
+            entry.time = System.currentTimeMillis();
+        }
+        return state;
+    }
+
+    /**
+     * Gets free memory of runner in megabytes with subtracted memory that is reserved for requests that aren't started yet. Cached
+     * state of runner is used, returns {@code -1} if there is no cached state of runner.
+     */
+    @Override
+    public long getFreeMemory(RemoteRunner runner) {
+        final Entry entry = entries.get(runner);
+        if (entry == null) {
+            return -1;
+        }
+        final RunnerState state = entry.state;
+        if (state == null || state.getServerState() == null) {
+            return -1;
+        }
+        return state.getServerState().getFreeMemory() - entry.reserved.get();
+    }
+
+    /**
+     * Reserves memory of runner for request if runner has enough free memory.
+     *
+     * @param memory
+     *         memory in megabytes
+     * @return {@code true} if memory is reserved and {@code false} if runner doesn't have enough free memory
+     * @see #release(RemoteRunner, long)
+     */
+    boolean reserve(RemoteRunner runner, long memory) {
+        final Entry entry = entries.get(runner);
+        if (entry == null) {
+            return false;
+        }
+        for (; ; ) {
+            final RunnerState state = entry.state;
+            if (state == null || state.getServerState() == null) {
+                return false;
+            }
+            final long reserved = entry.reserved.get();
+            if (state.getServerState().getFreeMemory() - reserved < memory) {
+                return false;
+            }
+            if (entry.reserved.compareAndSet(reserved, reserved + memory)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases memory that is reserved with {@link #reserve(RemoteRunner, long)}. Typically should be called when runner gets
+     * request, since that cached state of runner is expired, its free memory is changed.
+     *
+     * @param memory
+     *         memory in megabytes
+     */
+    void release(RemoteRunner runner, long memory) {
+        final Entry entry = entries.get(runner);
+        if (entry != null) {
+            entry.reserved.addAndGet(-memory);
+            entry.time = 0;
+        }
+    }
+
+    @Override
+    public long getTotalMemory(RemoteRunner runner) {
+        final Entry entry = entries.get(runner);
+        if (entry == null) {
+            return -1;
+        }
+        final RunnerState state = entry.state;
+        if (state == null || state.getServerState() == null) {
+            return -1;
+        }
+        return state.getServerState().getTotalMemory();
+    }
+
+    @Override
+    public long getFreeDiskSpace(RemoteRunner runner) {
+        final Entry entry = entries.get(runner);
+        if (entry == null || entry.state == null) {
+            return -1;
+        }
+        final long total = getTotalDiskSpace(entry.state);
+        final long used = getUsedDiskSpace(entry.state);
+        if (total < 0 || used < 0) {
+            return -1;
+        }
+        return total - used;
+    }
+
+    @Override
+    public int getApplicationsNum(RemoteRunner runner, String workspace) {
+        final Entry entry = entries.get(runner);
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry.applications) {
+            final Integer num = entry.applications.get(workspace);
+            return num == null ? 0 : num;
+        }
+    }
+
+    /**
+     * Remembers that request is placed on runner.
+     *
+     * @param id
+     *         id of request
+     * @see #removed(long)
+     */
+    void placed(RemoteRunner runner, long id, String workspace) {
+        final Entry entry = getEntry(runner);
+        if (placements.putIfAbsent(id, Pair.of(runner, workspace)) == null) {
+            synchronized (entry.applications) {
+                final Integer num = entry.applications.get(workspace);
+                entry.applications.put(workspace, num == null ? 1 : num + 1);
+            }
+        }
+    }
+
+    /**
+     * Forgets about request, e.g. when application is stopped.
+     *
+     * @param id
+     *         id of request
+     */
+    void removed(long id) {
+        final Pair<RemoteRunner, String> placement = placements.remove(id);
+        if (placement == null) {
+            return;
+        }
+        final Entry entry = entries.get(placement.first);
+        if (entry != null) {
+            synchronized (entry.applications) {
+                final Integer num = entry.applications.get(placement.second);
+                if (num != null && num > 1) {
+                    entry.applications.put(placement.second, num - 1);
+                } else {
+                    entry.applications.remove(placement.second);
+                }
+            }
+        }
+    }
+
+    /** Expires all cached states, e.g. if some application is stopped and some runner has more free memory. */
+    void invalidate() {
+        for (Entry entry : entries.values()) {
+            entry.time = 0;
+        }
+    }
+
+    /** Removes cached states of all runners located at specified URL. */
+    void remove(String baseUrl) {
+        for (Iterator<RemoteRunner> i = entries.keySet().iterator(); i.hasNext(); ) {
+            if (baseUrl.equals(i.next().getBaseUrl())) {
+                i.remove();
+            }
+        }
+        for (Iterator<Pair<RemoteRunner, String>> i = placements.values().iterator(); i.hasNext(); ) {
+            if (baseUrl.equals(i.next().first.getBaseUrl())) {
+                i.remove();
+            }
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        placements.clear();
+    }
+
+    /** Gets total disk space available for running application in bytes or {@code -1} if this operation is not supported. */
+    static long getTotalDiskSpace(RunnerState runnerState) {
+        for (RunnerMetric metric : runnerState.getStats()) {
+            if (RunnerMetric.DISK_SPACE_TOTAL.equals(metric.getName())) {
+                return Size.parseSize(metric.getValue());
+            }
+        }
+        return -1;
+    }
+
+    /** Gets disk space used for running application in bytes or {@code -1} if this operation is not supported. */
+    static long getUsedDiskSpace(RunnerState runnerState) {
+        for (RunnerMetric metric : runnerState.getStats()) {
+            if (RunnerMetric.DISK_SPACE_USED.equals(metric.getName())) {
+                return Size.parseSize(metric.getValue());
+            }
+        }
+        return -1;
+    }
+
+    private Entry getEntry(RemoteRunner runner) {
+        Entry entry = entries.get(runner);
+        if (entry == null) {
+            final Entry newEntry = new Entry();
+            entry = entries.putIfAbsent(runner, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    private static class Entry {
+        final AtomicLong           reserved     = new AtomicLong();
+        /* Workspace -> number of its applications on runner. */
+        final Map<String, Integer> applications = new HashMap<>();
+
+        volatile RunnerState state;
+        volatile long        time;
+    }
+}
@@ -46,6 +46,18 @@ public interface RunnerMetric {
 
     String DISK_SPACE_USED = "diskSpaceUsed";
 
+    String QUEUE_SIZE = "queueSize";
+
+    String MAX_QUEUE_SIZE = "maxQueueSize";
+
+    String QUEUE_DISPATCHED_NUM = "queueDispatchedNum";
+
+    String QUEUE_AVERAGE_WAITING_TIME = "queueAverageWaitingTime";
+
+    String QUEUE_MAX_WAITING_TIME = "queueMaxWaitingTime";
+
+    String QUEUE_AVERAGE_BUILD_TO_RUN_TIME = "queueAverageBuildToRunTime";
+
     String getName();
 
     RunnerMetric withName(String name);
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.che.api.runner.internal;
 
+import org.eclipse.che.api.core.util.IndexedLogFile;
 import org.eclipse.che.api.core.util.LineConsumer;
 
 import java.io.IOException;
@@ -41,6 +42,15 @@ public interface ApplicationLogger extends LineConsumer {
      */
     String getContentType();
 
+    /**
+     * Get log that may be read from any line or range of bytes.
+     *
+     * @return {@code IndexedLogFile} or {@code null} if ApplicationLogger does not support reading of part of logs
+     */
+    default IndexedLogFile getIndexedLog() {
+        return null;
+    }
+
     /** Dummy {@code ApplicationLogger} implementation. */
     ApplicationLogger DUMMY = new ApplicationLogger() {
         @Override
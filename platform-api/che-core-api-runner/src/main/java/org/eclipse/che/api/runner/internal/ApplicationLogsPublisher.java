@@ -11,25 +11,32 @@
 package org.eclipse.che.api.runner.internal;
 
 import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.util.LineBatcher;
 import org.eclipse.che.api.core.util.RateExceedDetector;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
- * Publishes application's outputs to the EventService.
+ * Publishes application's outputs to the EventService. Lines are published in batches, see {@link LineBatcher}, so limit of rate is
+ * applied to batches but not to separate lines.
  *
  * @author andrew00x
  */
 public class ApplicationLogsPublisher extends DelegateApplicationLogger {
-    private final AtomicInteger      lineCounter;
-    private final EventService       eventService;
-    private final long               processId;
-    private final String             workspace;
-    private final String             project;
-    private final RateExceedDetector maxEventRateChecker;
+    private final EventService             eventService;
+    private final long                     processId;
+    private final String                   workspace;
+    private final String                   project;
+    private final RateExceedDetector       maxEventRateChecker;
+    private final LineBatcher              batcher;
+    /* Scheduler that is created by this publisher if it isn't passed to constructor. It is shut down when publisher is closed. */
+    private final ScheduledExecutorService ownScheduler;
 
-    private boolean outputEnabled = true;
+    private volatile boolean outputEnabled = true;
 
     int maxLogsRate = 60;
 
@@ -38,33 +45,74 @@ public class ApplicationLogsPublisher extends DelegateApplicationLogger {
                                     long processId,
                                     String workspace,
                                     String project) {
+        this(delegate, eventService, null, processId, workspace, project);
+    }
+
+    /**
+     * @param scheduler
+     *         scheduler that publishes batches of lines, typically {@link Runner#getLogsScheduler()}. If it is {@code null} publisher
+     *         creates own scheduler and shuts it down on {@link #close()}.
+     */
+    public ApplicationLogsPublisher(ApplicationLogger delegate,
+                                    EventService eventService,
+                                    ScheduledExecutorService scheduler,
+                                    long processId,
+                                    String workspace,
+                                    String project) {
         super(delegate);
         this.eventService = eventService;
         this.processId = processId;
         this.workspace = workspace;
         this.project = project;
-        lineCounter = new AtomicInteger(1);
         maxEventRateChecker = new RateExceedDetector(maxLogsRate);
+        if (scheduler == null) {
+            ownScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("ApplicationLogsPublisher-" + processId + "-%d").setDaemon(true).build());
+            scheduler = ownScheduler;
+        } else {
+            ownScheduler = null;
+        }
+        batcher = new LineBatcher(scheduler) {
+            @Override
+            protected void publish(int firstLine, int lineCount, String lines) {
+                publishLines(firstLine, lineCount, lines);
+            }
+        };
     }
 
     @Override
     public void writeLine(String line) throws IOException {
-        if (outputEnabled) {
-            double rate;
-            if (maxEventRateChecker.updateAndCheckRate() && (rate = maxEventRateChecker.getRate()) > maxLogsRate) {
-                outputEnabled = false;
-                final String message = String.format(
-                        "[WARNING] Application '%s' has exceeded output rate of %.2f messages / second. Application output has been disabled.",
-                        project.startsWith("/") ? project.substring(1) : project, rate);
-                eventService.publish(RunnerEvent.messageLoggedEvent(processId, workspace, project,
-                                                                    new RunnerEvent.LoggedMessage(message, lineCounter.getAndIncrement())));
-                return;
-            }
-            if (line != null) {
-                eventService.publish(RunnerEvent.messageLoggedEvent(processId, workspace, project,
-                                                                    new RunnerEvent.LoggedMessage(line, lineCounter.getAndIncrement())));
-            }
+        if (outputEnabled && line != null) {
+            batcher.addLine(line);
         }
         super.writeLine(line);
     }
+
+    @Override
+    public void close() throws IOException {
+        batcher.close();
+        if (ownScheduler != null) {
+            ownScheduler.shutdownNow();
+        }
+        super.close();
+    }
+
+    /* Batches are published one by one, so there is no need to synchronize access to RateExceedDetector. */
+    private void publishLines(int firstLine, int lineCount, String lines) {
+        if (!outputEnabled) {
+            return;
+        }
+        double rate;
+        if (maxEventRateChecker.updateAndCheckRate() && (rate = maxEventRateChecker.getRate()) > maxLogsRate) {
+            outputEnabled = false;
+            final String message = String.format(
+                    "[WARNING] Application '%s' has exceeded output rate of %.2f messages / second. Application output has been disabled.",
+                    project.startsWith("/") ? project.substring(1) : project, rate);
+            eventService.publish(RunnerEvent.messageLoggedEvent(processId, workspace, project,
+                                                                new RunnerEvent.LoggedMessage(message, firstLine)));
+            return;
+        }
+        eventService.publish(RunnerEvent.messageLoggedEvent(processId, workspace, project,
+                                                            new RunnerEvent.LoggedMessage(lines, firstLine, lineCount)));
+    }
 }
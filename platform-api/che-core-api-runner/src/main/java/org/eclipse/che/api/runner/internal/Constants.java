@@ -17,6 +17,7 @@ public class Constants {
     public static final String LINK_REL_UNREGISTER_RUNNER_SERVER = "unregister runner server";
     public static final String LINK_REL_REGISTERED_RUNNER_SERVER = "registered runner server";
     public static final String LINK_REL_RUNNER_TASKS             = "runner tasks";
+    public static final String LINK_REL_QUEUE_STATE              = "queue state";
     public static final String LINK_REL_AVAILABLE_RUNNERS        = "available runners";
     public static final String LINK_REL_SERVER_STATE             = "server state";
     public static final String LINK_REL_RUNNER_STATE             = "runner state";
@@ -64,6 +65,23 @@ public class Constants {
     public static final String APP_LIFETIME                       = "runner.app_lifetime";
     /** Name of configuration parameter that sets amount of memory (in megabytes) for running applications. */
     public static final String TOTAL_APPS_MEM_SIZE                = "runner.total_apps_mem_size_mb";
+    /**
+     * Max number of requests that may wait for build of application or available slave-runner in master queue. New requests are
+     * rejected if queue is full.
+     */
+    public static final String QUEUE_MAX_WAITING                  = "runner.queue.max_waiting";
+    /** Max number of requests of one workspace that may wait in master queue. */
+    public static final String QUEUE_MAX_WAITING_PER_WS           = "runner.queue.max_waiting_per_workspace";
+    /**
+     * Number of threads that send requests to slave-runners. Requests don't occupy threads while they wait for build or available
+     * slave-runner, so small number of threads is enough.
+     */
+    public static final String QUEUE_THREADS                      = "runner.queue.threads";
+    /**
+     * Policy of placement of requests with {@link org.eclipse.che.api.runner.ResourceAwareRunnerSelectionStrategy}: "best_fit" or
+     * "worst_fit".
+     */
+    public static final String QUEUE_PLACEMENT_POLICY             = "runner.queue.placement_policy";
 
     public static final String RUNNER_ASSIGNED_TO_WORKSPACE = "runner.assigned_to_workspace";
     public static final String RUNNER_ASSIGNED_TO_PROJECT   = "runner.assigned_to_project";
@@ -73,6 +91,10 @@ public class Constants {
     public static final String RUNNER_LIFETIME        = "codenvy:runner_lifetime";
     public static final String RUNNER_INFRA           = "codenvy:runner_infra";
 
+    // attributes of account which are interested for runner
+    /** Weight of account in master queue, account with greater weight gets available runners more often. */
+    public static final String RUNNER_QUEUE_WEIGHT    = "codenvy:runner_queue_weight";
+
     private Constants() {
     }
 }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.api.runner.internal;
 
+import org.eclipse.che.api.core.util.IndexedLogFile;
+
 import java.io.IOException;
 
 /**
@@ -34,6 +36,11 @@ public abstract class DelegateApplicationLogger implements ApplicationLogger {
         return delegate.getContentType();
     }
 
+    @Override
+    public IndexedLogFile getIndexedLog() {
+        return delegate.getIndexedLog();
+    }
+
     @Override
     public void writeLine(String line) throws IOException {
         delegate.writeLine(line);
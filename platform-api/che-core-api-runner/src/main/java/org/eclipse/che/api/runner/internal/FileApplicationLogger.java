@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner.internal;
+
+import org.eclipse.che.api.core.util.IndexedLogFile;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * File based implementation of ApplicationLogger. Lines are written to the file in batches, see {@link IndexedLogFile}, and may be
+ * read from any line while application is running.
+ *
+ * @author andrew00x
+ */
+public final class FileApplicationLogger implements ApplicationLogger {
+    private final String         contentType;
+    private final IndexedLogFile log;
+
+    public FileApplicationLogger(java.io.File file, String contentType) throws IOException {
+        this.contentType = contentType;
+        log = new IndexedLogFile(file);
+    }
+
+    @Override
+    public void getLogs(Appendable output) throws IOException {
+        try (Reader reader = log.getReader()) {
+            final char[] buf = new char[8192];
+            int r;
+            while ((r = reader.read(buf)) != -1) {
+                output.append(CharBuffer.wrap(buf, 0, r));
+            }
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public IndexedLogFile getIndexedLog() {
+        return log;
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        log.writeLine(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FileApplicationLogger{" +
+               "file=" + log.getFile() +
+               '}';
+    }
+}
@@ -88,6 +88,7 @@ public abstract class Runner {
 
     private ExecutorService          executor;
     private ScheduledExecutorService cleanScheduler;
+    private ScheduledExecutorService logsScheduler;
     private java.io.File             deployDirectory;
 
     protected final DownloadPlugin downloadPlugin;
@@ -628,6 +629,9 @@ public abstract class Runner {
                     Executors.newSingleThreadScheduledExecutor(
                             new ThreadFactoryBuilder().setNameFormat(getName() + "-RunnerCleanSchedulerPool-%d").setDaemon(true).build());
             cleanScheduler.scheduleAtFixedRate(new CleanupTask(), 1, 1, TimeUnit.MINUTES);
+            logsScheduler =
+                    Executors.newSingleThreadScheduledExecutor(
+                            new ThreadFactoryBuilder().setNameFormat(getName() + "-RunnerLogsPublisher-%d").setDaemon(true).build());
         } else {
             throw new IllegalStateException("Already started");
         }
@@ -693,6 +697,11 @@ public abstract class Runner {
         }
     }
 
+    /** Scheduler that publishes batches of application logs, see {@link ApplicationLogsPublisher}. Runner shuts it down on stop. */
+    protected ScheduledExecutorService getLogsScheduler() {
+        return logsScheduler;
+    }
+
     protected void checkStarted() {
         if (!started.get()) {
             throw new IllegalStateException("Is not started yet.");
@@ -728,6 +737,17 @@ public abstract class Runner {
                 interrupted |= true;
                 executor.shutdownNow();
             }
+            // Let delayed batches of logs be published, new lines are published without batching after shutdown.
+            logsScheduler.shutdown();
+            try {
+                if (!logsScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logsScheduler.shutdownNow();
+                    LOG.warn("Unable terminate logs scheduler");
+                }
+            } catch (InterruptedException e) {
+                interrupted |= true;
+                logsScheduler.shutdownNow();
+            }
             final List<Disposer> allDisposers = new LinkedList<>();
             synchronized (applicationDisposersLock) {
                 for (List<Disposer> disposers : applicationDisposers.values()) {
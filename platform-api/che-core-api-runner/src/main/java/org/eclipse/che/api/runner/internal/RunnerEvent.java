@@ -53,15 +53,23 @@ public class RunnerEvent {
 
     /*
     Seems we can't guaranty correct order of messages on the client (browser) side, that means we need to wrap each line with simple object
-    that keeps line's number.
+    that keeps line's number. Logs are published in batches, so message may contain few lines separated with '\n', in this case
+    lineNum is number of the first line and count is number of lines in message. Numbers of lines of the next message start from
+    lineNum + count, clients that expect one line per message must not treat gap between lineNum of two messages as lost lines.
      */
     public static class LoggedMessage {
         private String message;
         private int    lineNum;
+        private int    count;
 
         public LoggedMessage(String message, int lineNum) {
+            this(message, lineNum, 1);
+        }
+
+        public LoggedMessage(String message, int lineNum, int count) {
             this.message = message;
             this.lineNum = lineNum;
+            this.count = count;
         }
 
         public LoggedMessage() {
@@ -83,11 +91,20 @@ public class RunnerEvent {
             this.lineNum = lineNum;
         }
 
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
         @Override
         public String toString() {
             return "LoggedMessage{" +
                    "message='" + message + '\'' +
                    ", lineNum=" + lineNum +
+                   ", count=" + count +
                    '}';
         }
     }
@@ -18,6 +18,8 @@ import org.eclipse.che.api.core.rest.annotations.GenerateLink;
 import org.eclipse.che.api.core.rest.annotations.Required;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
 import org.eclipse.che.api.core.rest.shared.dto.ServiceDescriptor;
+import org.eclipse.che.api.core.util.IndexedLogFile;
+import org.eclipse.che.api.core.util.LogsHelper;
 import org.eclipse.che.api.core.util.SystemInfo;
 import org.eclipse.che.api.project.shared.dto.RunnerEnvironment;
 import org.eclipse.che.api.runner.ApplicationStatus;
@@ -39,6 +41,7 @@ import javax.inject.Named;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -48,9 +51,15 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -122,29 +131,37 @@ public class SlaveRunnerService extends Service {
 
     @GET
     @Path("logs/{runner:.*}/{id}")
-    public void getLogs(@PathParam("runner") String runner,
-                        @PathParam("id") Long id,
-                        @Context HttpServletResponse httpServletResponse) throws Exception {
+    public Response getLogs(@PathParam("runner") String runner,
+                            @PathParam("id") Long id,
+                            @QueryParam(LogsHelper.FROM_LINE_PARAM) Integer fromLine,
+                            @QueryParam(LogsHelper.FOLLOW_PARAM) boolean follow,
+                            @HeaderParam(LogsHelper.RANGE_HEADER) String range) throws Exception {
         final Runner myRunner = getRunner(runner);
         final RunnerProcess process = myRunner.getProcess(id);
         final Throwable error = process.getError();
         if (error != null) {
-            final PrintWriter output = httpServletResponse.getWriter();
-            httpServletResponse.setContentType(MediaType.TEXT_PLAIN);
+            final StringWriter output = new StringWriter();
             if (error instanceof RunnerException) {
                 // expect ot have nice messages from our API
                 output.write(error.getMessage());
             } else {
-                error.printStackTrace(output);
+                error.printStackTrace(new PrintWriter(output));
             }
-            output.flush();
-        } else {
-            final ApplicationLogger logger = process.getLogger();
-            final PrintWriter output = httpServletResponse.getWriter();
-            httpServletResponse.setContentType(logger.getContentType());
-            logger.getLogs(output);
-            output.flush();
+            return Response.ok(output.toString(), MediaType.TEXT_PLAIN).build();
         }
+        final ApplicationLogger logger = process.getLogger();
+        final IndexedLogFile log = logger.getIndexedLog();
+        if (log != null) {
+            return LogsHelper.getLogs(log, logger.getContentType(), fromLine, range, follow);
+        }
+        return Response.ok(new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                final Writer writer = new OutputStreamWriter(output, Charset.forName("UTF-8"));
+                logger.getLogs(writer);
+                writer.flush();
+            }
+        }, logger.getContentType()).build();
     }
 
     @GET
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.runner.dto.RunRequest;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/** @author andrew00x */
+public class ResourceAwareRunnerSelectionStrategyTest {
+    private RemoteRunner runner1 = new RemoteRunner("url1", "java/web", Collections.<Link>emptyList());
+    private RemoteRunner runner2 = new RemoteRunner("url2", "java/web", Collections.<Link>emptyList());
+    private RemoteRunner runner3 = new RemoteRunner("url3", "java/web", Collections.<Link>emptyList());
+
+    private TestResources resources = new TestResources();
+
+    @Test
+    public void testBestFitSelectsRunnerWithLeastMemoryLeft() {
+        resources.freeMemory.put(runner1, 1024L);
+        resources.freeMemory.put(runner2, 512L);
+        resources.freeMemory.put(runner3, 2048L);
+        RemoteRunner selected = new ResourceAwareRunnerSelectionStrategy(ResourceAwareRunnerSelectionStrategy.BEST_FIT)
+                .select(Arrays.asList(runner1, runner2, runner3), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner2);
+    }
+
+    @Test
+    public void testWorstFitSelectsRunnerWithMostMemoryLeft() {
+        resources.freeMemory.put(runner1, 1024L);
+        resources.freeMemory.put(runner2, 512L);
+        resources.freeMemory.put(runner3, 2048L);
+        RemoteRunner selected = new ResourceAwareRunnerSelectionStrategy(ResourceAwareRunnerSelectionStrategy.WORST_FIT)
+                .select(Arrays.asList(runner1, runner2, runner3), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner3);
+    }
+
+    @Test
+    public void testRunnerWithApplicationsOfTheSameWorkspaceIsAvoided() {
+        resources.freeMemory.put(runner1, 512L);
+        resources.freeMemory.put(runner2, 1024L);
+        resources.applications.put(runner1, 1);
+        RemoteRunner selected = new ResourceAwareRunnerSelectionStrategy()
+                .select(Arrays.asList(runner1, runner2), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner2);
+    }
+
+    @Test
+    public void testRunnerWithMoreFreeDiskSpaceIsSelectedIfMemoryIsTheSame() {
+        resources.freeMemory.put(runner1, 512L);
+        resources.freeMemory.put(runner2, 512L);
+        resources.freeDiskSpace.put(runner1, 100L);
+        resources.freeDiskSpace.put(runner2, 200L);
+        RemoteRunner selected = new ResourceAwareRunnerSelectionStrategy()
+                .select(Arrays.asList(runner1, runner2), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner2);
+    }
+
+    @Test
+    public void testRunnerWithUnknownMemoryIsSelectedLast() {
+        resources.freeMemory.put(runner2, 4096L);
+        RemoteRunner selected = new ResourceAwareRunnerSelectionStrategy()
+                .select(Arrays.asList(runner1, runner2), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner2);
+        selected = new ResourceAwareRunnerSelectionStrategy(ResourceAwareRunnerSelectionStrategy.WORST_FIT)
+                .select(Arrays.asList(runner1, runner2), newRequest("ws1", 256), resources);
+        Assert.assertEquals(selected, runner2);
+    }
+
+    private RunRequest newRequest(String workspace, int memory) {
+        return DtoFactory.getInstance().createDto(RunRequest.class).withWorkspace(workspace).withMemorySize(memory);
+    }
+
+    private static class TestResources implements RunnerResources {
+        final Map<RemoteRunner, Long>    freeMemory    = new HashMap<>();
+        final Map<RemoteRunner, Long>    freeDiskSpace = new HashMap<>();
+        final Map<RemoteRunner, Integer> applications  = new HashMap<>();
+
+        @Override
+        public long getFreeMemory(RemoteRunner runner) {
+            final Long free = freeMemory.get(runner);
+            return free == null ? -1 : free;
+        }
+
+        @Override
+        public long getTotalMemory(RemoteRunner runner) {
+            return -1;
+        }
+
+        @Override
+        public long getFreeDiskSpace(RemoteRunner runner) {
+            final Long free = freeDiskSpace.get(runner);
+            return free == null ? -1 : free;
+        }
+
+        @Override
+        public int getApplicationsNum(RemoteRunner runner, String workspace) {
+            final Integer num = applications.get(runner);
+            return num == null ? 0 : num;
+        }
+    }
+}
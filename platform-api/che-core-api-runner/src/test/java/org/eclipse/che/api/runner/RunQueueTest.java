@@ -14,12 +14,13 @@ import org.eclipse.che.api.builder.BuildStatus;
 import org.eclipse.che.api.builder.RemoteBuilderServer;
 import org.eclipse.che.api.builder.dto.BuildOptions;
 import org.eclipse.che.api.builder.dto.BuildTaskDescriptor;
+import org.eclipse.che.api.builder.internal.BuilderEvent;
 import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.notification.EventSubscriber;
 import org.eclipse.che.api.core.rest.HttpJsonHelper;
 import org.eclipse.che.api.core.rest.RemoteServiceDescriptor;
 import org.eclipse.che.api.core.rest.ServiceContext;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
-import org.eclipse.che.api.core.util.ValueHolder;
 import org.eclipse.che.api.project.shared.dto.BuildersDescriptor;
 import org.eclipse.che.api.project.shared.dto.ItemReference;
 import org.eclipse.che.api.project.shared.dto.ProjectDescriptor;
@@ -54,6 +55,8 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.UriBuilder;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -64,11 +67,13 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -101,6 +106,7 @@ public class RunQueueTest {
     private ProjectDescriptor   project;
     private WorkspaceDescriptor workspace;
     private EnvironmentContext  codenvyContext;
+    private EventService        eventService;
 
     private List<RunnerEvent> events = new CopyOnWriteArrayList<>();
 
@@ -111,7 +117,7 @@ public class RunQueueTest {
         field.setAccessible(true);
         field.set(null, httpJsonHelper);
 
-        EventService eventService = mock(EventService.class);
+        eventService = mock(EventService.class);
         doAnswer(new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
@@ -635,7 +641,7 @@ public class RunQueueTest {
                 Thread.sleep(5000); // need to have first task in waiting status
                 return null;
             }
-        }).when(runQueue).createTaskFor(anyListOf(RemoteRunner.class), any(RunRequest.class), any(ValueHolder.class));
+        }).when(runQueue).createTaskFor(anyListOf(RemoteRunner.class), any(RunRequest.class));
 
         runQueue.run(wsId, pPath, serviceContext, dto(RunOptions.class).withMemorySize(128));
         runQueue.run(wsId, pPath, serviceContext, dto(RunOptions.class).withMemorySize(129));
@@ -669,6 +675,183 @@ public class RunQueueTest {
         checkEvents(RunnerEvent.EventType.RUN_TASK_ADDED_IN_QUEUE, RunnerEvent.EventType.RUN_TASK_QUEUE_TIME_EXCEEDED);
     }
 
+    @Test
+    public void testErrorWhenTooManyWaitingRequestsFromWorkspace() throws Exception {
+        runQueue.stop();
+        runQueue.maxWaitingPerWorkspace = 1;
+        runQueue.start();
+        RemoteRunnerServer runnerServer = registerDefaultRunnerServer();
+        RemoteRunner runner = runnerServer.getRemoteRunner("java/web");
+        // Free memory should be less (!!!) than 256.
+        doReturn(dto(RunnerState.class).withServerState(dto(ServerState.class).withFreeMemory(128))).when(runner).getRemoteRunnerState();
+
+        ServiceContext serviceContext = newServiceContext();
+        project.withRunners(dto(RunnersDescriptor.class).withDefault("system:/java/web/tomcat7"));
+
+        doReturn(project).when(runQueue).getProjectDescriptor(wsId, pPath, serviceContext);
+        doReturn(workspace).when(runQueue).getWorkspaceDescriptor(wsId, serviceContext);
+        doNothing().when(runQueue).checkResources(eq(workspace), any(RunRequest.class));
+
+        RunQueueTask task = runQueue.run(wsId, pPath, serviceContext, null);
+        assertTrue(task.isWaiting());
+        try {
+            runQueue.run(wsId, pPath, serviceContext, null);
+            fail("RunnerException expected");
+        } catch (RunnerException e) {
+            assertTrue(e.getMessage().startsWith("Too many waiting requests from workspace"), e.getMessage());
+        }
+        assertEquals(getMetric(RunnerMetric.QUEUE_SIZE), "1");
+        verify(runner, never()).run(any(RunRequest.class));
+    }
+
+    @Test
+    public void testRunnerStateIsCheckedOnceForAllWaitingRequests() throws Exception {
+        RemoteRunnerServer runnerServer = registerDefaultRunnerServer();
+        RemoteRunner runner = runnerServer.getRemoteRunner("java/web");
+        final AtomicInteger stateChecks = new AtomicInteger();
+        doAnswer(new Answer<RunnerState>() {
+            @Override
+            public RunnerState answer(InvocationOnMock invocation) throws Throwable {
+                stateChecks.incrementAndGet();
+                // Free memory should be less (!!!) than 256.
+                return dto(RunnerState.class).withServerState(dto(ServerState.class).withFreeMemory(128));
+            }
+        }).when(runner).getRemoteRunnerState();
+
+        ServiceContext serviceContext = newServiceContext();
+        project.withRunners(dto(RunnersDescriptor.class).withDefault("system:/java/web/tomcat7"));
+
+        doReturn(project).when(runQueue).getProjectDescriptor(wsId, pPath, serviceContext);
+        doReturn(workspace).when(runQueue).getWorkspaceDescriptor(wsId, serviceContext);
+        doNothing().when(runQueue).checkResources(eq(workspace), any(RunRequest.class));
+
+        for (int i = 0; i < 5; i++) {
+            runQueue.run(wsId, pPath, serviceContext, null);
+        }
+        // Wait for the end of dispatching of new requests.
+        TimeUnit.MILLISECONDS.sleep(200);
+        stateChecks.set(0);
+        // One or two periodical checks of runners, each of them gets state of runner once for all requests.
+        TimeUnit.MILLISECONDS.sleep(1500);
+        assertTrue(stateChecks.get() <= 2, "Too many checks of runner state: " + stateChecks.get());
+        verify(runner, never()).run(any(RunRequest.class));
+        assertEquals(getMetric(RunnerMetric.QUEUE_SIZE), "5");
+    }
+
+    @Test
+    public void testRunStartsWhenBuildIsDoneWithoutWaitingForPeriodicalCheck() throws Exception {
+        restartWithoutPeriodicalCheckOfBuilds();
+        RemoteRunner runner = mockRunnerWithBuilder();
+        final ServiceContext serviceContext = newServiceContext();
+        mockBuilderApi(7, null);
+
+        runQueue.run(wsId, pPath, serviceContext, null);
+        TimeUnit.MILLISECONDS.sleep(300);
+        verify(runner, never()).run(any(RunRequest.class));
+
+        getBuilderEventSubscriber().onEvent(BuilderEvent.doneEvent(7, wsId, pPath));
+        // Much less than period of checking builds.
+        verify(runner, timeout(1000)).run(any(RunRequest.class));
+        assertNotNull(getMetric(RunnerMetric.QUEUE_AVERAGE_BUILD_TO_RUN_TIME));
+    }
+
+    @Test
+    public void testRunStartsWhenBuildIsDoneBeforeRequestGetsIdOfBuild() throws Exception {
+        restartWithoutPeriodicalCheckOfBuilds();
+        RemoteRunner runner = mockRunnerWithBuilder();
+        final ServiceContext serviceContext = newServiceContext();
+        // Build is done (e.g. result of previous build is reused) before the queue gets response from builder.
+        mockBuilderApi(7, getBuilderEventSubscriber());
+
+        runQueue.run(wsId, pPath, serviceContext, null);
+
+        verify(runner, timeout(1000)).run(any(RunRequest.class));
+    }
+
+    @Test
+    public void testNotificationAboutOtherBuildIsIgnored() throws Exception {
+        restartWithoutPeriodicalCheckOfBuilds();
+        RemoteRunner runner = mockRunnerWithBuilder();
+        final ServiceContext serviceContext = newServiceContext();
+        mockBuilderApi(7, null);
+
+        runQueue.run(wsId, pPath, serviceContext, null);
+        getBuilderEventSubscriber().onEvent(BuilderEvent.doneEvent(8, wsId, pPath));
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        verify(runner, never()).run(any(RunRequest.class));
+        assertEquals(getMetric(RunnerMetric.QUEUE_SIZE), "1");
+    }
+
+    private void restartWithoutPeriodicalCheckOfBuilds() {
+        runQueue.stop();
+        runQueue.checkBuildResultPeriod = TimeUnit.MINUTES.toMillis(1);
+        runQueue.start();
+    }
+
+    private RemoteRunner mockRunnerWithBuilder() throws Exception {
+        RemoteRunnerServer runnerServer = registerDefaultRunnerServer();
+        RemoteRunner runner = runnerServer.getRemoteRunner("java/web");
+        // Free memory should be more than 256.
+        doReturn(dto(RunnerState.class).withServerState(dto(ServerState.class).withFreeMemory(512))).when(runner).getRemoteRunnerState();
+        RemoteRunnerProcess process = spy(new RemoteRunnerProcess(runnerServer.getBaseUrl(), runner.getName(), 1L));
+        doReturn(process).when(runner).run(any(RunRequest.class));
+        project.withBuilders(dto(BuildersDescriptor.class).withDefault("maven"))
+               .withRunners(dto(RunnersDescriptor.class).withDefault("system:/java/web/tomcat7"));
+        doReturn(project).when(runQueue).getProjectDescriptor(eq(wsId), eq(pPath), any(ServiceContext.class));
+        doReturn(workspace).when(runQueue).getWorkspaceDescriptor(eq(wsId), any(ServiceContext.class));
+        doNothing().when(runQueue).checkResources(eq(workspace), any(RunRequest.class));
+        return runner;
+    }
+
+    /** Mocks builder that has build with specified id in queue and reports about successful build when status is requested. */
+    private void mockBuilderApi(final long buildTaskId, final EventSubscriber<BuilderEvent> notifyBeforeResponse) throws Exception {
+        final BuildTaskDescriptor buildTaskQueue = dto(BuildTaskDescriptor.class).withTaskId(buildTaskId).withStatus(BuildStatus.IN_QUEUE);
+        String statusLink = String.format("http://localhost:8080/api/builder/%s/status/%d", wsId, buildTaskId);
+        buildTaskQueue.getLinks().add(dto(Link.class).withMethod(HttpMethod.GET)
+                                                     .withHref(statusLink)
+                                                     .withRel(org.eclipse.che.api.builder.internal.Constants.LINK_REL_GET_STATUS));
+        doAnswer(new Answer<BuildTaskDescriptor>() {
+            @Override
+            public BuildTaskDescriptor answer(InvocationOnMock invocation) throws Throwable {
+                if (notifyBeforeResponse != null) {
+                    notifyBeforeResponse.onEvent(BuilderEvent.doneEvent(buildTaskId, wsId, pPath));
+                }
+                return buildTaskQueue;
+            }
+        }).when(runQueue).startBuild(any(RemoteServiceDescriptor.class), eq(pPath), any(BuildOptions.class));
+        final BuildTaskDescriptor buildTaskDone = dtoFactory.clone(buildTaskQueue)
+                                                            .withStatus(BuildStatus.SUCCESSFUL)
+                                                            .withEndTime(System.currentTimeMillis());
+        doReturn(buildTaskDone).when(httpJsonHelper).request(eq(BuildTaskDescriptor.class), eq(statusLink), eq(HttpMethod.GET), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventSubscriber<BuilderEvent> getBuilderEventSubscriber() {
+        ArgumentCaptor<EventSubscriber> captor = ArgumentCaptor.forClass(EventSubscriber.class);
+        verify(eventService, atLeastOnce()).subscribe(captor.capture());
+        List<EventSubscriber> subscribers = captor.getAllValues();
+        // Take subscriber that is registered with the last start of queue.
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            for (Type type : subscribers.get(i).getClass().getGenericInterfaces()) {
+                if (type instanceof ParameterizedType && ((ParameterizedType)type).getActualTypeArguments()[0] == BuilderEvent.class) {
+                    return subscribers.get(i);
+                }
+            }
+        }
+        fail("Subscriber of builder events isn't registered");
+        return null;
+    }
+
+    private String getMetric(String name) {
+        for (RunnerMetric metric : runQueue.getStats()) {
+            if (name.equals(metric.getName())) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
     private String mockBuilderApi(final int inProgressNum) throws Exception {
         assertTrue(inProgressNum >= 1);
         final BuildTaskDescriptor buildTaskQueue = dto(BuildTaskDescriptor.class).withStatus(BuildStatus.IN_QUEUE);
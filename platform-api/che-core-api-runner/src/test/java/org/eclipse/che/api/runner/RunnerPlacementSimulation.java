@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.runner.dto.RunRequest;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Replays recorded run requests with different implementations of {@link RunnerSelectionStrategy} and compares utilization of memory
+ * of runners and time of waiting in queue. Each line of record is: time of request in milliseconds, workspace, memory in megabytes
+ * and time of running application in milliseconds, separated with spaces or commas, lines that start with '#' are ignored. Without
+ * record random requests are generated. As in RunQueue, request that needs more memory doesn't block next requests.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.runner.RunnerPlacementSimulation \
+ *         -Dexec.args=requests.txt -Drunners=10 -Drunner.memory=4096
+ * </pre>
+ *
+ * @author andrew00x
+ */
+public class RunnerPlacementSimulation {
+    private static final int BIG_APPLICATION_MEMORY = 1024;
+
+    public static void main(String[] args) throws IOException {
+        final List<Request> requests = args.length > 0 ? readRequests(args[0]) : generateRequests(2000, new Random(42));
+        final int runnersNum = Integer.getInteger("runners", 10);
+        final int runnerMemory = Integer.getInteger("runner.memory", 4096);
+        final Map<String, RunnerSelectionStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("last in use", new LastInUseRunnerSelectionStrategy());
+        strategies.put("random", new RandomRunnerSelectionStrategy());
+        strategies.put("best fit", new ResourceAwareRunnerSelectionStrategy(ResourceAwareRunnerSelectionStrategy.BEST_FIT));
+        strategies.put("worst fit", new ResourceAwareRunnerSelectionStrategy(ResourceAwareRunnerSelectionStrategy.WORST_FIT));
+        System.out.printf("%d requests, %d runners with %dMB%n", requests.size(), runnersNum, runnerMemory);
+        System.out.printf("%-12s %12s %12s %16s %12s%n", "strategy", "utilization", "avg wait", "avg wait (big)", "max wait");
+        for (Map.Entry<String, RunnerSelectionStrategy> e : strategies.entrySet()) {
+            final Result result = new Simulation(e.getValue(), runnersNum, runnerMemory).run(requests);
+            System.out.printf("%-12s %11.1f%% %10dms %14dms %10dms%n", e.getKey(), result.utilization * 100, result.averageWaitingTime,
+                              result.averageBigWaitingTime, result.maxWaitingTime);
+        }
+    }
+
+    static List<Request> readRequests(String path) throws IOException {
+        final List<Request> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split("[\\s,]+");
+                requests.add(new Request(Long.parseLong(fields[0]), fields[1], Integer.parseInt(fields[2]), Long.parseLong(fields[3])));
+            }
+        }
+        Collections.sort(requests);
+        return requests;
+    }
+
+    static List<Request> generateRequests(int num, Random random) {
+        final int[] memory = {128, 256, 256, 512, 512, 512, 1024, 1024, 2048};
+        final List<Request> requests = new ArrayList<>(num);
+        long time = 0;
+        for (int i = 0; i < num; i++) {
+            time += (long)(-Math.log(1 - random.nextDouble()) * 1000);
+            final long duration = (long)(-Math.log(1 - random.nextDouble()) * 50000);
+            requests.add(new Request(time, "workspace" + random.nextInt(100), memory[random.nextInt(memory.length)], duration));
+        }
+        return requests;
+    }
+
+    static class Request implements Comparable<Request> {
+        final long   time;
+        final String workspace;
+        final int    memory;
+        final long   duration;
+
+        Request(long time, String workspace, int memory, long duration) {
+            this.time = time;
+            this.workspace = workspace;
+            this.memory = memory;
+            this.duration = duration;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            return Long.compare(time, other.time);
+        }
+    }
+
+    static class Result {
+        double utilization;
+        long   averageWaitingTime;
+        long   averageBigWaitingTime;
+        long   maxWaitingTime;
+    }
+
+    private static class Simulation implements RunnerResources {
+        final RunnerSelectionStrategy strategy;
+        final int                     runnerMemory;
+        final List<RemoteRunner>      runners;
+        final Map<RemoteRunner, Long> freeMemory;
+        /* Runner -> workspace -> number of applications. */
+        final Map<RemoteRunner, Map<String, Integer>> applications;
+
+        Simulation(RunnerSelectionStrategy strategy, int runnersNum, int runnerMemory) {
+            this.strategy = strategy;
+            this.runnerMemory = runnerMemory;
+            runners = new ArrayList<>(runnersNum);
+            freeMemory = new HashMap<>();
+            applications = new HashMap<>();
+            for (int i = 0; i < runnersNum; i++) {
+                final RemoteRunner runner = new RemoteRunner("http://runner" + i + ":8080/api/internal/runner", "java/web",
+                                                             Collections.<Link>emptyList());
+                runners.add(runner);
+                freeMemory.put(runner, (long)runnerMemory);
+                applications.put(runner, new HashMap<String, Integer>());
+            }
+        }
+
+        Result run(List<Request> requests) {
+            final DtoFactory dtoFactory = DtoFactory.getInstance();
+            final PriorityQueue<Completion> running = new PriorityQueue<>();
+            final LinkedList<Request> waiting = new LinkedList<>();
+            final Iterator<Request> arrivals = requests.iterator();
+            Request next = arrivals.hasNext() ? arrivals.next() : null;
+            long now = 0;
+            long usedMemory = 0;
+            double usedMemoryTime = 0;
+            long totalWaitingTime = 0;
+            long bigWaitingTime = 0;
+            int bigNum = 0;
+            long maxWaitingTime = 0;
+            while (next != null || !running.isEmpty()) {
+                final long time = running.isEmpty() || (next != null && next.time < running.peek().time) ? next.time : running.peek().time;
+                usedMemoryTime += (double)usedMemory * (time - now);
+                now = time;
+                while (!running.isEmpty() && running.peek().time == now) {
+                    final Completion completion = running.poll();
+                    freeMemory.put(completion.runner, freeMemory.get(completion.runner) + completion.request.memory);
+                    final Map<String, Integer> apps = applications.get(completion.runner);
+                    apps.put(completion.request.workspace, apps.get(completion.request.workspace) - 1);
+                    usedMemory -= completion.request.memory;
+                }
+                while (next != null && next.time == now) {
+                    waiting.add(next);
+                    next = arrivals.hasNext() ? arrivals.next() : null;
+                }
+                for (Iterator<Request> i = waiting.iterator(); i.hasNext(); ) {
+                    final Request request = i.next();
+                    final List<RemoteRunner> available = new ArrayList<>();
+                    for (RemoteRunner runner : runners) {
+                        if (freeMemory.get(runner) >= request.memory) {
+                            available.add(runner);
+                        }
+                    }
+                    if (available.isEmpty()) {
+                        continue;
+                    }
+                    final RunRequest runRequest = dtoFactory.createDto(RunRequest.class).withWorkspace(request.workspace)
+                                                            .withMemorySize(request.memory);
+                    final RemoteRunner runner = available.size() > 1 ? strategy.select(available, runRequest, this) : available.get(0);
+                    i.remove();
+                    freeMemory.put(runner, freeMemory.get(runner) - request.memory);
+                    final Map<String, Integer> apps = applications.get(runner);
+                    final Integer num = apps.get(request.workspace);
+                    apps.put(request.workspace, num == null ? 1 : num + 1);
+                    usedMemory += request.memory;
+                    running.add(new Completion(now + request.duration, runner, request));
+                    final long waitingTime = now - request.time;
+                    totalWaitingTime += waitingTime;
+                    maxWaitingTime = Math.max(maxWaitingTime, waitingTime);
+                    if (request.memory >= BIG_APPLICATION_MEMORY) {
+                        bigWaitingTime += waitingTime;
+                        bigNum++;
+                    }
+                }
+            }
+            final Result result = new Result();
+            result.utilization = now == 0 ? 0 : usedMemoryTime / ((double)runnerMemory * runners.size() * now);
+            result.averageWaitingTime = requests.isEmpty() ? 0 : totalWaitingTime / requests.size();
+            result.averageBigWaitingTime = bigNum == 0 ? 0 : bigWaitingTime / bigNum;
+            result.maxWaitingTime = maxWaitingTime;
+            return result;
+        }
+
+        @Override
+        public long getFreeMemory(RemoteRunner runner) {
+            return freeMemory.get(runner);
+        }
+
+        @Override
+        public long getTotalMemory(RemoteRunner runner) {
+            return runnerMemory;
+        }
+
+        @Override
+        public long getFreeDiskSpace(RemoteRunner runner) {
+            return -1;
+        }
+
+        @Override
+        public int getApplicationsNum(RemoteRunner runner, String workspace) {
+            final Integer num = applications.get(runner).get(workspace);
+            return num == null ? 0 : num;
+        }
+    }
+
+    private static class Completion implements Comparable<Completion> {
+        final long         time;
+        final RemoteRunner runner;
+        final Request      request;
+
+        Completion(long time, RemoteRunner runner, Request request) {
+            this.time = time;
+            this.runner = runner;
+            this.request = request;
+        }
+
+        @Override
+        public int compareTo(Completion other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.runner;
+
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.runner.dto.RunnerState;
+import org.eclipse.che.api.runner.dto.ServerState;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/** @author andrew00x */
+public class RunnerStateCacheTest {
+    private RemoteRunner     runner;
+    private RunnerStateCache cache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        runner = spy(new RemoteRunner("url1", "java/web", Collections.<Link>emptyList()));
+        doReturn(newState(512)).when(runner).getRemoteRunnerState();
+        cache = new RunnerStateCache(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    public void testStateIsRequestedOnceUntilExpired() throws Exception {
+        cache.getState(runner);
+        cache.getState(runner);
+        verify(runner, times(1)).getRemoteRunnerState();
+        cache.invalidate();
+        cache.getState(runner);
+        verify(runner, times(2)).getRemoteRunnerState();
+    }
+
+    @Test
+    public void testReservedMemoryIsNotFree() throws Exception {
+        cache.getState(runner);
+        Assert.assertTrue(cache.reserve(runner, 256));
+        Assert.assertEquals(cache.getFreeMemory(runner), 256);
+        Assert.assertTrue(cache.reserve(runner, 256));
+        Assert.assertFalse(cache.reserve(runner, 1));
+        cache.release(runner, 256);
+        Assert.assertEquals(cache.getFreeMemory(runner), 256);
+    }
+
+    @Test
+    public void testReleaseExpiresState() throws Exception {
+        cache.getState(runner);
+        Assert.assertTrue(cache.reserve(runner, 256));
+        doReturn(newState(256)).when(runner).getRemoteRunnerState();
+        cache.release(runner, 256);
+        cache.getState(runner);
+        verify(runner, times(2)).getRemoteRunnerState();
+        Assert.assertEquals(cache.getFreeMemory(runner), 256);
+    }
+
+    @Test
+    public void testRunnerWithoutStateIsNotReserved() throws Exception {
+        Assert.assertFalse(cache.reserve(runner, 1));
+        Assert.assertEquals(cache.getFreeMemory(runner), -1);
+    }
+
+    @Test
+    public void testLastFreeMemoryIsReservedOnce() throws Exception {
+        cache.getState(runner);
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return cache.reserve(runner, 256);
+                    }
+                }));
+            }
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+            Assert.assertEquals(reserved, 2);
+            Assert.assertEquals(cache.getFreeMemory(runner), 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RunnerState newState(long freeMemory) {
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        return dtoFactory.createDto(RunnerState.class).withServerState(dtoFactory.createDto(ServerState.class).withFreeMemory(freeMemory));
+    }
+}
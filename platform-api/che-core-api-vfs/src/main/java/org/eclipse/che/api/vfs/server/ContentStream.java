@@ -10,10 +10,23 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.server;
 
+import org.eclipse.che.api.vfs.server.util.ByteBufferInputStream;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Date;
 
 /**
+ * Content of file or any other data, e.g. zipped folder, that should be sent to the client. Content may be provided as
+ * {@link InputStream} or with {@link Writer} that produces content directly to the output stream when content is requested.
+ * In last case content is not prepared in advance and its length is unknown.
+ *
  * @author <a href="mailto:aparfonov@exoplatform.com">Andrey Parfonov</a>
  */
 public final class ContentStream {
@@ -21,6 +34,8 @@ public final class ContentStream {
 
     private final InputStream stream;
 
+    private final Writer writer;
+
     private final String mimeType;
 
     private final long length;
@@ -30,6 +45,7 @@ public final class ContentStream {
     public ContentStream(String fileName, InputStream stream, String mimeType, long length, Date lastModificationDate) {
         this.fileName = fileName;
         this.stream = stream;
+        this.writer = null;
         this.mimeType = mimeType;
         this.length = length;
         this.lastModificationDate = lastModificationDate;
@@ -43,14 +59,81 @@ public final class ContentStream {
         this(fileName, stream, mimeType, -1, new Date());
     }
 
+    public ContentStream(String fileName, Writer writer, String mimeType, Date lastModificationDate) {
+        this.fileName = fileName;
+        this.stream = null;
+        this.writer = writer;
+        this.mimeType = mimeType;
+        this.length = -1;
+        this.lastModificationDate = lastModificationDate;
+    }
+
     public String getFileName() {
         return fileName;
     }
 
+    /** Gets content as stream. Returns {@code null} if content is produced with {@link Writer}. */
     public InputStream getStream() {
         return stream;
     }
 
+    /** Gets writer that produces content. Returns {@code null} if content is provided as stream. */
+    public Writer getWriter() {
+        return writer;
+    }
+
+    /**
+     * Writes content to the specified stream. Specified stream is not closed. Content of file is transferred with {@link
+     * FileChannel#transferTo(long, long, WritableByteChannel)}, so it is not copied to the java heap if operating system
+     * supports that for the specified stream, e.g. when it writes to a file. Memory-mapped content is written directly from
+     * the mapped buffer.
+     *
+     * @param out
+     *         output stream
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (writer != null) {
+            writer.writeTo(out);
+        } else if (stream instanceof FileInputStream) {
+            try (FileInputStream content = (FileInputStream)stream) {
+                final FileChannel source = content.getChannel();
+                final WritableByteChannel target = toChannel(out);
+                final long size = source.size();
+                long position = source.position();
+                while (position < size) {
+                    final long transferred = source.transferTo(position, size - position, target);
+                    if (transferred <= 0) {
+                        break; // File truncated since we opened it.
+                    }
+                    position += transferred;
+                }
+            }
+        } else if (stream instanceof ByteBufferInputStream) {
+            try (ByteBufferInputStream content = (ByteBufferInputStream)stream) {
+                content.writeTo(toChannel(out));
+            }
+        } else {
+            try (InputStream content = stream) {
+                byte[] buf = new byte[8192];
+                int rd;
+                while ((rd = content.read(buf)) != -1) {
+                    out.write(buf, 0, rd);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /* Channel that writes to the specified stream. Closing of channel closes stream, so caller must not close it. */
+    private static WritableByteChannel toChannel(OutputStream out) {
+        if (out instanceof FileOutputStream) {
+            return ((FileOutputStream)out).getChannel();
+        }
+        return Channels.newChannel(out);
+    }
+
     public String getMimeType() {
         return mimeType;
     }
@@ -62,4 +145,17 @@ public final class ContentStream {
     public Date getLastModificationDate() {
         return lastModificationDate;
     }
+
+    /** Produces content directly to the output stream, e.g. to the body of HTTP response. */
+    public interface Writer {
+        /**
+         * Writes content to the specified stream. Implementation should not close the stream.
+         *
+         * @param out
+         *         output stream
+         * @throws IOException
+         *         if an i/o error occurs
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
 }
@@ -18,7 +18,6 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
@@ -26,7 +25,8 @@ import java.util.Date;
 
 /**
  * Serializer for ContentStream. Copy headers and content provided by method {@link ContentStream#getStream()} to HTTP
- * output stream.
+ * output stream. If content is produced with {@link ContentStream.Writer} it is written directly to HTTP output stream
+ * without any intermediate buffers.
  *
  * @author <a href="mailto:aparfonov@exoplatform.com">Andrey Parfonov</a>
  */
@@ -72,13 +72,6 @@ public final class ContentStreamWriter implements MessageBodyWriter<ContentStrea
 
         httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "public, no-cache, no-store, no-transform");
 
-        try (InputStream content = t.getStream()) {
-            byte[] buf = new byte[8192];
-            int rd;
-            while ((rd = content.read(buf)) != -1) {
-                entityStream.write(buf, 0, rd);
-            }
-            entityStream.flush();
-        }
+        t.writeTo(entityStream);
     }
 }
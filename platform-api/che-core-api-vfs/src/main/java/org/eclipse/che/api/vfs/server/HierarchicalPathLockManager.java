@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of PathLockManager that has the same semantic as {@link PathLockFactory} but does not use single monitor
+ * for all paths. Each locked path has own node in hash table. Node is guarded by own monitor and threads which wait for
+ * lock on path are notified only when lock on the same path is released.
+ * <p/>
+ * Parent/child exclusion is implemented with intention locks (multiple granularity locking). Before get lock on path
+ * thread gets intention lock on each parent of path, starting from the root. Lock on path conflicts with intention lock
+ * on the same path if lock on path prevents locking of children in required mode:
+ * <pre>
+ *            IS     IX     S      X
+ *     IS     +      +      +      -
+ *     IX     +      +      -      -
+ *     S      +      -      +      -
+ *     X      -      -      -      -
+ * </pre>
+ * Locks are reentrant. Lock must be released by the same thread that acquired it. Number of holds of each thread are kept
+ * in thread local storage, so node's monitor is held only to update few counters. Nodes are not removed from table
+ * immediately after last lock is released, that helps to avoid creation of the same nodes for parent folders again and again.
+ * Unused nodes are removed when number of nodes in table exceeds {@link #MAX_IDLE_NODES}.
+ *
+ * @author andrew00x
+ */
+public final class HierarchicalPathLockManager implements PathLockManager {
+    private static final int MAX_RECURSIVE_LOCKS = (1 << 10) - 1;
+    /** Max number of nodes in table. When this number is exceeded all unused nodes are removed from table. */
+    private static final int MAX_IDLE_NODES      = 1 << 12;
+
+    /* Lock modes. */
+    private static final int INTENTION_SHARED    = 0;
+    private static final int INTENTION_EXCLUSIVE = 1;
+    private static final int SHARED              = 2;
+    private static final int EXCLUSIVE           = 3;
+
+    private static final boolean[][] COMPATIBLE = {
+            {true, true, true, false},
+            {true, true, false, false},
+            {true, false, true, false},
+            {false, false, false, false}
+    };
+
+    private static final int[] NO_HOLDS = new int[4];
+
+    /** Max number of threads allowed to get shared lock on the same path. */
+    private final int                           maxThreads;
+    private final ConcurrentMap<Path, Node>     nodes;
+    /** Number of holds of current thread in each mode per node. */
+    private final ThreadLocal<Map<Node, int[]>> holds;
+    private final AtomicBoolean                 cleaning;
+
+    /**
+     * @param maxThreads
+     *         the max number of threads are allowed to access one file. Typically this parameter should be big enough to
+     *         avoid blocking threads that need to obtain NOT exclusive lock.
+     */
+    public HierarchicalPathLockManager(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxThreads = maxThreads;
+        nodes = new ConcurrentHashMap<>();
+        holds = new ThreadLocal<Map<Node, int[]>>() {
+            @Override
+            protected Map<Node, int[]> initialValue() {
+                return new HashMap<>();
+            }
+        };
+        cleaning = new AtomicBoolean();
+    }
+
+    @Override
+    public Lock getLock(Path path, boolean exclusive) {
+        return new HierarchicalPathLock(path, exclusive);
+    }
+
+    @Override
+    public void checkClean() {
+        for (Node node : nodes.values()) {
+            synchronized (node) {
+                assert node.isIdle();
+            }
+        }
+    }
+
+    private void acquire(Path path, Path[] parents, boolean exclusive, long endTime) {
+        final int intention = exclusive ? INTENTION_EXCLUSIVE : INTENTION_SHARED;
+        int locked = 0;
+        try {
+            for (; locked < parents.length; locked++) {
+                lockNode(parents[locked], intention, endTime);
+            }
+            lockNode(path, exclusive ? EXCLUSIVE : SHARED, endTime);
+        } catch (RuntimeException | Error e) {
+            // Give back intention locks we already got.
+            for (int i = locked - 1; i >= 0; i--) {
+                unlockNode(parents[i], intention);
+            }
+            throw e;
+        }
+    }
+
+    private void release(Path path, Path[] parents, boolean exclusive) {
+        unlockNode(path, exclusive ? EXCLUSIVE : SHARED);
+        final int intention = exclusive ? INTENTION_EXCLUSIVE : INTENTION_SHARED;
+        for (int i = parents.length - 1; i >= 0; i--) {
+            unlockNode(parents[i], intention);
+        }
+        if (nodes.size() > MAX_IDLE_NODES) {
+            removeIdleNodes();
+        }
+    }
+
+    /**
+     * Get lock on single node.
+     *
+     * @param endTime
+     *         time when waiting of lock must be stopped or {@code 0} if need to wait until lock available
+     */
+    private void lockNode(Path path, int mode, long endTime) {
+        final Map<Node, int[]> myHolds = holds.get();
+        for (; ; ) {
+            Node node = nodes.get(path);
+            if (node == null) {
+                final Node newNode = new Node();
+                node = nodes.putIfAbsent(path, newNode);
+                if (node == null) {
+                    node = newNode;
+                }
+            }
+            int[] mine = myHolds.get(node);
+            if (mine == null) {
+                mine = NO_HOLDS;
+            }
+            synchronized (node) {
+                if (node.removed) {
+                    // Node was removed from table after we got it. Try to get fresh one.
+                    continue;
+                }
+                if (!node.isGrantable(mode, mine, maxThreads)) {
+                    node.waiters++;
+                    try {
+                        do {
+                            if (endTime > 0) {
+                                final long waitTime = endTime - System.currentTimeMillis();
+                                if (waitTime <= 0) {
+                                    throw new RuntimeException(String.format("Get lock timeout for '%s'. ", path));
+                                }
+                                node.wait(waitTime);
+                            } else {
+                                node.wait();
+                            }
+                        } while (!node.isGrantable(mode, mine, maxThreads));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    } finally {
+                        node.waiters--;
+                    }
+                }
+                if (mine[mode] >= MAX_RECURSIVE_LOCKS) {
+                    throw new Error("Max number of recursive locks exceeded. ");
+                }
+                if (mine == NO_HOLDS) {
+                    myHolds.put(node, mine = new int[4]);
+                }
+                if (mode == SHARED && mine[SHARED] == 0) {
+                    node.sharedThreads++;
+                }
+                mine[mode]++;
+                node.granted[mode]++;
+                return;
+            }
+        }
+    }
+
+    private void unlockNode(Path path, int mode) {
+        final Node node = nodes.get(path);
+        final Map<Node, int[]> myHolds = holds.get();
+        final int[] mine = node == null ? null : myHolds.get(node);
+        if (mine == null || mine[mode] == 0) {
+            throw new IllegalMonitorStateException(String.format("Lock for '%s' is not held by current thread. ", path));
+        }
+        synchronized (node) {
+            mine[mode]--;
+            node.granted[mode]--;
+            if (mode == SHARED && mine[SHARED] == 0) {
+                node.sharedThreads--;
+            }
+            if (node.waiters > 0) {
+                // Wake up only threads that wait for the same path.
+                node.notifyAll();
+            }
+        }
+        if (mine[INTENTION_SHARED] == 0 && mine[INTENTION_EXCLUSIVE] == 0 && mine[SHARED] == 0 && mine[EXCLUSIVE] == 0) {
+            myHolds.remove(node);
+        }
+    }
+
+    private void removeIdleNodes() {
+        if (cleaning.compareAndSet(false, true)) {
+            try {
+                for (Iterator<Map.Entry<Path, Node>> iterator = nodes.entrySet().iterator(); iterator.hasNext(); ) {
+                    final Node node = iterator.next().getValue();
+                    synchronized (node) {
+                        if (node.isIdle()) {
+                            node.removed = true;
+                            iterator.remove();
+                        }
+                    }
+                }
+            } finally {
+                cleaning.set(false);
+            }
+        }
+    }
+
+    /** Get all parents of path, starting from the root. */
+    private static Path[] parentsOf(Path path) {
+        final int length = path.length();
+        final Path[] parents = new Path[length];
+        Path parent = path;
+        for (int i = length - 1; i >= 0; i--) {
+            parent = parent.getParent();
+            parents[i] = parent;
+        }
+        return parents;
+    }
+
+   /* =============================================== */
+
+    private static class Node {
+        /** Number of holds in each mode for all threads. */
+        final int[] granted = new int[4];
+        /** Number of threads that hold shared lock. */
+        int     sharedThreads;
+        int     waiters;
+        boolean removed;
+
+        boolean isGrantable(int mode, int[] mine, int maxThreads) {
+            for (int held = 0; held < granted.length; held++) {
+                // Locks of current thread never prevent it to get new lock.
+                if (granted[held] - mine[held] > 0 && !COMPATIBLE[mode][held]) {
+                    return false;
+                }
+            }
+            return !(mode == SHARED && mine[SHARED] == 0 && sharedThreads >= maxThreads);
+        }
+
+        boolean isIdle() {
+            return waiters == 0
+                   && granted[INTENTION_SHARED] == 0 && granted[INTENTION_EXCLUSIVE] == 0 && granted[SHARED] == 0 && granted[EXCLUSIVE] == 0;
+        }
+    }
+
+    private final class HierarchicalPathLock implements Lock {
+        private final Path    path;
+        private final Path[]  parents;
+        private final boolean exclusive;
+
+        private HierarchicalPathLock(Path path, boolean exclusive) {
+            this.path = path;
+            this.exclusive = exclusive;
+            parents = parentsOf(path);
+        }
+
+        @Override
+        public Lock acquire() {
+            HierarchicalPathLockManager.this.acquire(path, parents, exclusive, 0);
+            return this;
+        }
+
+        @Override
+        public Lock acquire(long timeoutMilliseconds) {
+            HierarchicalPathLockManager.this.acquire(path, parents, exclusive, System.currentTimeMillis() + timeoutMilliseconds);
+            return this;
+        }
+
+        @Override
+        public void release() {
+            HierarchicalPathLockManager.this.release(path, parents, exclusive);
+        }
+
+        @Override
+        public boolean isExclusive() {
+            return exclusive;
+        }
+    }
+}
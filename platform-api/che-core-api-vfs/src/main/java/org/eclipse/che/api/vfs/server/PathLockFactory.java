@@ -33,7 +33,7 @@ package org.eclipse.che.api.vfs.server;
  *
  * @author <a href="mailto:andrew00x@gmail.com">Andrey Parfonov</a>
  */
-public final class PathLockFactory {
+public final class PathLockFactory implements PathLockManager {
     private static final int MAX_RECURSIVE_LOCKS = (1 << 10) - 1;
     /** Max number of threads allowed to access file. */
     private final int maxThreads;
@@ -52,6 +52,7 @@ public final class PathLockFactory {
         this.maxThreads = maxThreads;
     }
 
+    @Override
     public PathLock getLock(Path path, boolean exclusive) {
         return new PathLock(path, exclusive ? maxThreads : 1);
     }
@@ -151,6 +152,7 @@ public final class PathLockFactory {
         return true;
     }
 
+    @Override
     public synchronized void checkClean() {
         assert tail.prev == null;
     }
@@ -182,7 +184,7 @@ public final class PathLockFactory {
         }
     }
 
-    public final class PathLock {
+    public final class PathLock implements Lock {
         private final Path path;
         private final int  permits;
 
@@ -196,6 +198,7 @@ public final class PathLockFactory {
          *
          * @return this PathLock instance
          */
+        @Override
         public PathLock acquire() {
             PathLockFactory.this.acquire(path, permits);
             return this;
@@ -211,17 +214,20 @@ public final class PathLockFactory {
          * @throws RuntimeException
          *         if waiting timeout reached
          */
+        @Override
         public PathLock acquire(long timeoutMilliseconds) {
             PathLockFactory.this.acquire(path, permits, timeoutMilliseconds);
             return this;
         }
 
         /** Release file permit. */
+        @Override
         public void release() {
             PathLockFactory.this.release(path, permits);
         }
 
         /** Returns <code>true</code> if this lock is exclusive and <code>false</code> otherwise. */
+        @Override
         public boolean isExclusive() {
             return permits == PathLockFactory.this.maxThreads;
         }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+/**
+ * Manages advisory locks for paths of virtual file system. Lock on path conflicts with locks on the same path and with
+ * locks on parents and children of that path:
+ * <ul>
+ * <li>shared lock may be held by many threads at the same time, it may not be obtained if the same path, any parent or
+ * any child of the path is locked exclusively by other thread</li>
+ * <li>exclusive lock may not be obtained if the same path, any parent or any child of the path is locked in any mode
+ * by other thread</li>
+ * </ul>
+ * Locks obtained by the current thread never prevent it from getting new locks.
+ *
+ * @author andrew00x
+ * @see PathLockFactory
+ * @see HierarchicalPathLockManager
+ */
+public interface PathLockManager {
+    /**
+     * Get lock for the specified path. Returned lock is not acquired.
+     *
+     * @param path
+     *         path to lock
+     * @param exclusive
+     *         {@code true} if exclusive lock is required and {@code false} otherwise
+     */
+    Lock getLock(Path path, boolean exclusive);
+
+    /** Checks that all locks are released. Used in tests. */
+    void checkClean();
+
+    interface Lock {
+        /**
+         * Acquire lock. Method is blocked until lock available.
+         *
+         * @return this Lock instance
+         */
+        Lock acquire();
+
+        /**
+         * Acquire lock if it becomes available within the given timeout.
+         *
+         * @param timeoutMilliseconds
+         *         maximum time (in milliseconds) to wait for lock
+         * @return this Lock instance
+         * @throws RuntimeException
+         *         if waiting timeout reached
+         */
+        Lock acquire(long timeoutMilliseconds);
+
+        /** Release lock. */
+        void release();
+
+        /** Returns {@code true} if this lock is exclusive and {@code false} otherwise. */
+        boolean isExclusive();
+    }
+}
@@ -138,7 +138,8 @@ public interface VirtualFile extends Comparable<VirtualFile> {
     VirtualFile getChild(String path) throws ForbiddenException, ServerException;
 
     /**
-     * Gets content of the file.
+     * Gets content of the file. Stream of returned ContentStream may hold opened file, caller must close it or pass it to the code
+     * that closes it, e.g. as entity of HTTP response.
      *
      * @return content ot he file
      * @throws ForbiddenException
@@ -377,6 +378,25 @@ public interface VirtualFile extends Comparable<VirtualFile> {
      */
     ContentStream zip(VirtualFileFilter filter) throws ForbiddenException, ServerException;
 
+    /**
+     * Gets zipped content of folder denoted by this VirtualFile. Unlike to method {@link #zip(VirtualFileFilter)} archive is not
+     * prepared in advance. Returned ContentStream provides {@link ContentStream.Writer} that writes archive directly to the output
+     * stream, e.g. to the body of HTTP response, so length of content is unknown. All child items that user doesn't have read
+     * permission are not added in result archive.
+     *
+     * @param filter
+     *         filter of file. Only files that are matched to the filter are added in the zip archive
+     * @param storeCompressed
+     *         if {@code true} files which are already compressed, e.g. images or archives, are added in zip archive without
+     *         compression
+     * @return zipped content of folder denoted by this VirtualFile
+     * @throws ForbiddenException
+     *         if this item doesn't denote a folder
+     * @throws ServerException
+     *         if other error occurs
+     */
+    ContentStream streamZip(VirtualFileFilter filter, boolean storeCompressed) throws ForbiddenException, ServerException;
+
     /**
      * Imports ZIP content to the folder denoted by this VirtualFile.
      *
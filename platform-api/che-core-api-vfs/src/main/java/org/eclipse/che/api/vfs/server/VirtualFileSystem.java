@@ -10,10 +10,12 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.server;
 
+import org.eclipse.che.api.core.BadRequestException;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.util.HashTree;
 import org.eclipse.che.api.vfs.shared.PropertyFilter;
 import org.eclipse.che.api.vfs.shared.dto.AccessControlEntry;
 import org.eclipse.che.api.vfs.shared.dto.File;
@@ -701,6 +703,11 @@ public interface VirtualFileSystem {
      *         max number of items in response. If {@code -1} then no limit of max items in result set
      * @param skipCount
      *         the skip items. Must be equals or greater then {@code 0}
+     * @param cursor
+     *         cursor of the next page that was returned with previous page, see {@link ItemList#getNextPageCursor()}. If cursor is set
+     *         next page is started after the last item of previous page and {@code skipCount} is ignored
+     * @param includeSnippets
+     *         if {@code true} lines of files that match query are added in response, see {@link Item#getSnippets()}
      * @param propertyFilter
      *         only properties which are accepted by filter should be included in response. See {@link PropertyFilter#accept(String)}
      * @return query result
@@ -713,8 +720,8 @@ public interface VirtualFileSystem {
     @POST
     @Path("search")
     @Produces({MediaType.APPLICATION_JSON})
-    ItemList search(MultivaluedMap<String, String> query, int maxItems, int skipCount, PropertyFilter propertyFilter)
-            throws ConflictException, ServerException;
+    ItemList search(MultivaluedMap<String, String> query, int maxItems, int skipCount, String cursor, boolean includeSnippets,
+                    PropertyFilter propertyFilter) throws ConflictException, ServerException;
 
     // For local usage. This method isn't accessible over REST interface.
     ItemList search(MultivaluedMap<String, String> query, int maxItems, int skipCount) throws ConflictException, ServerException;
@@ -978,6 +985,45 @@ public interface VirtualFileSystem {
     @Consumes({MediaType.TEXT_PLAIN})
     Response exportZipMultipart(String folderId, InputStream in) throws NotFoundException, ForbiddenException, ServerException;
 
+    /**
+     * Export content of {@code folderId} to ZIP archive. Like to the method {@link #exportZipMultipart(String, InputStream)} this
+     * method includes in the zip response only updated files, but caller sends tree of md5sums of folders instead of md5sums of
+     * all files. See {@link HashTree} about format of request body. Folders which sums are the
+     * same on both sides are not compared further.
+     * <ol>
+     * <li>Caller sends tree of md5sums of folders</li>
+     * <li>If files of some changed folders are required to find updates, response contains JSON array of paths of such folders. Caller
+     * sends tree again and lists files of these folders</li>
+     * <li>Multipart/form-data response contains list of names of removed files and folders (field 'removed-paths') and archive with
+     * updated files and added folders (field 'updates'). Caller should remove items before unzip updates</li>
+     * <li>If there is no any updates this method return response with status: 204 No Content</li>
+     * </ol>
+     *
+     * @param folderId
+     *         folder for ZIP
+     * @param in
+     *         stream, see above about its format
+     * @return ZIP as stream or list of folders which files are required
+     * @throws NotFoundException
+     *         if {@code folderId} doesn't exist
+     * @throws ForbiddenException
+     *         if any of following conditions are met:
+     *         <ul>
+     *         <li>{@code folderId} item isn't a folder</li>
+     *         <li>user which perform operation has no permissions</li>
+     *         </ul>
+     * @throws BadRequestException
+     *         if tree is malformed
+     * @throws ServerException
+     *         if any other errors occur
+     */
+    @POST
+    @Path("export")
+    @Produces({MediaType.MULTIPART_FORM_DATA, MediaType.APPLICATION_JSON})
+    @Consumes({HashTree.MEDIA_TYPE})
+    Response exportZipHashTree(String folderId, InputStream in)
+            throws NotFoundException, ForbiddenException, BadRequestException, ServerException;
+
     /**
      * Import ZIP content.
      *
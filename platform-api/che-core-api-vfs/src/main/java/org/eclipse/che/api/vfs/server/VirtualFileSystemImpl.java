@@ -10,12 +10,16 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.server;
 
+import org.eclipse.che.api.core.BadRequestException;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.server.search.QueryExpression;
+import org.eclipse.che.api.vfs.server.search.SearchResult;
+import org.eclipse.che.api.vfs.server.search.SearchResultEntry;
 import org.eclipse.che.api.vfs.server.search.SearcherProvider;
+import org.eclipse.che.api.vfs.server.util.HashTree;
 import org.eclipse.che.api.vfs.server.util.LinksHelper;
 import org.eclipse.che.api.vfs.shared.ItemType;
 import org.eclipse.che.api.vfs.shared.PropertyFilter;
@@ -29,6 +33,7 @@ import org.eclipse.che.api.vfs.shared.dto.Lock;
 import org.eclipse.che.api.vfs.shared.dto.Principal;
 import org.eclipse.che.api.vfs.shared.dto.Property;
 import org.eclipse.che.api.vfs.shared.dto.ReplacementSet;
+import org.eclipse.che.api.vfs.shared.dto.SearchSnippet;
 import org.eclipse.che.api.vfs.shared.dto.Variable;
 import org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo;
 import org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo.ACLCapability;
@@ -65,6 +70,7 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -534,6 +540,8 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
     public ItemList search(MultivaluedMap<String, String> query,
                            @DefaultValue("-1") @QueryParam("maxItems") int maxItems,
                            @QueryParam("skipCount") int skipCount,
+                           @QueryParam("cursor") String cursor,
+                           @QueryParam("includeSnippets") boolean includeSnippets,
                            @DefaultValue(PropertyFilter.ALL) @QueryParam("propertyFilter") PropertyFilter propertyFilter)
             throws ConflictException, ServerException {
         if (searcherProvider != null) {
@@ -544,33 +552,55 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
                     .setPath(query.getFirst("path"))
                     .setName(query.getFirst("name"))
                     .setMediaType(query.getFirst("mediaType"))
-                    .setText(query.getFirst("text"));
-
-            final String[] result = searcherProvider.getSearcher(mountPoint, true).search(expr);
-            if (skipCount > 0) {
-                if (skipCount > result.length) {
+                    .setText(query.getFirst("text"))
+                    .setSubstring(query.getFirst("substring"))
+                    .setRegex(query.getFirst("regex"))
+                    .setSkipCount(skipCount)
+                    .setMaxItems(maxItems)
+                    .setCursor(cursor)
+                    .setIncludeSnippets(includeSnippets);
+
+            final SearchResult result = searcherProvider.getSearcher(mountPoint, true).search(expr);
+            final long totalHits = result.getTotalHits();
+            // Total number of items found by content of files is known only on the last page.
+            if (skipCount > 0 && cursor == null && result.getNextPageQuery() == null) {
+                if (skipCount > totalHits) {
                     throw new ConflictException("'skipCount' parameter is greater then total number of items. ");
                 }
             }
-            final int length = maxItems > 0 ? Math.min(result.length, maxItems) : result.length;
-            final List<Item> items = new ArrayList<>(length);
-            for (int i = skipCount; i < length; i++) {
-                String path = result[i];
+            final List<SearchResultEntry> entries = result.getEntries();
+            final List<Item> items = new ArrayList<>(entries.size());
+            for (SearchResultEntry entry : entries) {
                 try {
-                    items.add(fromVirtualFile(mountPoint.getVirtualFile(path), false, propertyFilter));
+                    final Item item = fromVirtualFile(mountPoint.getVirtualFile(entry.getFilePath()), false, propertyFilter);
+                    if (includeSnippets) {
+                        item.setSnippets(toSnippets(entry.getSnippets()));
+                    }
+                    items.add(item);
                 } catch (NotFoundException | ForbiddenException ignored) {
                 }
             }
 
-            return DtoFactory.getInstance().createDto(ItemList.class).withItems(items).withNumItems(result.length)
-                             .withHasMoreItems(length < result.length);
+            return DtoFactory.getInstance().createDto(ItemList.class).withItems(items).withNumItems((int)totalHits)
+                             .withHasMoreItems(result.getNextPageQuery() != null)
+                             .withNextPageCursor(result.getNextPageCursor());
         }
         throw new ServerException("Not supported. ");
     }
 
     @Override
     public ItemList search(MultivaluedMap<String, String> query, int maxItems, int skipCount) throws ConflictException, ServerException {
-        return search(query, maxItems, skipCount, PropertyFilter.ALL_FILTER);
+        return search(query, maxItems, skipCount, null, false, PropertyFilter.ALL_FILTER);
+    }
+
+    private static List<SearchSnippet> toSnippets(List<SearchResultEntry.Snippet> snippets) {
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        final List<SearchSnippet> dtos = new ArrayList<>(snippets.size());
+        for (SearchResultEntry.Snippet snippet : snippets) {
+            dtos.add(dtoFactory.createDto(SearchSnippet.class).withLineNumber(snippet.getLineNumber()).withLine(snippet.getLine())
+                               .withStartOffset(snippet.getStartOffset()).withEndOffset(snippet.getEndOffset()));
+        }
+        return dtos;
     }
 
     @Override
@@ -641,8 +671,9 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
     }
 
     // For usage from Project API.
+    // Zip archive is written directly to the response. Files that are already compressed are not compressed again.
     public static ContentStream exportZip(VirtualFile folder) throws ForbiddenException, ServerException {
-        return folder.zip(VirtualFileFilter.ALL);
+        return folder.streamZip(VirtualFileFilter.ALL, true);
     }
 
     @Path("export/{folderId}")
@@ -784,18 +815,13 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
             return null;
         }
 
-        final ContentStream zip = folder.zip(new VirtualFileFilter() {
-            @Override
-            public boolean accept(VirtualFile file) {
-                for (Pair<String, org.eclipse.che.api.vfs.server.Path> pair : diff) {
-                    if (pair.second != null
-                        && (pair.second.equals(file.getVirtualFilePath()) || pair.second.isChild(file.getVirtualFilePath()))) {
-                        return true;
-                    }
-                }
-                return false;
+        final List<org.eclipse.che.api.vfs.server.Path> updated = new ArrayList<>(diff.size());
+        for (Pair<String, org.eclipse.che.api.vfs.server.Path> pair : diff) {
+            if (pair.second != null) {
+                updated.add(pair.second);
             }
-        });
+        }
+        final ContentStream zip = folder.zip(newPathsFilter(folder.getVirtualFilePath(), updated));
 
         deleted.clear();
         for (Pair<String, org.eclipse.che.api.vfs.server.Path> pair : diff) {
@@ -806,6 +832,89 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
         return zip;
     }
 
+    @Path("export/{folderId}")
+    @Override
+    public Response exportZipHashTree(@PathParam("folderId") String folderId, InputStream in)
+            throws NotFoundException, ForbiddenException, BadRequestException, ServerException {
+        return exportZipHashTree(mountPoint.getVirtualFileById(folderId), in);
+    }
+
+    // For usage from Project API.
+    public static Response exportZipHashTree(VirtualFile folder, InputStream in)
+            throws ForbiddenException, BadRequestException, ServerException {
+        final HashTree remote;
+        try {
+            remote = HashTree.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Tree is sent by caller, it is malformed or is not sent completely.
+            throw new BadRequestException(e.getMessage());
+        }
+        final HashTree.Diff diff = HashTree.fromMd5Sums(folder.countMd5Sums()).diff(remote);
+        if (!diff.getUnlistedFolders().isEmpty()) {
+            // Caller must send tree again and list files of these folders.
+            return Response.ok(new ArrayList<>(diff.getUnlistedFolders()), MediaType.APPLICATION_JSON_TYPE).build();
+        }
+        if (diff.isEmpty()) {
+            return Response.status(204).build();
+        }
+        final List<OutputItem> multipart = new LinkedList<>();
+        if (!diff.getRemoved().isEmpty()) {
+            // Send it before updates. Caller removes items before unzip updates, since file may be replaced with folder.
+            multipart.add(OutputItem.create("removed-paths", new ArrayList<>(diff.getRemoved()), MediaType.APPLICATION_JSON_TYPE));
+        }
+        final org.eclipse.che.api.vfs.server.Path folderPath = folder.getVirtualFilePath();
+        final List<org.eclipse.che.api.vfs.server.Path> updated = new ArrayList<>();
+        for (String path : diff.getUpdatedFiles()) {
+            updated.add(folderPath.newPath(path));
+        }
+        for (String path : diff.getAddedFolders()) {
+            updated.add(folderPath.newPath(path));
+        }
+        if (!updated.isEmpty()) {
+            final ContentStream zip = folder.zip(newPathsFilter(folderPath, updated));
+            final OutputItem updates = OutputItem.create("updates", zip.getStream(), ExtMediaType.APPLICATION_ZIP_TYPE, zip.getFileName());
+            updates.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()));
+            multipart.add(updates);
+        }
+        final String boundary = NameGenerator.generate(null, 8);
+        return Response
+                .ok(new GenericEntity<List<OutputItem>>(multipart) {
+                }, "multipart/form-data; boundary=" + boundary)
+                .build();
+    }
+
+    /*
+     * Accepts specified items, all their parents and all content of specified folders.
+     * Check of item costs a few lookups in hash set instead of comparing item with each specified path.
+     */
+    private static VirtualFileFilter newPathsFilter(final org.eclipse.che.api.vfs.server.Path root,
+                                                    Collection<org.eclipse.che.api.vfs.server.Path> paths) {
+        final Set<org.eclipse.che.api.vfs.server.Path> items = new HashSet<>(paths);
+        final Set<org.eclipse.che.api.vfs.server.Path> parents = new HashSet<>();
+        for (org.eclipse.che.api.vfs.server.Path path : paths) {
+            org.eclipse.che.api.vfs.server.Path parent = path.getParent();
+            while (parent != null && parent.length() > root.length() && parents.add(parent)) {
+                parent = parent.getParent();
+            }
+        }
+        return new VirtualFileFilter() {
+            @Override
+            public boolean accept(VirtualFile file) {
+                org.eclipse.che.api.vfs.server.Path path = file.getVirtualFilePath();
+                if (parents.contains(path)) {
+                    return true;
+                }
+                while (path != null && path.length() > root.length()) {
+                    if (items.contains(path)) {
+                        return true;
+                    }
+                    path = path.getParent();
+                }
+                return false;
+            }
+        };
+    }
+
     @Path("import/{parentId}")
     @Override
     public void importZip(@PathParam("parentId") String parentId,
@@ -911,12 +1020,15 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
     @Override
     public Response downloadZip(@PathParam("folderId") String folderId) throws NotFoundException, ForbiddenException, ServerException {
         final ContentStream zip = exportZip(folderId);
-        return Response //
-                .ok(zip.getStream(), zip.getMimeType()) //
+        final Response.ResponseBuilder response = Response //
+                .ok(zip, zip.getMimeType()) //
                 .lastModified(zip.getLastModificationDate()) //
-                .header(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength())) //
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zip.getFileName() + '"') //
-                .build();
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zip.getFileName() + '"');
+        // Length of zip is unknown if it is written directly to the response.
+        if (zip.getLength() >= 0) {
+            response.header(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()));
+        }
+        return response.build();
     }
 
     @Path("uploadzip/{parentId}")
@@ -1036,6 +1036,12 @@ public class MemoryVirtualFile implements VirtualFile {
                                  new Date());
     }
 
+    @Override
+    public ContentStream streamZip(VirtualFileFilter filter, boolean storeCompressed) throws ForbiddenException, ServerException {
+        // Content of all files is kept in memory, there is nothing to gain from streaming.
+        return zip(filter);
+    }
+
     @Override
     public void unzip(InputStream zipped, boolean overwrite, int stripNumber) throws ForbiddenException, ServerException {
         checkExist();
@@ -11,6 +11,7 @@
 package org.eclipse.che.api.vfs.server.search;
 
 import org.eclipse.che.api.core.ForbiddenException;
+import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.server.LazyIterator;
 import org.eclipse.che.api.vfs.server.MountPoint;
@@ -18,30 +19,50 @@ import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
 import org.eclipse.che.api.vfs.server.util.MediaTypeFilter;
 
+import com.google.common.io.CharStreams;
+
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TrackingIndexWriter;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,8 +71,29 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Lucene based searcher.
@@ -60,13 +102,51 @@ import java.util.Set;
  */
 public abstract class LuceneSearcher implements Searcher {
     private static final Logger LOG          = LoggerFactory.getLogger(LuceneSearcher.class);
-    private static final int    RESULT_LIMIT = 1000;
+    /* Most relevant items first, items with the same relevance are sorted by path. */
+    private static final Sort   SORT         = new Sort(SortField.FIELD_SCORE, new SortField("path", SortField.Type.STRING));
+    private static final Sort   PATH_SORT    = new Sort(new SortField("path", SortField.Type.STRING));
+    /* Max number of snippets for one file. */
+    private static final int    MAX_SNIPPETS = 100;
+    /* Max number of files found by directory walker and waiting to be added in index by indexing threads. */
+    private static final int    INDEX_QUEUE_SIZE   = 1000;
+    private static final long   INDEX_QUEUE_POLL_MS = 100;
+    /* Number of candidates that are collected at once when content of files is checked. */
+    private static final int    CONTENT_SCAN_BATCH  = 256;
+    /* Max number of files which content is checked for one page. If page isn't filled search is continued with next page cursor. */
+    private static final int    MAX_CONTENT_SCAN    = 5000;
+
+    /* Trigrams of content of file for code search. Only list of documents is stored for each trigram. */
+    private static final String    TRIGRAMS_FIELD = "trigrams";
+    private static final FieldType TRIGRAMS_TYPE  = new FieldType();
+
+    static {
+        TRIGRAMS_TYPE.setIndexOptions(IndexOptions.DOCS);
+        TRIGRAMS_TYPE.setTokenized(true);
+        TRIGRAMS_TYPE.setOmitNorms(true);
+        TRIGRAMS_TYPE.freeze();
+    }
 
     private final VirtualFileFilter filter;
+    private final AtomicLong        foundFiles;
+    private final AtomicLong        indexedFiles;
 
-    private IndexWriter     luceneIndexWriter;
-    private SearcherManager searcherManager;
-    private boolean         closed;
+    /* Updates of index that are not applied yet. Key is path of file or path of folder with trailing '/'. Guarded by itself. */
+    private final LinkedHashMap<String, PendingUpdate> pendingUpdates;
+
+    private volatile IndexWriter luceneIndexWriter;
+    private volatile MountPoint  mountPoint;
+    private SearcherManager      searcherManager;
+    private boolean              closed;
+    private volatile boolean     ready;
+
+    private boolean                                                codeSearch;
+    private Executor                                               updateExecutor;
+    private long                                                   maxStaleness;
+    private volatile ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    /* Tracks generation of changes of index in asynchronous mode, see waitForUpdates(). */
+    private volatile TrackingIndexWriter                           trackingIndexWriter;
+    /* Guarded by pendingUpdates. */
+    private boolean                                                updating;
 
     public LuceneSearcher(Set<String> indexedMediaTypes) {
         this(new MediaTypeFilter(indexedMediaTypes));
@@ -74,6 +154,53 @@ public abstract class LuceneSearcher implements Searcher {
 
     public LuceneSearcher(VirtualFileFilter filter) {
         this.filter = filter;
+        foundFiles = new AtomicLong();
+        indexedFiles = new AtomicLong();
+        pendingUpdates = new LinkedHashMap<>();
+    }
+
+    /**
+     * Turns on asynchronous updates of index. Need call this method before method {@link #doInit()}. Methods {@link #add(VirtualFile)},
+     * {@link #update(VirtualFile)} and {@link #delete(String, boolean)} only put update in queue and return immediately. Few updates
+     * of the same path are merged. Updates are applied by batches with {@code executor}. Searcher is refreshed in background, changes
+     * become visible for search not later than {@code maxStaleness} milliseconds after they are applied.
+     *
+     * @param executor
+     *         executor for applying updates
+     * @param maxStaleness
+     *         max time in milliseconds after that applied changes become visible for search
+     */
+    protected final synchronized void setAsyncUpdates(Executor executor, long maxStaleness) {
+        if (maxStaleness <= 0) {
+            throw new IllegalArgumentException("Max staleness must be greater than zero. ");
+        }
+        this.updateExecutor = executor;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Turns on code search mode. Need call this method before method {@link #doInit()}. In this mode trigrams of content of each file
+     * are added in index. Trigrams help to find quickly files that contain substring or match regular expression (see {@link
+     * QueryExpression#setSubstring(String)} and {@link QueryExpression#setRegex(String)}), only such files are read and checked.
+     * Index becomes much bigger in this mode.
+     */
+    protected final synchronized void setCodeSearch(boolean codeSearch) {
+        this.codeSearch = codeSearch;
+    }
+
+    protected final synchronized boolean isCodeSearch() {
+        return codeSearch;
+    }
+
+    /** Analyzer for code search mode. Content of file is split to lower case trigrams, white spaces are not skipped. */
+    protected Analyzer makeTrigramAnalyzer() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new NGramTokenizer(TrigramQueries.GRAM_SIZE, TrigramQueries.GRAM_SIZE);
+                return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+            }
+        };
     }
 
     protected Analyzer makeAnalyzer() {
@@ -98,14 +225,174 @@ public abstract class LuceneSearcher implements Searcher {
      *         if any virtual filesystem error
      */
     public void init(MountPoint mountPoint) throws ServerException {
+        this.mountPoint = mountPoint;
         doInit();
-        addTree(mountPoint.getRoot());
+        addTree(mountPoint.getRoot(), true);
+        initCompleted();
+        ready = true;
+    }
+
+    /**
+     * Checks whether file must be added in index when index is initialized. By default all files are added in index. Subclasses
+     * that keep index between restarts may skip files that are not changed since they were indexed. This method may be called by
+     * few threads at the same time.
+     *
+     * @param virtualFile
+     *         file found in virtual filesystem
+     * @return {@code true} if file should be added in index and {@code false} otherwise
+     * @throws ServerException
+     *         if any virtual filesystem error
+     */
+    protected boolean isIndexRequired(VirtualFile virtualFile) throws ServerException {
+        return true;
+    }
+
+    /**
+     * Called after all files of virtual filesystem are processed when index is initialized but before index becomes ready. By
+     * default does nothing.
+     *
+     * @throws ServerException
+     *         if any error occurs
+     */
+    protected void initCompleted() throws ServerException {
+    }
+
+    /**
+     * Adds all files of virtual filesystem in index with few threads. Need call this method after method {@link #doInit()}.
+     * Folders are traversed in parallel with {@code walkPool}. Found files are put in the bounded queue and {@code indexThreads}
+     * threads read them and add in index. All indexing threads share the same {@code IndexWriter}. One of indexing threads is the
+     * current thread, other ones are got from {@code indexExecutor}, so indexing is completed even if all threads of {@code
+     * indexExecutor} are busy. Index becomes ready after successful completion of this method.
+     *
+     * @param mountPoint
+     *         MountPoint
+     * @param walkPool
+     *         pool for traversing folders
+     * @param indexExecutor
+     *         executor for indexing threads
+     * @param indexThreads
+     *         number of threads that add files in index
+     * @throws ServerException
+     *         if any virtual filesystem error
+     */
+    protected void initInParallel(MountPoint mountPoint, ForkJoinPool walkPool, Executor indexExecutor, int indexThreads)
+            throws ServerException {
+        if (indexThreads < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.mountPoint = mountPoint;
+        final long start = System.currentTimeMillis();
+        final VirtualFile root = mountPoint.getRoot();
+        final BlockingQueue<VirtualFile> queue = new ArrayBlockingQueue<>(INDEX_QUEUE_SIZE);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicBoolean walkDone = new AtomicBoolean();
+        // Current thread is registered as one of indexing threads.
+        final Phaser indexers = new Phaser(1);
+        walkPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new FolderWalker(root, queue, error).invoke();
+                } catch (RuntimeException | Error e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    walkDone.set(true);
+                }
+            }
+        });
+        final Runnable indexer = new Runnable() {
+            @Override
+            public void run() {
+                // Thread may be started after all files are already indexed.
+                if (indexers.register() < 0) {
+                    return;
+                }
+                try {
+                    index(queue, walkDone, error);
+                } finally {
+                    indexers.arriveAndDeregister();
+                }
+            }
+        };
+        for (int i = 1; i < indexThreads; i++) {
+            try {
+                indexExecutor.execute(indexer);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        index(queue, walkDone, error);
+        // Wait for indexing threads that were started and terminate phaser to stop any threads that are not started yet.
+        indexers.arriveAndAwaitAdvance();
+        indexers.forceTermination();
+        final Throwable e = error.get();
+        if (e != null) {
+            if (e instanceof ServerException) {
+                throw (ServerException)e;
+            }
+            if (e instanceof Error) {
+                throw (Error)e;
+            }
+            throw new ServerException(e.getMessage(), e);
+        }
+        initCompleted();
+        ready = true;
+        LOG.debug("Indexed {} files from {} with {} threads, time: {} ms", indexedFiles.get(), root.getPath(), indexThreads,
+                  (System.currentTimeMillis() - start));
+    }
+
+    /* Takes files from queue and adds them in index until all found files are indexed or any error occurs. */
+    private void index(BlockingQueue<VirtualFile> queue, AtomicBoolean walkDone, AtomicReference<Throwable> error) {
+        try {
+            while (error.get() == null) {
+                final VirtualFile file = queue.poll(INDEX_QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (file != null) {
+                    addFile(file);
+                    indexedFiles.incrementAndGet();
+                } else if (walkDone.get() && queue.isEmpty()) {
+                    // Walker does not add anything in queue after it is done.
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            error.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } catch (ServerException | RuntimeException | Error e) {
+            error.compareAndSet(null, e);
+        }
+    }
+
+    /*
+     * Puts file in queue. It is called by threads of ForkJoinPool that is shared between workspaces, so waiting for free space in
+     * queue is done through ManagedBlocker, pool may start spare thread while current one is blocked by slow indexing threads.
+     */
+    private static boolean offer(BlockingQueue<VirtualFile> queue, VirtualFile file, AtomicReference<Throwable> error) {
+        final QueueOffer offer = new QueueOffer(queue, file, error);
+        try {
+            ForkJoinPool.managedBlock(offer);
+        } catch (InterruptedException e) {
+            error.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+        return offer.offered;
     }
 
     protected final synchronized void doInit() throws ServerException {
         try {
-            luceneIndexWriter = new IndexWriter(makeDirectory(), new IndexWriterConfig(makeAnalyzer()));
+            final Analyzer analyzer = codeSearch
+                                      ? new PerFieldAnalyzerWrapper(makeAnalyzer(),
+                                                                    Collections.singletonMap(TRIGRAMS_FIELD, makeTrigramAnalyzer()))
+                                      : makeAnalyzer();
+            luceneIndexWriter = new IndexWriter(makeDirectory(), new IndexWriterConfig(analyzer));
             searcherManager = new SearcherManager(luceneIndexWriter, true, new SearcherFactory());
+            if (updateExecutor != null) {
+                trackingIndexWriter = new TrackingIndexWriter(luceneIndexWriter);
+                reopenThread = new ControlledRealTimeReopenThread<>(trackingIndexWriter, searcherManager,
+                                                                    maxStaleness / 1000.0, Math.min(0.1, maxStaleness / 1000.0));
+                reopenThread.setName("LuceneSearcher-Reopen-" + reopenThread.getId());
+                reopenThread.setDaemon(true);
+                reopenThread.start();
+            }
         } catch (IOException e) {
             throw new ServerException(e);
         }
@@ -113,8 +400,14 @@ public abstract class LuceneSearcher implements Searcher {
 
     public synchronized void close() {
         if (!closed) {
+            synchronized (pendingUpdates) {
+                // Index is not going to be used any more or it is reconciled with filesystem on next start.
+                pendingUpdates.clear();
+                updating = false;
+                pendingUpdates.notifyAll();
+            }
             try {
-                IOUtils.close(getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
+                IOUtils.close(reopenThread, getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
             } catch (IOException e) {
                 LOG.error(e.getMessage(), e);
             }
@@ -122,17 +415,34 @@ public abstract class LuceneSearcher implements Searcher {
         }
     }
 
-    public synchronized IndexWriter getIndexWriter() {
+    // Not synchronized, it is called by few indexing threads for each file.
+    public IndexWriter getIndexWriter() {
         return luceneIndexWriter;
     }
 
     @Override
-    public String[] search(QueryExpression query) throws ServerException {
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public long getIndexedFilesCount() {
+        return indexedFiles.get();
+    }
+
+    @Override
+    public long getFoundFilesCount() {
+        return foundFiles.get();
+    }
+
+    @Override
+    public SearchResult search(QueryExpression query) throws ServerException {
         final BooleanQuery luceneQuery = new BooleanQuery();
         final String name = query.getName();
         final String path = query.getPath();
         final String mediaType = query.getMediaType();
         final String text = query.getText();
+        Query textQuery = null;
         if (path != null) {
             luceneQuery.add(new PrefixQuery(new Term("path", path)), BooleanClause.Occur.MUST);
         }
@@ -145,24 +455,65 @@ public abstract class LuceneSearcher implements Searcher {
         if (text != null) {
             QueryParser qParser = new QueryParser("text", makeAnalyzer());
             try {
-                luceneQuery.add(qParser.parse(text), BooleanClause.Occur.MUST);
+                textQuery = qParser.parse(text);
             } catch (ParseException e) {
                 throw new ServerException(e.getMessage());
             }
+            luceneQuery.add(textQuery, BooleanClause.Occur.MUST);
+        }
+        final Pattern contentPattern = getContentPattern(query);
+        if (contentPattern != null) {
+            final Query trigramsQuery = codeSearch ? getTrigramsQuery(query) : null;
+            if (trigramsQuery != null) {
+                luceneQuery.add(trigramsQuery, BooleanClause.Occur.MUST);
+            }
+            if (luceneQuery.clauses().isEmpty()) {
+                luceneQuery.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+            }
         }
         IndexSearcher luceneSearcher = null;
         try {
-            searcherManager.maybeRefresh();
+            if (reopenThread == null) {
+                searcherManager.maybeRefresh();
+            }
             luceneSearcher = searcherManager.acquire();
-            final TopDocs topDocs = luceneSearcher.search(luceneQuery, RESULT_LIMIT);
-            if (topDocs.totalHits > RESULT_LIMIT) {
-                throw new ServerException(String.format("Too many (%d) matched results found. ", topDocs.totalHits));
+            if (contentPattern != null) {
+                return searchContent(luceneSearcher, luceneQuery, contentPattern, query);
+            }
+            final int maxDoc = luceneSearcher.getIndexReader().maxDoc();
+            final long version = ((DirectoryReader)luceneSearcher.getIndexReader()).getVersion();
+            final PageEnd pageEnd = PageEnd.decode(query.getCursor(), PageEnd.BY_SCORE);
+            final int skipCount = pageEnd != null ? pageEnd.skipCount : Math.max(0, query.getSkipCount());
+            final int maxItems = query.getMaxItems();
+            final TopDocs topDocs;
+            final int offset;
+            if (pageEnd != null && pageEnd.version == version) {
+                // Index is not changed since previous page was got, continue from the last item of previous page.
+                final FieldDoc after = new FieldDoc(Math.max(0, maxDoc - 1), pageEnd.score,
+                                                    new Object[]{pageEnd.score, new BytesRef(pageEnd.path)});
+                topDocs = luceneSearcher.searchAfter(after, luceneQuery, numHits(maxItems, maxDoc), SORT, true, false);
+                offset = 0;
+            } else {
+                topDocs = luceneSearcher.search(luceneQuery, numHits(maxItems <= 0 ? maxItems : (long)skipCount + maxItems, maxDoc),
+                                                SORT, true, false);
+                offset = skipCount;
             }
-            final String[] result = new String[topDocs.scoreDocs.length];
-            for (int i = 0, length = result.length; i < length; i++) {
-                result[i] = luceneSearcher.doc(topDocs.scoreDocs[i].doc).getField("path").stringValue();
+            final List<SearchResultEntry> entries = new ArrayList<>();
+            final Set<String> words = query.isIncludeSnippets() && textQuery != null ? extractWords(luceneSearcher.rewrite(textQuery))
+                                                                                   : null;
+            FieldDoc last = null;
+            for (int i = offset, length = topDocs.scoreDocs.length; i < length; i++) {
+                last = (FieldDoc)topDocs.scoreDocs[i];
+                final String filePath = filePath(last);
+                entries.add(new SearchResultEntry(filePath, last.score, words == null ? null : getSnippets(filePath, words)));
             }
-            return result;
+            QueryExpression nextPageQuery = null;
+            if (last != null && maxItems > 0 && skipCount + entries.size() < topDocs.totalHits) {
+                final PageEnd nextPageEnd = new PageEnd(PageEnd.BY_SCORE, version, skipCount + entries.size(), 0,
+                                                        (Float)last.fields[0], filePath(last));
+                nextPageQuery = query.copy().setSkipCount(nextPageEnd.skipCount).setCursor(nextPageEnd.encode());
+            }
+            return new SearchResult(entries, topDocs.totalHits, nextPageQuery);
         } catch (IOException e) {
             throw new ServerException(e.getMessage(), e);
         } finally {
@@ -174,8 +525,192 @@ public abstract class LuceneSearcher implements Searcher {
         }
     }
 
+    /*
+     * Checks content of each file found by index. Without code search mode index doesn't help to find files that contain substring
+     * or match regular expression, so files that match other parts of query are checked. Items are sorted by path. Candidates are
+     * collected in small batches and checking is stopped as soon as page is filled, so files after the end of page are never read.
+     * Number of checked files is limited with MAX_CONTENT_SCAN, if limit is reached page may contain less items than requested and
+     * cursor for the next page is returned. Sort by path doesn't depend on the version of index, so cursor stays valid after changes
+     * of index. Total number of matched files isn't known without checking all candidates, total hits is number of matched files
+     * found up to the end of this page.
+     */
+    private SearchResult searchContent(IndexSearcher luceneSearcher, Query luceneQuery, Pattern contentPattern, QueryExpression query)
+            throws IOException, ServerException {
+        final PageEnd pageEnd = PageEnd.decode(query.getCursor(), PageEnd.BY_PATH);
+        final int skipCount = pageEnd != null ? pageEnd.skipCount : Math.max(0, query.getSkipCount());
+        final int maxItems = query.getMaxItems();
+        // Number of matched files that must be skipped yet, may be passed from previous page if scan limit was reached while skipping.
+        int toSkip = pageEnd != null ? pageEnd.toSkip : skipCount;
+        final List<SearchResultEntry> entries = new ArrayList<>();
+        FieldDoc after = pageEnd != null ? pathFieldDoc(pageEnd.path, luceneSearcher.getIndexReader().maxDoc()) : null;
+        int scanned = 0;
+        boolean exhausted = false;
+        scan:
+        while (true) {
+            final TopDocs candidates = after == null
+                                       ? luceneSearcher.search(luceneQuery, CONTENT_SCAN_BATCH, PATH_SORT, false, false)
+                                       : luceneSearcher.searchAfter(after, luceneQuery, CONTENT_SCAN_BATCH, PATH_SORT, false, false);
+            for (ScoreDoc candidate : candidates.scoreDocs) {
+                after = (FieldDoc)candidate;
+                scanned++;
+                final String filePath = ((BytesRef)after.fields[0]).utf8ToString();
+                final String content = readContent(filePath);
+                if (content != null) {
+                    final Matcher matcher = contentPattern.matcher(content);
+                    if (matcher.find()) {
+                        if (toSkip > 0) {
+                            toSkip--;
+                        } else {
+                            entries.add(new SearchResultEntry(filePath, 1.0f,
+                                                              query.isIncludeSnippets() ? getSnippets(content, matcher) : null));
+                        }
+                    }
+                }
+                if ((maxItems > 0 && entries.size() >= maxItems) || scanned >= MAX_CONTENT_SCAN) {
+                    break scan;
+                }
+            }
+            if (candidates.scoreDocs.length < CONTENT_SCAN_BATCH) {
+                exhausted = true;
+                break;
+            }
+        }
+        // Skipped items are counted as well, so skip count which is bigger than number of matched files is detected by caller.
+        final long found = (long)skipCount - toSkip + entries.size();
+        QueryExpression nextPageQuery = null;
+        if (!exhausted && after != null) {
+            final PageEnd nextPageEnd = new PageEnd(PageEnd.BY_PATH, 0, skipCount + entries.size(), toSkip, 0.0f,
+                                                    ((BytesRef)after.fields[0]).utf8ToString());
+            nextPageQuery = query.copy().setSkipCount(skipCount + entries.size()).setCursor(nextPageEnd.encode());
+        }
+        return new SearchResult(entries, found, nextPageQuery);
+    }
+
+    /* Position after file with specified path in result sorted by path. Paths are unique, doc id only must be valid for index. */
+    private static FieldDoc pathFieldDoc(String path, int maxDoc) {
+        return new FieldDoc(Math.max(0, maxDoc - 1), Float.NaN, new Object[]{new BytesRef(path)});
+    }
+
+    private static Pattern getContentPattern(QueryExpression query) throws ServerException {
+        try {
+            if (query.getRegex() != null) {
+                return Pattern.compile(query.getRegex(), Pattern.MULTILINE);
+            }
+            if (query.getSubstring() != null) {
+                return Pattern.compile(query.getSubstring(), Pattern.LITERAL);
+            }
+        } catch (PatternSyntaxException e) {
+            throw new ServerException(e.getMessage());
+        }
+        return null;
+    }
+
+    private Query getTrigramsQuery(QueryExpression query) throws ServerException {
+        try {
+            final Analyzer analyzer = makeTrigramAnalyzer();
+            return query.getRegex() != null ? TrigramQueries.regexQuery(TRIGRAMS_FIELD, analyzer, query.getRegex())
+                                            : TrigramQueries.substringQuery(TRIGRAMS_FIELD, analyzer, query.getSubstring());
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+    }
+
+    /* Path is taken from sort values, don't need to load stored fields of document. */
+    private static String filePath(FieldDoc fieldDoc) {
+        return ((BytesRef)fieldDoc.fields[1]).utf8ToString();
+    }
+
+    /* Number of top documents to collect. Never collect more documents than there are in index. */
+    private static int numHits(long required, int maxDoc) {
+        return (int)Math.max(1, required <= 0 ? maxDoc : Math.min(required, maxDoc));
+    }
+
+    /* Gets words of text query which are used for finding snippets. Terms of other fields and wildcards are not supported. */
+    private static Set<String> extractWords(Query query) {
+        final Set<String> words = new HashSet<>();
+        if (query instanceof TermQuery) {
+            final Term term = ((TermQuery)query).getTerm();
+            if ("text".equals(term.field())) {
+                words.add(term.text());
+            }
+        } else if (query instanceof PhraseQuery) {
+            for (Term term : ((PhraseQuery)query).getTerms()) {
+                if ("text".equals(term.field())) {
+                    words.add(term.text());
+                }
+            }
+        } else if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery)query).clauses()) {
+                if (!clause.isProhibited()) {
+                    words.addAll(extractWords(clause.getQuery()));
+                }
+            }
+        }
+        return words;
+    }
+
+    /* Finds lines of file that contain any of words. File is read and parsed in the same way as it is done when file is indexed. */
+    private List<SearchResultEntry.Snippet> getSnippets(String filePath, Set<String> words) throws ServerException {
+        final String content = words.isEmpty() ? null : readContent(filePath);
+        if (content == null) {
+            return null;
+        }
+        final Lines lines = new Lines(content);
+        final List<SearchResultEntry.Snippet> snippets = new ArrayList<>();
+        try (TokenStream tokens = makeAnalyzer().tokenStream("text", content)) {
+            final CharTermAttribute termAttribute = tokens.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAttribute = tokens.addAttribute(OffsetAttribute.class);
+            tokens.reset();
+            while (snippets.size() < MAX_SNIPPETS && tokens.incrementToken()) {
+                if (words.contains(termAttribute.toString())) {
+                    snippets.add(lines.snippet(offsetAttribute.startOffset(), offsetAttribute.endOffset()));
+                }
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+        return snippets;
+    }
+
+    /* Finds all matches of pattern in content of file. Matcher must be positioned at the first match. */
+    private static List<SearchResultEntry.Snippet> getSnippets(String content, Matcher matcher) {
+        final Lines lines = new Lines(content);
+        final List<SearchResultEntry.Snippet> snippets = new ArrayList<>();
+        do {
+            snippets.add(lines.snippet(matcher.start(), matcher.end()));
+        } while (snippets.size() < MAX_SNIPPETS && matcher.find());
+        return snippets;
+    }
+
+    /* Reads content of file with the same charset that is used when file is indexed. Returns null if file is not indexed. */
+    private String readContent(String filePath) throws ServerException {
+        final MountPoint mountPoint = this.mountPoint;
+        if (mountPoint == null) {
+            return null;
+        }
+        try {
+            final VirtualFile virtualFile = mountPoint.getVirtualFile(filePath);
+            if (!virtualFile.isFile() || !filter.accept(virtualFile)) {
+                return null;
+            }
+            try (Reader reader = new InputStreamReader(virtualFile.getContent().getStream())) {
+                return CharStreams.toString(reader);
+            }
+        } catch (NotFoundException | ForbiddenException e) {
+            // File is removed or not accessible any more but index is not updated yet.
+            return null;
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public final void add(VirtualFile virtualFile) throws ServerException {
+        if (isAsyncUpdates()) {
+            enqueue(new PendingUpdate(virtualFile.getPath(), !virtualFile.isFolder(), virtualFile));
+            return;
+        }
         doAdd(virtualFile);
     }
 
@@ -188,10 +723,14 @@ public abstract class LuceneSearcher implements Searcher {
     }
 
     protected void addTree(VirtualFile tree) throws ServerException {
+        addTree(tree, false);
+    }
+
+    private void addTree(VirtualFile tree, boolean initial) throws ServerException {
         final long start = System.currentTimeMillis();
         final LinkedList<VirtualFile> q = new LinkedList<>();
         q.add(tree);
-        int indexedFiles = 0;
+        int count = 0;
         while (!q.isEmpty()) {
             final VirtualFile folder = q.pop();
             if (folder.exists()) {
@@ -201,21 +740,30 @@ public abstract class LuceneSearcher implements Searcher {
                     if (child.isFolder()) {
                         q.push(child);
                     } else {
+                        if (initial) {
+                            foundFiles.incrementAndGet();
+                            if (!isIndexRequired(child)) {
+                                continue;
+                            }
+                        }
                         addFile(child);
-                        indexedFiles++;
+                        count++;
+                        if (initial) {
+                            indexedFiles.incrementAndGet();
+                        }
                     }
                 }
             }
         }
         final long end = System.currentTimeMillis();
-        LOG.debug("Indexed {} files from {}, time: {} ms", indexedFiles, tree.getPath(), (end - start));
+        LOG.debug("Indexed {} files from {}, time: {} ms", count, tree.getPath(), (end - start));
     }
 
     protected void addFile(VirtualFile virtualFile) throws ServerException {
         if (virtualFile.exists()) {
             try (Reader fContentReader = filter.accept(virtualFile) ? new BufferedReader(
                     new InputStreamReader(virtualFile.getContent().getStream())) : null) {
-                getIndexWriter().updateDocument(new Term("path", virtualFile.getPath()), createDocument(virtualFile, fContentReader));
+                updateDocument(new Term("path", virtualFile.getPath()), createDocument(virtualFile, fContentReader));
             } catch (OutOfMemoryError oome) {
                 close();
                 throw oome;
@@ -229,13 +777,21 @@ public abstract class LuceneSearcher implements Searcher {
 
     @Override
     public final void delete(String path, boolean isFile) throws ServerException {
+        if (isAsyncUpdates()) {
+            enqueue(new PendingUpdate(path, isFile, null));
+            return;
+        }
+        doDelete(path, isFile);
+    }
+
+    private void doDelete(String path, boolean isFile) throws ServerException {
         try {
             if (isFile) {
                 Term term = new Term("path", path);
-                getIndexWriter().deleteDocuments(term);
+                deleteDocuments(new TermQuery(term));
             } else {
                 Term term = new Term("path", path + "/");
-                getIndexWriter().deleteDocuments(new PrefixQuery(term));
+                deleteDocuments(new PrefixQuery(term));
             }
         } catch (OutOfMemoryError oome) {
             close();
@@ -247,13 +803,95 @@ public abstract class LuceneSearcher implements Searcher {
 
     @Override
     public final void update(VirtualFile virtualFile) throws ServerException {
+        if (isAsyncUpdates()) {
+            enqueue(new PendingUpdate(virtualFile.getPath(), true, virtualFile));
+            return;
+        }
         doUpdate(new Term("path", virtualFile.getPath()), virtualFile);
     }
 
+    private boolean isAsyncUpdates() {
+        return reopenThread != null;
+    }
+
+    /* Puts update in queue. Any previous not applied update of the same path is replaced since update always reads current state. */
+    private void enqueue(PendingUpdate update) {
+        final String key = update.file ? update.path : (update.path + '/');
+        synchronized (pendingUpdates) {
+            // Remove first to keep order of updates, new update must be applied after all updates added before it.
+            final PendingUpdate previous = pendingUpdates.remove(key);
+            if (previous != null && !update.file && (previous.virtualFile == null || previous.deleteFirst)) {
+                // Folder was removed and created again, documents of its old files must be removed.
+                update.deleteFirst = true;
+            }
+            pendingUpdates.put(key, update);
+            if (updating) {
+                return;
+            }
+            updating = true;
+        }
+        try {
+            updateExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    applyPendingUpdates();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (pendingUpdates) {
+                updating = false;
+                pendingUpdates.notifyAll();
+            }
+            LOG.warn("Unable update index, executor rejects task. ");
+        }
+    }
+
+    private void applyPendingUpdates() {
+        for (; ; ) {
+            final List<PendingUpdate> batch;
+            synchronized (pendingUpdates) {
+                if (pendingUpdates.isEmpty()) {
+                    updating = false;
+                    pendingUpdates.notifyAll();
+                    return;
+                }
+                batch = new ArrayList<>(pendingUpdates.values());
+                pendingUpdates.clear();
+            }
+            for (PendingUpdate update : batch) {
+                try {
+                    update.apply();
+                } catch (ServerException | RuntimeException e) {
+                    LOG.error(e.getMessage(), e); // just log about i/o error in index
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all updates that are added in queue before call of this method are applied and become visible for search. Does
+     * nothing if asynchronous updates are not turned on.
+     *
+     * @throws InterruptedException
+     *         if current thread is interrupted
+     */
+    public void waitForUpdates() throws InterruptedException {
+        if (!isAsyncUpdates()) {
+            return;
+        }
+        synchronized (pendingUpdates) {
+            while (updating) {
+                pendingUpdates.wait();
+            }
+        }
+        // All changes are applied, wait until searcher is reopened with them.
+        reopenThread.waitForGeneration(trackingIndexWriter.getGeneration());
+    }
+
     protected void doUpdate(Term deleteTerm, VirtualFile virtualFile) throws ServerException {
         try (Reader fContentReader = filter.accept(virtualFile) ? new BufferedReader(
                 new InputStreamReader(virtualFile.getContent().getStream())) : null) {
-            getIndexWriter().updateDocument(deleteTerm, createDocument(virtualFile, fContentReader));
+            updateDocument(deleteTerm, createDocument(virtualFile, fContentReader));
         } catch (OutOfMemoryError oome) {
             close();
             throw oome;
@@ -264,13 +902,45 @@ public abstract class LuceneSearcher implements Searcher {
         }
     }
 
+    /* Changes made in asynchronous mode go through TrackingIndexWriter, so it is possible to wait until they become visible. */
+    private void updateDocument(Term term, Document document) throws IOException {
+        final TrackingIndexWriter tracking = trackingIndexWriter;
+        if (tracking != null) {
+            tracking.updateDocument(term, document);
+        } else {
+            getIndexWriter().updateDocument(term, document);
+        }
+    }
+
+    private void deleteDocuments(Query query) throws IOException {
+        final TrackingIndexWriter tracking = trackingIndexWriter;
+        if (tracking != null) {
+            tracking.deleteDocuments(query);
+        } else {
+            getIndexWriter().deleteDocuments(query);
+        }
+    }
+
     protected Document createDocument(VirtualFile virtualFile, Reader inReader) throws ServerException {
         final Document doc = new Document();
         doc.add(new StringField("path", virtualFile.getPath(), Field.Store.YES));
+        doc.add(new SortedDocValuesField("path", new BytesRef(virtualFile.getPath())));
         doc.add(new StringField("name", virtualFile.getName(), Field.Store.YES));
         doc.add(new StringField("mediatype", getMediaType(virtualFile), Field.Store.YES));
         if (inReader != null) {
-            doc.add(new TextField("text", inReader));
+            if (codeSearch) {
+                // Content is read once and both fields are analyzed from the same string.
+                final String content;
+                try {
+                    content = CharStreams.toString(inReader);
+                } catch (IOException e) {
+                    throw new ServerException(e.getMessage(), e);
+                }
+                doc.add(new TextField("text", content, Field.Store.NO));
+                doc.add(new Field(TRIGRAMS_FIELD, content, TRIGRAMS_TYPE));
+            } else {
+                doc.add(new TextField("text", inReader));
+            }
         }
         return doc;
     }
@@ -285,4 +955,185 @@ public abstract class LuceneSearcher implements Searcher {
         return mediaType;
     }
 
+    /* Finds lines for snippets. Offsets of snippets must grow, so lines are scanned only once. */
+    private static final class Lines {
+        final String content;
+        int lineNumber = 1;
+        int lineStart;
+
+        Lines(String content) {
+            this.content = content;
+        }
+
+        SearchResultEntry.Snippet snippet(int startOffset, int endOffset) {
+            for (int i = content.indexOf('\n', lineStart); i >= 0 && i < startOffset; i = content.indexOf('\n', lineStart)) {
+                lineStart = i + 1;
+                lineNumber++;
+            }
+            int lineEnd = content.indexOf('\n', startOffset);
+            if (lineEnd < 0) {
+                lineEnd = content.length();
+            }
+            if (lineEnd > lineStart && content.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            return new SearchResultEntry.Snippet(lineNumber, content.substring(lineStart, lineEnd), startOffset, endOffset);
+        }
+    }
+
+    /*
+     * Position of the last item of page in sorted result. Position in result sorted by relevance is valid while index is not changed,
+     * after that search falls back to skip count which is saved in cursor. Position in result sorted by path stays valid after changes
+     * of index. If limit of checked files is reached before all skipped files are found, toSkip is number of files that must be skipped
+     * yet before the next page.
+     */
+    private static final class PageEnd {
+        static final char BY_SCORE = 'S';
+        static final char BY_PATH  = 'P';
+
+        final char   sort;
+        final long   version;
+        final int    skipCount;
+        final int    toSkip;
+        final float  score;
+        final String path;
+
+        PageEnd(char sort, long version, int skipCount, int toSkip, float score, String path) {
+            this.sort = sort;
+            this.version = version;
+            this.skipCount = skipCount;
+            this.toSkip = toSkip;
+            this.score = score;
+            this.path = path;
+        }
+
+        String encode() {
+            final String cursor = String.valueOf(sort) + ':' + version + ':' + skipCount + ':' + toSkip + ':' + Float.floatToIntBits(score)
+                                  + ':' + path;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /* Returns null if cursor isn't set, is malformed or belongs to result with other sort, then search starts from skip count. */
+        static PageEnd decode(String cursor, char sort) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                final String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 6);
+                if (parts.length != 6 || parts[0].length() != 1 || parts[0].charAt(0) != sort) {
+                    return null;
+                }
+                return new PageEnd(sort, Long.parseLong(parts[1]), Math.max(0, Integer.parseInt(parts[2])),
+                                   Math.max(0, Integer.parseInt(parts[3])), Float.intBitsToFloat(Integer.parseInt(parts[4])), parts[5]);
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Invalid search cursor {}", cursor);
+                return null;
+            }
+        }
+    }
+
+    /* Traverses folders in parallel and puts found files in the queue for indexing threads. */
+    private final class FolderWalker extends RecursiveAction {
+        private final VirtualFile                folder;
+        private final BlockingQueue<VirtualFile> queue;
+        private final AtomicReference<Throwable> error;
+
+        FolderWalker(VirtualFile folder, BlockingQueue<VirtualFile> queue, AtomicReference<Throwable> error) {
+            this.folder = folder;
+            this.queue = queue;
+            this.error = error;
+        }
+
+        @Override
+        protected void compute() {
+            if (error.get() != null || !folder.exists()) {
+                return;
+            }
+            final List<FolderWalker> subFolders = new LinkedList<>();
+            try {
+                final LazyIterator<VirtualFile> children = folder.getChildren(VirtualFileFilter.ALL);
+                while (children.hasNext()) {
+                    final VirtualFile child = children.next();
+                    if (child.isFolder()) {
+                        subFolders.add(new FolderWalker(child, queue, error));
+                    } else {
+                        foundFiles.incrementAndGet();
+                        if (isIndexRequired(child) && !offer(queue, child, error)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (ServerException e) {
+                error.compareAndSet(null, e);
+                return;
+            }
+            invokeAll(subFolders);
+        }
+    }
+
+    /* Waits for free space in queue or for error of indexing. */
+    private static final class QueueOffer implements ForkJoinPool.ManagedBlocker {
+        final BlockingQueue<VirtualFile> queue;
+        final VirtualFile                file;
+        final AtomicReference<Throwable> error;
+
+        boolean offered;
+
+        QueueOffer(BlockingQueue<VirtualFile> queue, VirtualFile file, AtomicReference<Throwable> error) {
+            this.queue = queue;
+            this.file = file;
+            this.error = error;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!offered && error.get() == null) {
+                offered = queue.offer(file, INDEX_QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+            }
+            return isReleasable();
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!offered && error.get() == null) {
+                offered = queue.offer(file);
+            }
+            return offered || error.get() != null;
+        }
+    }
+
+    /*
+     * Not applied update of index. Update reads current state of file or folder when it is applied. If file (folder) exists its
+     * documents are replaced with new ones, otherwise documents are removed from index.
+     */
+    private final class PendingUpdate {
+        final String      path;
+        final boolean     file;
+        final VirtualFile virtualFile;
+        boolean           deleteFirst;
+
+        PendingUpdate(String path, boolean file, VirtualFile virtualFile) {
+            this.path = path;
+            this.file = file;
+            this.virtualFile = virtualFile;
+        }
+
+        void apply() throws ServerException {
+            final boolean exists = virtualFile != null && virtualFile.exists();
+            if (file) {
+                if (exists) {
+                    doUpdate(new Term("path", path), virtualFile);
+                } else {
+                    doDelete(path, true);
+                }
+            } else {
+                if (!exists || deleteFirst) {
+                    doDelete(path, false);
+                }
+                if (exists) {
+                    addTree(virtualFile);
+                }
+            }
+        }
+    }
 }
@@ -12,12 +12,16 @@ package org.eclipse.che.api.vfs.server.search;
 
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.server.MountPoint;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.util.MediaTypeFilter;
+import org.eclipse.che.api.vfs.server.util.VirtualFileFilters;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -77,4 +81,20 @@ public abstract class LuceneSearcherProvider implements SearcherProvider {
         return forIndex;
     }
 
+    /**
+     * Creates filter of files which content must be indexed. Filter accepts files that have one of media types returned by method
+     * {@link #getIndexedMediaTypes()} and are accepted by all specified filters.
+     */
+    protected VirtualFileFilter createIndexFilter(Set<VirtualFileFilter> filters) {
+        if (filters.isEmpty()) {
+            return new MediaTypeFilter(getIndexedMediaTypes());
+        }
+        final VirtualFileFilter[] myFilters = new VirtualFileFilter[filters.size() + 1];
+        final Iterator<VirtualFileFilter> iterator = filters.iterator();
+        for (int i = 1; i < myFilters.length; i++) {
+            myFilters[i] = iterator.next();
+        }
+        myFilters[0] = new MediaTypeFilter(getIndexedMediaTypes());
+        return VirtualFileFilters.createAndFilter(myFilters);
+    }
 }
@@ -12,10 +12,16 @@ package org.eclipse.che.api.vfs.server.search;
 
 /** @author andrew00x */
 public class QueryExpression {
-    private String name;
-    private String path;
-    private String mediaType;
-    private String text;
+    private String  name;
+    private String  path;
+    private String  mediaType;
+    private String  text;
+    private String  substring;
+    private String  regex;
+    private int     skipCount;
+    private int     maxItems;
+    private boolean includeSnippets;
+    private String  cursor;
 
     public String getPath() {
         return path;
@@ -53,6 +59,88 @@ public class QueryExpression {
         return this;
     }
 
+    public String getSubstring() {
+        return substring;
+    }
+
+    /** Sets string that content of file must contain. Search is case sensitive. */
+    public QueryExpression setSubstring(String substring) {
+        this.substring = substring;
+        return this;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * Sets regular expression, content of file must contain any match of it. Characters '^' and '$' match start and end of line.
+     * If both substring and regular expression are set only regular expression is used.
+     */
+    public QueryExpression setRegex(String regex) {
+        this.regex = regex;
+        return this;
+    }
+
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    /** Sets number of matched items to skip. */
+    public QueryExpression setSkipCount(int skipCount) {
+        this.skipCount = skipCount;
+        return this;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /** Sets max number of items in result. Zero or negative value means all matched items. */
+    public QueryExpression setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+        return this;
+    }
+
+    public boolean isIncludeSnippets() {
+        return includeSnippets;
+    }
+
+    /** If {@code true} lines of files that match text part of query are added in result. */
+    public QueryExpression setIncludeSnippets(boolean includeSnippets) {
+        this.includeSnippets = includeSnippets;
+        return this;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Sets position of the last item of previous page. Cursor is opaque string that is provided by Searcher with the next page query,
+     * see {@link SearchResult#getNextPageCursor()}. If cursor is set search continues after the last item of previous page and
+     * {@link #getSkipCount() skipCount} is ignored.
+     */
+    public QueryExpression setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    QueryExpression copy() {
+        final QueryExpression copy = new QueryExpression();
+        copy.name = name;
+        copy.path = path;
+        copy.mediaType = mediaType;
+        copy.text = text;
+        copy.substring = substring;
+        copy.regex = regex;
+        copy.skipCount = skipCount;
+        copy.maxItems = maxItems;
+        copy.includeSnippets = includeSnippets;
+        copy.cursor = cursor;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "QueryExpression{" +
@@ -60,6 +148,12 @@ public class QueryExpression {
                ", path='" + path + '\'' +
                ", mediaType='" + mediaType + '\'' +
                ", text='" + text + '\'' +
+               ", substring='" + substring + '\'' +
+               ", regex='" + regex + '\'' +
+               ", skipCount=" + skipCount +
+               ", maxItems=" + maxItems +
+               ", includeSnippets=" + includeSnippets +
+               ", cursor='" + cursor + '\'' +
                '}';
     }
 }
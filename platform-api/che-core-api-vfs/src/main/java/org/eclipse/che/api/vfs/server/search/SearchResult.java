@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of search result. Items are sorted by relevance, most relevant first.
+ *
+ * @author andrew00x
+ */
+public class SearchResult {
+    private final List<SearchResultEntry> entries;
+    private final long                    totalHits;
+    private final QueryExpression         nextPageQuery;
+
+    public SearchResult(List<SearchResultEntry> entries, long totalHits, QueryExpression nextPageQuery) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.totalHits = totalHits;
+        this.nextPageQuery = nextPageQuery;
+    }
+
+    /** Gets items of this page. */
+    public List<SearchResultEntry> getEntries() {
+        return entries;
+    }
+
+    /** Gets paths of items of this page. */
+    public List<String> getFilePaths() {
+        final List<String> paths = new ArrayList<>(entries.size());
+        for (SearchResultEntry entry : entries) {
+            paths.add(entry.getFilePath());
+        }
+        return paths;
+    }
+
+    /**
+     * Gets total number of items that match query. For queries by content of files, see {@link QueryExpression#getSubstring()} and
+     * {@link QueryExpression#getRegex()}, it is number of matched items up to the end of this page, more items may be found on the next
+     * pages.
+     */
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Gets query for the next page or {@code null} if this page is the last one. Searcher may continue search from the end of this
+     * page with returned query instead of collecting all items before the next page again.
+     */
+    public QueryExpression getNextPageQuery() {
+        return nextPageQuery;
+    }
+
+    /** Gets cursor for the next page or {@code null} if this page is the last one. See {@link QueryExpression#setCursor(String)}. */
+    public String getNextPageCursor() {
+        return nextPageQuery == null ? null : nextPageQuery.getCursor();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+               "entries=" + entries +
+               ", totalHits=" + totalHits +
+               '}';
+    }
+}
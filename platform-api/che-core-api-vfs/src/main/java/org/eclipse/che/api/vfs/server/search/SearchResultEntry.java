@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single item of search result.
+ *
+ * @author andrew00x
+ */
+public class SearchResultEntry {
+    private final String        filePath;
+    private final float         score;
+    private final List<Snippet> snippets;
+
+    public SearchResultEntry(String filePath, float score, List<Snippet> snippets) {
+        this.filePath = filePath;
+        this.score = score;
+        this.snippets = snippets == null ? Collections.<Snippet>emptyList() : Collections.unmodifiableList(new ArrayList<>(snippets));
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /** Gets relevance of item. Makes sense only for comparing items of the same search result. */
+    public float getScore() {
+        return score;
+    }
+
+    /** Gets lines of file that match text query. List is empty if snippets are not requested or query does not contain text. */
+    public List<Snippet> getSnippets() {
+        return snippets;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResultEntry{" +
+               "filePath='" + filePath + '\'' +
+               ", score=" + score +
+               ", snippets=" + snippets +
+               '}';
+    }
+
+    /** Matched word in content of file. */
+    public static class Snippet {
+        private final int    lineNumber;
+        private final String line;
+        private final int    startOffset;
+        private final int    endOffset;
+
+        public Snippet(int lineNumber, String line, int startOffset, int endOffset) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        /** Gets number of line, starting from 1. */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /** Gets the whole line that contains matched word. */
+        public String getLine() {
+            return line;
+        }
+
+        /** Gets offset of the first character of matched word from the start of file. */
+        public int getStartOffset() {
+            return startOffset;
+        }
+
+        /** Gets offset after the last character of matched word from the start of file. */
+        public int getEndOffset() {
+            return endOffset;
+        }
+
+        @Override
+        public String toString() {
+            return "Snippet{" +
+                   "lineNumber=" + lineNumber +
+                   ", line='" + line + '\'' +
+                   ", startOffset=" + startOffset +
+                   ", endOffset=" + endOffset +
+                   '}';
+        }
+    }
+}
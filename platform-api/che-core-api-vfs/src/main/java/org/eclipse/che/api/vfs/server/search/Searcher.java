@@ -15,15 +15,16 @@ import org.eclipse.che.api.vfs.server.VirtualFile;
 
 public interface Searcher {
     /**
-     * Return paths of matched items on virtual filesystem.
+     * Return page of matched items on virtual filesystem. Items are sorted by relevance. Size and position of page are set with
+     * {@link QueryExpression#setMaxItems(int)} and {@link QueryExpression#setSkipCount(int)}.
      *
      * @param query
      *         query expression
-     * @return paths of matched items
+     * @return matched items
      * @throws ServerException
      *         if an error occurs
      */
-    String[] search(QueryExpression query) throws ServerException;
+    SearchResult search(QueryExpression query) throws ServerException;
 
     /**
      * Add VirtualFile to index.
@@ -55,6 +56,24 @@ public interface Searcher {
      */
     void update(VirtualFile virtualFile) throws ServerException;
 
+    /**
+     * Returns {@code true} if all files of virtual filesystem are added in index and {@code false} if initial indexing is not
+     * completed yet. Search over index that is not ready may return partial result.
+     */
+    boolean isReady();
+
+    /**
+     * Gets number of files that are added in index during initial indexing. Searcher that reuses existing index may add in index
+     * only files that are changed since last indexing.
+     */
+    long getIndexedFilesCount();
+
+    /**
+     * Gets number of files that are found during initial indexing. Number grows until initial indexing is completed, after
+     * that it shows total number of files which should be added in index.
+     */
+    long getFoundFilesCount();
+
     /** Close Searcher. */
     void close();
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds queries over trigrams of file content. Such query finds files that may contain literal string or match regular expression,
+ * each found file still must be checked. Query is never more restrictive than the original string or regular expression: if
+ * required trigrams can't be found reliably no query is built.
+ *
+ * @author andrew00x
+ */
+final class TrigramQueries {
+    static final int GRAM_SIZE = 3;
+
+    /**
+     * Creates query that finds files which may contain {@code literal}.
+     *
+     * @return query or {@code null} if {@code literal} is too short to use trigrams
+     */
+    static Query substringQuery(String field, Analyzer analyzer, String literal) throws IOException {
+        return allTrigrams(field, analyzer, literal);
+    }
+
+    /**
+     * Creates query that finds files which may match regular expression {@code regex}.
+     *
+     * @return query or {@code null} if any file may match regular expression
+     */
+    static Query regexQuery(String field, Analyzer analyzer, String regex) throws IOException {
+        final List<List<String>> branches = requiredLiterals(regex);
+        if (branches == null) {
+            return null;
+        }
+        final BooleanQuery query = new BooleanQuery();
+        for (List<String> branch : branches) {
+            final BooleanQuery branchQuery = new BooleanQuery();
+            for (String literal : branch) {
+                final Query literalQuery = allTrigrams(field, analyzer, literal);
+                if (literalQuery != null) {
+                    branchQuery.add(literalQuery, BooleanClause.Occur.MUST);
+                }
+            }
+            if (branchQuery.clauses().isEmpty()) {
+                // Nothing is required in this branch, so any file may match.
+                return null;
+            }
+            query.add(branchQuery, BooleanClause.Occur.SHOULD);
+        }
+        return query;
+    }
+
+    private static Query allTrigrams(String field, Analyzer analyzer, String literal) throws IOException {
+        if (literal.codePointCount(0, literal.length()) < GRAM_SIZE) {
+            return null;
+        }
+        final BooleanQuery query = new BooleanQuery();
+        try (TokenStream tokens = analyzer.tokenStream(field, literal)) {
+            final CharTermAttribute termAttribute = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                query.add(new TermQuery(new Term(field, termAttribute.toString())), BooleanClause.Occur.MUST);
+            }
+            tokens.end();
+        }
+        return query.clauses().isEmpty() ? null : query;
+    }
+
+    /**
+     * Gets literal strings that must be found in any text that matches regular expression. Each item of result list is the list of
+     * strings for one top level alternative of regular expression. Parser is conservative: groups, character classes, escape
+     * sequences and optional characters just break literal strings.
+     *
+     * @return literal strings or {@code null} if regular expression has unsupported construction
+     */
+    static List<List<String>> requiredLiterals(String regex) {
+        if (hasCommentsFlag(regex)) {
+            // White spaces are not literal in comments mode.
+            return null;
+        }
+        final List<List<String>> branches = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        // Quantifier after literal character makes it optional.
+        boolean lastIsLiteral = false;
+        final int length = regex.length();
+        for (int i = 0; i < length; i++) {
+            final char c = regex.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= length) {
+                        return null;
+                    }
+                    final char next = regex.charAt(++i);
+                    if (next == 'Q') {
+                        // Quoted characters are literal, quantifier after quotation is applied to the last of them.
+                        final int end = regex.indexOf("\\E", i + 1);
+                        final String quoted = end < 0 ? regex.substring(i + 1) : regex.substring(i + 1, end);
+                        literal.append(quoted);
+                        i = end < 0 ? length : end + 1;
+                        lastIsLiteral = lastIsLiteral || !quoted.isEmpty();
+                    } else if (Character.isLetterOrDigit(next)) {
+                        endLiteral(literal, literals);
+                        i = skipEscape(regex, i);
+                        if (i < 0) {
+                            return null;
+                        }
+                        lastIsLiteral = false;
+                    } else {
+                        literal.append(next);
+                        lastIsLiteral = true;
+                    }
+                    break;
+                case '[':
+                    endLiteral(literal, literals);
+                    i = skipCharacterClass(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    lastIsLiteral = false;
+                    break;
+                case '(':
+                    endLiteral(literal, literals);
+                    i = skipGroup(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    lastIsLiteral = false;
+                    break;
+                case ')':
+                    return null;
+                case '|':
+                    endLiteral(literal, literals);
+                    branches.add(literals);
+                    literals = new ArrayList<>();
+                    lastIsLiteral = false;
+                    break;
+                case '*':
+                case '?':
+                case '{':
+                    if (lastIsLiteral) {
+                        dropLastChar(literal);
+                    }
+                    endLiteral(literal, literals);
+                    if (c == '{') {
+                        i = regex.indexOf('}', i);
+                        if (i < 0) {
+                            return null;
+                        }
+                    }
+                    lastIsLiteral = false;
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                    endLiteral(literal, literals);
+                    lastIsLiteral = false;
+                    break;
+                default:
+                    literal.append(c);
+                    lastIsLiteral = true;
+            }
+        }
+        endLiteral(literal, literals);
+        branches.add(literals);
+        return branches;
+    }
+
+    private static void endLiteral(StringBuilder literal, List<String> literals) {
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    private static void dropLastChar(StringBuilder literal) {
+        int length = literal.length();
+        if (length > 0) {
+            length--;
+            if (length > 0 && Character.isLowSurrogate(literal.charAt(length)) && Character.isHighSurrogate(literal.charAt(length - 1))) {
+                length--;
+            }
+            literal.setLength(length);
+        }
+    }
+
+    private static boolean hasCommentsFlag(String regex) {
+        for (int i = regex.indexOf("(?"); i >= 0; i = regex.indexOf("(?", i + 2)) {
+            for (int j = i + 2; j < regex.length(); j++) {
+                final char c = regex.charAt(j);
+                if (c == 'x') {
+                    return true;
+                }
+                if (!(Character.isLetter(c) || c == '-')) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /* Gets index of the last character of escape sequence, {@code start} is index of character after backslash. */
+    private static int skipEscape(String regex, int start) {
+        final char c = regex.charAt(start);
+        switch (c) {
+            case 'x':
+                return start + 1 < regex.length() && regex.charAt(start + 1) == '{' ? regex.indexOf('}', start) : start + 2;
+            case 'u':
+                return start + 4;
+            case 'c':
+                return start + 1;
+            case 'p':
+            case 'P':
+            case 'N':
+                return start + 1 < regex.length() && regex.charAt(start + 1) == '{' ? regex.indexOf('}', start) : start + 1;
+            case 'k':
+                return regex.indexOf('>', start);
+            default:
+                int i = start;
+                if (Character.isDigit(c)) {
+                    // Octal escape or back reference.
+                    while (i + 1 < regex.length() && Character.isDigit(regex.charAt(i + 1))) {
+                        i++;
+                    }
+                }
+                return i;
+        }
+    }
+
+    /* Gets index of ']' that closes character class started at {@code start}. */
+    private static int skipCharacterClass(String regex, int start) {
+        int depth = 0;
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            // ']' right after '[' or '[^' is literal.
+            i++;
+        }
+        for (; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    /* Gets index of ')' that closes group started at {@code start}. */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        for (int i = start + 1; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    final int end = regex.indexOf("\\E", i + 2);
+                    if (end < 0) {
+                        return -1;
+                    }
+                    i = end + 1;
+                } else {
+                    i++;
+                }
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    private TrigramQueries() {
+    }
+}
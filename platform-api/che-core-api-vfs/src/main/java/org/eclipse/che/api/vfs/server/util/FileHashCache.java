@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import com.google.common.hash.Hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps md5 sums of files together with length and modification date of file at the moment when sum was counted. Sum is
+ * counted again only if length or modification date of file is changed, so check of tree of files that was not changed since
+ * previous check costs only reading of attributes of files. Cache may be saved in file and loaded from it after restart.
+ * <p/>
+ * Sum of file that was modified very recently is not cached. Some file systems keep modification date with one or two
+ * seconds precision, and file may be changed again without visible change of modification date.
+ * <p/>
+ * Keys of cache are paths of files relative to the root of tree, separated with '/'.
+ *
+ * @author andrew00x
+ */
+public class FileHashCache {
+    private static final Logger LOG = LoggerFactory.getLogger(FileHashCache.class);
+
+    private static final int  MAGIC        = 0x4d443543;
+    private static final int  VERSION      = 1;
+    /* Sum of file is cached only if file was modified earlier than this number of milliseconds ago. */
+    private static final long MIN_FILE_AGE = 2000;
+
+    private final java.io.File                storeFile;
+    private final NavigableMap<String, Entry> entries;
+    private       boolean                     loaded;
+    private       boolean                     modified;
+
+    /**
+     * @param storeFile
+     *         file where cache is saved between restarts or {@code null} if cache should be kept in memory only
+     */
+    public FileHashCache(java.io.File storeFile) {
+        this.storeFile = storeFile;
+        entries = new TreeMap<>();
+    }
+
+    /**
+     * Gets md5 sum of file. Sum is counted if there is no sum for the file in cache or file is changed since sum was counted.
+     *
+     * @param path
+     *         key of file in cache
+     * @param file
+     *         file
+     * @return md5 sum as hex string
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public String getMd5Sum(String path, java.io.File file) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        String md5 = get(path, attributes);
+        if (md5 == null) {
+            // Attributes are read before counting, if file is changed while we count sum it is counted again next time.
+            md5 = com.google.common.io.Files.hash(file, Hashing.md5()).toString();
+            put(path, attributes, md5);
+        }
+        return md5;
+    }
+
+    /**
+     * Gets cached md5 sum of file.
+     *
+     * @param path
+     *         key of file in cache
+     * @param attributes
+     *         current attributes of file
+     * @return md5 sum or {@code null} if there is no sum for the file in cache or file is changed since sum was counted
+     */
+    public synchronized String get(String path, BasicFileAttributes attributes) {
+        load();
+        final Entry entry = entries.get(path);
+        if (entry != null && entry.length == attributes.size() && entry.lastModified == attributes.lastModifiedTime().toMillis()) {
+            return entry.md5;
+        }
+        return null;
+    }
+
+    /**
+     * Puts md5 sum of file in cache.
+     *
+     * @param path
+     *         key of file in cache
+     * @param attributes
+     *         attributes of file that were read before sum was counted
+     * @param md5
+     *         md5 sum as hex string
+     */
+    public synchronized void put(String path, BasicFileAttributes attributes, String md5) {
+        load();
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        if (System.currentTimeMillis() - lastModified < MIN_FILE_AGE) {
+            modified |= entries.remove(path) != null;
+            return;
+        }
+        entries.put(path, new Entry(attributes.size(), lastModified, md5));
+        modified = true;
+    }
+
+    /** Removes sum of file with specified path or sums of all files under folder with specified path. */
+    public synchronized void invalidate(String path) {
+        load();
+        modified |= entries.remove(path) != null;
+        // All children start with "path/", '0' follows '/' in ASCII table.
+        final Map<String, Entry> children = entries.subMap(path + '/', true, path + '0', false);
+        if (!children.isEmpty()) {
+            children.clear();
+            modified = true;
+        }
+    }
+
+    /** Removes sums of all files except specified. Helps to forget about removed files. */
+    public synchronized void retainAll(Collection<String> paths) {
+        load();
+        final Set<String> retain = paths instanceof Set ? (Set<String>)paths : new HashSet<>(paths);
+        for (Iterator<String> i = entries.keySet().iterator(); i.hasNext(); ) {
+            if (!retain.contains(i.next())) {
+                i.remove();
+                modified = true;
+            }
+        }
+    }
+
+    /** Removes all sums. */
+    public synchronized void clear() {
+        loaded = true;
+        modified |= !entries.isEmpty();
+        entries.clear();
+    }
+
+    /** Saves cache in file if it was changed since it was loaded. Does nothing if cache is not persistent. */
+    public synchronized void save() throws IOException {
+        if (storeFile == null || !modified) {
+            return;
+        }
+        final java.io.File parent = storeFile.getParentFile();
+        if (!(parent.exists() || parent.mkdirs())) {
+            throw new IOException(String.format("Unable create directory %s. ", parent));
+        }
+        final java.io.File tmp = new java.io.File(parent, storeFile.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue().length);
+                    out.writeLong(e.getValue().lastModified);
+                    out.writeUTF(e.getValue().md5);
+                }
+            }
+            try {
+                Files.move(tmp.toPath(), storeFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        modified = false;
+    }
+
+    /** Gets number of cached sums. */
+    public synchronized int size() {
+        load();
+        return entries.size();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (storeFile == null || !storeFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOG.warn("Unsupported format of md5 sums file {}, ignore it. ", storeFile);
+                return;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String path = in.readUTF();
+                final long length = in.readLong();
+                final long lastModified = in.readLong();
+                entries.put(path, new Entry(length, lastModified, in.readUTF()));
+            }
+        } catch (IOException e) {
+            // Sums are counted again, it is slow but safe.
+            LOG.warn(String.format("Unable read md5 sums file %s, ignore it. ", storeFile) + e.getMessage(), e);
+            entries.clear();
+        }
+    }
+
+    private static class Entry {
+        final long   length;
+        final long   lastModified;
+        final String md5;
+
+        Entry(long length, long lastModified, String md5) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+    }
+}
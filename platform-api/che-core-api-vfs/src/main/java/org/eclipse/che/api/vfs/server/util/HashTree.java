@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import org.eclipse.che.commons.lang.Pair;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tree of md5 sums of folder content that is used for incremental sync of folder between virtual file system and its remote
+ * copy, e.g. sources of project on builder. Each folder has two sums:
+ * <ul>
+ * <li>files sum - sum of names and md5 sums of files of folder, children folders are not included</li>
+ * <li>tree sum - sum of files sum and names and tree sums of children folders</li>
+ * </ul>
+ * If tree sums of folder are the same on both sides, whole folder is not changed and is not compared further. Only folders
+ * that contain files are included in tree, empty folders are ignored.
+ * <p/>
+ * Tree is sent in text format, one item per line, paths are relative to the synced folder, root folder has empty path:
+ * <pre>
+ * D &lt;tree sum&gt; &lt;files sum&gt; &lt;folder path&gt;
+ * L &lt;folder path&gt;
+ * F &lt;md5 sum&gt; &lt;file path&gt;
+ * </pre>
+ * Line 'D' is sent for each folder. Line 'L' means that files of folder are listed with lines 'F'. Files are listed only for
+ * folders requested by other side, see {@link #diff(HashTree)}.
+ *
+ * @author andrew00x
+ */
+public final class HashTree {
+    /** Media type of tree in text format. */
+    public static final String MEDIA_TYPE = "text/x-hash-tree";
+
+    private static final int          MD5_LENGTH    = 32;
+    private static final HashFunction HASH_FUNCTION = Hashing.md5();
+
+    private final Map<String, Folder> folders;
+
+    private HashTree() {
+        folders = new HashMap<>();
+    }
+
+    /**
+     * Creates tree from md5 sums of files.
+     *
+     * @param md5Sums
+     *         pairs of md5 sum and path of file relative to the synced folder, path is separated with '/'
+     */
+    public static HashTree fromMd5Sums(Iterator<Pair<String, String>> md5Sums) {
+        final HashTree tree = new HashTree();
+        tree.getOrCreateFolder("");
+        while (md5Sums.hasNext()) {
+            final Pair<String, String> md5Sum = md5Sums.next();
+            final String path = md5Sum.second;
+            final int slash = path.lastIndexOf('/');
+            tree.getOrCreateFolder(slash < 0 ? "" : path.substring(0, slash)).files.put(path.substring(slash + 1), md5Sum.first);
+        }
+        tree.countSum("");
+        return tree;
+    }
+
+    /**
+     * Reads tree sent by other side.
+     *
+     * @throws IOException
+     *         if an i/o error occurs or format of tree is invalid
+     */
+    public static HashTree read(Reader reader) throws IOException {
+        final HashTree tree = new HashTree();
+        final BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.length() < 2 || line.charAt(1) != ' ') {
+                throw new IOException(String.format("Invalid line '%s'. ", line));
+            }
+            switch (line.charAt(0)) {
+                case 'D': {
+                    checkLength(line, 2 + (MD5_LENGTH + 1) * 2);
+                    final Folder folder = tree.getOrCreateFolder(line.substring(2 + (MD5_LENGTH + 1) * 2));
+                    folder.treeSum = line.substring(2, 2 + MD5_LENGTH);
+                    folder.filesSum = line.substring(2 + MD5_LENGTH + 1, 2 + MD5_LENGTH * 2 + 1);
+                    break;
+                }
+                case 'L':
+                    tree.getOrCreateFolder(line.substring(2)).listed = true;
+                    break;
+                case 'F': {
+                    checkLength(line, 2 + MD5_LENGTH + 1);
+                    final String path = line.substring(2 + MD5_LENGTH + 1);
+                    final int slash = path.lastIndexOf('/');
+                    tree.getOrCreateFolder(slash < 0 ? "" : path.substring(0, slash)).files
+                        .put(path.substring(slash + 1), line.substring(2, 2 + MD5_LENGTH));
+                    break;
+                }
+                default:
+                    throw new IOException(String.format("Invalid line '%s'. ", line));
+            }
+        }
+        for (Folder folder : tree.folders.values()) {
+            if (folder.treeSum == null) {
+                throw new IOException(String.format("Sum of folder '%s' is not sent. ", folder.path));
+            }
+        }
+        if (!tree.folders.containsKey("")) {
+            throw new IOException("Sum of root folder is not sent. ");
+        }
+        return tree;
+    }
+
+    private static void checkLength(String line, int minLength) throws IOException {
+        if (line.length() < minLength) {
+            throw new IOException(String.format("Invalid line '%s'. ", line));
+        }
+    }
+
+    private static String childPath(String folder, String name) {
+        return folder.isEmpty() ? name : folder + '/' + name;
+    }
+
+    /** Gets tree sum of root folder. */
+    public String getSum() {
+        return folders.get("").treeSum;
+    }
+
+    /**
+     * Writes tree in text format.
+     *
+     * @param writer
+     *         writer
+     * @param listFiles
+     *         paths of folders which files must be listed
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    public void write(Writer writer, Collection<String> listFiles) throws IOException {
+        for (Folder folder : new TreeMap<>(folders).values()) {
+            writer.write("D ");
+            writer.write(folder.treeSum);
+            writer.write(' ');
+            writer.write(folder.filesSum);
+            writer.write(' ');
+            writer.write(folder.path);
+            writer.write('\n');
+        }
+        for (String path : listFiles) {
+            final Folder folder = folders.get(path);
+            if (folder == null) {
+                continue;
+            }
+            writer.write("L ");
+            writer.write(path);
+            writer.write('\n');
+            for (Map.Entry<String, String> file : folder.files.entrySet()) {
+                writer.write("F ");
+                writer.write(file.getValue());
+                writer.write(' ');
+                writer.write(childPath(path, file.getKey()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Compares this tree with tree of other side. Folders are compared from the root, folder which tree sums are the same
+     * on both sides is skipped together with all its children.
+     *
+     * @param remote
+     *         tree of other side
+     * @return difference between trees, files and folders that are updated or added in this tree and removed from it
+     */
+    public Diff diff(HashTree remote) {
+        final Diff diff = new Diff();
+        final LinkedList<String> q = new LinkedList<>();
+        q.add("");
+        while (!q.isEmpty()) {
+            final String path = q.pop();
+            final Folder local = folders.get(path);
+            final Folder other = remote.folders.get(path);
+            if (local.treeSum.equals(other.treeSum)) {
+                continue;
+            }
+            if (!local.filesSum.equals(other.filesSum)) {
+                if (other.listed) {
+                    for (Map.Entry<String, String> file : local.files.entrySet()) {
+                        if (!file.getValue().equals(other.files.get(file.getKey()))) {
+                            diff.updated.add(childPath(path, file.getKey()));
+                        }
+                    }
+                    for (String name : other.files.keySet()) {
+                        if (!local.files.containsKey(name)) {
+                            diff.removed.add(childPath(path, name));
+                        }
+                    }
+                } else {
+                    diff.unlisted.add(path);
+                }
+            }
+            for (String name : local.children) {
+                final String childPath = childPath(path, name);
+                if (remote.folders.containsKey(childPath)) {
+                    q.add(childPath);
+                } else {
+                    diff.added.add(childPath);
+                }
+            }
+            for (String name : other.children) {
+                final String childPath = childPath(path, name);
+                if (!folders.containsKey(childPath)) {
+                    diff.removed.add(childPath);
+                }
+            }
+        }
+        return diff;
+    }
+
+    private Folder getOrCreateFolder(String path) {
+        Folder folder = folders.get(path);
+        if (folder == null) {
+            folders.put(path, folder = new Folder(path));
+            if (!path.isEmpty()) {
+                final int slash = path.lastIndexOf('/');
+                getOrCreateFolder(slash < 0 ? "" : path.substring(0, slash)).children.add(path.substring(slash + 1));
+            }
+        }
+        return folder;
+    }
+
+    private String countSum(String path) {
+        final Folder folder = folders.get(path);
+        final Hasher filesHasher = HASH_FUNCTION.newHasher();
+        for (Map.Entry<String, String> file : folder.files.entrySet()) {
+            filesHasher.putString(file.getKey(), StandardCharsets.UTF_8).putByte((byte)0)
+                       .putString(file.getValue(), StandardCharsets.UTF_8).putByte((byte)'\n');
+        }
+        folder.filesSum = filesHasher.hash().toString();
+        final Hasher treeHasher = HASH_FUNCTION.newHasher().putString(folder.filesSum, StandardCharsets.UTF_8);
+        for (String name : folder.children) {
+            treeHasher.putString(name, StandardCharsets.UTF_8).putByte((byte)0)
+                      .putString(countSum(childPath(path, name)), StandardCharsets.UTF_8).putByte((byte)'\n');
+        }
+        return folder.treeSum = treeHasher.hash().toString();
+    }
+
+    private static class Folder {
+        final String                    path;
+        final SortedMap<String, String> files;
+        final SortedSet<String>         children;
+        String  treeSum;
+        String  filesSum;
+        boolean listed;
+
+        Folder(String path) {
+            this.path = path;
+            files = new TreeMap<>();
+            children = new TreeSet<>();
+        }
+    }
+
+    /** Difference between two trees. All paths are relative to the synced folder. */
+    public static final class Diff {
+        private final List<String> updated  = new ArrayList<>();
+        private final List<String> added    = new ArrayList<>();
+        private final List<String> removed  = new ArrayList<>();
+        private final List<String> unlisted = new ArrayList<>();
+
+        /** Files that are added or updated. */
+        public List<String> getUpdatedFiles() {
+            return Collections.unmodifiableList(updated);
+        }
+
+        /** Folders that are added, all content of such folders is added. */
+        public List<String> getAddedFolders() {
+            return Collections.unmodifiableList(added);
+        }
+
+        /** Files and folders that are removed. */
+        public List<String> getRemoved() {
+            return Collections.unmodifiableList(removed);
+        }
+
+        /**
+         * Changed folders for which other side did not list files. If this list is not empty other side must send tree
+         * again and list files of these folders.
+         */
+        public List<String> getUnlistedFolders() {
+            return Collections.unmodifiableList(unlisted);
+        }
+
+        /** Returns {@code true} if trees are the same. */
+        public boolean isEmpty() {
+            return updated.isEmpty() && added.isEmpty() && removed.isEmpty() && unlisted.isEmpty();
+        }
+    }
+}
@@ -112,4 +112,15 @@ public interface Item {
     Item withPermissions(List<String> permissions);
 
     void setPermissions(List<String> permissions);
+
+    /**
+     * Get lines of file that match search query. Snippets are set only for items of search result if they were requested.
+     *
+     * @return snippets of file. Never <code>null</code> but empty list instead
+     */
+    List<SearchSnippet> getSnippets();
+
+    Item withSnippets(List<SearchSnippet> snippets);
+
+    void setSnippets(List<SearchSnippet> snippets);
 }
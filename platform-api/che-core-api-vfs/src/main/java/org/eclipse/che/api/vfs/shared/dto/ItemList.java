@@ -45,4 +45,14 @@ public interface ItemList {
     ItemList withHasMoreItems(boolean hasMoreItems);
 
     void setHasMoreItems(boolean hasMoreItems);
+
+    /**
+     * @return cursor for the next page or <code>null</code> if this is last sub-set of items or cursor isn't supported. Next page
+     *         started after the last item of this page may be got with this cursor instead of skip count.
+     */
+    String getNextPageCursor();
+
+    ItemList withNextPageCursor(String nextPageCursor);
+
+    void setNextPageCursor(String nextPageCursor);
 }
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import org.eclipse.che.api.vfs.server.util.ByteBufferInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of reading file content with {@link ContentStream#writeTo(OutputStream)}:
+ * <ul>
+ * <li>stream - content is copied through the buffer in java heap, that is how content was sent before NIO support</li>
+ * <li>channel - content of opened file is transferred with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}</li>
+ * <li>mapped - content is written from memory-mapped region that is kept between reads like for hot files</li>
+ * </ul>
+ * Content is written to the file ("file" sink), where transfer between channels may be done by operating system, and to the
+ * plain OutputStream ("stream" sink) like HTTP response.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.vfs.server.ContentStreamBenchmark
+ * </pre>
+ *
+ * @author andrew00x
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ContentStreamBenchmark {
+    /** 1 KB, 1 MB and 100 MB files. */
+    @Param({"1024", "1048576", "104857600"})
+    public int size;
+
+    @Param({"stream", "channel", "mapped"})
+    public String read;
+
+    @Param({"file", "stream"})
+    public String sink;
+
+    private File             file;
+    private File             target;
+    private MappedByteBuffer mapped;
+    private OutputStream     out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("content", null);
+        final byte[] buf = new byte[8192];
+        final Random random = new Random();
+        try (FileOutputStream fOut = new FileOutputStream(file)) {
+            for (int written = 0; written < size; written += buf.length) {
+                random.nextBytes(buf);
+                fOut.write(buf, 0, Math.min(buf.length, size - written));
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if ("file".equals(sink)) {
+            target = File.createTempFile("target", null);
+            out = new FileOutputStream(target);
+        } else {
+            out = new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        out.close();
+        if (target != null) {
+            target.delete();
+        }
+        file.delete();
+    }
+
+    @Benchmark
+    public long writeTo() throws IOException {
+        final ContentStream content;
+        switch (read) {
+            case "channel":
+                content = new ContentStream(file.getName(), new FileInputStream(file), "application/octet-stream", size, null);
+                break;
+            case "mapped":
+                content = new ContentStream(file.getName(), new ByteBufferInputStream(mapped), "application/octet-stream", size, null);
+                break;
+            default:
+                // BufferedInputStream hides FileInputStream from ContentStream, so content is copied through heap buffer.
+                content = new ContentStream(file.getName(), new BufferedInputStream(new FileInputStream(file)),
+                                            "application/octet-stream", size, null);
+                break;
+        }
+        if (out instanceof FileOutputStream) {
+            // Overwrite target file from the beginning to keep its size stable between iterations.
+            ((FileOutputStream)out).getChannel().position(0);
+        }
+        content.writeTo(out);
+        return content.getLength();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ContentStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
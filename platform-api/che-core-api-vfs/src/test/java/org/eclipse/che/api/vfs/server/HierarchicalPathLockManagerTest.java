@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author andrew00x
+ */
+public class HierarchicalPathLockManagerTest extends TestCase {
+    private final int  maxThreads = 3;
+    private final Path path       = Path.fromString("/a/b/c"); // Path not need to be real path on file system
+
+    private HierarchicalPathLockManager lockManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        lockManager = new HierarchicalPathLockManager(maxThreads);
+    }
+
+    public void testLockAndRelease() throws Exception {
+        PathLockManager.Lock lock = lockManager.getLock(path, true).acquire();
+        assertTrue(lock.isExclusive());
+        lock.release();
+        lockManager.checkClean();
+    }
+
+    public void testConcurrentExclusiveLocks() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final CountDownLatch waiter = new CountDownLatch(3);
+        final List<Throwable> errors = new ArrayList<>(3);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                PathLockManager.Lock exclusiveLock = lockManager.getLock(path, true);
+                try {
+                    exclusiveLock.acquire();
+                    try {
+                        // Only one thread has exclusive access
+                        assertEquals(0, acquired.getAndIncrement());
+                        Thread.sleep(100);
+                    } finally {
+                        acquired.getAndDecrement();
+                        exclusiveLock.release();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(task).start();
+        new Thread(task).start();
+        new Thread(task).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        lockManager.checkClean();
+    }
+
+    public void testLockTimeout() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch stopper = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockManager.Lock exclusiveLock = lockManager.getLock(path, true).acquire();
+                try {
+                    starter.countDown();
+                    stopper.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    exclusiveLock.release();
+                }
+            }
+        };
+        t.start();
+        starter.await(); // wait while child thread acquire exclusive lock
+        try {
+            // Here we must be failed to get exclusive permit.
+            lockManager.getLock(path, true).acquire(100);
+            fail();
+        } catch (RuntimeException e) {
+            // OK
+        } finally {
+            stopper.countDown();
+        }
+        t.join();
+        lockManager.checkClean();
+    }
+
+    public void testSharedLocks() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch stopper = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockManager.Lock lock = lockManager.getLock(path, false).acquire();
+                try {
+                    starter.countDown();
+                    stopper.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    lock.release();
+                }
+            }
+        };
+        t.start();
+        starter.await();
+        try {
+            // Shared lock on the same path and on parent are available.
+            lockManager.getLock(path, false).acquire(100).release();
+            lockManager.getLock(path.getParent(), false).acquire(100).release();
+            // Exclusive lock on the same path and on parent are not available.
+            try {
+                lockManager.getLock(path, true).acquire(100);
+                fail();
+            } catch (RuntimeException e) {
+                // OK
+            }
+            try {
+                lockManager.getLock(path.getParent(), true).acquire(100);
+                fail();
+            } catch (RuntimeException e) {
+                // OK
+            }
+        } finally {
+            stopper.countDown();
+        }
+        t.join();
+        lockManager.checkClean();
+    }
+
+    public void testHierarchyLock() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final Path parent = path.getParent();
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch waiter = new CountDownLatch(2);
+        Runnable parentTask = new Runnable() {
+            @Override
+            public void run() {
+                PathLockManager.Lock lock = lockManager.getLock(parent, true);
+                lock.acquire();
+                acquired.incrementAndGet();
+                starter.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    acquired.getAndDecrement();
+                    lock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        final List<Throwable> errors = new ArrayList<>(1);
+        Runnable childTask = new Runnable() {
+            @Override
+            public void run() {
+                PathLockManager.Lock lock = lockManager.getLock(path, false);
+                try {
+                    lock.acquire();
+                    try {
+                        // This thread must be blocked while another thread keeps lock.
+                        assertEquals(0, acquired.getAndIncrement());
+                    } finally {
+                        acquired.getAndDecrement();
+                        lock.release();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(parentTask).start();
+        starter.await();
+        new Thread(childTask).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        lockManager.checkClean();
+    }
+
+    public void testChildLockPreventsParentExclusiveLock() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch stopper = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockManager.Lock lock = lockManager.getLock(path, true).acquire();
+                try {
+                    starter.countDown();
+                    stopper.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    lock.release();
+                }
+            }
+        };
+        t.start();
+        starter.await();
+        try {
+            try {
+                lockManager.getLock(Path.ROOT, false).acquire(100);
+                fail();
+            } catch (RuntimeException e) {
+                // OK
+            }
+            // Sibling is not affected.
+            lockManager.getLock(path.getParent().newPath("d"), true).acquire(100).release();
+        } finally {
+            stopper.countDown();
+        }
+        t.join();
+        lockManager.checkClean();
+    }
+
+    public void testWaiterIsNotifiedAfterRelease() throws Exception {
+        final PathLockManager.Lock lock = lockManager.getLock(path, true).acquire();
+        final CountDownLatch waiter = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                lockManager.getLock(path.getParent(), true).acquire().release();
+                waiter.countDown();
+            }
+        };
+        t.start();
+        assertFalse(waiter.await(100, TimeUnit.MILLISECONDS));
+        lock.release();
+        assertTrue(waiter.await(1, TimeUnit.SECONDS));
+        t.join();
+        lockManager.checkClean();
+    }
+
+    public void testLockSameThread() throws Exception {
+        PathLockManager.Lock lock1 = lockManager.getLock(path, true).acquire();
+        PathLockManager.Lock lock2 = lockManager.getLock(path, true).acquire(1000);
+        // Locks of current thread do not prevent getting lock on parent.
+        PathLockManager.Lock lock3 = lockManager.getLock(path.getParent(), true).acquire(1000);
+        lock3.release();
+        lock2.release();
+        lock1.release();
+        lockManager.checkClean();
+    }
+
+    public void testReleaseByOtherThread() throws Exception {
+        final PathLockManager.Lock lock = lockManager.getLock(path, false).acquire();
+        final List<Throwable> errors = new ArrayList<>(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    lock.release();
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }
+        };
+        t.start();
+        t.join();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalMonitorStateException);
+        lock.release();
+        lockManager.checkClean();
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of {@link PathLockFactory} and {@link HierarchicalPathLockManager}. Threads lock random files in
+ * a tree of paths, most of locks are shared like in real life where reads are much more frequent than writes.
+ * <p/>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.vfs.server.PathLockManagerBenchmark
+ * </pre>
+ *
+ * @author andrew00x
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(16)
+public class PathLockManagerBenchmark {
+    private static final int MAX_THREADS = 1024;
+    private static final int FOLDERS     = 16;
+    private static final int FILES       = 64;
+
+    @Param({"factory", "hierarchical"})
+    public String manager;
+
+    /** Percent of exclusive locks. */
+    @Param({"0", "10"})
+    public int exclusivePercent;
+
+    private PathLockManager lockManager;
+    private Path[]          paths;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lockManager = "hierarchical".equals(manager) ? new HierarchicalPathLockManager(MAX_THREADS) : new PathLockFactory(MAX_THREADS);
+        paths = new Path[FOLDERS * FILES];
+        for (int i = 0; i < FOLDERS; i++) {
+            for (int j = 0; j < FILES; j++) {
+                paths[i * FILES + j] = Path.fromString(String.format("/project/src/folder%d/file%d", i, j));
+            }
+        }
+    }
+
+    @Benchmark
+    public void lockUnlock() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Path path = paths[random.nextInt(paths.length)];
+        final boolean exclusive = random.nextInt(100) < exclusivePercent;
+        final PathLockManager.Lock lock = lockManager.getLock(path, exclusive).acquire();
+        try {
+            // Emulate short i/o operation under lock.
+            for (int i = 0; i < 100; i++) {
+                random.nextInt();
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PathLockManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author andrew00x
+ */
+public class TrigramQueriesTest extends TestCase {
+    public void testLiteral() {
+        assertEquals(literals(literals("getFoo")), TrigramQueries.requiredLiterals("getFoo"));
+    }
+
+    public void testMetaCharactersBreakLiterals() {
+        assertEquals(literals(literals("get", "Bar(")), TrigramQueries.requiredLiterals("get.*Bar\\("));
+        assertEquals(literals(literals("Impl")), TrigramQueries.requiredLiterals("[a-z]+Impl\\b"));
+        assertEquals(literals(literals("bcd")), TrigramQueries.requiredLiterals("\\x41bcd"));
+        assertEquals(literals(literals("abc", "ghi")), TrigramQueries.requiredLiterals("abc(def)?ghi"));
+    }
+
+    public void testOptionalCharactersAreDropped() {
+        assertEquals(literals(literals("a", "cde")), TrigramQueries.requiredLiterals("ab*cde"));
+        assertEquals(literals(literals("bcd")), TrigramQueries.requiredLiterals("a{2}bcd"));
+        assertEquals(literals(literals("a.", "xyz")), TrigramQueries.requiredLiterals("\\Qa.b\\E*xyz"));
+    }
+
+    public void testAlternatives() {
+        assertEquals(literals(literals("foo"), literals("bar")), TrigramQueries.requiredLiterals("foo|bar"));
+    }
+
+    public void testCommentsModeIsNotSupported() {
+        assertNull(TrigramQueries.requiredLiterals("(?x)a b c"));
+    }
+
+    @SafeVarargs
+    private static <T> List<T> literals(T... items) {
+        return Arrays.asList(items);
+    }
+}
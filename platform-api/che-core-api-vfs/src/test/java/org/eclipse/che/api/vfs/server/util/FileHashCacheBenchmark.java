@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import org.eclipse.che.commons.lang.IoUtil;
+
+import com.google.common.hash.Hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures incremental sync of sources between builder and virtual file system when nothing is changed since previous build.
+ * Builder counts md5 sums of its copy of sources, virtual file system counts md5 sums of the project and compares both
+ * lists to find updated files. HTTP transfer of lists is not measured.
+ * <ul>
+ * <li>cached=false - sums of all files are counted on both sides, that is how sync worked before sums were cached</li>
+ * <li>cached=true - sums are taken from {@link FileHashCache}, only attributes of files are read</li>
+ * </ul>
+ * Run from IDE or with command:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.eclipse.che.api.vfs.server.util.FileHashCacheBenchmark
+ * </pre>
+ *
+ * @author andrew00x
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileHashCacheBenchmark {
+    private static final int FILES_IN_FOLDER = 100;
+
+    @Param({"1000", "50000"})
+    public int files;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private File          root;
+    private File          project;
+    private File          sources;
+    private FileHashCache projectCache;
+    private FileHashCache sourcesCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sync").toFile();
+        project = new File(root, "project");
+        sources = new File(root, "sources");
+        final byte[] content = new byte[4096];
+        final Random random = new Random();
+        // Files must be old enough to be cached.
+        final long lastModified = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < files; i++) {
+            random.nextBytes(content);
+            final String name = "folder" + (i / FILES_IN_FOLDER) + File.separatorChar + "file" + i;
+            for (File parent : new File[]{project, sources}) {
+                final File file = new File(parent, name);
+                file.getParentFile().mkdirs();
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(content, 0, 1 + random.nextInt(content.length));
+                }
+                file.setLastModified(lastModified);
+            }
+        }
+        projectCache = new FileHashCache(new File(root, "project.md5sums"));
+        sourcesCache = new FileHashCache(new File(root, "sources.md5sums"));
+        // Previous build.
+        sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtil.deleteRecursive(root);
+    }
+
+    @Benchmark
+    public int sync() throws IOException {
+        final Map<String, String> remote = countMd5Sums(sources, sourcesCache);
+        final Map<String, String> local = countMd5Sums(project, projectCache);
+        int diff = 0;
+        for (Map.Entry<String, String> e : local.entrySet()) {
+            if (!e.getValue().equals(remote.get(e.getKey()))) {
+                diff++;
+            }
+        }
+        return diff;
+    }
+
+    private Map<String, String> countMd5Sums(File dir, FileHashCache cache) throws IOException {
+        final Map<String, String> md5sums = new TreeMap<>();
+        final LinkedList<File> q = new LinkedList<>();
+        q.add(dir);
+        while (!q.isEmpty()) {
+            final File[] list = q.pop().listFiles();
+            if (list != null) {
+                for (File f : list) {
+                    if (f.isDirectory()) {
+                        q.push(f);
+                    } else {
+                        final String path = dir.toPath().relativize(f.toPath()).toString();
+                        md5sums.put(path, cached ? cache.getMd5Sum(path, f) : com.google.common.io.Files.hash(f, Hashing.md5()).toString());
+                    }
+                }
+            }
+        }
+        if (cached) {
+            cache.save();
+        }
+        return md5sums;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FileHashCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
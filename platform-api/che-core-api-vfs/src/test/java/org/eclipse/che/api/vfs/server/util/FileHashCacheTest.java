@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import org.eclipse.che.commons.lang.IoUtil;
+
+import com.google.common.hash.Hashing;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+
+/**
+ * @author andrew00x
+ */
+public class FileHashCacheTest extends TestCase {
+    private File dir;
+    private File storeFile;
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = Files.createTempDirectory("hashes").toFile();
+        storeFile = new File(dir, "md5sums");
+        file = new File(dir, "a.txt");
+        writeFile(file, "hello");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        IoUtil.deleteRecursive(dir);
+        super.tearDown();
+    }
+
+    public void testCountSum() throws Exception {
+        FileHashCache cache = new FileHashCache(storeFile);
+        assertEquals(Hashing.md5().hashBytes("hello".getBytes()).toString(), cache.getMd5Sum("/a.txt", file));
+        assertEquals(cache.getMd5Sum("/a.txt", file), cache.get("/a.txt", attributes(file)));
+    }
+
+    public void testCountSumAgainIfFileChanged() throws Exception {
+        FileHashCache cache = new FileHashCache(storeFile);
+        cache.getMd5Sum("/a.txt", file);
+        writeFile(file, "hello world");
+        assertNull(cache.get("/a.txt", attributes(file)));
+        assertEquals(Hashing.md5().hashBytes("hello world".getBytes()).toString(), cache.getMd5Sum("/a.txt", file));
+    }
+
+    public void testDoNotCacheSumOfRecentlyModifiedFile() throws Exception {
+        assertTrue(file.setLastModified(System.currentTimeMillis()));
+        FileHashCache cache = new FileHashCache(storeFile);
+        cache.getMd5Sum("/a.txt", file);
+        assertNull(cache.get("/a.txt", attributes(file)));
+    }
+
+    public void testInvalidateFolder() throws Exception {
+        FileHashCache cache = new FileHashCache(storeFile);
+        cache.put("/folder/a.txt", attributes(file), "1");
+        cache.put("/folder/b/c.txt", attributes(file), "2");
+        cache.put("/folder2/a.txt", attributes(file), "3");
+        cache.invalidate("/folder");
+        assertNull(cache.get("/folder/a.txt", attributes(file)));
+        assertNull(cache.get("/folder/b/c.txt", attributes(file)));
+        assertEquals("3", cache.get("/folder2/a.txt", attributes(file)));
+    }
+
+    public void testRetainAll() throws Exception {
+        FileHashCache cache = new FileHashCache(storeFile);
+        cache.put("a.txt", attributes(file), "1");
+        cache.put("b.txt", attributes(file), "2");
+        cache.retainAll(Collections.singleton("b.txt"));
+        assertEquals(1, cache.size());
+        assertEquals("2", cache.get("b.txt", attributes(file)));
+    }
+
+    public void testSaveAndLoad() throws Exception {
+        FileHashCache cache = new FileHashCache(storeFile);
+        String md5 = cache.getMd5Sum("/a.txt", file);
+        cache.save();
+        assertTrue(storeFile.exists());
+
+        FileHashCache loaded = new FileHashCache(storeFile);
+        assertEquals(1, loaded.size());
+        assertEquals(md5, loaded.get("/a.txt", attributes(file)));
+    }
+
+    public void testIgnoreCorruptedFile() throws Exception {
+        writeFile(storeFile, "not a cache");
+        FileHashCache cache = new FileHashCache(storeFile);
+        assertEquals(0, cache.size());
+        assertNotNull(cache.getMd5Sum("/a.txt", file));
+    }
+
+    private void writeFile(File file, String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes());
+        }
+        // Make file old enough to be cached.
+        assertTrue(file.setLastModified(file.lastModified() - 60000));
+    }
+
+    private BasicFileAttributes attributes(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2015 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import org.eclipse.che.commons.lang.Pair;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author andrew00x
+ */
+public class HashTreeTest extends TestCase {
+    private static final String MD5_A = "0cc175b9c0f1b6a831c399e269772661";
+    private static final String MD5_B = "92eb5ffee6ae2fec3ad71c777531578f";
+    private static final String MD5_C = "4a8a08f09d37b73795649038408b5f33";
+
+    public void testSameTrees() throws Exception {
+        HashTree local = tree(MD5_A, "a.txt", MD5_B, "src/b.txt", MD5_C, "src/main/c.txt");
+        HashTree remote = transfer(tree(MD5_A, "a.txt", MD5_B, "src/b.txt", MD5_C, "src/main/c.txt"),
+                                   Collections.<String>emptyList());
+        assertEquals(local.getSum(), remote.getSum());
+        assertTrue(local.diff(remote).isEmpty());
+    }
+
+    public void testUpdatedFile() throws Exception {
+        HashTree local = tree(MD5_A, "a.txt", MD5_B, "src/b.txt", MD5_C, "src/main/c.txt");
+        HashTree remoteTree = tree(MD5_A, "a.txt", MD5_B, "src/b.txt", MD5_A, "src/main/c.txt");
+
+        HashTree.Diff diff = local.diff(transfer(remoteTree, Collections.<String>emptyList()));
+        assertEquals(Arrays.asList("src/main"), diff.getUnlistedFolders());
+        assertTrue(diff.getUpdatedFiles().isEmpty());
+
+        diff = local.diff(transfer(remoteTree, diff.getUnlistedFolders()));
+        assertTrue(diff.getUnlistedFolders().isEmpty());
+        assertEquals(Arrays.asList("src/main/c.txt"), diff.getUpdatedFiles());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getAddedFolders().isEmpty());
+    }
+
+    public void testAddedAndRemovedFiles() throws Exception {
+        HashTree local = tree(MD5_A, "a.txt", MD5_B, "b.txt");
+        HashTree remoteTree = tree(MD5_A, "a.txt", MD5_C, "c.txt");
+
+        HashTree.Diff diff = local.diff(transfer(remoteTree, Collections.singletonList("")));
+        assertEquals(Arrays.asList("b.txt"), diff.getUpdatedFiles());
+        assertEquals(Arrays.asList("c.txt"), diff.getRemoved());
+    }
+
+    public void testAddedAndRemovedFolders() throws Exception {
+        HashTree local = tree(MD5_A, "a.txt", MD5_B, "new/b.txt", MD5_C, "new/child/c.txt");
+        HashTree remoteTree = tree(MD5_A, "a.txt", MD5_B, "old/b.txt");
+
+        HashTree.Diff diff = local.diff(transfer(remoteTree, Collections.<String>emptyList()));
+        assertTrue(diff.getUnlistedFolders().isEmpty());
+        assertTrue(diff.getUpdatedFiles().isEmpty());
+        assertEquals(Arrays.asList("new"), diff.getAddedFolders());
+        assertEquals(Arrays.asList("old"), diff.getRemoved());
+    }
+
+    public void testUnchangedFolderIsNotCompared() throws Exception {
+        HashTree local = tree(MD5_A, "a.txt", MD5_B, "lib/b.txt", MD5_C, "src/c.txt");
+        HashTree remoteTree = tree(MD5_B, "a.txt", MD5_B, "lib/b.txt", MD5_C, "src/c.txt");
+
+        HashTree.Diff diff = local.diff(transfer(remoteTree, Collections.<String>emptyList()));
+        assertEquals(Arrays.asList(""), diff.getUnlistedFolders());
+        // Only files of changed folder are sent.
+        StringWriter writer = new StringWriter();
+        remoteTree.write(writer, diff.getUnlistedFolders());
+        assertFalse(writer.toString().contains("lib/b.txt"));
+        diff = local.diff(HashTree.read(new StringReader(writer.toString())));
+        assertEquals(Arrays.asList("a.txt"), diff.getUpdatedFiles());
+    }
+
+    public void testReadInvalidTree() throws Exception {
+        try {
+            HashTree.read(new StringReader("X something\n"));
+            fail("IOException expected");
+        } catch (IOException ignored) {
+        }
+        try {
+            HashTree.read(new StringReader("L src\n"));
+            fail("IOException expected");
+        } catch (IOException ignored) {
+        }
+    }
+
+    private HashTree tree(String... md5sumsAndPaths) {
+        List<Pair<String, String>> md5sums = new ArrayList<>();
+        for (int i = 0; i < md5sumsAndPaths.length; i += 2) {
+            md5sums.add(Pair.of(md5sumsAndPaths[i], md5sumsAndPaths[i + 1]));
+        }
+        return HashTree.fromMd5Sums(md5sums.iterator());
+    }
+
+    private HashTree transfer(HashTree tree, Collection<String> listFiles) throws IOException {
+        StringWriter writer = new StringWriter();
+        tree.write(writer, listFiles);
+        return HashTree.read(new StringReader(writer.toString()));
+    }
+}